@@ -83,6 +83,36 @@ public class TestAccountDao extends AccountTestSuiteWithEmbeddedDB {
         Assert.assertEquals(auditLogsForAccount.get(0).getChangeType(), ChangeType.INSERT);
     }
 
+    @Test(groups = "slow", description = "Test Account DAO: duplicates are detected by the unique indexes")
+    public void testCreateDuplicateAccount() throws AccountApiException {
+        final AccountModelDao account = createTestAccount();
+        accountDao.create(account, internalCallContext);
+
+        // Same id
+        try {
+            accountDao.create(account, internalCallContext);
+            Assert.fail();
+        } catch (final AccountApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.ACCOUNT_ALREADY_EXISTS.getCode());
+        }
+
+        // Same external key
+        final MutableAccountData accountDataWithSameKey = new DefaultAccount(createTestAccount()).toMutableAccountData();
+        accountDataWithSameKey.setExternalKey(account.getExternalKey());
+        final AccountModelDao accountWithSameKey = new AccountModelDao(UUID.randomUUID(), accountDataWithSameKey);
+        try {
+            accountDao.create(accountWithSameKey, internalCallContext);
+            Assert.fail();
+        } catch (final AccountApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.ACCOUNT_ALREADY_EXISTS.getCode());
+        }
+
+        // The failed attempts didn't leave any history or audit behind
+        final List<AuditLog> auditLogsForAccount = auditDao.getAuditLogsForId(TableName.ACCOUNT, account.getId(), AuditLevel.FULL, internalCallContext);
+        Assert.assertEquals(auditLogsForAccount.size(), 1);
+        Assert.assertNull(accountDao.getById(accountWithSameKey.getId(), internalCallContext));
+    }
+
     // Simple test to ensure long phone numbers can be stored
     @Test(groups = "slow", description = "Test Account DAO: long numbers")
     public void testLongPhoneNumber() throws AccountApiException {
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.api;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+public interface BillRun {
+
+    public UUID getId();
+
+    public DateTime getTargetDate();
+
+    public boolean isDryRun();
+
+    public BillRunState getState();
+
+    public long getNbAccountsProcessed();
+
+    public long getNbAccountsFailed();
+
+    public long getNbInvoices();
+
+    /**
+     * @return the percentage (0-100) of the accounts processed
+     */
+    public int getProgress();
+
+    public DateTime getStartDate();
+
+    public DateTime getUpdatedDate();
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.api;
+
+public enum BillRunState {
+    /* Accounts are being invoiced, or the bill run was interrupted and can be resumed */
+    RUNNING,
+    /* All accounts were invoiced */
+    COMPLETED,
+    /* All accounts were processed, but some of them failed to be invoiced: resuming the bill run retries those */
+    COMPLETED_WITH_FAILURES
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.api;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import com.ning.billing.util.callcontext.TenantContext;
+
+public interface BulkInvoiceUserApi {
+
+    /**
+     * Retrieve the balances of a set of accounts, using a constant number of queries.
+     *
+     * @param accountIds account ids
+     * @param context    the tenant context
+     * @return the balance of each account
+     */
+    public Map<UUID, BigDecimal> getAccountBalances(Collection<UUID> accountIds, TenantContext context);
+
+    /**
+     * Retrieve the credit balances (CBA) of a set of accounts, using a constant number of queries.
+     *
+     * @param accountIds account ids
+     * @param context    the tenant context
+     * @return the CBA of each account
+     */
+    public Map<UUID, BigDecimal> getAccountCBAs(Collection<UUID> accountIds, TenantContext context);
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.api;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+import com.ning.billing.util.callcontext.CallContext;
+import com.ning.billing.util.callcontext.TenantContext;
+
+public interface InvoiceBillRunApi {
+
+    /**
+     * Invoice all the accounts of the tenant. The bill run is processed in the background.
+     *
+     * @param targetDate target date for the invoices
+     * @param dryRun     whether to only compute the invoices, without persisting them
+     * @param context    call context
+     * @return the bill run, as started
+     */
+    public BillRun startBillRun(DateTime targetDate, boolean dryRun, CallContext context);
+
+    /**
+     * Resume an interrupted bill run from its last checkpoint, or retry the accounts which failed to be invoiced.
+     * The bill run is processed in the background.
+     *
+     * @param billRunId bill run id
+     * @param context   call context
+     * @return the bill run, as resumed
+     */
+    public BillRun resumeBillRun(UUID billRunId, CallContext context);
+
+    public BillRun getBillRun(UUID billRunId, TenantContext context);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.payment.api;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.ning.billing.account.api.Account;
+import com.ning.billing.util.callcontext.CallContext;
+
+public interface BulkPaymentApi {
+
+    /**
+     * Pay the balance of each invoice, taking the account lock once for all of them.
+     * Failures are reported per invoice and don't prevent the other invoices from being paid.
+     * <p/>
+     * The settlement gets the plugin timeout once per invoice. If it expires, the invoice being paid is reported
+     * with a PAYMENT_PLUGIN_TIMEOUT error, and the invoices after it are not attempted (and have no result).
+     *
+     * @param account           the account
+     * @param invoiceIds        invoices to pay
+     * @param isExternalPayment whether to record external payments instead of using the default payment method
+     * @param context           the call context
+     * @return the outcome for each invoice attempted, in the same order
+     * @throws PaymentApiException if the settlement could not start (e.g. the account lock could not be taken)
+     */
+    public List<InvoicePaymentResult> createPayments(Account account, List<UUID> invoiceIds, boolean isExternalPayment, CallContext context)
+            throws PaymentApiException;
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.payment.api;
+
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * Outcome of the payment of one invoice, as part of a bulk settlement.
+ */
+public class InvoicePaymentResult {
+
+    private final UUID invoiceId;
+    private final Payment payment;
+    private final PaymentApiException error;
+
+    public InvoicePaymentResult(final UUID invoiceId, @Nullable final Payment payment, @Nullable final PaymentApiException error) {
+        this.invoiceId = invoiceId;
+        this.payment = payment;
+        this.error = error;
+    }
+
+    public UUID getInvoiceId() {
+        return invoiceId;
+    }
+
+    /**
+     * @return the payment created, null if the payment failed or if there was nothing to pay
+     */
+    public Payment getPayment() {
+        return payment;
+    }
+
+    /**
+     * @return the reason of the failure, null if the payment succeeded
+     */
+    public PaymentApiException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -18,11 +18,13 @@ package com.ning.billing.subscription.api;
 
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
 
 import com.ning.billing.catalog.api.PlanPhaseSpecifier;
 import com.ning.billing.entitlement.api.EntitlementAOStatusDryRun;
@@ -65,12 +67,35 @@ public interface SubscriptionBaseInternalApi {
 
     public void setChargedThroughDate(final UUID subscriptionId, final DateTime chargedThruDate, final InternalCallContext context);
 
+    /**
+     * Update the charged through dates of subscriptions of the account in context, as part of the caller's transaction
+     *
+     * @param transactional       the caller's transaction, which must wrap entity sql daos (EntitySqlDaoWrapperFactory#asTransmogrifier) for the updates to be audited
+     * @param chargedThroughDates new charged through date per subscription id
+     * @param context             the call context
+     */
+    public void setChargedThroughDatesFromTransaction(final Transmogrifier transactional, final Map<UUID, DateTime> chargedThroughDates, final InternalCallContext context);
+
     public List<EffectiveSubscriptionInternalEvent> getAllTransitions(final SubscriptionBase subscription, final InternalTenantContext context);
 
     public List<EffectiveSubscriptionInternalEvent> getBillingTransitions(final SubscriptionBase subscription, final InternalTenantContext context);
 
     public DateTime getNextBillingDate(final UUID accountId, final InternalTenantContext context);
 
+    /**
+     * @param fromAccountRecordId lower bound (inclusive) of the account record ids
+     * @param toAccountRecordId   upper bound (exclusive) of the account record ids
+     * @param context             tenant context
+     * @return the ids of the accounts of the tenant with at least one bundle, per account record id
+     */
+    public SortedMap<Long, UUID> getAccountIdsWithBundles(final long fromAccountRecordId, final long toAccountRecordId, final InternalTenantContext context);
+
+    /**
+     * @param context tenant context
+     * @return the highest record id of the accounts of the tenant with at least one bundle, 0 if none
+     */
+    public long getMaxAccountRecordIdWithBundles(final InternalTenantContext context);
+
     public List<EntitlementAOStatusDryRun> getDryRunChangePlanStatus(final UUID subscriptionId, @Nullable final String baseProductName,
                                                                      final DateTime requestedDate, final InternalTenantContext context) throws SubscriptionBaseApiException;
 }
@@ -16,6 +16,7 @@
 
 package com.ning.billing.subscription.api.migration;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -130,4 +131,16 @@ public interface SubscriptionBaseMigrationApi {
      */
     public void migrate(AccountMigration toBeMigrated, CallContext context)
             throws SubscriptionBaseMigrationApiException;
+
+    /**
+     * Migrate all the existing entitlements associated with many accounts.
+     * The accounts are migrated in order, by chunks: each chunk is committed atomically, and bundles which already
+     * exist are skipped, so that a failed migration can be resumed.
+     *
+     * @param toBeMigrated the accounts to migrate
+     * @throws SubscriptionBaseMigrationApiException
+     *          an subscription api exception, which reports how many accounts were migrated (the checkpoint to resume from)
+     */
+    public void migrate(List<AccountMigration> toBeMigrated, CallContext context)
+            throws SubscriptionBaseMigrationApiException;
 }
@@ -20,19 +20,36 @@ public class SubscriptionBaseMigrationApiException extends Exception {
 
     private static final long serialVersionUID = 7623133L;
 
+    private final int nbMigratedAccounts;
+
     public SubscriptionBaseMigrationApiException() {
         super();
+        this.nbMigratedAccounts = 0;
     }
 
     public SubscriptionBaseMigrationApiException(final String message, final Throwable cause) {
-        super(message, cause);
+        this(message, cause, 0);
     }
 
     public SubscriptionBaseMigrationApiException(final String message) {
         super(message);
+        this.nbMigratedAccounts = 0;
     }
 
     public SubscriptionBaseMigrationApiException(final Throwable cause) {
         super(cause);
+        this.nbMigratedAccounts = 0;
+    }
+
+    public SubscriptionBaseMigrationApiException(final String message, final Throwable cause, final int nbMigratedAccounts) {
+        super(message, cause);
+        this.nbMigratedAccounts = nbMigratedAccounts;
+    }
+
+    /**
+     * @return for a bulk migration, the number of accounts (from the beginning of the list) which were migrated before the failure
+     */
+    public int getNbMigratedAccounts() {
+        return nbMigratedAccounts;
     }
 }
@@ -16,6 +16,7 @@
 
 package com.ning.billing.subscription.api.transfer;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -24,7 +25,7 @@ import com.ning.billing.subscription.api.user.SubscriptionBaseBundle;
 import com.ning.billing.util.callcontext.CallContext;
 
 /**
- * The interface {@code SubscriptionBaseTransferApi} is used to transfer a bundle from one account to another account.
+ * The interface {@code SubscriptionBaseTransferApi} is used to transfer bundles from one account to another account.
  */
 public interface SubscriptionBaseTransferApi {
 
@@ -43,4 +44,24 @@ public interface SubscriptionBaseTransferApi {
     public SubscriptionBaseBundle transferBundle(final UUID sourceAccountId, final UUID destAccountId, final String bundleKey, final DateTime requestedDate,
                                              final boolean transferAddOn, final boolean cancelImmediately, final CallContext context)
             throws SubscriptionBaseTransferApiException;
+
+    /**
+     * Transfer many bundles at once: the subscriptions of the source account are loaded in bulk, and all the bundles
+     * are transferred in a single transaction.
+     *
+     * @param sourceAccountId   the unique id for the account on which the bundles will be transferred from
+     * @param destAccountId     the unique id for the account on which the bundles will be transferred to
+     * @param bundleKeys        the externalKeys for the bundles, each key listed only once
+     * @param requestedDate     the date at which this transfer should occur
+     * @param transferAddOn     whether or not we should also transfer ADD_ON subscriptions existing on these {@code SubscriptionBaseBundle}
+     * @param cancelImmediately whether cancellation on the sourceAccount occurs immediately
+     * @param context           the user callcontext
+     * @return the newly created {@code SubscriptionBaseBundle}, in the order of the bundleKeys
+     * @throws SubscriptionBaseTransferApiException
+     *          if the system could not transfer one of the {@code SubscriptionBaseBundle} (none of them is transferred then)
+     *          or if a bundle key is listed more than once
+     */
+    public List<SubscriptionBaseBundle> transferBundles(final UUID sourceAccountId, final UUID destAccountId, final List<String> bundleKeys, final DateTime requestedDate,
+                                                        final boolean transferAddOn, final boolean cancelImmediately, final CallContext context)
+            throws SubscriptionBaseTransferApiException;
 }
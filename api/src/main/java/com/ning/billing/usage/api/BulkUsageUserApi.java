@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.usage.api;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+import com.ning.billing.util.callcontext.CallContext;
+import com.ning.billing.util.callcontext.TenantContext;
+
+public interface BulkUsageUserApi {
+
+    /**
+     * Record a batch of usage records synchronously
+     *
+     * @param rolledUpUsages usage records, for any number of subscriptions
+     * @param context        call context
+     */
+    public void recordRolledUpUsages(List<RolledUpUsage> rolledUpUsages, CallContext context);
+
+    /**
+     * @return the usage records of the subscription for that unit type, with a start time in [startTime, endTime)
+     */
+    public List<RolledUpUsage> getUsageForSubscription(UUID subscriptionId, String unitType, DateTime startTime, DateTime endTime, TenantContext context);
+
+    /**
+     * @return the total amount recorded for each unit type, over the records with a start time in [startTime, endTime)
+     */
+    public List<RolledUpUsage> getAggregatedUsageForSubscription(UUID subscriptionId, DateTime startTime, DateTime endTime, TenantContext context);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.api;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.ning.billing.util.callcontext.CallContext;
+
+public interface BulkExportUserApi {
+
+    /**
+     * Export the data for several accounts (of the current tenant) in a single pass, ordered by account record id
+     *
+     * @param accountIds account ids
+     * @param out        output stream
+     * @param context    call context
+     */
+    public void exportDataForAccounts(List<UUID> accountIds, DatabaseExportOutputStream out, CallContext context);
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.beatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.DBTestingHelper;
+import com.ning.billing.util.dao.QueryPlanValidator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ResourceInfo;
+
+/**
+ * Runs the QueryPlanValidator over every StringTemplate group of every module (beatrix has them all, along with
+ * their ddl, on its classpath). Exceptions are listed in QueryPlanExclusions.properties (util test resources).
+ */
+public class TestAllSqlDaoQueryPlans extends BeatrixTestSuiteWithEmbeddedDB {
+
+    // There are 25 groups in the main modules, make sure the classpath scanning didn't silently miss them
+    private static final int MIN_NB_GROUPS = 25;
+
+    // Attributes the groups can't provide themselves
+    private static final List<String> IDS = ImmutableList.<String>of(UUID.randomUUID().toString());
+    private static final Map<String, Map<String, Object>> GROUP_ATTRIBUTES = ImmutableMap.<String, Map<String, Object>>of(
+            "/com/ning/billing/invoice/dao/InvoiceItemSqlDao.sql.stg", ImmutableMap.<String, Object>of("account_ids", IDS),
+            "/com/ning/billing/invoice/dao/InvoicePaymentSqlDao.sql.stg", ImmutableMap.<String, Object>of("account_ids", IDS),
+            "/com/ning/billing/payment/retry/RetryNotificationSqlDao.sql.stg", ImmutableMap.<String, Object>of("tableName", "notifications"),
+            "/com/ning/billing/util/dao/NonEntitySqlDao.sql.stg", ImmutableMap.<String, Object>of("tableName", "tags", "historyTableName", "tag_history", "ids", IDS),
+            "/com/ning/billing/util/tag/dao/TagDefinitionSqlDao.sql.stg", ImmutableMap.<String, Object>of("tag_definition_ids", IDS));
+
+    @Test(groups = "slow")
+    public void testAllQueriesUseIndexes() throws Exception {
+        final QueryPlanValidator validator = new QueryPlanValidator(DBTestingHelper.getDBI());
+
+        int nbGroups = 0;
+        final List<String> fullScans = new ArrayList<String>();
+        for (final ResourceInfo resource : ClassPath.from(TestAllSqlDaoQueryPlans.class.getClassLoader()).getResources()) {
+            final String groupResource = "/" + resource.getResourceName();
+            if (!groupResource.startsWith("/com/ning/billing/") || !groupResource.endsWith(".sql.stg")) {
+                continue;
+            }
+
+            nbGroups++;
+            if (validator.isExcluded(groupResource)) {
+                continue;
+            }
+
+            final Map<String, Object> attributes = GROUP_ATTRIBUTES.get(groupResource);
+            fullScans.addAll(validator.validate(groupResource, attributes == null ? ImmutableMap.<String, Object>of() : attributes));
+        }
+
+        Assert.assertTrue(nbGroups >= MIN_NB_GROUPS, "Only found " + nbGroups + " StringTemplate groups");
+        Assert.assertTrue(fullScans.isEmpty(), fullScans.toString());
+    }
+}
@@ -101,7 +101,7 @@ public class BeatrixIntegrationModule extends AbstractModule {
 
         install(new GuicyKillbillTestWithEmbeddedDBModule());
 
-        install(new GlobalLockerModule());
+        install(new GlobalLockerModule(configSource));
         install(new CacheModule(configSource));
         install(new EmailModule(configSource));
         install(new CallContextModule());
@@ -123,7 +123,7 @@ public class BeatrixIntegrationModule extends AbstractModule {
         install(new CurrencyModule(configSource));
         install(new UsageModule(configSource));
         install(new TenantModule(configSource));
-        install(new ExportModule());
+        install(new ExportModule(configSource));
         install(new DefaultOSGIModule(configSource));
         install(new NonEntityDaoModule());
         install(new RecordIdModule());
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes a machine-readable (JSON) report, so results can be compared across builds.
+ * <p/>
+ * Usage: BenchmarkRunner [report file, defaults to target/benchmarks.json] [benchmark regexp, defaults to all]
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_REPORT = "target/benchmarks.json";
+    private static final String ALL_BENCHMARKS = "com\\.ning\\.billing\\.benchmarks\\..*";
+
+    public static void main(final String[] args) throws RunnerException {
+        final String report = args.length > 0 ? args[0] : DEFAULT_REPORT;
+        final String include = args.length > 1 ? args[1] : ALL_BENCHMARKS;
+
+        final Options options = new OptionsBuilder().include(include)
+                                                    .resultFormat(ResultFormatType.JSON)
+                                                    .result(report)
+                                                    .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.mockito.Mockito;
+
+import com.ning.billing.account.api.Account;
+import com.ning.billing.catalog.MockPlan;
+import com.ning.billing.catalog.MockPlanPhase;
+import com.ning.billing.catalog.MockPriceList;
+import com.ning.billing.catalog.api.BillingPeriod;
+import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.catalog.api.Plan;
+import com.ning.billing.catalog.api.PlanPhase;
+import com.ning.billing.catalog.api.PriceList;
+import com.ning.billing.entitlement.api.BlockingState;
+import com.ning.billing.entitlement.api.BlockingStateType;
+import com.ning.billing.entitlement.api.DefaultEntitlement;
+import com.ning.billing.entitlement.api.Entitlement;
+import com.ning.billing.junction.BillingEvent;
+import com.ning.billing.junction.BillingModeType;
+import com.ning.billing.junction.DefaultBlockingState;
+import com.ning.billing.junction.plumbing.billing.DefaultBillingEvent;
+import com.ning.billing.junction.plumbing.billing.DefaultBillingEventSet;
+import com.ning.billing.subscription.api.SubscriptionBase;
+import com.ning.billing.subscription.api.SubscriptionBaseTransitionType;
+import com.ning.billing.subscription.api.user.SubscriptionBaseTransition;
+
+/**
+ * Deterministic, in-memory data shared by the benchmarks: one account with N subscriptions (spread
+ * across bundles), M years of yearly price changes per subscription and K blocking states per bundle.
+ */
+public class SyntheticData {
+
+    public static final DateTimeZone TIME_ZONE = DateTimeZone.UTC;
+    public static final Currency CURRENCY = Currency.USD;
+    public static final int BCD = 1;
+    public static final int SUBSCRIPTIONS_PER_BUNDLE = 5;
+
+    private static final String BLOCKING_SERVICE = "benchmark-service";
+
+    private final Account account;
+    private final DateTime startDate;
+    private final List<SubscriptionBase> subscriptions;
+    private final List<UUID> bundleIds;
+    private final int nbYears;
+
+    public SyntheticData(final int nbSubscriptions, final int nbYears) {
+        this.nbYears = nbYears;
+        this.startDate = new DateTime(TIME_ZONE).withTimeAtStartOfDay().withDayOfMonth(BCD).minusYears(nbYears);
+
+        this.account = Mockito.mock(Account.class);
+        final UUID accountId = UUID.randomUUID();
+        Mockito.when(account.getId()).thenReturn(accountId);
+        Mockito.when(account.getCurrency()).thenReturn(CURRENCY);
+        Mockito.when(account.getTimeZone()).thenReturn(TIME_ZONE);
+
+        this.subscriptions = new ArrayList<SubscriptionBase>(nbSubscriptions);
+        this.bundleIds = new ArrayList<UUID>();
+        UUID bundleId = null;
+        for (int i = 0; i < nbSubscriptions; i++) {
+            if (i % SUBSCRIPTIONS_PER_BUNDLE == 0) {
+                bundleId = UUID.randomUUID();
+                bundleIds.add(bundleId);
+            }
+            final SubscriptionBase subscription = Mockito.mock(SubscriptionBase.class);
+            final UUID subscriptionId = UUID.randomUUID();
+            Mockito.when(subscription.getId()).thenReturn(subscriptionId);
+            Mockito.when(subscription.getBundleId()).thenReturn(bundleId);
+            Mockito.when(subscription.getStartDate()).thenReturn(startDate);
+            subscriptions.add(subscription);
+        }
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public List<SubscriptionBase> getSubscriptions() {
+        return subscriptions;
+    }
+
+    public List<UUID> getBundleIds() {
+        return bundleIds;
+    }
+
+    public DateTime getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * One CREATE event per subscription, followed by a CHANGE (price increase) every year.
+     */
+    public DefaultBillingEventSet createBillingEvents() {
+        final DefaultBillingEventSet events = new DefaultBillingEventSet();
+        final Plan plan = MockPlan.createBicycleNoTrialEvergreen1USD();
+        final PlanPhase phase = MockPlanPhase.create1USDMonthlyEvergreen();
+
+        long totalOrdering = 0;
+        for (final SubscriptionBase subscription : subscriptions) {
+            for (int year = 0; year <= nbYears; year++) {
+                final SubscriptionBaseTransitionType type = year == 0 ? SubscriptionBaseTransitionType.CREATE : SubscriptionBaseTransitionType.CHANGE;
+                final BillingEvent event = new DefaultBillingEvent(account, subscription, startDate.plusYears(year), plan, phase,
+                                                                   null, BigDecimal.ONE.add(new BigDecimal(year)), CURRENCY,
+                                                                   BillingPeriod.MONTHLY, BCD, BillingModeType.IN_ADVANCE,
+                                                                   type.toString(), totalOrdering++, type, TIME_ZONE);
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Alternating blocked/unblocked states on the given bundle, evenly spread over the history.
+     */
+    public List<BlockingState> createBlockingStates(final UUID bundleId, final int nbBlockingStates) {
+        final List<BlockingState> result = new LinkedList<BlockingState>();
+        if (nbBlockingStates == 0) {
+            return result;
+        }
+
+        final long stepMillis = (startDate.plusYears(nbYears).getMillis() - startDate.getMillis()) / (nbBlockingStates + 1);
+        for (int i = 0; i < nbBlockingStates; i++) {
+            final boolean blocked = i % 2 == 0;
+            result.add(new DefaultBlockingState(bundleId, BlockingStateType.SUBSCRIPTION_BUNDLE, blocked ? "BLOCKED" : "CLEAR", BLOCKING_SERVICE,
+                                                blocked, blocked, blocked, startDate.plus(stepMillis * (i + 1))));
+        }
+        return result;
+    }
+
+    /**
+     * Entitlements backed by subscriptions exposing a CREATE transition followed by a CHANGE every year.
+     */
+    public List<Entitlement> createEntitlements(final UUID bundleId) {
+        final Plan plan = MockPlan.createBicycleNoTrialEvergreen1USD();
+        final PlanPhase phase = MockPlanPhase.create1USDMonthlyEvergreen();
+        final PriceList priceList = new MockPriceList();
+
+        final List<Entitlement> result = new ArrayList<Entitlement>();
+        for (final SubscriptionBase subscription : subscriptions) {
+            if (!bundleId.equals(subscription.getBundleId())) {
+                continue;
+            }
+
+            final List<SubscriptionBaseTransition> transitions = new ArrayList<SubscriptionBaseTransition>();
+            for (int year = 0; year <= nbYears; year++) {
+                final SubscriptionBaseTransition transition = Mockito.mock(SubscriptionBaseTransition.class);
+                final DateTime effectiveDate = startDate.plusYears(year);
+                Mockito.when(transition.getId()).thenReturn(UUID.randomUUID());
+                Mockito.when(transition.getSubscriptionId()).thenReturn(subscription.getId());
+                Mockito.when(transition.getBundleId()).thenReturn(bundleId);
+                Mockito.when(transition.getEffectiveTransitionTime()).thenReturn(effectiveDate);
+                Mockito.when(transition.getRequestedTransitionTime()).thenReturn(effectiveDate);
+                Mockito.when(transition.getCreatedDate()).thenReturn(effectiveDate);
+                Mockito.when(transition.getTransitionType()).thenReturn(year == 0 ? SubscriptionBaseTransitionType.CREATE : SubscriptionBaseTransitionType.CHANGE);
+                Mockito.when(transition.getPreviousPlan()).thenReturn(year == 0 ? null : plan);
+                Mockito.when(transition.getPreviousPhase()).thenReturn(year == 0 ? null : phase);
+                Mockito.when(transition.getPreviousPriceList()).thenReturn(year == 0 ? null : priceList);
+                Mockito.when(transition.getNextPlan()).thenReturn(plan);
+                Mockito.when(transition.getNextPhase()).thenReturn(phase);
+                Mockito.when(transition.getNextPriceList()).thenReturn(priceList);
+                transitions.add(transition);
+            }
+            Mockito.when(subscription.getAllTransitions()).thenReturn(transitions);
+
+            final DefaultEntitlement entitlement = Mockito.mock(DefaultEntitlement.class);
+            Mockito.when(entitlement.getId()).thenReturn(subscription.getId());
+            Mockito.when(entitlement.getBundleId()).thenReturn(bundleId);
+            Mockito.when(entitlement.getSubscriptionBase()).thenReturn(subscription);
+            result.add(entitlement);
+        }
+        return result;
+    }
+}
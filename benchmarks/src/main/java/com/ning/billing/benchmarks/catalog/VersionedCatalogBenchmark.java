@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks.catalog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ning.billing.catalog.StandaloneCatalog;
+import com.ning.billing.catalog.VersionedCatalog;
+import com.ning.billing.catalog.api.CatalogApiException;
+import com.ning.billing.clock.DefaultClock;
+import com.ning.billing.util.config.catalog.XMLLoader;
+
+import com.google.common.io.Resources;
+
+/**
+ * Plan lookups across catalog versions (WeaponsHireSmall-1/2/3 from the catalog test resources).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VersionedCatalogBenchmark {
+
+    private static final String[] CATALOG_VERSIONS = {"versionedCatalog/WeaponsHireSmall-1.xml",
+                                                      "versionedCatalog/WeaponsHireSmall-2.xml",
+                                                      "versionedCatalog/WeaponsHireSmall-3.xml"};
+
+    @Param({"pistol-monthly", "shotgun-annual"})
+    public String planName;
+
+    // Within the first, second (before and after the existing subscriptions effective date) and last version
+    @Param({"2011-01-15T00:00:00Z", "2011-02-10T00:00:00Z", "2011-02-20T00:00:00Z", "2011-06-01T00:00:00Z"})
+    public String requestedDate;
+
+    private VersionedCatalog catalog;
+    private DateTime requestedDateTime;
+    private DateTime subscriptionStartDate;
+
+    @Setup
+    public void setup() throws Exception {
+        catalog = new VersionedCatalog(new DefaultClock());
+        for (final String version : CATALOG_VERSIONS) {
+            catalog.add(XMLLoader.getObjectFromUri(Resources.getResource(version).toURI(), StandaloneCatalog.class));
+        }
+        requestedDateTime = new DateTime(requestedDate);
+        subscriptionStartDate = new DateTime("2011-01-02T00:00:00Z");
+    }
+
+    @Benchmark
+    public void findPlanForNewSubscription(final Blackhole blackhole) throws CatalogApiException {
+        blackhole.consume(catalog.findPlan(planName, requestedDateTime));
+    }
+
+    @Benchmark
+    public void findPlanForExistingSubscription(final Blackhole blackhole) throws CatalogApiException {
+        blackhole.consume(catalog.findPlan(planName, requestedDateTime, subscriptionStartDate));
+    }
+}
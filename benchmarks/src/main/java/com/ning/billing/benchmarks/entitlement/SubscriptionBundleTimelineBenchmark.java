@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks.entitlement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ning.billing.benchmarks.SyntheticData;
+import com.ning.billing.entitlement.api.BlockingState;
+import com.ning.billing.entitlement.api.DefaultSubscriptionBundleTimeline;
+import com.ning.billing.entitlement.api.Entitlement;
+
+/**
+ * Construction of the bundle timeline, merging the subscription base transitions with the blocking states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SubscriptionBundleTimelineBenchmark {
+
+    // Capped by SyntheticData.SUBSCRIPTIONS_PER_BUNDLE
+    @Param({"1", "5"})
+    public int nbSubscriptions;
+
+    @Param({"1", "5"})
+    public int nbYears;
+
+    @Param({"0", "4", "20"})
+    public int nbBlockingStates;
+
+    private UUID accountId;
+    private UUID bundleId;
+    private List<Entitlement> entitlements;
+    private List<BlockingState> blockingStates;
+
+    @Setup
+    public void setup() {
+        final SyntheticData data = new SyntheticData(nbSubscriptions, nbYears);
+        accountId = data.getAccount().getId();
+        bundleId = data.getBundleIds().get(0);
+        entitlements = data.createEntitlements(bundleId);
+        blockingStates = data.createBlockingStates(bundleId, nbBlockingStates);
+    }
+
+    @Benchmark
+    public void buildTimeline(final Blackhole blackhole) {
+        // The timeline sorts the blocking states in place
+        final List<BlockingState> allBlockingStates = new ArrayList<BlockingState>(blockingStates);
+        blackhole.consume(new DefaultSubscriptionBundleTimeline(SyntheticData.TIME_ZONE, accountId, bundleId, "benchmark", entitlements, allBlockingStates));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks.invoice;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ning.billing.benchmarks.SyntheticData;
+import com.ning.billing.catalog.api.BillingPeriod;
+import com.ning.billing.invoice.model.InAdvanceBillingMode;
+import com.ning.billing.invoice.model.InvalidDateSequenceException;
+
+/**
+ * Recurring item computation for a single (evergreen) billing period, which is called once per billing event
+ * by the invoice generator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InAdvanceBillingModeBenchmark {
+
+    @Param({"MONTHLY", "ANNUAL"})
+    public BillingPeriod billingPeriod;
+
+    @Param({"1", "5", "10"})
+    public int nbYears;
+
+    private final InAdvanceBillingMode billingMode = new InAdvanceBillingMode();
+
+    private LocalDate startDate;
+    private LocalDate targetDate;
+
+    @Setup
+    public void setup() {
+        targetDate = new LocalDate(SyntheticData.TIME_ZONE);
+        startDate = targetDate.minusYears(nbYears).withDayOfMonth(SyntheticData.BCD);
+    }
+
+    @Benchmark
+    public void calculateInvoiceItemData(final Blackhole blackhole) throws InvalidDateSequenceException {
+        blackhole.consume(billingMode.calculateInvoiceItemData(startDate, null, targetDate, SyntheticData.BCD, billingPeriod));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks.invoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.skife.config.ConfigurationObjectFactory;
+
+import com.ning.billing.benchmarks.SyntheticData;
+import com.ning.billing.clock.DefaultClock;
+import com.ning.billing.invoice.api.Invoice;
+import com.ning.billing.invoice.api.InvoiceApiException;
+import com.ning.billing.invoice.generator.DefaultInvoiceGenerator;
+import com.ning.billing.junction.BillingEventSet;
+import com.ning.billing.util.config.InvoiceConfig;
+
+/**
+ * Full invoice generation for a single account, either from scratch or against an up-to-date existing invoice
+ * (the steady state of a bill run, where the proposed items are all reconciled against existing ones).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InvoiceGeneratorBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int nbSubscriptions;
+
+    @Param({"1", "5"})
+    public int nbYears;
+
+    @Param({"false", "true"})
+    public boolean withExistingInvoice;
+
+    private DefaultInvoiceGenerator generator;
+    private SyntheticData data;
+    private BillingEventSet events;
+    private List<Invoice> existingInvoices;
+    private LocalDate targetDate;
+
+    @Setup
+    public void setup() throws InvoiceApiException {
+        final InvoiceConfig config = new ConfigurationObjectFactory(System.getProperties()).build(InvoiceConfig.class);
+        generator = new DefaultInvoiceGenerator(new DefaultClock(), config);
+
+        data = new SyntheticData(nbSubscriptions, nbYears);
+        events = data.createBillingEvents();
+        targetDate = new LocalDate(SyntheticData.TIME_ZONE);
+
+        existingInvoices = new ArrayList<Invoice>();
+        if (withExistingInvoice) {
+            final Invoice invoice = generator.generateInvoice(data.getAccount().getId(), events, null, targetDate, SyntheticData.CURRENCY);
+            if (invoice != null) {
+                existingInvoices.add(invoice);
+            }
+        }
+    }
+
+    @Benchmark
+    public void generateInvoice(final Blackhole blackhole) throws InvoiceApiException {
+        blackhole.consume(generator.generateInvoice(data.getAccount().getId(), events, existingInvoices, targetDate, SyntheticData.CURRENCY));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.benchmarks.junction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ning.billing.benchmarks.SyntheticData;
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.entitlement.api.Blockable;
+import com.ning.billing.entitlement.api.BlockingState;
+import com.ning.billing.junction.BlockingInternalApi;
+import com.ning.billing.junction.plumbing.billing.BlockingCalculator;
+import com.ning.billing.junction.plumbing.billing.DefaultBillingEventSet;
+
+/**
+ * Insertion of the disabled/enabled billing events derived from the blocking states of each bundle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BlockingCalculatorBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int nbSubscriptions;
+
+    @Param({"1", "5"})
+    public int nbYears;
+
+    @Param({"0", "4", "20"})
+    public int nbBlockingStates;
+
+    private final InternalTenantContext context = new InternalTenantContext(1L, 1L);
+
+    private BlockingCalculator blockingCalculator;
+    private DefaultBillingEventSet events;
+    private DefaultBillingEventSet eventsCopy;
+
+    @Setup
+    public void setup() {
+        final SyntheticData data = new SyntheticData(nbSubscriptions, nbYears);
+        events = data.createBillingEvents();
+
+        final Map<UUID, List<BlockingState>> blockingStates = new HashMap<UUID, List<BlockingState>>();
+        for (final UUID bundleId : data.getBundleIds()) {
+            blockingStates.put(bundleId, data.createBlockingStates(bundleId, nbBlockingStates));
+        }
+        blockingCalculator = new BlockingCalculator(new InMemoryBlockingInternalApi(blockingStates));
+    }
+
+    // insertBlockingEvents updates the set in place
+    @Setup(Level.Invocation)
+    public void copyEvents() {
+        eventsCopy = new DefaultBillingEventSet();
+        eventsCopy.addAll(events);
+    }
+
+    @Benchmark
+    public void insertBlockingEvents(final Blackhole blackhole) {
+        blockingCalculator.insertBlockingEvents(eventsCopy, context);
+        blackhole.consume(eventsCopy);
+    }
+
+    private static final class InMemoryBlockingInternalApi implements BlockingInternalApi {
+
+        private final Map<UUID, List<BlockingState>> blockingStates;
+
+        private InMemoryBlockingInternalApi(final Map<UUID, List<BlockingState>> blockingStates) {
+            this.blockingStates = blockingStates;
+        }
+
+        @Override
+        public BlockingState getBlockingStateForService(final Blockable blockable, final String serviceName, final InternalTenantContext context) {
+            return getBlockingStateForService(blockable.getId(), serviceName, context);
+        }
+
+        @Override
+        public BlockingState getBlockingStateForService(final UUID blockableId, final String serviceName, final InternalTenantContext context) {
+            final List<BlockingState> history = getBlockingHistoryForService(blockableId, serviceName, context);
+            return history.isEmpty() ? null : history.get(history.size() - 1);
+        }
+
+        @Override
+        public List<BlockingState> getBlockingHistoryForService(final Blockable blockable, final String serviceName, final InternalTenantContext context) {
+            return getBlockingHistoryForService(blockable.getId(), serviceName, context);
+        }
+
+        @Override
+        public List<BlockingState> getBlockingHistoryForService(final UUID blockableId, final String serviceName, final InternalTenantContext context) {
+            final List<BlockingState> result = new ArrayList<BlockingState>();
+            for (final BlockingState state : getBlockingAll(blockableId, context)) {
+                if (state.getService().equals(serviceName)) {
+                    result.add(state);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<BlockingState> getBlockingAll(final Blockable blockable, final InternalTenantContext context) {
+            return getBlockingAll(blockable.getId(), context);
+        }
+
+        // Callers append to the returned list, so always hand out a fresh copy
+        @Override
+        public List<BlockingState> getBlockingAll(final UUID blockableId, final InternalTenantContext context) {
+            final List<BlockingState> states = blockingStates.get(blockableId);
+            return states == null ? new ArrayList<BlockingState>() : new ArrayList<BlockingState>(states);
+        }
+
+        @Override
+        public void setBlockingState(final BlockingState state, final InternalCallContext context) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
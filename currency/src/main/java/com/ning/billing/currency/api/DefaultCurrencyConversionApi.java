@@ -17,6 +17,9 @@
 package com.ning.billing.currency.api;
 
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -28,16 +31,48 @@ import com.ning.billing.currency.plugin.api.CurrencyPluginApi;
 import com.ning.billing.osgi.api.OSGIServiceRegistration;
 import com.ning.billing.util.config.CurrencyConfig;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 public class DefaultCurrencyConversionApi implements CurrencyConversionApi {
 
     private final CurrencyConfig config;
     private final OSGIServiceRegistration<CurrencyPluginApi> registry;
 
+    // Current rates change over time and are only cached for a short period, rates for a given date are immutable
+    private final Cache<Currency, CurrencyConversion> currentConversions;
+    private final Cache<ConversionKey, CurrencyConversion> historicalConversions;
+
     @Inject
-    public DefaultCurrencyConversionApi(final CurrencyConfig config, final OSGIServiceRegistration<CurrencyPluginApi> registry) {
+    public DefaultCurrencyConversionApi(final CurrencyConfig config, final OSGIServiceRegistration<CurrencyPluginApi> registry, final MetricRegistry metricRegistry) {
+        this(config, registry, metricRegistry, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    DefaultCurrencyConversionApi(final CurrencyConfig config, final OSGIServiceRegistration<CurrencyPluginApi> registry, final MetricRegistry metricRegistry, final Ticker ticker) {
         this.config = config;
         this.registry = registry;
 
+        this.currentConversions = CacheBuilder.newBuilder()
+                                              .maximumSize(config.getConversionCacheMaxSize())
+                                              .expireAfterWrite(config.getCurrentConversionCacheTTL().getMillis(), TimeUnit.MILLISECONDS)
+                                              .ticker(ticker)
+                                              .recordStats()
+                                              .build();
+        this.historicalConversions = CacheBuilder.newBuilder()
+                                                 .maximumSize(config.getConversionCacheMaxSize())
+                                                 .recordStats()
+                                                 .build();
+        registerCacheMetrics(metricRegistry, "current", currentConversions);
+        registerCacheMetrics(metricRegistry, "historical", historicalConversions);
     }
 
     private CurrencyPluginApi getPluginApi() throws CurrencyConversionException {
@@ -56,18 +91,116 @@ public class DefaultCurrencyConversionApi implements CurrencyConversionApi {
 
     @Override
     public CurrencyConversion getCurrentCurrencyConversion(final Currency baseCurrency) throws CurrencyConversionException {
-        final Set<Rate> allRates = getPluginApi().getCurrentRates(baseCurrency);
-        return getCurrencyConversionInternal(baseCurrency, allRates);
+        // Concurrent misses for the same key are coalesced into a single call to the plugin
+        return getOrLoad(currentConversions, baseCurrency, baseCurrency, new RatesLoader() {
+            @Override
+            public Set<Rate> getRates() throws CurrencyConversionException {
+                return getPluginApi().getCurrentRates(baseCurrency);
+            }
+        });
     }
 
     @Override
     public CurrencyConversion getCurrencyConversion(final Currency baseCurrency, final DateTime dateConversion) throws CurrencyConversionException {
-        final Set<Rate> allRates = getPluginApi().getRates(baseCurrency, dateConversion);
-        return getCurrencyConversionInternal(baseCurrency, allRates);
+        return getOrLoad(historicalConversions, new ConversionKey(baseCurrency, dateConversion), baseCurrency, new RatesLoader() {
+            @Override
+            public Set<Rate> getRates() throws CurrencyConversionException {
+                return getPluginApi().getRates(baseCurrency, dateConversion);
+            }
+        });
+    }
+
+    private <K> CurrencyConversion getOrLoad(final Cache<K, CurrencyConversion> cache, final K key, final Currency baseCurrency, final RatesLoader ratesLoader) throws CurrencyConversionException {
+        try {
+            return cache.get(key, new Callable<CurrencyConversion>() {
+                @Override
+                public CurrencyConversion call() throws Exception {
+                    final Set<Rate> allRates = ratesLoader.getRates();
+                    if (allRates == null) {
+                        // Don't cache missing rates, the plugin may know about them later
+                        throw new NoRatesException();
+                    }
+                    return getCurrencyConversionInternal(baseCurrency, allRates);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NoRatesException) {
+                return getCurrencyConversionInternal(baseCurrency, null);
+            }
+            Throwables.propagateIfInstanceOf(e.getCause(), CurrencyConversionException.class);
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
     }
 
     private CurrencyConversion getCurrencyConversionInternal(final Currency baseCurrency, final Set<Rate> allRates) {
-        final CurrencyConversion result = new DefaultCurrencyConversion(baseCurrency, allRates);
+        // The conversion may be shared via the caches, make sure it cannot be modified
+        final CurrencyConversion result = new DefaultCurrencyConversion(baseCurrency, allRates == null ? null : ImmutableSet.<Rate>copyOf(allRates));
         return result;
     }
+
+    private void registerCacheMetrics(final MetricRegistry metricRegistry, final String cacheName, final Cache<?, CurrencyConversion> cache) {
+        metricRegistry.register(MetricRegistry.name(DefaultCurrencyConversionApi.class, cacheName, "hitRate"), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return cache.stats().hitRate();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(DefaultCurrencyConversionApi.class, cacheName, "hits"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return cache.stats().hitCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(DefaultCurrencyConversionApi.class, cacheName, "misses"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return cache.stats().missCount();
+            }
+        });
+        metricRegistry.register(MetricRegistry.name(DefaultCurrencyConversionApi.class, cacheName, "size"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return cache.size();
+            }
+        });
+    }
+
+    private interface RatesLoader {
+
+        public Set<Rate> getRates() throws CurrencyConversionException;
+    }
+
+    private static final class NoRatesException extends Exception {
+    }
+
+    private static final class ConversionKey {
+
+        private final Currency baseCurrency;
+        // Normalized, so that the same instant in different time zones maps to the same entry
+        private final long conversionDateMillis;
+
+        private ConversionKey(final Currency baseCurrency, final DateTime dateConversion) {
+            this.baseCurrency = baseCurrency;
+            this.conversionDateMillis = dateConversion.getMillis();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ConversionKey that = (ConversionKey) o;
+            return conversionDateMillis == that.conversionDateMillis && baseCurrency == that.baseCurrency;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(baseCurrency, conversionDateMillis);
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.currency.api;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.ning.billing.GuicyKillbillTestSuiteNoDB;
+import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.currency.plugin.api.CurrencyPluginApi;
+import com.ning.billing.osgi.api.OSGIServiceRegistration;
+import com.ning.billing.util.config.CurrencyConfig;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+
+public class TestDefaultCurrencyConversionApi extends GuicyKillbillTestSuiteNoDB {
+
+    private static final String PLUGIN_NAME = "test-currency-plugin";
+
+    private CurrencyPluginApi pluginApi;
+    private FakeTicker ticker;
+    private MetricRegistry metricRegistry;
+    private DefaultCurrencyConversionApi currencyConversionApi;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        pluginApi = Mockito.mock(CurrencyPluginApi.class);
+        final Set<Rate> rates = ImmutableSet.<Rate>of(Mockito.mock(Rate.class));
+        Mockito.when(pluginApi.getCurrentRates(Mockito.<Currency>any())).thenReturn(rates);
+        Mockito.when(pluginApi.getRates(Mockito.<Currency>any(), Mockito.<DateTime>any())).thenReturn(rates);
+
+        @SuppressWarnings("unchecked")
+        final OSGIServiceRegistration<CurrencyPluginApi> registry = Mockito.mock(OSGIServiceRegistration.class);
+        Mockito.when(registry.getServiceForName(PLUGIN_NAME)).thenReturn(pluginApi);
+
+        final CurrencyConfig config = Mockito.mock(CurrencyConfig.class);
+        Mockito.when(config.getDefaultCurrencyProvider()).thenReturn(PLUGIN_NAME);
+        Mockito.when(config.getConversionCacheMaxSize()).thenReturn(2);
+        Mockito.when(config.getCurrentConversionCacheTTL()).thenReturn(new TimeSpan("5m"));
+
+        ticker = new FakeTicker();
+        metricRegistry = new MetricRegistry();
+        currencyConversionApi = new DefaultCurrencyConversionApi(config, registry, metricRegistry, ticker);
+    }
+
+    @Test(groups = "fast")
+    public void testCurrentConversionsExpireAfterTTL() throws Exception {
+        final CurrencyConversion conversion = currencyConversionApi.getCurrentCurrencyConversion(Currency.USD);
+        Assert.assertEquals(conversion.getBaseCurrency(), Currency.USD);
+        Assert.assertSame(currencyConversionApi.getCurrentCurrencyConversion(Currency.USD), conversion);
+        Mockito.verify(pluginApi, Mockito.times(1)).getCurrentRates(Currency.USD);
+
+        ticker.advance(4, TimeUnit.MINUTES);
+        Assert.assertSame(currencyConversionApi.getCurrentCurrencyConversion(Currency.USD), conversion);
+        Mockito.verify(pluginApi, Mockito.times(1)).getCurrentRates(Currency.USD);
+
+        ticker.advance(2, TimeUnit.MINUTES);
+        Assert.assertNotSame(currencyConversionApi.getCurrentCurrencyConversion(Currency.USD), conversion);
+        Mockito.verify(pluginApi, Mockito.times(2)).getCurrentRates(Currency.USD);
+    }
+
+    @Test(groups = "fast")
+    public void testHistoricalConversionsAreBoundedInSize() throws Exception {
+        final DateTime firstDate = new DateTime(2013, 1, 1, 0, 0, DateTimeZone.UTC);
+        for (int i = 0; i < 3; i++) {
+            currencyConversionApi.getCurrencyConversion(Currency.USD, firstDate.plusDays(i));
+        }
+        Assert.assertEquals(getGaugeValue("historical", "size"), (Long) 2L);
+
+        // The least recently used entry was evicted
+        currencyConversionApi.getCurrencyConversion(Currency.USD, firstDate);
+        Mockito.verify(pluginApi, Mockito.times(2)).getRates(Currency.USD, firstDate);
+
+        // The same instant in another time zone hits the cache
+        currencyConversionApi.getCurrencyConversion(Currency.USD, firstDate.toDateTime(DateTimeZone.forOffsetHours(-8)));
+        Mockito.verify(pluginApi, Mockito.times(2)).getRates(Mockito.eq(Currency.USD), Mockito.<DateTime>any());
+        Assert.assertEquals(getGaugeValue("historical", "size"), (Long) 2L);
+    }
+
+    @Test(groups = "fast")
+    public void testMissingRatesAreNotCached() throws Exception {
+        Mockito.when(pluginApi.getCurrentRates(Currency.EUR)).thenReturn(null);
+
+        Assert.assertNull(currencyConversionApi.getCurrentCurrencyConversion(Currency.EUR).getRates());
+        Assert.assertNull(currencyConversionApi.getCurrentCurrencyConversion(Currency.EUR).getRates());
+        Mockito.verify(pluginApi, Mockito.times(2)).getCurrentRates(Currency.EUR);
+        Assert.assertEquals(getGaugeValue("current", "size"), (Long) 0L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Long getGaugeValue(final String cacheName, final String metricName) {
+        final Gauge<Long> gauge = metricRegistry.getGauges().get(MetricRegistry.name(DefaultCurrencyConversionApi.class, cacheName, metricName));
+        return gauge.getValue();
+    }
+
+    private static final class FakeTicker extends Ticker {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        public void advance(final long duration, final TimeUnit timeUnit) {
+            nanos.addAndGet(timeUnit.toNanos(duration));
+        }
+    }
+}
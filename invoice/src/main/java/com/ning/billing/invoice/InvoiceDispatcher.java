@@ -34,14 +34,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ning.billing.ErrorCode;
-import com.ning.billing.ObjectType;
 import com.ning.billing.account.api.Account;
 import com.ning.billing.account.api.AccountApiException;
 import com.ning.billing.account.api.AccountInternalApi;
 import com.ning.billing.bus.api.PersistentBus;
 import com.ning.billing.bus.api.PersistentBus.EventBusException;
 import com.ning.billing.callcontext.InternalCallContext;
-import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.catalog.api.Currency;
 import com.ning.billing.clock.Clock;
 import com.ning.billing.commons.locker.GlobalLock;
@@ -55,7 +53,6 @@ import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
 import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.invoice.api.InvoiceItemType;
-import com.ning.billing.invoice.api.InvoiceNotifier;
 import com.ning.billing.invoice.api.InvoicePayment;
 import com.ning.billing.invoice.api.user.DefaultInvoiceAdjustmentEvent;
 import com.ning.billing.invoice.api.user.DefaultInvoiceCreationEvent;
@@ -72,8 +69,6 @@ import com.ning.billing.junction.BillingEventSet;
 import com.ning.billing.junction.BillingInternalApi;
 import com.ning.billing.subscription.api.SubscriptionBaseInternalApi;
 import com.ning.billing.subscription.api.user.SubscriptionBaseApiException;
-import com.ning.billing.util.callcontext.TenantContext;
-import com.ning.billing.util.dao.NonEntityDao;
 import com.ning.billing.util.globallocker.LockerType;
 import com.ning.billing.util.timezone.DateAndTimeZoneContext;
 
@@ -94,8 +89,6 @@ public class InvoiceDispatcher {
     private final AccountInternalApi accountApi;
     private final SubscriptionBaseInternalApi subscriptionApi;
     private final InvoiceDao invoiceDao;
-    private final NonEntityDao nonEntityDao;
-    private final InvoiceNotifier invoiceNotifier;
     private final GlobalLocker locker;
     private final PersistentBus eventBus;
     private final Clock clock;
@@ -105,8 +98,6 @@ public class InvoiceDispatcher {
                              final BillingInternalApi billingApi,
                              final SubscriptionBaseInternalApi SubscriptionApi,
                              final InvoiceDao invoiceDao,
-                             final NonEntityDao nonEntityDao,
-                             final InvoiceNotifier invoiceNotifier,
                              final GlobalLocker locker,
                              final PersistentBus eventBus,
                              final Clock clock) {
@@ -115,8 +106,6 @@ public class InvoiceDispatcher {
         this.subscriptionApi = SubscriptionApi;
         this.accountApi = accountApi;
         this.invoiceDao = invoiceDao;
-        this.nonEntityDao = nonEntityDao;
-        this.invoiceNotifier = invoiceNotifier;
         this.locker = locker;
         this.eventBus = eventBus;
         this.clock = clock;
@@ -239,12 +228,10 @@ public class InvoiceDispatcher {
                                                                                                                                                      }));
 
                     final Map<UUID, DateTime> callbackDateTimePerSubscriptions = createNextFutureNotificationDate(invoiceItemModelDaos, dateAndTimeZoneContext);
-                    invoiceDao.createInvoice(invoiceModelDao, invoiceItemModelDaos, invoicePaymentModelDaos, isRealInvoiceWithItems, callbackDateTimePerSubscriptions, context);
 
                     final List<InvoiceItem> fixedPriceInvoiceItems = invoice.getInvoiceItems(FixedPriceInvoiceItem.class);
                     final List<InvoiceItem> recurringInvoiceItems = invoice.getInvoiceItems(RecurringInvoiceItem.class);
-                    setChargedThroughDates(dateAndTimeZoneContext, fixedPriceInvoiceItems, recurringInvoiceItems, context);
-
+                    final Map<UUID, DateTime> chargedThroughDates = computeChargedThroughDates(dateAndTimeZoneContext, fixedPriceInvoiceItems, recurringInvoiceItems);
 
                     final List<InvoiceInternalEvent> events = new ArrayList<InvoiceInternalEvent>();
                     if (isRealInvoiceWithItems) {
@@ -258,19 +245,12 @@ public class InvoiceDispatcher {
                         events.add(event);
                     }
 
-
-                    for (InvoiceInternalEvent event : events) {
-                        postEvent(event, accountId, context);
-                    }
+                    // The events are posted, and the invoice notification (if any) is queued, in the invoice transaction
+                    invoiceDao.createInvoice(invoiceModelDao, invoiceItemModelDaos, invoicePaymentModelDaos, isRealInvoiceWithItems, callbackDateTimePerSubscriptions,
+                                             chargedThroughDates, events, account.isNotifiedForInvoices(), context);
                 }
             }
 
-            if (account.isNotifiedForInvoices() && invoice != null && !dryRun) {
-                // Need to re-hydrate the invoice object to get the invoice number (record id)
-                // API_FIX InvoiceNotifier public API?
-                invoiceNotifier.notify(account, new DefaultInvoice(invoiceDao.getById(invoice.getId(), context)), buildTenantContext(context));
-            }
-
             return invoice;
         } catch (AccountApiException e) {
             log.error("Failed handling SubscriptionBase change.", e);
@@ -278,10 +258,6 @@ public class InvoiceDispatcher {
         }
     }
 
-    private TenantContext buildTenantContext(final InternalTenantContext context) {
-        return context.toTenantContext(nonEntityDao.retrieveIdFromObject(context.getTenantRecordId(), ObjectType.TENANT));
-    }
-
     @VisibleForTesting
     Map<UUID, DateTime> createNextFutureNotificationDate(final List<InvoiceItemModelDao> invoiceItems, final DateAndTimeZoneContext dateAndTimeZoneContext) {
         final Map<UUID, DateTime> result = new HashMap<UUID, DateTime>();
@@ -302,20 +278,14 @@ public class InvoiceDispatcher {
         return result;
     }
 
-    private void setChargedThroughDates(final DateAndTimeZoneContext dateAndTimeZoneContext,
-                                        final Collection<InvoiceItem> fixedPriceItems,
-                                        final Collection<InvoiceItem> recurringItems,
-                                        final InternalCallContext context) {
+    private Map<UUID, DateTime> computeChargedThroughDates(final DateAndTimeZoneContext dateAndTimeZoneContext,
+                                                           final Collection<InvoiceItem> fixedPriceItems,
+                                                           final Collection<InvoiceItem> recurringItems) {
         final Map<UUID, DateTime> chargeThroughDates = new HashMap<UUID, DateTime>();
         addInvoiceItemsToChargeThroughDates(dateAndTimeZoneContext, chargeThroughDates, fixedPriceItems);
         addInvoiceItemsToChargeThroughDates(dateAndTimeZoneContext, chargeThroughDates, recurringItems);
-
-        for (final UUID subscriptionId : chargeThroughDates.keySet()) {
-            if (subscriptionId != null) {
-                final DateTime chargeThroughDate = chargeThroughDates.get(subscriptionId);
-                subscriptionApi.setChargedThroughDate(subscriptionId, chargeThroughDate, context);
-            }
-        }
+        chargeThroughDates.remove(null);
+        return chargeThroughDates;
     }
 
     private void postEvent(final BusInternalEvent event, final UUID accountId, final InternalCallContext context) {
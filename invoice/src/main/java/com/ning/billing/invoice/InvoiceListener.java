@@ -16,6 +16,7 @@
 
 package com.ning.billing.invoice;
 
+import java.io.IOException;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -28,6 +29,8 @@ import com.ning.billing.clock.Clock;
 import com.ning.billing.events.BlockingTransitionInternalEvent;
 import com.ning.billing.subscription.api.SubscriptionBaseTransitionType;
 import com.ning.billing.invoice.api.InvoiceApiException;
+import com.ning.billing.invoice.notification.NextBillingDatePoster;
+import com.ning.billing.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
 import com.ning.billing.util.callcontext.CallOrigin;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.util.callcontext.InternalCallContextFactory;
@@ -48,14 +51,16 @@ public class InvoiceListener {
     private final InternalCallContextFactory internalCallContextFactory;
     private final AccountInternalApi accountApi;
     private final InvoiceConfig invoiceConfig;
+    private final NextBillingDatePoster nextBillingDatePoster;
     private final Clock clock;
 
     @Inject
     public InvoiceListener(final AccountInternalApi accountApi, final Clock clock, final InternalCallContextFactory internalCallContextFactory,
-                           final InvoiceConfig invoiceConfig, final InvoiceDispatcher dispatcher) {
+                           final InvoiceConfig invoiceConfig, final NextBillingDatePoster nextBillingDatePoster, final InvoiceDispatcher dispatcher) {
         this.accountApi = accountApi;
         this.dispatcher = dispatcher;
         this.invoiceConfig = invoiceConfig;
+        this.nextBillingDatePoster = nextBillingDatePoster;
         this.internalCallContextFactory = internalCallContextFactory;
         this.clock = clock;
     }
@@ -65,7 +70,7 @@ public class InvoiceListener {
 
         try {
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "RepairBundle", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
-            dispatcher.processAccount(event.getAccountId(), event.getEffectiveDate(), false, context);
+            processAccount(event.getAccountId(), event.getEffectiveDate(), context);
         } catch (InvoiceApiException e) {
             log.error(e.getMessage());
         }
@@ -83,9 +88,16 @@ public class InvoiceListener {
                 return;
             }
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "SubscriptionBaseTransition", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
-            dispatcher.processSubscription(event, context);
+            if (isInvoiceRunCoalesced()) {
+                final UUID accountId = accountApi.getByRecordId(event.getSearchKey1(), context);
+                processAccount(accountId, event.getEffectiveTransitionTime(), context);
+            } else {
+                dispatcher.processSubscription(event, context);
+            }
         } catch (InvoiceApiException e) {
             log.error(e.getMessage());
+        } catch (AccountApiException e) {
+            log.error(e.getMessage());
         }
     }
 
@@ -94,7 +106,7 @@ public class InvoiceListener {
 
         try {
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "SubscriptionBaseTransition", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
-            dispatcher.processAccount(event.getAccountId(), event.getEffectiveTransitionTime(), false, context);
+            processAccount(event.getAccountId(), event.getEffectiveTransitionTime(), context);
         } catch (InvoiceApiException e) {
             log.error(e.getMessage());
         }
@@ -112,7 +124,7 @@ public class InvoiceListener {
         try {
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "SubscriptionBaseTransition", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
             final UUID accountId = accountApi.getByRecordId(event.getSearchKey1(), context);
-            dispatcher.processAccount(accountId, clock.getUTCNow(), false, context);
+            processAccount(accountId, clock.getUTCNow(), context);
         } catch (InvoiceApiException e) {
             log.error(e.getMessage());
         } catch (AccountApiException e) {
@@ -120,6 +132,64 @@ public class InvoiceListener {
         }
     }
 
+    private boolean isInvoiceRunCoalesced() {
+        return invoiceConfig.getInvoiceRunCoalescingDelay().getMillis() > 0;
+    }
+
+    //
+    // Either invoices the account right away, or schedules an invoice run at the end of the coalescing delay: all the events
+    // received for that account in the meantime (e.g. the add-ons cancelled along with their base plan) share that single run
+    //
+    private void processAccount(final UUID accountId, final DateTime targetDate, final InternalCallContext context) throws InvoiceApiException {
+        if (!isInvoiceRunCoalesced()) {
+            dispatcher.processAccount(accountId, targetDate, false, context);
+            return;
+        }
+
+        final DateTime endOfCoalescingDelay = clock.getUTCNow().plus(invoiceConfig.getInvoiceRunCoalescingDelay().getMillis());
+        final DateTime invoiceRunDate = targetDate.isAfter(endOfCoalescingDelay) ? targetDate : endOfCoalescingDelay;
+        try {
+            nextBillingDatePoster.insertCoalescedNextBillingNotificationForAccount(accountId, invoiceRunDate, context.getUserToken());
+        } catch (NoSuchNotificationQueue e) {
+            log.warn(String.format("Failed to schedule invoice run for account %s, invoicing it right away", accountId), e);
+            dispatcher.processAccount(accountId, targetDate, false, context);
+        } catch (IOException e) {
+            log.warn(String.format("Failed to schedule invoice run for account %s, invoicing it right away", accountId), e);
+            dispatcher.processAccount(accountId, targetDate, false, context);
+        }
+    }
+
+    public void handleNextBillingDateAccountEvent(final UUID accountId, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        try {
+            if (isInvoiceRunCoalesced() && isCoalescedInvoiceRunPending(accountId, eventDateTime, accountRecordId)) {
+                return;
+            }
+
+            final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, "Next Billing Date", CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+            dispatcher.processAccount(accountId, eventDateTime, false, context);
+        } catch (InvoiceApiException e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    //
+    // Events handled concurrently for the same account may have queued several invoice runs close to each other: only the last
+    // one needs to run, as it invoices up to a later date. The notification being processed is no longer pending.
+    //
+    private boolean isCoalescedInvoiceRunPending(final UUID accountId, final DateTime eventDateTime, final Long accountRecordId) {
+        final DateTime endOfCoalescingDelay = eventDateTime.plus(invoiceConfig.getInvoiceRunCoalescingDelay().getMillis());
+        try {
+            if (nextBillingDatePoster.isNextBillingNotificationForAccountScheduled(accountRecordId, eventDateTime, endOfCoalescingDelay)) {
+                log.info("Skipping invoice run at {} for accountId {}, another run is scheduled by {}", eventDateTime, accountId, endOfCoalescingDelay);
+                return true;
+            }
+        } catch (NoSuchNotificationQueue e) {
+            // Don't skip the invoice run if in doubt
+            log.warn(String.format("Failed to look up the pending invoice runs for account %s", accountId), e);
+        }
+        return false;
+    }
+
     public void handleNextBillingDateEvent(final UUID subscriptionId, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
         try {
             final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, "Next Billing Date", CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
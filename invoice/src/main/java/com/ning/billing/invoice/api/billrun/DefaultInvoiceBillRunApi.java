@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.api.billrun;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+import com.ning.billing.invoice.api.BillRun;
+import com.ning.billing.invoice.api.InvoiceBillRunApi;
+import com.ning.billing.invoice.billrun.BillRunner;
+import com.ning.billing.util.callcontext.CallContext;
+import com.ning.billing.util.callcontext.InternalCallContextFactory;
+import com.ning.billing.util.callcontext.TenantContext;
+
+import com.google.inject.Inject;
+
+public class DefaultInvoiceBillRunApi implements InvoiceBillRunApi {
+
+    private final BillRunner billRunner;
+    private final InternalCallContextFactory internalCallContextFactory;
+
+    @Inject
+    public DefaultInvoiceBillRunApi(final BillRunner billRunner, final InternalCallContextFactory internalCallContextFactory) {
+        this.billRunner = billRunner;
+        this.internalCallContextFactory = internalCallContextFactory;
+    }
+
+    @Override
+    public BillRun startBillRun(final DateTime targetDate, final boolean dryRun, final CallContext context) {
+        return billRunner.submitBillRun(targetDate, dryRun, internalCallContextFactory.createInternalCallContext(context));
+    }
+
+    @Override
+    public BillRun resumeBillRun(final UUID billRunId, final CallContext context) {
+        return billRunner.submitResumeBillRun(billRunId, internalCallContextFactory.createInternalCallContext(context));
+    }
+
+    @Override
+    public BillRun getBillRun(final UUID billRunId, final TenantContext context) {
+        return billRunner.getBillRunStatus(billRunId, internalCallContextFactory.createInternalTenantContext(context));
+    }
+}
@@ -18,7 +18,9 @@ package com.ning.billing.invoice.api.user;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -39,6 +41,7 @@ import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.catalog.api.Currency;
 import com.ning.billing.invoice.InvoiceDispatcher;
+import com.ning.billing.invoice.api.BulkInvoiceUserApi;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
 import com.ning.billing.invoice.api.InvoiceItem;
@@ -67,7 +70,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 
-public class DefaultInvoiceUserApi implements InvoiceUserApi {
+public class DefaultInvoiceUserApi implements InvoiceUserApi, BulkInvoiceUserApi {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceUserApi.class);
 
@@ -140,6 +143,16 @@ public class DefaultInvoiceUserApi implements InvoiceUserApi {
         return result == null ? BigDecimal.ZERO : result;
     }
 
+    @Override
+    public Map<UUID, BigDecimal> getAccountBalances(final Collection<UUID> accountIds, final TenantContext context) {
+        return dao.getAccountBalances(accountIds, internalCallContextFactory.createInternalTenantContext(context));
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> getAccountCBAs(final Collection<UUID> accountIds, final TenantContext context) {
+        return dao.getAccountCBAs(accountIds, internalCallContextFactory.createInternalTenantContext(context));
+    }
+
     @Override
     public Invoice getInvoice(final UUID invoiceId, final TenantContext context) throws InvoiceApiException {
         return new DefaultInvoice(dao.getById(invoiceId, internalCallContextFactory.createInternalTenantContext(invoiceId, ObjectType.INVOICE, context)));
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+/**
+ * Tracks the account_record_id partitions of a bill run as they complete (in any order)
+ * and computes the resumable checkpoint: the highest account_record_id such that all
+ * accounts below (and including) it have been processed.
+ * <p/>
+ * The counters follow the checkpoint: the counters of a partition are only included once the checkpoint
+ * moves past it, so that partitions processed again on resume are not counted twice.
+ */
+class BillRunCheckpoint {
+
+    private final long startAccountRecordId;
+    private final int partitionSize;
+    // Counters of the completed partitions, until the checkpoint moves past them
+    private final BillRunCounters[] completedPartitions;
+    private final BillRunCounters checkpointCounters;
+
+    private int nextPendingPartition;
+
+    BillRunCheckpoint(final long lastAccountRecordId, final long maxAccountRecordId, final int partitionSize, final BillRunCounters checkpointCounters) {
+        this.startAccountRecordId = lastAccountRecordId + 1;
+        this.partitionSize = partitionSize;
+        final long nbAccountRecordIds = Math.max(0, maxAccountRecordId - lastAccountRecordId);
+        this.completedPartitions = new BillRunCounters[(int) ((nbAccountRecordIds + partitionSize - 1) / partitionSize)];
+        this.checkpointCounters = checkpointCounters;
+        this.nextPendingPartition = 0;
+    }
+
+    int getNbPartitions() {
+        return completedPartitions.length;
+    }
+
+    // Inclusive
+    long getFromAccountRecordId(final int partition) {
+        return startAccountRecordId + (long) partition * partitionSize;
+    }
+
+    // Exclusive
+    long getToAccountRecordId(final int partition) {
+        return getFromAccountRecordId(partition) + partitionSize;
+    }
+
+    /**
+     * @param partition the partition which has been fully processed
+     * @param counters  the counters of that partition
+     * @return the new checkpoint if it moved forward, null otherwise
+     */
+    synchronized Long markCompleted(final int partition, final BillRunCounters counters) {
+        completedPartitions[partition] = counters;
+
+        final int previousPendingPartition = nextPendingPartition;
+        while (nextPendingPartition < completedPartitions.length && completedPartitions[nextPendingPartition] != null) {
+            checkpointCounters.add(completedPartitions[nextPendingPartition]);
+            completedPartitions[nextPendingPartition] = null;
+            nextPendingPartition++;
+        }
+
+        return nextPendingPartition == previousPendingPartition ? null : getCheckpoint();
+    }
+
+    synchronized long getCheckpoint() {
+        return getFromAccountRecordId(nextPendingPartition) - 1;
+    }
+
+    synchronized BillRunCounters getCheckpointCounters() {
+        return new BillRunCounters(checkpointCounters.getNbAccountsProcessed(), checkpointCounters.getNbAccountsFailed(), checkpointCounters.getNbInvoices());
+    }
+}
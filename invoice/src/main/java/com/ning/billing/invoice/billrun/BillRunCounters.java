@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+/**
+ * Accounts processed, failed and invoices generated, for a partition or a whole bill run.
+ * Not thread safe: each partition has its own counters, which are merged into the checkpoint ones.
+ */
+class BillRunCounters {
+
+    private long nbAccountsProcessed;
+    private long nbAccountsFailed;
+    private long nbInvoices;
+
+    BillRunCounters() {
+        this(0L, 0L, 0L);
+    }
+
+    BillRunCounters(final long nbAccountsProcessed, final long nbAccountsFailed, final long nbInvoices) {
+        this.nbAccountsProcessed = nbAccountsProcessed;
+        this.nbAccountsFailed = nbAccountsFailed;
+        this.nbInvoices = nbInvoices;
+    }
+
+    void accountProcessed() {
+        nbAccountsProcessed++;
+    }
+
+    void accountFailed() {
+        nbAccountsFailed++;
+    }
+
+    void invoiceGenerated() {
+        nbInvoices++;
+    }
+
+    void add(final BillRunCounters counters) {
+        nbAccountsProcessed += counters.nbAccountsProcessed;
+        nbAccountsFailed += counters.nbAccountsFailed;
+        nbInvoices += counters.nbInvoices;
+    }
+
+    long getNbAccountsProcessed() {
+        return nbAccountsProcessed;
+    }
+
+    long getNbAccountsFailed() {
+        return nbAccountsFailed;
+    }
+
+    long getNbInvoices() {
+        return nbInvoices;
+    }
+}
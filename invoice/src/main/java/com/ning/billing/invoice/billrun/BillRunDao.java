@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.IDBI;
+
+import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.clock.Clock;
+import com.ning.billing.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
+
+import com.google.inject.Inject;
+
+public class BillRunDao {
+
+    private final BillRunSqlDao billRunSqlDao;
+    private final Clock clock;
+
+    @Inject
+    public BillRunDao(final IDBI dbi, final Clock clock) {
+        if (dbi instanceof DBI) {
+            ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(BillRunModelDao.class));
+            ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(BillRunAccountModelDao.class));
+        }
+        this.billRunSqlDao = dbi.onDemand(BillRunSqlDao.class);
+        this.clock = clock;
+    }
+
+    public void create(final BillRunModelDao billRun) {
+        billRunSqlDao.create(billRun);
+    }
+
+    public BillRunModelDao getById(final UUID billRunId, final InternalTenantContext context) {
+        return billRunSqlDao.getById(billRunId.toString(), context.getTenantRecordId());
+    }
+
+    public void updateCheckpoint(final UUID billRunId, final BillRunState state, final long lastAccountRecordId,
+                                 final long nbAccountsProcessed, final long nbAccountsFailed, final long nbInvoices,
+                                 final InternalTenantContext context) {
+        billRunSqlDao.updateCheckpoint(billRunId.toString(), state.toString(), lastAccountRecordId, nbAccountsProcessed,
+                                       nbAccountsFailed, nbInvoices, clock.getUTCNow(), context.getTenantRecordId());
+    }
+
+    public void addFailedAccount(final UUID billRunId, final long accountRecordId, final UUID accountId, final InternalTenantContext context) {
+        billRunSqlDao.addFailedAccount(billRunId.toString(), accountId.toString(), accountRecordId, clock.getUTCNow(), context.getTenantRecordId());
+    }
+
+    public List<BillRunAccountModelDao> getFailedAccounts(final UUID billRunId, final InternalTenantContext context) {
+        return billRunSqlDao.getFailedAccounts(billRunId.toString(), context.getTenantRecordId());
+    }
+
+    public void removeFailedAccount(final UUID billRunId, final UUID accountId, final InternalTenantContext context) {
+        billRunSqlDao.removeFailedAccount(billRunId.toString(), accountId.toString(), context.getTenantRecordId());
+    }
+
+    public void removeFailedAccountsAfter(final UUID billRunId, final long accountRecordId, final InternalTenantContext context) {
+        billRunSqlDao.removeFailedAccountsAfter(billRunId.toString(), accountRecordId, context.getTenantRecordId());
+    }
+}
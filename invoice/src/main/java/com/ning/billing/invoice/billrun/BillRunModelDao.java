@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+import com.ning.billing.invoice.api.BillRunState;
+
+public class BillRunModelDao {
+
+    private UUID id;
+    private DateTime targetDate;
+    private boolean dryRun;
+    private BillRunState state;
+    private int partitionSize;
+    private long lastAccountRecordId;
+    private long maxAccountRecordId;
+    private long nbAccountsProcessed;
+    private long nbAccountsFailed;
+    private long nbInvoices;
+    private DateTime createdDate;
+    private DateTime updatedDate;
+    private Long tenantRecordId;
+
+    public BillRunModelDao() { /* For the DAO mapper */ }
+
+    public BillRunModelDao(final UUID id, final DateTime targetDate, final boolean dryRun, final int partitionSize,
+                           final long maxAccountRecordId, final DateTime createdDate, final Long tenantRecordId) {
+        this.id = id;
+        this.targetDate = targetDate;
+        this.dryRun = dryRun;
+        this.state = BillRunState.RUNNING;
+        this.partitionSize = partitionSize;
+        this.lastAccountRecordId = 0L;
+        this.maxAccountRecordId = maxAccountRecordId;
+        this.nbAccountsProcessed = 0L;
+        this.nbAccountsFailed = 0L;
+        this.nbInvoices = 0L;
+        this.createdDate = createdDate;
+        this.updatedDate = createdDate;
+        this.tenantRecordId = tenantRecordId;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public DateTime getTargetDate() {
+        return targetDate;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public BillRunState getState() {
+        return state;
+    }
+
+    public int getPartitionSize() {
+        return partitionSize;
+    }
+
+    public long getLastAccountRecordId() {
+        return lastAccountRecordId;
+    }
+
+    public long getMaxAccountRecordId() {
+        return maxAccountRecordId;
+    }
+
+    public long getNbAccountsProcessed() {
+        return nbAccountsProcessed;
+    }
+
+    public long getNbAccountsFailed() {
+        return nbAccountsFailed;
+    }
+
+    public long getNbInvoices() {
+        return nbInvoices;
+    }
+
+    public DateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public Long getTenantRecordId() {
+        return tenantRecordId;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BillRunModelDao{");
+        sb.append("id=").append(id);
+        sb.append(", targetDate=").append(targetDate);
+        sb.append(", dryRun=").append(dryRun);
+        sb.append(", state=").append(state);
+        sb.append(", partitionSize=").append(partitionSize);
+        sb.append(", lastAccountRecordId=").append(lastAccountRecordId);
+        sb.append(", maxAccountRecordId=").append(maxAccountRecordId);
+        sb.append(", nbAccountsProcessed=").append(nbAccountsProcessed);
+        sb.append(", nbAccountsFailed=").append(nbAccountsFailed);
+        sb.append(", nbInvoices=").append(nbInvoices);
+        sb.append(", createdDate=").append(createdDate);
+        sb.append(", updatedDate=").append(updatedDate);
+        sb.append(", tenantRecordId=").append(tenantRecordId);
+        sb.append('}');
+        return sb.toString();
+    }
+}
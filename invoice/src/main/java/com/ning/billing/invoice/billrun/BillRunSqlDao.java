@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
+
+@UseStringTemplate3StatementLocator
+public interface BillRunSqlDao {
+
+    @SqlUpdate
+    public void create(@BindBean final BillRunModelDao billRun);
+
+    @SqlQuery
+    public BillRunModelDao getById(@Bind("id") final String id,
+                                   @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public void updateCheckpoint(@Bind("id") final String id,
+                                 @Bind("state") final String state,
+                                 @Bind("lastAccountRecordId") final long lastAccountRecordId,
+                                 @Bind("nbAccountsProcessed") final long nbAccountsProcessed,
+                                 @Bind("nbAccountsFailed") final long nbAccountsFailed,
+                                 @Bind("nbInvoices") final long nbInvoices,
+                                 @Bind("updatedDate") final DateTime updatedDate,
+                                 @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public void addFailedAccount(@Bind("billRunId") final String billRunId,
+                                 @Bind("accountId") final String accountId,
+                                 @Bind("accountRecordId") final long accountRecordId,
+                                 @Bind("createdDate") final DateTime createdDate,
+                                 @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlQuery
+    public List<BillRunAccountModelDao> getFailedAccounts(@Bind("billRunId") final String billRunId,
+                                                          @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public void removeFailedAccount(@Bind("billRunId") final String billRunId,
+                                    @Bind("accountId") final String accountId,
+                                    @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlUpdate
+    public void removeFailedAccountsAfter(@Bind("billRunId") final String billRunId,
+                                          @Bind("accountRecordId") final long accountRecordId,
+                                          @Bind("tenantRecordId") final Long tenantRecordId);
+}
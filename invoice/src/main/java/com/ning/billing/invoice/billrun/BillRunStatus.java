@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+
+import com.ning.billing.invoice.api.BillRun;
+import com.ning.billing.invoice.api.BillRunState;
+
+public class BillRunStatus implements BillRun {
+
+    private final UUID billRunId;
+    private final DateTime targetDate;
+    private final boolean dryRun;
+    private final BillRunState state;
+    private final long lastAccountRecordId;
+    private final long maxAccountRecordId;
+    private final long nbAccountsProcessed;
+    private final long nbAccountsFailed;
+    private final long nbInvoices;
+    private final DateTime startDate;
+    private final DateTime updatedDate;
+
+    public BillRunStatus(final BillRunModelDao billRun) {
+        this.billRunId = billRun.getId();
+        this.targetDate = billRun.getTargetDate();
+        this.dryRun = billRun.isDryRun();
+        this.state = billRun.getState();
+        this.lastAccountRecordId = billRun.getLastAccountRecordId();
+        this.maxAccountRecordId = billRun.getMaxAccountRecordId();
+        this.nbAccountsProcessed = billRun.getNbAccountsProcessed();
+        this.nbAccountsFailed = billRun.getNbAccountsFailed();
+        this.nbInvoices = billRun.getNbInvoices();
+        this.startDate = billRun.getCreatedDate();
+        this.updatedDate = billRun.getUpdatedDate();
+    }
+
+    @Override
+    public UUID getId() {
+        return billRunId;
+    }
+
+    @Override
+    public DateTime getTargetDate() {
+        return targetDate;
+    }
+
+    @Override
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    @Override
+    public BillRunState getState() {
+        return state;
+    }
+
+    public long getLastAccountRecordId() {
+        return lastAccountRecordId;
+    }
+
+    public long getMaxAccountRecordId() {
+        return maxAccountRecordId;
+    }
+
+    @Override
+    public long getNbAccountsProcessed() {
+        return nbAccountsProcessed;
+    }
+
+    @Override
+    public long getNbAccountsFailed() {
+        return nbAccountsFailed;
+    }
+
+    @Override
+    public long getNbInvoices() {
+        return nbInvoices;
+    }
+
+    @Override
+    public DateTime getStartDate() {
+        return startDate;
+    }
+
+    @Override
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    // Percentage of the account_record_id range covered by the checkpoint
+    @Override
+    public int getProgress() {
+        if (state != BillRunState.RUNNING || maxAccountRecordId == 0) {
+            return 100;
+        }
+        return (int) (Math.min(lastAccountRecordId, maxAccountRecordId) * 100 / maxAccountRecordId);
+    }
+
+    /**
+     * @return the number of accounts processed per second since the bill run started
+     */
+    public double getThroughput() {
+        final long elapsedMs = updatedDate.getMillis() - startDate.getMillis();
+        return elapsedMs <= 0 ? 0 : nbAccountsProcessed * 1000.0 / elapsedMs;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BillRunStatus{");
+        sb.append("billRunId=").append(billRunId);
+        sb.append(", targetDate=").append(targetDate);
+        sb.append(", dryRun=").append(dryRun);
+        sb.append(", state=").append(state);
+        sb.append(", lastAccountRecordId=").append(lastAccountRecordId);
+        sb.append(", maxAccountRecordId=").append(maxAccountRecordId);
+        sb.append(", nbAccountsProcessed=").append(nbAccountsProcessed);
+        sb.append(", nbAccountsFailed=").append(nbAccountsFailed);
+        sb.append(", nbInvoices=").append(nbInvoices);
+        sb.append(", startDate=").append(startDate);
+        sb.append(", updatedDate=").append(updatedDate);
+        sb.append('}');
+        return sb.toString();
+    }
+}
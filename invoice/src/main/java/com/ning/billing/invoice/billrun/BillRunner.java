@@ -0,0 +1,353 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.clock.Clock;
+import com.ning.billing.invoice.InvoiceDispatcher;
+import com.ning.billing.invoice.api.BillRunState;
+import com.ning.billing.invoice.api.Invoice;
+import com.ning.billing.invoice.api.InvoiceApiException;
+import com.ning.billing.subscription.api.SubscriptionBaseInternalApi;
+import com.ning.billing.util.callcontext.InternalCallContextFactory;
+import com.ning.billing.util.config.InvoiceConfig;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+
+/**
+ * Invoices all the accounts of a tenant for a given target date (bill run).
+ * <p/>
+ * Accounts are partitioned by account_record_id ranges, which are processed concurrently by a bounded
+ * worker pool. The bill run state is checkpointed in the invoice_bill_runs table as partitions complete,
+ * so that an interrupted bill run can be resumed. Partitions after the checkpoint may be processed twice
+ * on resume, which is safe since invoicing an account already invoiced for the target date is a no-op.
+ * <p/>
+ * Accounts which fail to be invoiced are recorded in the invoice_bill_run_failed_accounts table, and the
+ * bill run ends in the COMPLETED_WITH_FAILURES state: resuming it retries those accounts.
+ */
+public class BillRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BillRunner.class);
+
+    private static final String BILL_RUN_THREAD_PREFIX = "BillRun-th-";
+    private static final String BILL_RUN_COORDINATOR_THREAD_NAME = "BillRun-coordinator";
+
+    private final InvoiceDispatcher dispatcher;
+    private final BillRunDao billRunDao;
+    private final SubscriptionBaseInternalApi subscriptionApi;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final InvoiceConfig invoiceConfig;
+    private final Clock clock;
+
+    // Bill runs processed in the background, one at a time
+    private volatile ExecutorService coordinator;
+    // Bill runs being processed on this node
+    private final Set<UUID> activeBillRuns;
+
+    private final Meter accountsMeter;
+    private final Meter failuresMeter;
+    private final Meter invoicesMeter;
+    private final Timer accountTimer;
+
+    @Inject
+    public BillRunner(final InvoiceDispatcher dispatcher,
+                      final BillRunDao billRunDao,
+                      final SubscriptionBaseInternalApi subscriptionApi,
+                      final InternalCallContextFactory internalCallContextFactory,
+                      final InvoiceConfig invoiceConfig,
+                      final Clock clock,
+                      final MetricRegistry metricRegistry) {
+        this.dispatcher = dispatcher;
+        this.billRunDao = billRunDao;
+        this.subscriptionApi = subscriptionApi;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.invoiceConfig = invoiceConfig;
+        this.clock = clock;
+        this.activeBillRuns = Collections.newSetFromMap(new ConcurrentHashMap<UUID, Boolean>());
+        this.accountsMeter = metricRegistry.meter(MetricRegistry.name(BillRunner.class, "accounts"));
+        this.failuresMeter = metricRegistry.meter(MetricRegistry.name(BillRunner.class, "failures"));
+        this.invoicesMeter = metricRegistry.meter(MetricRegistry.name(BillRunner.class, "invoices"));
+        this.accountTimer = metricRegistry.timer(MetricRegistry.name(BillRunner.class, "account-processing"));
+    }
+
+    public void start() {
+        coordinator = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread th = new Thread(r);
+                th.setName(BILL_RUN_COORDINATOR_THREAD_NAME);
+                return th;
+            }
+        });
+    }
+
+    public void stop() {
+        // Interrupted bill runs stay in the RUNNING state and can be resumed
+        coordinator.shutdownNow();
+    }
+
+    /**
+     * Start a new bill run and wait for its completion
+     *
+     * @param targetDate target date for the invoices
+     * @param dryRun     whether to only compute the invoices, without persisting them
+     * @param context    tenant level call context
+     * @return the final status of the bill run
+     */
+    public BillRunStatus startBillRun(final DateTime targetDate, final boolean dryRun, final InternalCallContext context) {
+        return runBillRun(createBillRun(targetDate, dryRun, context), context);
+    }
+
+    /**
+     * Start a new bill run, processed in the background
+     *
+     * @param targetDate target date for the invoices
+     * @param dryRun     whether to only compute the invoices, without persisting them
+     * @param context    tenant level call context
+     * @return the initial status of the bill run
+     */
+    public BillRunStatus submitBillRun(final DateTime targetDate, final boolean dryRun, final InternalCallContext context) {
+        final BillRunModelDao billRun = createBillRun(targetDate, dryRun, context);
+        submit(billRun, context);
+        return new BillRunStatus(billRun);
+    }
+
+    /**
+     * Resume an interrupted bill run from its last checkpoint (or retry its failed accounts) and wait for its completion
+     *
+     * @param billRunId bill run id
+     * @param context   tenant level call context
+     * @return the final status of the bill run
+     */
+    public BillRunStatus resumeBillRun(final UUID billRunId, final InternalCallContext context) {
+        final BillRunModelDao billRun = getBillRun(billRunId, context);
+        if (billRun.getState() == BillRunState.COMPLETED) {
+            return new BillRunStatus(billRun);
+        }
+        log.info("Resuming bill run {}", billRun);
+
+        return runBillRun(billRun, context);
+    }
+
+    /**
+     * Resume an interrupted bill run from its last checkpoint (or retry its failed accounts) in the background
+     *
+     * @param billRunId bill run id
+     * @param context   tenant level call context
+     * @return the status of the bill run, as resumed
+     */
+    public BillRunStatus submitResumeBillRun(final UUID billRunId, final InternalCallContext context) {
+        final BillRunModelDao billRun = getBillRun(billRunId, context);
+        if (billRun.getState() != BillRunState.COMPLETED) {
+            log.info("Resuming bill run {}", billRun);
+            submit(billRun, context);
+        }
+        return new BillRunStatus(billRun);
+    }
+
+    public BillRunStatus getBillRunStatus(final UUID billRunId, final InternalTenantContext context) {
+        return new BillRunStatus(getBillRun(billRunId, context));
+    }
+
+    private BillRunModelDao createBillRun(final DateTime targetDate, final boolean dryRun, final InternalCallContext context) {
+        final BillRunModelDao billRun = new BillRunModelDao(UUID.randomUUID(), targetDate, dryRun, invoiceConfig.getBillRunPartitionSize(),
+                                                            subscriptionApi.getMaxAccountRecordIdWithBundles(context), clock.getUTCNow(), context.getTenantRecordId());
+        billRunDao.create(billRun);
+        log.info("Starting bill run {}", billRun);
+        return billRun;
+    }
+
+    private void submit(final BillRunModelDao billRun, final InternalCallContext context) {
+        coordinator.submit(new Runnable() {
+            @Override
+            public void run() {
+                runBillRun(billRun, context);
+            }
+        });
+    }
+
+    private BillRunModelDao getBillRun(final UUID billRunId, final InternalTenantContext context) {
+        final BillRunModelDao billRun = billRunDao.getById(billRunId, context);
+        if (billRun == null) {
+            throw new IllegalArgumentException("Unknown bill run " + billRunId);
+        }
+        return billRun;
+    }
+
+    private BillRunStatus runBillRun(final BillRunModelDao billRun, final InternalCallContext context) {
+        if (!activeBillRuns.add(billRun.getId())) {
+            log.info("Bill run {} is already running", billRun.getId());
+            return getBillRunStatus(billRun.getId(), context);
+        }
+
+        try {
+            // The partitions after the checkpoint are processed again: forget about their failures
+            billRunDao.removeFailedAccountsAfter(billRun.getId(), billRun.getLastAccountRecordId(), context);
+            // Failures from previous runs, retried once all partitions are processed
+            final List<BillRunAccountModelDao> failedAccounts = billRunDao.getFailedAccounts(billRun.getId(), context);
+
+            final BillRunCheckpoint checkpoint = new BillRunCheckpoint(billRun.getLastAccountRecordId(), billRun.getMaxAccountRecordId(), billRun.getPartitionSize(),
+                                                                       new BillRunCounters(billRun.getNbAccountsProcessed(), billRun.getNbAccountsFailed(), billRun.getNbInvoices()));
+            if (processPartitions(billRun, checkpoint, context)) {
+                retryFailedAccounts(billRun, checkpoint, failedAccounts, context);
+            }
+        } finally {
+            activeBillRuns.remove(billRun.getId());
+        }
+
+        final BillRunStatus status = getBillRunStatus(billRun.getId(), context);
+        log.info("Bill run {} ended: {}", billRun.getId(), status);
+        return status;
+    }
+
+    // Returns true if all partitions were processed
+    private boolean processPartitions(final BillRunModelDao billRun, final BillRunCheckpoint checkpoint, final InternalCallContext context) {
+        final ExecutorService executor = Executors.newFixedThreadPool(invoiceConfig.getBillRunThreadNb(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread th = new Thread(r);
+                th.setName(BILL_RUN_THREAD_PREFIX + th.getId());
+                return th;
+            }
+        });
+
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>(checkpoint.getNbPartitions());
+            for (int i = 0; i < checkpoint.getNbPartitions(); i++) {
+                final int partition = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        processPartition(billRun, checkpoint, partition, context);
+                        return null;
+                    }
+                }));
+            }
+
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn(String.format("Bill run %s interrupted, it can be resumed from account_record_id %s", billRun.getId(), checkpoint.getCheckpoint()), e);
+        } catch (ExecutionException e) {
+            log.warn(String.format("Bill run %s aborted, it can be resumed from account_record_id %s", billRun.getId(), checkpoint.getCheckpoint()), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return false;
+    }
+
+    private void processPartition(final BillRunModelDao billRun, final BillRunCheckpoint checkpoint, final int partition, final InternalCallContext context) {
+        final SortedMap<Long, UUID> accounts = subscriptionApi.getAccountIdsWithBundles(checkpoint.getFromAccountRecordId(partition),
+                                                                                        checkpoint.getToAccountRecordId(partition),
+                                                                                        context);
+        final BillRunCounters counters = new BillRunCounters();
+        for (final Entry<Long, UUID> account : accounts.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Don't mark the partition as completed, it will be re-processed on resume
+                return;
+            }
+
+            counters.accountProcessed();
+            if (!processAccount(billRun, account.getKey(), account.getValue(), counters, context)) {
+                counters.accountFailed();
+                billRunDao.addFailedAccount(billRun.getId(), account.getKey(), account.getValue(), context);
+            }
+        }
+
+        synchronized (checkpoint) {
+            final Long newCheckpoint = checkpoint.markCompleted(partition, counters);
+            if (newCheckpoint != null) {
+                updateCheckpoint(billRun, BillRunState.RUNNING, newCheckpoint, checkpoint.getCheckpointCounters(), context);
+            }
+        }
+    }
+
+    private void retryFailedAccounts(final BillRunModelDao billRun, final BillRunCheckpoint checkpoint, final List<BillRunAccountModelDao> failedAccounts,
+                                     final InternalCallContext context) {
+        final BillRunCounters counters = checkpoint.getCheckpointCounters();
+        for (final BillRunAccountModelDao failedAccount : failedAccounts) {
+            if (Thread.currentThread().isInterrupted()) {
+                // The remaining failed accounts will be retried on resume
+                return;
+            }
+
+            if (processAccount(billRun, failedAccount.getRecordId(), failedAccount.getId(), counters, context)) {
+                billRunDao.removeFailedAccount(billRun.getId(), failedAccount.getId(), context);
+            }
+        }
+
+        final int nbFailedAccounts = billRunDao.getFailedAccounts(billRun.getId(), context).size();
+        final BillRunCounters finalCounters = new BillRunCounters(counters.getNbAccountsProcessed(), nbFailedAccounts, counters.getNbInvoices());
+        updateCheckpoint(billRun, nbFailedAccounts == 0 ? BillRunState.COMPLETED : BillRunState.COMPLETED_WITH_FAILURES, checkpoint.getCheckpoint(), finalCounters, context);
+    }
+
+    private void updateCheckpoint(final BillRunModelDao billRun, final BillRunState state, final long checkpoint, final BillRunCounters counters, final InternalCallContext context) {
+        billRunDao.updateCheckpoint(billRun.getId(), state, checkpoint, counters.getNbAccountsProcessed(), counters.getNbAccountsFailed(), counters.getNbInvoices(), context);
+    }
+
+    // Returns true if the account was invoiced (or had nothing to invoice)
+    private boolean processAccount(final BillRunModelDao billRun, final Long accountRecordId, final UUID accountId,
+                                   final BillRunCounters counters, final InternalCallContext context) {
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(context.getTenantRecordId(), accountRecordId, context);
+
+        final Timer.Context timerContext = accountTimer.time();
+        try {
+            final Invoice invoice = dispatcher.processAccount(accountId, billRun.getTargetDate(), billRun.isDryRun(), accountContext);
+            if (invoice != null) {
+                counters.invoiceGenerated();
+                invoicesMeter.mark();
+            }
+            return true;
+        } catch (InvoiceApiException e) {
+            log.warn(String.format("Bill run %s failed to invoice account %s", billRun.getId(), accountId), e);
+        } catch (RuntimeException e) {
+            log.warn(String.format("Bill run %s failed to invoice account %s", billRun.getId(), accountId), e);
+        } finally {
+            timerContext.stop();
+            accountsMeter.mark();
+        }
+
+        failuresMeter.mark();
+        return false;
+    }
+}
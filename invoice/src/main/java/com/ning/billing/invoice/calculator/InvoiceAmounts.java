@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.calculator;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated amounts of an invoice, see InvoiceCalculatorUtils#computeInvoiceAmounts
+ */
+public class InvoiceAmounts {
+
+    private final BigDecimal chargedAmount;
+    private final BigDecimal originalChargedAmount;
+    private final BigDecimal creditedAmount;
+    private final BigDecimal paidAmount;
+    private final BigDecimal refundedAmount;
+    private final BigDecimal balance;
+
+    InvoiceAmounts(final BigDecimal chargedAmount, final BigDecimal originalChargedAmount, final BigDecimal creditedAmount,
+                   final BigDecimal paidAmount, final BigDecimal refundedAmount, final BigDecimal balance) {
+        this.chargedAmount = chargedAmount;
+        this.originalChargedAmount = originalChargedAmount;
+        this.creditedAmount = creditedAmount;
+        this.paidAmount = paidAmount;
+        this.refundedAmount = refundedAmount;
+        this.balance = balance;
+    }
+
+    public BigDecimal getChargedAmount() {
+        return chargedAmount;
+    }
+
+    public BigDecimal getOriginalChargedAmount() {
+        return originalChargedAmount;
+    }
+
+    public BigDecimal getCreditedAmount() {
+        return creditedAmount;
+    }
+
+    public BigDecimal getPaidAmount() {
+        return paidAmount;
+    }
+
+    public BigDecimal getRefundedAmount() {
+        return refundedAmount;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
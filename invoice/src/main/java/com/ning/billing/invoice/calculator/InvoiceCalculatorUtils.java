@@ -17,6 +17,7 @@
 package com.ning.billing.invoice.calculator;
 
 import java.math.BigDecimal;
+import java.util.Iterator;
 
 import javax.annotation.Nullable;
 
@@ -28,7 +29,6 @@ import com.ning.billing.invoice.api.InvoicePayment;
 import com.ning.billing.invoice.api.InvoicePaymentType;
 import com.ning.billing.invoice.model.InvoicingConfiguration;
 
-import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 
 public abstract class InvoiceCalculatorUtils {
@@ -67,65 +67,117 @@ public abstract class InvoiceCalculatorUtils {
 
     public static BigDecimal computeInvoiceBalance(@Nullable final Iterable<InvoiceItem> invoiceItems,
                                                    @Nullable final Iterable<InvoicePayment> invoicePayments) {
-        return computeInvoiceAmountCharged(invoiceItems)
-                .add(computeInvoiceAmountCredited(invoiceItems))
-                .add(computeInvoiceAmountAdjustedForAccountCredit(invoiceItems))
-                .add(
-                        computeInvoiceAmountPaid(invoicePayments).negate()
-                                .add(
-                                        computeInvoiceAmountRefunded(invoicePayments).negate()
-                                    )
-                    )
-                .setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+        return computeInvoiceAmounts(null, invoiceItems, invoicePayments).getBalance();
     }
 
-    // Snowflake for the CREDIT_ADJ on its own invoice
-    private static BigDecimal computeInvoiceAmountAdjustedForAccountCredit(final Iterable<InvoiceItem> invoiceItems) {
-        BigDecimal amountAdjusted = BigDecimal.ZERO;
-        if (invoiceItems == null) {
-            return amountAdjusted;
+    /**
+     * Compute all the amounts of an invoice in a single pass over its items and payments.
+     *
+     * @param invoiceCreatedDate creation date of the invoice, used for the original charged amount (zero if null)
+     * @param invoiceItems       items of the invoice
+     * @param invoicePayments    payments of the invoice
+     * @return the invoice amounts
+     */
+    public static InvoiceAmounts computeInvoiceAmounts(@Nullable final DateTime invoiceCreatedDate,
+                                                       @Nullable final Iterable<InvoiceItem> invoiceItems,
+                                                       @Nullable final Iterable<InvoicePayment> invoicePayments) {
+        BigDecimal amountCharged = BigDecimal.ZERO;
+        BigDecimal amountOriginalCharged = BigDecimal.ZERO;
+        BigDecimal amountCredited = BigDecimal.ZERO;
+        BigDecimal amountAdjustedForAccountCredit = BigDecimal.ZERO;
+        if (invoiceItems != null) {
+            final InvoiceItem creditAdjOnItsOwnInvoice = findCreditAdjustmentOnItsOwnInvoice(invoiceItems);
+            for (final InvoiceItem invoiceItem : invoiceItems) {
+                if (invoiceItem == creditAdjOnItsOwnInvoice) {
+                    amountAdjustedForAccountCredit = amountAdjustedForAccountCredit.add(invoiceItem.getAmount());
+                } else if (isCharge(invoiceItem) ||
+                           isInvoiceAdjustmentItemType(invoiceItem) ||
+                           isInvoiceItemAdjustmentItem(invoiceItem)) {
+                    amountCharged = amountCharged.add(invoiceItem.getAmount());
+                }
+
+                if (isCharge(invoiceItem) && invoiceCreatedDate != null && invoiceItem.getCreatedDate().equals(invoiceCreatedDate)) {
+                    amountOriginalCharged = amountOriginalCharged.add(invoiceItem.getAmount());
+                }
+
+                if (isAccountCreditItem(invoiceItem)) {
+                    amountCredited = amountCredited.add(invoiceItem.getAmount());
+                }
+            }
         }
 
-        for (final InvoiceItem invoiceItem : invoiceItems) {
-            final Iterable<InvoiceItem> otherInvoiceItems = Iterables.filter(invoiceItems, new Predicate<InvoiceItem>() {
-                @Override
-                public boolean apply(final InvoiceItem input) {
-                    return !input.getId().equals(invoiceItem.getId());
+        BigDecimal amountPaid = BigDecimal.ZERO;
+        BigDecimal amountRefunded = BigDecimal.ZERO;
+        if (invoicePayments != null) {
+            for (final InvoicePayment invoicePayment : invoicePayments) {
+                if (InvoicePaymentType.ATTEMPT.equals(invoicePayment.getType())) {
+                    amountPaid = amountPaid.add(invoicePayment.getAmount());
+                } else if (InvoicePaymentType.REFUND.equals(invoicePayment.getType()) ||
+                           InvoicePaymentType.CHARGED_BACK.equals(invoicePayment.getType())) {
+                    amountRefunded = amountRefunded.add(invoicePayment.getAmount());
                 }
-            });
-
-            if (InvoiceItemType.CREDIT_ADJ.equals(invoiceItem.getInvoiceItemType()) &&
-                (Iterables.size(otherInvoiceItems) == 1 &&
-                 InvoiceItemType.CBA_ADJ.equals(otherInvoiceItems.iterator().next().getInvoiceItemType()) &&
-                 otherInvoiceItems.iterator().next().getInvoiceId().equals(invoiceItem.getInvoiceId()) &&
-                 otherInvoiceItems.iterator().next().getAmount().compareTo(invoiceItem.getAmount().negate()) == 0)) {
-                amountAdjusted = amountAdjusted.add(invoiceItem.getAmount());
             }
         }
-        return amountAdjusted.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+
+        // Same rounding as the individual compute* methods: each amount is rounded, then the balance
+        amountCharged = amountCharged.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+        amountCredited = amountCredited.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+        amountAdjustedForAccountCredit = amountAdjustedForAccountCredit.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+        amountPaid = amountPaid.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+        amountRefunded = amountRefunded.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+        final BigDecimal balance = amountCharged.add(amountCredited)
+                                                .add(amountAdjustedForAccountCredit)
+                                                .add(amountPaid.negate().add(amountRefunded.negate()))
+                                                .setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+
+        return new InvoiceAmounts(amountCharged,
+                                  amountOriginalCharged.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD),
+                                  amountCredited,
+                                  amountPaid,
+                                  amountRefunded,
+                                  balance);
     }
 
-    public static BigDecimal computeInvoiceAmountCharged(@Nullable final Iterable<InvoiceItem> invoiceItems) {
-        BigDecimal amountCharged = BigDecimal.ZERO;
-        if (invoiceItems == null) {
-            return amountCharged;
+    // Snowflake for the CREDIT_ADJ on its own invoice: the invoice only contains the CREDIT_ADJ and the matching CBA_ADJ
+    @Nullable
+    private static InvoiceItem findCreditAdjustmentOnItsOwnInvoice(final Iterable<InvoiceItem> invoiceItems) {
+        final Iterator<InvoiceItem> iterator = invoiceItems.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        final InvoiceItem first = iterator.next();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        final InvoiceItem second = iterator.next();
+        if (iterator.hasNext() || first.getId().equals(second.getId())) {
+            return null;
         }
 
-        for (final InvoiceItem invoiceItem : invoiceItems) {
-            final Iterable<InvoiceItem> otherInvoiceItems = Iterables.filter(invoiceItems, new Predicate<InvoiceItem>() {
-                @Override
-                public boolean apply(final InvoiceItem input) {
-                    return !input.getId().equals(invoiceItem.getId());
-                }
-            });
-
-            if (isCharge(invoiceItem) ||
-                isInvoiceAdjustmentItem(invoiceItem, otherInvoiceItems) ||
-                isInvoiceItemAdjustmentItem(invoiceItem)) {
-                amountCharged = amountCharged.add(invoiceItem.getAmount());
-            }
+        if (isCreditAdjustmentOfAccountCredit(first, second)) {
+            return first;
+        } else if (isCreditAdjustmentOfAccountCredit(second, first)) {
+            return second;
+        } else {
+            return null;
         }
-        return amountCharged.setScale(NUMBER_OF_DECIMALS, ROUNDING_METHOD);
+    }
+
+    private static boolean isCreditAdjustmentOfAccountCredit(final InvoiceItem creditAdj, final InvoiceItem cbaAdj) {
+        return InvoiceItemType.CREDIT_ADJ.equals(creditAdj.getInvoiceItemType()) &&
+               InvoiceItemType.CBA_ADJ.equals(cbaAdj.getInvoiceItemType()) &&
+               cbaAdj.getInvoiceId().equals(creditAdj.getInvoiceId()) &&
+               cbaAdj.getAmount().compareTo(creditAdj.getAmount().negate()) == 0;
+    }
+
+    // Invoice adjustments, assuming the snowflake case has been ruled out
+    private static boolean isInvoiceAdjustmentItemType(final InvoiceItem invoiceItem) {
+        return InvoiceItemType.REFUND_ADJ.equals(invoiceItem.getInvoiceItemType()) ||
+               InvoiceItemType.CREDIT_ADJ.equals(invoiceItem.getInvoiceItemType());
+    }
+
+    public static BigDecimal computeInvoiceAmountCharged(@Nullable final Iterable<InvoiceItem> invoiceItems) {
+        return computeInvoiceAmounts(null, invoiceItems, null).getChargedAmount();
     }
 
     public static BigDecimal computeInvoiceOriginalAmountCharged(final DateTime invoiceCreatedDate, @Nullable final Iterable<InvoiceItem> invoiceItems) {
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+/**
+ * Amount aggregated at the account level, as returned by the set-based balance queries.
+ */
+public class AccountAmountModelDao {
+
+    private final UUID accountId;
+    private final BigDecimal amount;
+
+    public AccountAmountModelDao(final UUID accountId, final BigDecimal amount) {
+        this.accountId = accountId;
+        this.amount = amount;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public static class AccountAmountMapper implements ResultSetMapper<AccountAmountModelDao> {
+
+        @Override
+        public AccountAmountModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            final UUID accountId = UUID.fromString(r.getString("account_id"));
+            final BigDecimal amount = r.getBigDecimal("amount");
+            return new AccountAmountModelDao(accountId, amount == null ? BigDecimal.ZERO : amount);
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package com.ning.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -36,12 +38,17 @@ import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.catalog.api.Currency;
 import com.ning.billing.clock.Clock;
+import com.ning.billing.events.InvoiceInternalEvent;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
 import com.ning.billing.invoice.api.InvoiceItemType;
 import com.ning.billing.invoice.api.InvoicePaymentType;
 import com.ning.billing.invoice.api.user.DefaultInvoiceAdjustmentEvent;
+import com.ning.billing.invoice.calculator.InvoiceAmounts;
+import com.ning.billing.invoice.model.InvoicingConfiguration;
+import com.ning.billing.invoice.notification.InvoiceNotificationPoster;
 import com.ning.billing.invoice.notification.NextBillingDatePoster;
+import com.ning.billing.subscription.api.SubscriptionBaseInternalApi;
 import com.ning.billing.util.cache.CacheControllerDispatcher;
 import com.ning.billing.util.dao.NonEntityDao;
 import com.ning.billing.util.entity.dao.EntityDaoBase;
@@ -53,6 +60,7 @@ import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
@@ -69,7 +77,12 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                                                             }
                                                                                         });
 
+    // Upper bound on the size of the IN clause of the account level aggregation queries
+    private static final int MAX_ACCOUNT_IDS_PER_QUERY = 1000;
+
     private final NextBillingDatePoster nextBillingDatePoster;
+    private final InvoiceNotificationPoster invoiceNotificationPoster;
+    private final SubscriptionBaseInternalApi subscriptionApi;
     private final PersistentBus eventBus;
     private final InvoiceDaoHelper invoiceDaoHelper;
     private final CBADao cbaDao;
@@ -77,12 +90,16 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
     @Inject
     public DefaultInvoiceDao(final IDBI dbi,
                              final NextBillingDatePoster nextBillingDatePoster,
+                             final InvoiceNotificationPoster invoiceNotificationPoster,
+                             final SubscriptionBaseInternalApi subscriptionApi,
                              final PersistentBus eventBus,
                              final Clock clock,
                              final CacheControllerDispatcher cacheControllerDispatcher,
                              final NonEntityDao nonEntityDao) {
         super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), InvoiceSqlDao.class);
         this.nextBillingDatePoster = nextBillingDatePoster;
+        this.invoiceNotificationPoster = invoiceNotificationPoster;
+        this.subscriptionApi = subscriptionApi;
         this.eventBus = eventBus;
         this.invoiceDaoHelper = new InvoiceDaoHelper();
         this.cbaDao = new CBADao();
@@ -189,6 +206,7 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
     @Override
     public void createInvoice(final InvoiceModelDao invoice, final List<InvoiceItemModelDao> invoiceItems,
                               final List<InvoicePaymentModelDao> invoicePayments, final boolean isRealInvoice, final Map<UUID, DateTime> callbackDateTimePerSubscriptions,
+                              final Map<UUID, DateTime> chargedThroughDates, final List<InvoiceInternalEvent> events, final boolean notifyAccount,
                               final InternalCallContext context) {
         transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
@@ -201,6 +219,10 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     // a shell invoice and we only need to insert the invoiceItems -- for the already existing invoices
                     if (isRealInvoice) {
                         transactional.create(invoice, context);
+
+                        if (notifyAccount) {
+                            invoiceNotificationPoster.insertInvoiceNotificationFromTransaction(entitySqlDaoWrapperFactory, invoice.getId(), context);
+                        }
                     }
 
                     // Create the invoice items
@@ -218,6 +240,12 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                     invoicePaymentSqlDao.batchCreateFromTransaction(invoicePayments, context);
 
                 }
+
+                // Update the charged through dates in the same transaction, so they are never stale with respect to the invoice
+                subscriptionApi.setChargedThroughDatesFromTransaction(entitySqlDaoWrapperFactory.asTransmogrifier(), chargedThroughDates, context);
+
+                // Post the invoice events in the same transaction: they are delivered if and only if the invoice is committed
+                notifyBusFromTransaction(entitySqlDaoWrapperFactory, events);
                 return null;
             }
         });
@@ -248,8 +276,9 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                 BigDecimal accountBalance = BigDecimal.ZERO;
                 final List<InvoiceModelDao> invoices = invoiceDaoHelper.getAllInvoicesByAccountFromTransaction(entitySqlDaoWrapperFactory, context);
                 for (final InvoiceModelDao cur : invoices) {
-                    accountBalance = accountBalance.add(InvoiceModelDaoHelper.getBalance(cur));
-                    cba = cba.add(InvoiceModelDaoHelper.getCBAAmount(cur));
+                    final InvoiceAmounts amounts = InvoiceModelDaoHelper.getAmounts(cur);
+                    accountBalance = accountBalance.add(amounts.getBalance());
+                    cba = cba.add(amounts.getCreditedAmount());
                 }
                 return accountBalance.subtract(cba);
             }
@@ -266,6 +295,82 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public Map<UUID, BigDecimal> getAccountBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        if (accountIds.isEmpty()) {
+            return ImmutableMap.<UUID, BigDecimal>of();
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Map<UUID, BigDecimal>>() {
+            @Override
+            public Map<UUID, BigDecimal> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final InvoiceItemSqlDao invoiceItemSqlDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
+                final InvoicePaymentSqlDao invoicePaymentSqlDao = entitySqlDaoWrapperFactory.become(InvoicePaymentSqlDao.class);
+
+                // Same as getAccountBalance: sum of the invoice balances (which include the account credits), minus the account credits
+                final Map<UUID, BigDecimal> balances = initAccountAmounts(accountIds);
+                for (final List<String> accountIdsChunk : partitionAccountIds(accountIds)) {
+                    addAccountAmounts(balances, invoiceItemSqlDao.getChargedAmountsByAccountIds(accountIdsChunk, context), false);
+                    addAccountAmounts(balances, invoiceItemSqlDao.getCreditedAmountsByAccountIds(accountIdsChunk, context), true);
+                    addAccountAmounts(balances, invoicePaymentSqlDao.getPaidAmountsByAccountIds(accountIdsChunk, context), true);
+                }
+                return roundAccountAmounts(balances);
+            }
+        });
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> getAccountCBAs(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        if (accountIds.isEmpty()) {
+            return ImmutableMap.<UUID, BigDecimal>of();
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Map<UUID, BigDecimal>>() {
+            @Override
+            public Map<UUID, BigDecimal> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final InvoiceItemSqlDao invoiceItemSqlDao = entitySqlDaoWrapperFactory.become(InvoiceItemSqlDao.class);
+
+                final Map<UUID, BigDecimal> cbas = initAccountAmounts(accountIds);
+                for (final List<String> accountIdsChunk : partitionAccountIds(accountIds)) {
+                    addAccountAmounts(cbas, invoiceItemSqlDao.getCreditedAmountsByAccountIds(accountIdsChunk, context), false);
+                }
+                return roundAccountAmounts(cbas);
+            }
+        });
+    }
+
+    private Map<UUID, BigDecimal> initAccountAmounts(final Collection<UUID> accountIds) {
+        final Map<UUID, BigDecimal> amounts = new HashMap<UUID, BigDecimal>();
+        for (final UUID accountId : accountIds) {
+            amounts.put(accountId, BigDecimal.ZERO);
+        }
+        return amounts;
+    }
+
+    private Iterable<List<String>> partitionAccountIds(final Collection<UUID> accountIds) {
+        final Iterable<String> accountIdsAsStrings = Iterables.transform(accountIds, new Function<UUID, String>() {
+            @Override
+            public String apply(final UUID input) {
+                return input.toString();
+            }
+        });
+        return Iterables.partition(accountIdsAsStrings, MAX_ACCOUNT_IDS_PER_QUERY);
+    }
+
+    private void addAccountAmounts(final Map<UUID, BigDecimal> amounts, final Iterable<AccountAmountModelDao> accountAmounts, final boolean negate) {
+        for (final AccountAmountModelDao accountAmount : accountAmounts) {
+            final BigDecimal amount = negate ? accountAmount.getAmount().negate() : accountAmount.getAmount();
+            amounts.put(accountAmount.getAccountId(), amounts.get(accountAmount.getAccountId()).add(amount));
+        }
+    }
+
+    private Map<UUID, BigDecimal> roundAccountAmounts(final Map<UUID, BigDecimal> amounts) {
+        for (final UUID accountId : amounts.keySet()) {
+            amounts.put(accountId, amounts.get(accountId).setScale(InvoicingConfiguration.getNumberOfDecimals(), InvoicingConfiguration.getRoundingMode()));
+        }
+        return amounts;
+    }
+
     @Override
     public List<InvoiceModelDao> getUnpaidInvoicesByAccountId(final UUID accountId, @Nullable final LocalDate upToDate, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
@@ -717,9 +822,13 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
 
     private void notifyOfFutureBillingEvents(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final UUID accountId,
                                              final Map<UUID, DateTime> callbackDateTimePerSubscriptions, final UUID userToken) {
-        for (final UUID subscriptionId : callbackDateTimePerSubscriptions.keySet()) {
-            final DateTime callbackDateTimeUTC = callbackDateTimePerSubscriptions.get(subscriptionId);
-            nextBillingDatePoster.insertNextBillingNotificationFromTransaction(entitySqlDaoWrapperFactory, accountId, subscriptionId, callbackDateTimeUTC, userToken);
+        nextBillingDatePoster.insertNextBillingNotificationsForAccountFromTransaction(entitySqlDaoWrapperFactory, accountId, callbackDateTimePerSubscriptions.values(), userToken);
+    }
+
+    // Failures are propagated, to roll back the invoice: it must not be committed without its events
+    private void notifyBusFromTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final List<InvoiceInternalEvent> events) throws EventBusException {
+        for (final InvoiceInternalEvent event : events) {
+            eventBus.postFromTransaction(event, entitySqlDaoWrapperFactory.getSqlDao());
         }
     }
 
@@ -17,6 +17,7 @@
 package com.ning.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -29,6 +30,7 @@ import org.joda.time.LocalDate;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.events.InvoiceInternalEvent;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
 import com.ning.billing.util.entity.dao.EntityDao;
@@ -36,7 +38,9 @@ import com.ning.billing.util.entity.dao.EntityDao;
 public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceApiException> {
 
     void createInvoice(InvoiceModelDao invoice, List<InvoiceItemModelDao> invoiceItems,
-                       List<InvoicePaymentModelDao> invoicePayments, boolean isRealInvoice, final Map<UUID, DateTime> callbackDateTimePerSubscriptions, InternalCallContext context);
+                       List<InvoicePaymentModelDao> invoicePayments, boolean isRealInvoice, final Map<UUID, DateTime> callbackDateTimePerSubscriptions,
+                       final Map<UUID, DateTime> chargedThroughDates, List<InvoiceInternalEvent> events, boolean notifyAccount,
+                       InternalCallContext context);
 
     InvoiceModelDao getByNumber(Integer number, InternalTenantContext context) throws InvoiceApiException;
 
@@ -54,6 +58,11 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     public BigDecimal getAccountCBA(UUID accountId, InternalTenantContext context);
 
+    // Set-based versions of getAccountBalance and getAccountCBA, for a set of accounts in the same tenant
+    Map<UUID, BigDecimal> getAccountBalances(Collection<UUID> accountIds, InternalTenantContext context);
+
+    Map<UUID, BigDecimal> getAccountCBAs(Collection<UUID> accountIds, InternalTenantContext context);
+
     List<InvoiceModelDao> getUnpaidInvoicesByAccountId(UUID accountId, @Nullable LocalDate upToDate, InternalTenantContext context);
 
     // Include migrated invoices
@@ -16,11 +16,13 @@
 
 package com.ning.billing.invoice.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
 
 import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.callcontext.InternalTenantContext;
@@ -37,4 +39,14 @@ public interface InvoiceItemSqlDao extends EntitySqlDao<InvoiceItemModelDao, Inv
     @SqlQuery
     List<InvoiceItemModelDao> getInvoiceItemsBySubscription(@Bind("subscriptionId") final String subscriptionId,
                                                             @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @RegisterMapper(AccountAmountModelDao.AccountAmountMapper.class)
+    List<AccountAmountModelDao> getChargedAmountsByAccountIds(@AccountIdCollectionBinder final Collection<String> accountIds,
+                                                              @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @RegisterMapper(AccountAmountModelDao.AccountAmountMapper.class)
+    List<AccountAmountModelDao> getCreditedAmountsByAccountIds(@AccountIdCollectionBinder final Collection<String> accountIds,
+                                                               @BindBean final InternalTenantContext context);
 }
@@ -17,45 +17,43 @@
 package com.ning.billing.invoice.dao;
 
 import java.math.BigDecimal;
-
-import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.invoice.api.InvoicePayment;
+import com.ning.billing.invoice.calculator.InvoiceAmounts;
 import com.ning.billing.invoice.calculator.InvoiceCalculatorUtils;
 import com.ning.billing.invoice.model.DefaultInvoicePayment;
 import com.ning.billing.invoice.model.InvoiceItemFactory;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-
 public class InvoiceModelDaoHelper {
 
     private InvoiceModelDaoHelper() {}
 
     public static BigDecimal getBalance(final InvoiceModelDao invoiceModelDao) {
-        return InvoiceCalculatorUtils.computeInvoiceBalance(
-                Iterables.transform(invoiceModelDao.getInvoiceItems(), new Function<InvoiceItemModelDao, InvoiceItem>() {
-                    @Override
-                    public InvoiceItem apply(final InvoiceItemModelDao input) {
-                        return InvoiceItemFactory.fromModelDao(input);
-                    }
-                }),
-                Iterables.transform(invoiceModelDao.getInvoicePayments(), new Function<InvoicePaymentModelDao, InvoicePayment>() {
-                    @Nullable
-                    @Override
-                    public InvoicePayment apply(final InvoicePaymentModelDao input) {
-                        return new DefaultInvoicePayment(input);
-                    }
-                }));
+        return getAmounts(invoiceModelDao).getBalance();
     }
 
     public static BigDecimal getCBAAmount(final InvoiceModelDao invoiceModelDao) {
-        return InvoiceCalculatorUtils.computeInvoiceAmountCredited(Iterables.transform(invoiceModelDao.getInvoiceItems(), new Function<InvoiceItemModelDao, InvoiceItem>() {
-            @Override
-            public InvoiceItem apply(final InvoiceItemModelDao input) {
-                return InvoiceItemFactory.fromModelDao(input);
-            }
-        }));
+        return InvoiceCalculatorUtils.computeInvoiceAmountCredited(toInvoiceItems(invoiceModelDao));
+    }
+
+    // Items and payments are converted once, and all amounts computed in a single pass
+    public static InvoiceAmounts getAmounts(final InvoiceModelDao invoiceModelDao) {
+        final List<InvoiceItem> invoiceItems = toInvoiceItems(invoiceModelDao);
+        final List<InvoicePayment> invoicePayments = new ArrayList<InvoicePayment>(invoiceModelDao.getInvoicePayments().size());
+        for (final InvoicePaymentModelDao invoicePaymentModelDao : invoiceModelDao.getInvoicePayments()) {
+            invoicePayments.add(new DefaultInvoicePayment(invoicePaymentModelDao));
+        }
+        return InvoiceCalculatorUtils.computeInvoiceAmounts(invoiceModelDao.getCreatedDate(), invoiceItems, invoicePayments);
+    }
+
+    private static List<InvoiceItem> toInvoiceItems(final InvoiceModelDao invoiceModelDao) {
+        final List<InvoiceItem> invoiceItems = new ArrayList<InvoiceItem>(invoiceModelDao.getInvoiceItems().size());
+        for (final InvoiceItemModelDao invoiceItemModelDao : invoiceModelDao.getInvoiceItems()) {
+            invoiceItems.add(InvoiceItemFactory.fromModelDao(invoiceItemModelDao));
+        }
+        return invoiceItems;
     }
 }
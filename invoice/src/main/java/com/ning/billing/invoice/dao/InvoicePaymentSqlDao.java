@@ -17,6 +17,7 @@
 package com.ning.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -75,4 +76,9 @@ public interface InvoicePaymentSqlDao extends EntitySqlDao<InvoicePaymentModelDa
     @SqlQuery
     List<InvoicePaymentModelDao> getChargebacksByPaymentId(@Bind("paymentId") final String paymentId,
                                                            @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @RegisterMapper(AccountAmountModelDao.AccountAmountMapper.class)
+    List<AccountAmountModelDao> getPaidAmountsByAccountIds(@AccountIdCollectionBinder final Collection<String> accountIds,
+                                                           @BindBean final InternalTenantContext context);
 }
@@ -22,25 +22,34 @@ import org.skife.config.ConfigurationObjectFactory;
 import com.ning.billing.glue.InvoiceModule;
 import com.ning.billing.invoice.InvoiceListener;
 import com.ning.billing.invoice.InvoiceTagHandler;
+import com.ning.billing.invoice.api.BulkInvoiceUserApi;
 import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.invoice.api.InvoiceBillRunApi;
 import com.ning.billing.invoice.api.InvoiceMigrationApi;
 import com.ning.billing.invoice.api.InvoiceNotifier;
 import com.ning.billing.invoice.api.InvoicePaymentApi;
 import com.ning.billing.invoice.api.InvoiceService;
 import com.ning.billing.invoice.api.InvoiceUserApi;
+import com.ning.billing.invoice.api.billrun.DefaultInvoiceBillRunApi;
 import com.ning.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import com.ning.billing.invoice.api.invoice.DefaultInvoicePaymentApi;
 import com.ning.billing.invoice.api.migration.DefaultInvoiceMigrationApi;
 import com.ning.billing.invoice.api.svcs.DefaultInvoiceInternalApi;
 import com.ning.billing.invoice.api.user.DefaultInvoiceUserApi;
+import com.ning.billing.invoice.billrun.BillRunDao;
+import com.ning.billing.invoice.billrun.BillRunner;
 import com.ning.billing.invoice.dao.DefaultInvoiceDao;
 import com.ning.billing.invoice.dao.InvoiceDao;
 import com.ning.billing.invoice.generator.DefaultInvoiceGenerator;
 import com.ning.billing.invoice.generator.InvoiceGenerator;
 import com.ning.billing.invoice.notification.DefaultNextBillingDateNotifier;
+import com.ning.billing.invoice.notification.DefaultInvoiceNotificationPoster;
+import com.ning.billing.invoice.notification.DefaultInvoiceNotificationSender;
 import com.ning.billing.invoice.notification.DefaultNextBillingDatePoster;
 import com.ning.billing.invoice.notification.EmailInvoiceNotifier;
 import com.ning.billing.invoice.notification.NextBillingDateNotifier;
+import com.ning.billing.invoice.notification.InvoiceNotificationPoster;
+import com.ning.billing.invoice.notification.InvoiceNotificationSender;
 import com.ning.billing.invoice.notification.NextBillingDatePoster;
 import com.ning.billing.invoice.notification.NullInvoiceNotifier;
 import com.ning.billing.util.config.InvoiceConfig;
@@ -65,7 +74,9 @@ public class DefaultInvoiceModule extends AbstractModule implements InvoiceModul
 
     @Override
     public void installInvoiceUserApi() {
-        bind(InvoiceUserApi.class).to(DefaultInvoiceUserApi.class).asEagerSingleton();
+        bind(DefaultInvoiceUserApi.class).asEagerSingleton();
+        bind(InvoiceUserApi.class).to(DefaultInvoiceUserApi.class);
+        bind(BulkInvoiceUserApi.class).to(DefaultInvoiceUserApi.class);
     }
 
     @Override
@@ -95,6 +106,8 @@ public class DefaultInvoiceModule extends AbstractModule implements InvoiceModul
     protected void installNotifiers() {
         bind(NextBillingDateNotifier.class).to(DefaultNextBillingDateNotifier.class).asEagerSingleton();
         bind(NextBillingDatePoster.class).to(DefaultNextBillingDatePoster.class).asEagerSingleton();
+        bind(InvoiceNotificationSender.class).to(DefaultInvoiceNotificationSender.class).asEagerSingleton();
+        bind(InvoiceNotificationPoster.class).to(DefaultInvoiceNotificationPoster.class).asEagerSingleton();
         final TranslatorConfig config = new ConfigurationObjectFactory(configSource).build(TranslatorConfig.class);
         bind(TranslatorConfig.class).toInstance(config);
         bind(InvoiceFormatterFactory.class).to(config.getInvoiceFormatterFactoryClass()).asEagerSingleton();
@@ -120,6 +133,12 @@ public class DefaultInvoiceModule extends AbstractModule implements InvoiceModul
         bind(InvoiceGenerator.class).to(DefaultInvoiceGenerator.class).asEagerSingleton();
     }
 
+    protected void installBillRunner() {
+        bind(BillRunDao.class).asEagerSingleton();
+        bind(BillRunner.class).asEagerSingleton();
+        bind(InvoiceBillRunApi.class).to(DefaultInvoiceBillRunApi.class).asEagerSingleton();
+    }
+
     @Override
     protected void configure() {
         installConfig();
@@ -130,6 +149,7 @@ public class DefaultInvoiceModule extends AbstractModule implements InvoiceModul
         installInvoiceListener();
         installTagHandler();
         installInvoiceGenerator();
+        installBillRunner();
         installInvoiceDao();
         installInvoiceUserApi();
         installInvoiceInternalApi();
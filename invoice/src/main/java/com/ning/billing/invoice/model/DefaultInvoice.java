@@ -31,6 +31,7 @@ import com.ning.billing.catalog.api.Currency;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.invoice.api.InvoicePayment;
+import com.ning.billing.invoice.calculator.InvoiceAmounts;
 import com.ning.billing.invoice.calculator.InvoiceCalculatorUtils;
 import com.ning.billing.invoice.dao.InvoiceItemModelDao;
 import com.ning.billing.invoice.dao.InvoiceModelDao;
@@ -53,6 +54,11 @@ public class DefaultInvoice extends EntityBase implements Invoice {
 
     private final Currency processedCurrency;
 
+    // Memoized amounts, recomputed when items or payments are added (or removed)
+    private InvoiceAmounts amounts;
+    private int amountsNbItems = -1;
+    private int amountsNbPayments = -1;
+
     // Used to create a new invoice
     public DefaultInvoice(final UUID accountId, final LocalDate invoiceDate, final LocalDate targetDate, final Currency currency) {
         this(UUID.randomUUID(), accountId, null, invoiceDate, targetDate, currency, false);
@@ -97,11 +103,13 @@ public class DefaultInvoice extends EntityBase implements Invoice {
 
     @Override
     public boolean addInvoiceItem(final InvoiceItem item) {
+        amounts = null;
         return invoiceItems.add(item);
     }
 
     @Override
     public boolean addInvoiceItems(final Collection<InvoiceItem> items) {
+        amounts = null;
         return this.invoiceItems.addAll(items);
     }
 
@@ -128,11 +136,13 @@ public class DefaultInvoice extends EntityBase implements Invoice {
 
     @Override
     public boolean addPayment(final InvoicePayment payment) {
+        amounts = null;
         return payments.add(payment);
     }
 
     @Override
     public boolean addPayments(final Collection<InvoicePayment> payments) {
+        amounts = null;
         return this.payments.addAll(payments);
     }
 
@@ -187,32 +197,42 @@ public class DefaultInvoice extends EntityBase implements Invoice {
 
     @Override
     public BigDecimal getPaidAmount() {
-        return InvoiceCalculatorUtils.computeInvoiceAmountPaid(payments);
+        return getAmounts().getPaidAmount();
     }
 
     @Override
     public BigDecimal getOriginalChargedAmount() {
-        return InvoiceCalculatorUtils.computeInvoiceOriginalAmountCharged(createdDate, invoiceItems);
+        return getAmounts().getOriginalChargedAmount();
     }
 
     @Override
     public BigDecimal getChargedAmount() {
-        return InvoiceCalculatorUtils.computeInvoiceAmountCharged(invoiceItems);
+        return getAmounts().getChargedAmount();
     }
 
     @Override
     public BigDecimal getCreditedAmount() {
-        return InvoiceCalculatorUtils.computeInvoiceAmountCredited(invoiceItems);
+        return getAmounts().getCreditedAmount();
     }
 
     @Override
     public BigDecimal getRefundedAmount() {
-        return InvoiceCalculatorUtils.computeInvoiceAmountRefunded(payments);
+        return getAmounts().getRefundedAmount();
     }
 
     @Override
     public BigDecimal getBalance() {
-        return InvoiceCalculatorUtils.computeInvoiceBalance(invoiceItems, payments);
+        return getAmounts().getBalance();
+    }
+
+    private InvoiceAmounts getAmounts() {
+        // The lists are exposed by the getters, so also check they haven't been modified directly
+        if (amounts == null || amountsNbItems != invoiceItems.size() || amountsNbPayments != payments.size()) {
+            amountsNbItems = invoiceItems.size();
+            amountsNbPayments = payments.size();
+            amounts = InvoiceCalculatorUtils.computeInvoiceAmounts(createdDate, invoiceItems, payments);
+        }
+        return amounts;
     }
 
     @Override
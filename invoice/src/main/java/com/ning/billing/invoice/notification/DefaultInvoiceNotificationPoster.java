@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.notification;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.clock.Clock;
+import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.notificationq.api.NotificationQueue;
+import com.ning.billing.notificationq.api.NotificationQueueService;
+import com.ning.billing.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import com.ning.billing.util.config.InvoiceConfig;
+import com.ning.billing.util.entity.dao.EntitySqlDao;
+import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+
+import com.google.inject.Inject;
+
+public class DefaultInvoiceNotificationPoster implements InvoiceNotificationPoster {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceNotificationPoster.class);
+
+    private final NotificationQueueService notificationQueueService;
+    private final InvoiceConfig config;
+    private final Clock clock;
+
+    @Inject
+    public DefaultInvoiceNotificationPoster(final NotificationQueueService notificationQueueService,
+                                            final InvoiceConfig config,
+                                            final Clock clock) {
+        this.notificationQueueService = notificationQueueService;
+        this.config = config;
+        this.clock = clock;
+    }
+
+    @Override
+    public void insertInvoiceNotificationFromTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final UUID invoiceId,
+                                                         final InternalCallContext context) {
+        if (!config.isEmailNotificationsEnabled()) {
+            return;
+        }
+
+        final NotificationQueue invoiceNotificationQueue;
+        try {
+            invoiceNotificationQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
+                                                                                     DefaultInvoiceNotificationSender.INVOICE_NOTIFICATION_QUEUE);
+            log.info("Queuing notification for invoiceId {}", invoiceId);
+
+            invoiceNotificationQueue.recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory.getSqlDao(), clock.getUTCNow(),
+                                                                             new InvoiceNotificationKey(invoiceId, 0), context.getUserToken(),
+                                                                             context.getAccountRecordId(), context.getTenantRecordId());
+        } catch (NoSuchNotificationQueue e) {
+            log.error("Attempting to put items on a non-existent queue (InvoiceNotificationSender).", e);
+        } catch (IOException e) {
+            log.error("Failed to serialize notificationKey for invoiceId {}", invoiceId);
+        }
+    }
+}
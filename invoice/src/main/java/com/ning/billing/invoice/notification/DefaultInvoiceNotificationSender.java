@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.notification;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ning.billing.ObjectType;
+import com.ning.billing.account.api.Account;
+import com.ning.billing.account.api.AccountApiException;
+import com.ning.billing.account.api.AccountInternalApi;
+import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.clock.Clock;
+import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.invoice.api.Invoice;
+import com.ning.billing.invoice.api.InvoiceApiException;
+import com.ning.billing.invoice.api.InvoiceNotifier;
+import com.ning.billing.invoice.dao.InvoiceDao;
+import com.ning.billing.invoice.model.DefaultInvoice;
+import com.ning.billing.notificationq.api.NotificationEvent;
+import com.ning.billing.notificationq.api.NotificationQueue;
+import com.ning.billing.notificationq.api.NotificationQueueService;
+import com.ning.billing.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import com.ning.billing.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import com.ning.billing.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import com.ning.billing.util.callcontext.InternalCallContextFactory;
+import com.ning.billing.util.config.InvoiceConfig;
+import com.ning.billing.util.dao.NonEntityDao;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.inject.Inject;
+
+/**
+ * Sends the invoice notifications queued by the {@link InvoiceNotificationPoster}.
+ * <p/>
+ * Rendering and sending are done by the notification queue thread, outside of the invoicing account lock: the queue
+ * entry is only marked as processed once the notification has been sent (or its retry has been queued), so a
+ * pending notification is never lost on a crash (it may be sent twice though).
+ * Failed notifications are re-queued with an exponential backoff, up to a maximum number of attempts.
+ */
+public class DefaultInvoiceNotificationSender implements InvoiceNotificationSender {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultInvoiceNotificationSender.class);
+
+    public static final String INVOICE_NOTIFICATION_QUEUE = "invoice-notification-queue";
+
+    private final NotificationQueueService notificationQueueService;
+    private final InvoiceNotifier invoiceNotifier;
+    private final InvoiceDao invoiceDao;
+    private final AccountInternalApi accountApi;
+    private final NonEntityDao nonEntityDao;
+    private final InternalCallContextFactory callContextFactory;
+    private final InvoiceConfig config;
+    private final Clock clock;
+
+    private final Meter sentMeter;
+    private final Meter retriesMeter;
+    private final Meter failuresMeter;
+    private final Timer sendTimer;
+
+    private NotificationQueue invoiceNotificationQueue;
+
+    @Inject
+    public DefaultInvoiceNotificationSender(final NotificationQueueService notificationQueueService,
+                                            final InvoiceNotifier invoiceNotifier,
+                                            final InvoiceDao invoiceDao,
+                                            final AccountInternalApi accountApi,
+                                            final NonEntityDao nonEntityDao,
+                                            final InternalCallContextFactory callContextFactory,
+                                            final InvoiceConfig config,
+                                            final Clock clock,
+                                            final MetricRegistry metricRegistry) {
+        this.notificationQueueService = notificationQueueService;
+        this.invoiceNotifier = invoiceNotifier;
+        this.invoiceDao = invoiceDao;
+        this.accountApi = accountApi;
+        this.nonEntityDao = nonEntityDao;
+        this.callContextFactory = callContextFactory;
+        this.config = config;
+        this.clock = clock;
+        this.sentMeter = metricRegistry.meter(MetricRegistry.name(DefaultInvoiceNotificationSender.class, "sent"));
+        this.retriesMeter = metricRegistry.meter(MetricRegistry.name(DefaultInvoiceNotificationSender.class, "retries"));
+        this.failuresMeter = metricRegistry.meter(MetricRegistry.name(DefaultInvoiceNotificationSender.class, "failures"));
+        this.sendTimer = metricRegistry.timer(MetricRegistry.name(DefaultInvoiceNotificationSender.class, "send"));
+    }
+
+    @Override
+    public void initialize() throws NotificationQueueAlreadyExists {
+        final NotificationQueueHandler notificationQueueHandler = new NotificationQueueHandler() {
+            @Override
+            public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+                if (!(notificationKey instanceof InvoiceNotificationKey)) {
+                    log.error("Invoice service received an unexpected event type {}", notificationKey.getClass().getName());
+                    return;
+                }
+
+                sendNotification((InvoiceNotificationKey) notificationKey, userToken, accountRecordId, tenantRecordId);
+            }
+        };
+
+        invoiceNotificationQueue = notificationQueueService.createNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
+                                                                                    INVOICE_NOTIFICATION_QUEUE,
+                                                                                    notificationQueueHandler);
+    }
+
+    @Override
+    public void start() {
+        invoiceNotificationQueue.startQueue();
+    }
+
+    @Override
+    public void stop() throws NoSuchNotificationQueue {
+        if (invoiceNotificationQueue != null) {
+            invoiceNotificationQueue.stopQueue();
+            notificationQueueService.deleteNotificationQueue(invoiceNotificationQueue.getServiceName(), invoiceNotificationQueue.getQueueName());
+        }
+    }
+
+    private void sendNotification(final InvoiceNotificationKey key, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        final InternalTenantContext context = callContextFactory.createInternalTenantContext(tenantRecordId, accountRecordId);
+
+        final Timer.Context timerContext = sendTimer.time();
+        try {
+            final Invoice invoice = new DefaultInvoice(invoiceDao.getById(key.getUuidKey(), context));
+            final Account account = accountApi.getAccountById(invoice.getAccountId(), context);
+            invoiceNotifier.notify(account, invoice, context.toTenantContext(nonEntityDao.retrieveIdFromObject(tenantRecordId, ObjectType.TENANT)));
+            sentMeter.mark();
+        } catch (InvoiceApiException e) {
+            retryOrFail(key, userToken, accountRecordId, tenantRecordId, e);
+        } catch (AccountApiException e) {
+            retryOrFail(key, userToken, accountRecordId, tenantRecordId, e);
+        } catch (RuntimeException e) {
+            retryOrFail(key, userToken, accountRecordId, tenantRecordId, e);
+        } finally {
+            timerContext.stop();
+        }
+    }
+
+    private void retryOrFail(final InvoiceNotificationKey key, final UUID userToken, final Long accountRecordId, final Long tenantRecordId, final Exception cause) {
+        final int nextAttempt = key.getAttempt() + 1;
+        if (nextAttempt >= config.getNotificationMaxAttempts()) {
+            failuresMeter.mark();
+            log.error(String.format("Giving up sending notification for invoiceId %s after %s attempts", key.getUuidKey(), nextAttempt), cause);
+            return;
+        }
+
+        final DateTime retryDate = clock.getUTCNow().plus(config.getNotificationRetryDelay().getMillis() << key.getAttempt());
+        log.warn(String.format("Failed to send notification for invoiceId %s, retrying at %s", key.getUuidKey(), retryDate), cause);
+        try {
+            invoiceNotificationQueue.recordFutureNotification(retryDate, new InvoiceNotificationKey(key.getUuidKey(), nextAttempt), userToken,
+                                                              accountRecordId, tenantRecordId);
+            retriesMeter.mark();
+        } catch (IOException e) {
+            failuresMeter.mark();
+            log.error("Failed to serialize notificationKey for invoiceId {}", key.getUuidKey());
+        }
+    }
+}
@@ -72,6 +72,13 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
             @Override
             public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
                 try {
+                    if (notificationKey instanceof NextBillingDateAccountNotificationKey) {
+                        final NextBillingDateAccountNotificationKey key = (NextBillingDateAccountNotificationKey) notificationKey;
+                        listener.handleNextBillingDateAccountEvent(key.getUuidKey(), eventDate, userToken, accountRecordId, tenantRecordId);
+                        return;
+                    }
+
+                    // Subscription notifications, queued before account notifications were introduced
                     if (!(notificationKey instanceof NextBillingDateNotificationKey)) {
                         log.error("Invoice service received an unexpected event type {}", notificationKey.getClass().getName());
                         return;
@@ -17,14 +17,20 @@
 package com.ning.billing.invoice.notification;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.notificationq.api.NotificationEventWithMetadata;
 import com.ning.billing.notificationq.api.NotificationQueue;
 import com.ning.billing.notificationq.api.NotificationQueueService;
 import com.ning.billing.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
@@ -51,42 +57,84 @@ public class DefaultNextBillingDatePoster implements NextBillingDatePoster {
     }
 
     @Override
-    public void insertNextBillingNotificationFromTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final UUID accountId,
-                                                             final UUID subscriptionId, final DateTime futureNotificationTime, final UUID userToken) {
+    public void insertNextBillingNotificationsForAccountFromTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final UUID accountId,
+                                                                        final Collection<DateTime> futureNotificationTimes, final UUID userToken) {
+        if (futureNotificationTimes.isEmpty()) {
+            return;
+        }
+
         final InternalCallContext context = createCallContext(accountId, userToken);
 
         final NotificationQueue nextBillingQueue;
         try {
             nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
                                                                              DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
-            log.info("Queuing next billing date notification at {} for subscriptionId {}", futureNotificationTime.toString(), subscriptionId.toString());
 
-            nextBillingQueue.recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory.getSqlDao(), futureNotificationTime,
-                                                                     new NextBillingDateNotificationKey(subscriptionId), context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+            // Subscriptions sharing a billing date (and previous invoice runs) map to the same (account, effective time)
+            final Set<DateTime> scheduledTimes = new HashSet<DateTime>();
+            final List<NotificationEventWithMetadata<NextBillingDateAccountNotificationKey>> futureNotifications =
+                    nextBillingQueue.getFutureNotificationFromTransactionForSearchKey1(NextBillingDateAccountNotificationKey.class, context.getAccountRecordId(), entitySqlDaoWrapperFactory.getSqlDao());
+            for (final NotificationEventWithMetadata<NextBillingDateAccountNotificationKey> futureNotification : futureNotifications) {
+                scheduledTimes.add(normalize(futureNotification.getEffectiveDate()));
+            }
+
+            for (final DateTime futureNotificationTime : futureNotificationTimes) {
+                if (!scheduledTimes.add(normalize(futureNotificationTime))) {
+                    continue;
+                }
+
+                log.info("Queuing next billing date notification at {} for accountId {}", futureNotificationTime.toString(), accountId.toString());
+                nextBillingQueue.recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory.getSqlDao(), futureNotificationTime,
+                                                                         new NextBillingDateAccountNotificationKey(accountId), context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+            }
         } catch (NoSuchNotificationQueue e) {
             log.error("Attempting to put items on a non-existent queue (NextBillingDateNotifier).", e);
         } catch (IOException e) {
-            log.error("Failed to serialize notificationKey for subscriptionId {}", subscriptionId);
+            log.error("Failed to serialize notificationKey for accountId {}", accountId);
         }
     }
 
     @Override
-    public void insertNextBillingNotification(final UUID accountId, final UUID subscriptionId, final DateTime futureNotificationTime, final UUID userToken) {
+    public void insertCoalescedNextBillingNotificationForAccount(final UUID accountId, final DateTime futureNotificationTime, final UUID userToken)
+            throws NoSuchNotificationQueue, IOException {
         final InternalCallContext context = createCallContext(accountId, userToken);
+        final NotificationQueue nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
+                                                                                                 DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+
+        // A pending invoice run for the account will pick up that change as well. The lookup and the insertion aren't atomic:
+        // events handled concurrently for the same account may still queue several runs, these are collapsed when they fire
+        final List<NotificationEventWithMetadata<NextBillingDateAccountNotificationKey>> futureNotifications =
+                nextBillingQueue.getFutureNotificationForSearchKey1(NextBillingDateAccountNotificationKey.class, context.getAccountRecordId());
+        for (final NotificationEventWithMetadata<NextBillingDateAccountNotificationKey> futureNotification : futureNotifications) {
+            if (futureNotification.getEffectiveDate().compareTo(normalize(futureNotificationTime)) <= 0) {
+                log.debug("Skipping invoice run at {} for accountId {}, already scheduled at {}", futureNotificationTime, accountId, futureNotification.getEffectiveDate());
+                return;
+            }
+        }
 
-        final NotificationQueue nextBillingQueue;
-        try {
-            nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
-                                                                             DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
-            log.info("Queuing next billing date notification at {} for subscriptionId {}", futureNotificationTime.toString(), subscriptionId.toString());
+        log.info("Queuing coalesced invoice run at {} for accountId {}", futureNotificationTime.toString(), accountId.toString());
+        nextBillingQueue.recordFutureNotification(futureNotificationTime,
+                                                  new NextBillingDateAccountNotificationKey(accountId), context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+    }
 
-            nextBillingQueue.recordFutureNotification(futureNotificationTime,
-                                                      new NextBillingDateNotificationKey(subscriptionId), context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
-        } catch (NoSuchNotificationQueue e) {
-            log.error("Attempting to put items on a non-existent queue (NextBillingDateNotifier).", e);
-        } catch (IOException e) {
-            log.error("Failed to serialize notificationKey for subscriptionId {}", subscriptionId);
+    @Override
+    public boolean isNextBillingNotificationForAccountScheduled(final Long accountRecordId, final DateTime fromTime, final DateTime toTime) throws NoSuchNotificationQueue {
+        final NotificationQueue nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
+                                                                                                 DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+
+        final List<NotificationEventWithMetadata<NextBillingDateAccountNotificationKey>> futureNotifications =
+                nextBillingQueue.getFutureNotificationForSearchKey1(NextBillingDateAccountNotificationKey.class, accountRecordId);
+        for (final NotificationEventWithMetadata<NextBillingDateAccountNotificationKey> futureNotification : futureNotifications) {
+            if (futureNotification.getEffectiveDate().compareTo(normalize(fromTime)) >= 0 && futureNotification.getEffectiveDate().compareTo(toTime) <= 0) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    // The notification table doesn't store milliseconds
+    private DateTime normalize(final DateTime dateTime) {
+        return new DateTime(dateTime.getMillis() - dateTime.getMillis() % 1000, DateTimeZone.UTC);
     }
 
     private InternalCallContext createCallContext(final UUID accountId, final UUID userToken) {
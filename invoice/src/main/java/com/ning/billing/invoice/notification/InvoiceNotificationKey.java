@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.notification;
+
+import java.util.UUID;
+
+import com.ning.billing.notificationq.DefaultUUIDNotificationKey;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Pending invoice notification (the key is the invoice id), along with the number of failed attempts to send it
+ */
+public class InvoiceNotificationKey extends DefaultUUIDNotificationKey {
+
+    private final int attempt;
+
+    @JsonCreator
+    public InvoiceNotificationKey(@JsonProperty("uuidKey") final UUID uuidKey,
+                                  @JsonProperty("attempt") final int attempt) {
+        super(uuidKey);
+        this.attempt = attempt;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+}
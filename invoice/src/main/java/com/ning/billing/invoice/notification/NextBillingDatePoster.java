@@ -16,18 +16,31 @@
 
 package com.ning.billing.invoice.notification;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
 
+import com.ning.billing.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
 import com.ning.billing.util.entity.dao.EntitySqlDao;
 import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 
 public interface NextBillingDatePoster {
 
-    void insertNextBillingNotificationFromTransaction(EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, UUID accountId,
-                                                      UUID subscriptionId, DateTime futureNotificationTime, UUID userToken);
+    /**
+     * Insert one account notification per distinct time, skipping the times the account already has a notification for
+     */
+    void insertNextBillingNotificationsForAccountFromTransaction(EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, UUID accountId,
+                                                                 Collection<DateTime> futureNotificationTimes, UUID userToken);
 
-    void insertNextBillingNotification(UUID accountId,
-                                       UUID subscriptionId, DateTime futureNotificationTime, UUID userToken);
+    /**
+     * Insert an account notification, unless the account already has one scheduled no later than that time
+     */
+    void insertCoalescedNextBillingNotificationForAccount(UUID accountId, DateTime futureNotificationTime, UUID userToken) throws NoSuchNotificationQueue, IOException;
+
+    /**
+     * @return true if the account has a notification pending between fromTime and toTime (inclusive)
+     */
+    boolean isNextBillingNotificationForAccountScheduled(Long accountRecordId, DateTime fromTime, DateTime toTime) throws NoSuchNotificationQueue;
 }
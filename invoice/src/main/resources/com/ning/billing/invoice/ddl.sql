@@ -72,3 +72,36 @@ CREATE INDEX invoice_payments ON invoice_payments(payment_id);
 CREATE INDEX invoice_payments_invoice_id ON invoice_payments(invoice_id);
 CREATE INDEX invoice_payments_reversals ON invoice_payments(linked_invoice_payment_id);
 CREATE INDEX invoice_payments_tenant_account_record_id ON invoice_payments(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS invoice_bill_runs;
+CREATE TABLE invoice_bill_runs (
+    record_id int(11) unsigned NOT NULL AUTO_INCREMENT,
+    id char(36) NOT NULL,
+    target_date datetime NOT NULL,
+    dry_run bool NOT NULL,
+    state varchar(20) NOT NULL,
+    partition_size int(11) unsigned NOT NULL,
+    last_account_record_id int(11) unsigned NOT NULL,
+    max_account_record_id int(11) unsigned NOT NULL,
+    nb_accounts_processed int(11) unsigned NOT NULL,
+    nb_accounts_failed int(11) unsigned NOT NULL,
+    nb_invoices int(11) unsigned NOT NULL,
+    created_date datetime NOT NULL,
+    updated_date datetime NOT NULL,
+    tenant_record_id int(11) unsigned default null,
+    PRIMARY KEY(record_id)
+) CHARACTER SET utf8 COLLATE utf8_bin;
+CREATE UNIQUE INDEX invoice_bill_runs_id ON invoice_bill_runs(id);
+CREATE INDEX invoice_bill_runs_tenant_record_id ON invoice_bill_runs(tenant_record_id);
+
+DROP TABLE IF EXISTS invoice_bill_run_failed_accounts;
+CREATE TABLE invoice_bill_run_failed_accounts (
+    record_id int(11) unsigned NOT NULL AUTO_INCREMENT,
+    bill_run_id char(36) NOT NULL,
+    account_id char(36) NOT NULL,
+    account_record_id int(11) unsigned NOT NULL,
+    created_date datetime NOT NULL,
+    tenant_record_id int(11) unsigned default null,
+    PRIMARY KEY(record_id)
+) CHARACTER SET utf8 COLLATE utf8_bin;
+CREATE INDEX invoice_bill_run_failed_accounts_bill_run_id ON invoice_bill_run_failed_accounts(bill_run_id, account_record_id);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice;
+
+import java.util.concurrent.Callable;
+
+import org.joda.time.DateTime;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.ning.billing.account.api.Account;
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.clock.ClockMock;
+import com.ning.billing.events.EffectiveSubscriptionInternalEvent;
+import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.invoice.notification.DefaultNextBillingDateNotifier;
+import com.ning.billing.invoice.notification.NextBillingDateAccountNotificationKey;
+import com.ning.billing.invoice.notification.NextBillingDatePoster;
+import com.ning.billing.notificationq.api.NotificationQueue;
+import com.ning.billing.subscription.api.SubscriptionBaseTransitionType;
+import com.ning.billing.util.config.InvoiceConfig;
+
+import com.google.inject.Inject;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+public class TestInvoiceListener extends InvoiceTestSuiteWithEmbeddedDB {
+
+    private static final long COALESCING_DELAY_MILLIS = 5000;
+
+    @Inject
+    private InvoiceConfig invoiceConfig;
+    @Inject
+    private NextBillingDatePoster nextBillingDatePoster;
+
+    @Override
+    @BeforeClass(groups = "slow")
+    protected void beforeClass() throws Exception {
+        configSource.setProperty("killbill.invoice.coalescing.delay", (COALESCING_DELAY_MILLIS / 1000) + "s");
+        super.beforeClass();
+    }
+
+    @Test(groups = "slow")
+    public void testSubscriptionEventsAreCoalescedIntoOneInvoiceRun() throws Exception {
+        final Account account = invoiceUtil.createAccount(callContext);
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(account.getId(), callContext);
+
+        // The (test) listener bound in the injector only records the invoice runs, use a real one to handle the events
+        final InvoiceDispatcher dispatcher = Mockito.mock(InvoiceDispatcher.class);
+        final InvoiceListener invoiceListener = new InvoiceListener(accountApi, clock, internalCallContextFactory, invoiceConfig, nextBillingDatePoster, dispatcher);
+
+        // e.g. a base plan and its two add-ons cancelled by the same API call
+        for (int i = 0; i < 3; i++) {
+            invoiceListener.handleSubscriptionTransition(createSubscriptionEvent(accountContext));
+        }
+
+        // The events don't invoice the account, but share a single invoice run at the end of the coalescing delay
+        Mockito.verifyZeroInteractions(dispatcher);
+        final NotificationQueue nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME, DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+        Assert.assertEquals(nextBillingQueue.getFutureNotificationForSearchKey1(NextBillingDateAccountNotificationKey.class, accountContext.getAccountRecordId()).size(), 1);
+
+        // A duplicate invoice run firing before the scheduled one is skipped, a later one isn't
+        invoiceListener.handleNextBillingDateAccountEvent(account.getId(), clock.getUTCNow(), accountContext.getUserToken(), accountContext.getAccountRecordId(), accountContext.getTenantRecordId());
+        Mockito.verifyZeroInteractions(dispatcher);
+        final DateTime laterInvoiceRunDate = clock.getUTCNow().plusMinutes(1);
+        invoiceListener.handleNextBillingDateAccountEvent(account.getId(), laterInvoiceRunDate, accountContext.getUserToken(), accountContext.getAccountRecordId(), accountContext.getTenantRecordId());
+        Mockito.verify(dispatcher).processAccount(Mockito.eq(account.getId()), Mockito.eq(laterInvoiceRunDate), Mockito.eq(false), Mockito.<InternalCallContext>any());
+
+        ((ClockMock) clock).addDeltaFromReality(COALESCING_DELAY_MILLIS + 1000);
+        await().atMost(1, MINUTES).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return testInvoiceNotificationQListener.getAccountEventCount() == 1;
+            }
+        });
+        Assert.assertEquals(testInvoiceNotificationQListener.getLatestAccountId(), account.getId());
+        Assert.assertEquals(testInvoiceNotificationQListener.getEventCount(), 0);
+        Assert.assertTrue(nextBillingQueue.getFutureNotificationForSearchKey1(NextBillingDateAccountNotificationKey.class, accountContext.getAccountRecordId()).isEmpty());
+    }
+
+    private EffectiveSubscriptionInternalEvent createSubscriptionEvent(final InternalCallContext accountContext) {
+        final EffectiveSubscriptionInternalEvent event = Mockito.mock(EffectiveSubscriptionInternalEvent.class);
+        Mockito.when(event.getTransitionType()).thenReturn(SubscriptionBaseTransitionType.CANCEL);
+        Mockito.when(event.getRemainingEventsForUserOperation()).thenReturn(0);
+        Mockito.when(event.getEffectiveTransitionTime()).thenReturn(clock.getUTCNow());
+        Mockito.when(event.getSearchKey1()).thenReturn(accountContext.getAccountRecordId());
+        Mockito.when(event.getSearchKey2()).thenReturn(accountContext.getTenantRecordId());
+        Mockito.when(event.getUserToken()).thenReturn(accountContext.getUserToken());
+        return event;
+    }
+}
@@ -30,10 +30,12 @@ public class TestInvoiceNotificationQListener extends InvoiceListener {
 
     int eventCount = 0;
     UUID latestSubscriptionId = null;
+    int accountEventCount = 0;
+    UUID latestAccountId = null;
 
     @Inject
     public TestInvoiceNotificationQListener(final AccountInternalApi accountApi, final Clock clock, final InternalCallContextFactory internalCallContextFactory, final InvoiceDispatcher dispatcher) {
-        super(accountApi, clock, internalCallContextFactory, null, dispatcher);
+        super(accountApi, clock, internalCallContextFactory, null, null, dispatcher);
     }
 
     @Override
@@ -42,6 +44,12 @@ public class TestInvoiceNotificationQListener extends InvoiceListener {
         latestSubscriptionId = subscriptionId;
     }
 
+    @Override
+    public void handleNextBillingDateAccountEvent(final UUID accountId, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        accountEventCount++;
+        latestAccountId = accountId;
+    }
+
     public int getEventCount() {
         return eventCount;
     }
@@ -50,4 +58,12 @@ public class TestInvoiceNotificationQListener extends InvoiceListener {
         return latestSubscriptionId;
     }
 
+    public int getAccountEventCount() {
+        return accountEventCount;
+    }
+
+    public UUID getLatestAccountId() {
+        return latestAccountId;
+    }
+
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.invoice.InvoiceTestSuiteNoDB;
+
+public class TestBillRunCheckpoint extends InvoiceTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testPartitioning() throws Exception {
+        final BillRunCheckpoint checkpoint = new BillRunCheckpoint(0L, 25L, 10, new BillRunCounters());
+        Assert.assertEquals(checkpoint.getNbPartitions(), 3);
+        Assert.assertEquals(checkpoint.getFromAccountRecordId(0), 1L);
+        Assert.assertEquals(checkpoint.getToAccountRecordId(0), 11L);
+        Assert.assertEquals(checkpoint.getFromAccountRecordId(2), 21L);
+        Assert.assertEquals(checkpoint.getToAccountRecordId(2), 31L);
+        Assert.assertEquals(checkpoint.getCheckpoint(), 0L);
+    }
+
+    @Test(groups = "fast")
+    public void testNoAccountLeft() throws Exception {
+        Assert.assertEquals(new BillRunCheckpoint(0L, 0L, 10, new BillRunCounters()).getNbPartitions(), 0);
+        Assert.assertEquals(new BillRunCheckpoint(30L, 25L, 10, new BillRunCounters()).getNbPartitions(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testOutOfOrderCompletion() throws Exception {
+        final BillRunCheckpoint checkpoint = new BillRunCheckpoint(100L, 140L, 10, new BillRunCounters());
+        Assert.assertEquals(checkpoint.getNbPartitions(), 4);
+
+        // Checkpoint can't move until the first partition is done
+        Assert.assertNull(checkpoint.markCompleted(1, new BillRunCounters()));
+        Assert.assertNull(checkpoint.markCompleted(3, new BillRunCounters()));
+        Assert.assertEquals(checkpoint.getCheckpoint(), 100L);
+
+        Assert.assertEquals(checkpoint.markCompleted(0, new BillRunCounters()), (Long) 120L);
+        Assert.assertEquals(checkpoint.markCompleted(2, new BillRunCounters()), (Long) 140L);
+    }
+
+    @Test(groups = "fast")
+    public void testCountersFollowCheckpoint() throws Exception {
+        // Resumed bill run: 5 accounts processed (1 failed, 3 invoices) before the checkpoint
+        final BillRunCheckpoint checkpoint = new BillRunCheckpoint(100L, 130L, 10, new BillRunCounters(5L, 1L, 3L));
+
+        Assert.assertNull(checkpoint.markCompleted(1, new BillRunCounters(10L, 2L, 8L)));
+        // Partition 1 isn't behind the checkpoint yet: it would be processed again on resume
+        Assert.assertEquals(checkpoint.getCheckpointCounters().getNbAccountsProcessed(), 5L);
+
+        Assert.assertEquals(checkpoint.markCompleted(0, new BillRunCounters(10L, 0L, 10L)), (Long) 120L);
+        final BillRunCounters counters = checkpoint.getCheckpointCounters();
+        Assert.assertEquals(counters.getNbAccountsProcessed(), 25L);
+        Assert.assertEquals(counters.getNbAccountsFailed(), 3L);
+        Assert.assertEquals(counters.getNbInvoices(), 21L);
+    }
+}
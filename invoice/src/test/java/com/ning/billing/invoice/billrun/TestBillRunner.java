@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.billrun;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.invoice.InvoiceDispatcher;
+import com.ning.billing.invoice.InvoiceTestSuiteWithEmbeddedDB;
+import com.ning.billing.invoice.api.BillRunState;
+import com.ning.billing.invoice.api.Invoice;
+import com.ning.billing.subscription.api.SubscriptionBaseInternalApi;
+import com.ning.billing.util.config.InvoiceConfig;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestBillRunner extends InvoiceTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testResumeAfterFailure() throws Exception {
+        final SortedMap<Long, UUID> accounts = new TreeMap<Long, UUID>();
+        for (long accountRecordId = 1; accountRecordId <= 5; accountRecordId++) {
+            accounts.put(accountRecordId, UUID.randomUUID());
+        }
+        final UUID failingAccountId = accounts.get(3L);
+
+        final SubscriptionBaseInternalApi subscriptionInternalApi = Mockito.mock(SubscriptionBaseInternalApi.class);
+        Mockito.when(subscriptionInternalApi.getMaxAccountRecordIdWithBundles(Mockito.<InternalTenantContext>any())).thenReturn(accounts.lastKey());
+        Mockito.when(subscriptionInternalApi.getAccountIdsWithBundles(Mockito.anyLong(), Mockito.anyLong(), Mockito.<InternalTenantContext>any()))
+               .thenAnswer(new Answer<SortedMap<Long, UUID>>() {
+                   @Override
+                   public SortedMap<Long, UUID> answer(final InvocationOnMock invocation) throws Throwable {
+                       return accounts.subMap((Long) invocation.getArguments()[0], (Long) invocation.getArguments()[1]);
+                   }
+               });
+
+        final InvoiceDispatcher dispatcher = Mockito.mock(InvoiceDispatcher.class);
+        Mockito.when(dispatcher.processAccount(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.anyBoolean(), Mockito.<InternalCallContext>any()))
+               .thenReturn(Mockito.mock(Invoice.class));
+        // The account fails to be invoiced the first time only
+        Mockito.when(dispatcher.processAccount(Mockito.eq(failingAccountId), Mockito.<DateTime>any(), Mockito.anyBoolean(), Mockito.<InternalCallContext>any()))
+               .thenThrow(new IllegalStateException("Simulated failure"))
+               .thenReturn(Mockito.mock(Invoice.class));
+
+        final InvoiceConfig invoiceConfig = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(invoiceConfig.getBillRunThreadNb()).thenReturn(2);
+        Mockito.when(invoiceConfig.getBillRunPartitionSize()).thenReturn(2);
+
+        final BillRunner billRunner = new BillRunner(dispatcher, new BillRunDao(dbi, clock), subscriptionInternalApi, internalCallContextFactory,
+                                                     invoiceConfig, clock, new MetricRegistry());
+
+        final BillRunStatus firstRun = billRunner.startBillRun(clock.getUTCNow(), false, internalCallContext);
+        Assert.assertEquals(firstRun.getState(), BillRunState.COMPLETED_WITH_FAILURES);
+        Assert.assertEquals(firstRun.getNbAccountsProcessed(), 5L);
+        Assert.assertEquals(firstRun.getNbAccountsFailed(), 1L);
+        Assert.assertEquals(firstRun.getNbInvoices(), 4L);
+
+        // Only the failed account is invoiced again, and the counters aren't doubled
+        final BillRunStatus resumedRun = billRunner.resumeBillRun(firstRun.getId(), internalCallContext);
+        Assert.assertEquals(resumedRun.getState(), BillRunState.COMPLETED);
+        Assert.assertEquals(resumedRun.getNbAccountsProcessed(), 5L);
+        Assert.assertEquals(resumedRun.getNbAccountsFailed(), 0L);
+        Assert.assertEquals(resumedRun.getNbInvoices(), 5L);
+
+        Mockito.verify(dispatcher, Mockito.times(2)).processAccount(Mockito.eq(failingAccountId), Mockito.<DateTime>any(), Mockito.anyBoolean(), Mockito.<InternalCallContext>any());
+        Mockito.verify(dispatcher, Mockito.times(6)).processAccount(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.anyBoolean(), Mockito.<InternalCallContext>any());
+
+        // Resuming a completed bill run is a no-op
+        Assert.assertEquals(billRunner.resumeBillRun(firstRun.getId(), internalCallContext).getState(), BillRunState.COMPLETED);
+        Mockito.verify(dispatcher, Mockito.times(6)).processAccount(Mockito.<UUID>any(), Mockito.<DateTime>any(), Mockito.anyBoolean(), Mockito.<InternalCallContext>any());
+    }
+}
@@ -18,6 +18,7 @@ package com.ning.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -33,9 +34,9 @@ import com.ning.billing.bus.api.PersistentBus;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.events.InvoiceInternalEvent;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
-import com.ning.billing.invoice.api.user.DefaultInvoiceCreationEvent;
 import com.ning.billing.util.entity.DefaultPagination;
 import com.ning.billing.util.entity.Pagination;
 import com.ning.billing.util.entity.dao.MockEntityDaoBase;
@@ -60,7 +61,9 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
 
     @Override
     public void createInvoice(final InvoiceModelDao invoice, final List<InvoiceItemModelDao> invoiceItems,
-                              final List<InvoicePaymentModelDao> invoicePayments, final boolean isRealInvoice, final Map<UUID, DateTime> callbackDateTimePerSubscriptions, final InternalCallContext context) {
+                              final List<InvoicePaymentModelDao> invoicePayments, final boolean isRealInvoice, final Map<UUID, DateTime> callbackDateTimePerSubscriptions,
+                              final Map<UUID, DateTime> chargedThroughDates, final List<InvoiceInternalEvent> events, final boolean notifyAccount,
+                              final InternalCallContext context) {
         synchronized (monitor) {
             invoices.put(invoice.getId(), invoice);
             for (final InvoiceItemModelDao invoiceItemModelDao : invoiceItems) {
@@ -72,9 +75,9 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
             accountRecordIds.put(invoice.getAccountId(), context.getAccountRecordId());
         }
         try {
-            eventBus.post(new DefaultInvoiceCreationEvent(invoice.getId(), invoice.getAccountId(),
-                                                          InvoiceModelDaoHelper.getBalance(invoice), invoice.getCurrency(),
-                                                          context.getAccountRecordId(), context.getTenantRecordId(), context.getUserToken()));
+            for (final InvoiceInternalEvent event : events) {
+                eventBus.post(event);
+            }
         } catch (PersistentBus.EventBusException ex) {
             throw new RuntimeException(ex);
         }
@@ -208,6 +211,20 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         return balance;
     }
 
+    @Override
+    public Map<UUID, BigDecimal> getAccountBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        final Map<UUID, BigDecimal> balances = new LinkedHashMap<UUID, BigDecimal>();
+        for (final UUID accountId : accountIds) {
+            balances.put(accountId, getAccountBalance(accountId, context));
+        }
+        return balances;
+    }
+
+    @Override
+    public Map<UUID, BigDecimal> getAccountCBAs(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        return null;
+    }
+
     @Override
     public List<InvoiceModelDao> getUnpaidInvoicesByAccountId(final UUID accountId, final LocalDate upToDate, final InternalTenantContext context) {
         final List<InvoiceModelDao> unpaidInvoices = new ArrayList<InvoiceModelDao>();
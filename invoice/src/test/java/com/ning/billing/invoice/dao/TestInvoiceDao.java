@@ -23,11 +23,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.mockito.Mockito;
 import org.skife.jdbi.v2.exceptions.TransactionFailedException;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -45,6 +47,8 @@ import com.ning.billing.catalog.api.PhaseType;
 import com.ning.billing.catalog.api.Plan;
 import com.ning.billing.catalog.api.PlanPhase;
 import com.ning.billing.clock.ClockMock;
+import com.ning.billing.events.InvoiceCreationInternalEvent;
+import com.ning.billing.events.InvoiceInternalEvent;
 import com.ning.billing.invoice.InvoiceTestSuiteWithEmbeddedDB;
 import com.ning.billing.invoice.MockBillingEventSet;
 import com.ning.billing.invoice.api.Invoice;
@@ -53,10 +57,12 @@ import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.invoice.api.InvoiceItemType;
 import com.ning.billing.invoice.api.InvoicePayment;
 import com.ning.billing.invoice.api.InvoicePaymentType;
+import com.ning.billing.invoice.api.user.DefaultInvoiceCreationEvent;
 import com.ning.billing.invoice.model.CreditAdjInvoiceItem;
 import com.ning.billing.invoice.model.CreditBalanceAdjInvoiceItem;
 import com.ning.billing.invoice.model.DefaultInvoice;
 import com.ning.billing.invoice.model.DefaultInvoicePayment;
+import com.ning.billing.invoice.model.ExternalChargeInvoiceItem;
 import com.ning.billing.invoice.model.FixedPriceInvoiceItem;
 import com.ning.billing.invoice.model.RecurringInvoiceItem;
 import com.ning.billing.invoice.model.RepairAdjInvoiceItem;
@@ -68,12 +74,16 @@ import com.ning.billing.junction.BillingEvent;
 import com.ning.billing.junction.BillingEventSet;
 import com.ning.billing.junction.BillingModeType;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.Subscribe;
 
+import static com.jayway.awaitility.Awaitility.await;
 import static com.ning.billing.invoice.TestInvoiceHelper.FIVE;
 import static com.ning.billing.invoice.TestInvoiceHelper.TEN;
 import static com.ning.billing.invoice.TestInvoiceHelper.TWENTY;
 import static com.ning.billing.invoice.TestInvoiceHelper.ZERO;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
@@ -917,6 +927,50 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertEquals(cba.compareTo(new BigDecimal("0.00")), 0);
     }
 
+    @Test(groups = "slow")
+    public void testAccountBalancesAndCBAs() throws EntityPersistenceException {
+        final UUID accountId = account.getId();
+        final UUID otherAccountId = UUID.randomUUID();
+        final UUID bundleId = UUID.randomUUID();
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        invoiceUtil.createInvoice(invoice1, true, context);
+
+        final LocalDate startDate = new LocalDate(2011, 3, 1);
+        final LocalDate endDate = startDate.plusMonths(1);
+        final BigDecimal amount1 = new BigDecimal("5.0");
+        final BigDecimal rate1 = new BigDecimal("20.0");
+
+        final FixedPriceInvoiceItem item1 = new FixedPriceInvoiceItem(invoice1.getId(), accountId, bundleId, UUID.randomUUID(), "test plan", "test phase A", startDate,
+                                                                      amount1, Currency.USD);
+        invoiceUtil.createInvoiceItem(item1, context);
+        final RecurringInvoiceItem item2 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, UUID.randomUUID(), "test plan", "test phase B", startDate,
+                                                                    endDate, rate1, rate1, Currency.USD);
+        invoiceUtil.createInvoiceItem(item2, context);
+        final InvoicePayment payment = new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), invoice1.getId(), new DateTime(), amount1.add(rate1), Currency.USD, Currency.USD);
+        invoiceUtil.createPayment(payment, context);
+
+        // Overpay by repairing the recurring item, and credit the account
+        final RepairAdjInvoiceItem item2Repair = new RepairAdjInvoiceItem(invoice1.getId(), accountId, startDate, endDate, new BigDecimal("-10.0"), Currency.USD, item2.getId());
+        invoiceUtil.createInvoiceItem(item2Repair, context);
+        final CreditBalanceAdjInvoiceItem cbaItem = new CreditBalanceAdjInvoiceItem(invoice1.getId(), accountId, new LocalDate(), TEN, Currency.USD);
+        invoiceUtil.createInvoiceItem(cbaItem, context);
+
+        final List<UUID> accountIds = ImmutableList.<UUID>of(accountId, otherAccountId);
+        final Map<UUID, BigDecimal> balances = invoiceDao.getAccountBalances(accountIds, context);
+        assertEquals(balances.size(), 2);
+        assertEquals(balances.get(accountId).compareTo(invoiceDao.getAccountBalance(accountId, context)), 0);
+        assertEquals(balances.get(accountId).compareTo(new BigDecimal("-10.00")), 0);
+        assertEquals(balances.get(otherAccountId).compareTo(BigDecimal.ZERO), 0);
+
+        final Map<UUID, BigDecimal> cbas = invoiceDao.getAccountCBAs(accountIds, context);
+        assertEquals(cbas.size(), 2);
+        assertEquals(cbas.get(accountId).compareTo(invoiceDao.getAccountCBA(accountId, context)), 0);
+        assertEquals(cbas.get(accountId).compareTo(new BigDecimal("10.00")), 0);
+        assertEquals(cbas.get(otherAccountId).compareTo(BigDecimal.ZERO), 0);
+
+        assertTrue(invoiceDao.getAccountBalances(ImmutableList.<UUID>of(), context).isEmpty());
+    }
+
     @Test(groups = "slow")
     public void testAccountCredit() {
         final UUID accountId = account.getId();
@@ -1594,4 +1648,60 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         Assert.assertEquals(invoiceDao.getAccountCBA(accountId, context).doubleValue(), 10.00);
         invoiceUtil.verifyInvoice(invoice1.getId(), 0.00, 10.00);
     }
+
+    @Test(groups = "slow")
+    public void testInvoiceCreationEventIsPostedFromTheInvoiceTransaction() throws Exception {
+        final InvoiceCreationEventsListener listener = new InvoiceCreationEventsListener();
+        bus.register(listener);
+        try {
+            // The invoice transaction fails after the event has been posted
+            final Map<UUID, DateTime> failingChargedThroughDates = ImmutableMap.<UUID, DateTime>of(UUID.randomUUID(), clock.getUTCNow());
+            Mockito.doThrow(new IllegalStateException("Simulated invoice failure"))
+                   .when(subscriptionApi).setChargedThroughDatesFromTransaction(Mockito.<Transmogrifier>any(), Mockito.eq(failingChargedThroughDates), Mockito.<InternalCallContext>any());
+            final Invoice rolledBackInvoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), clock.getUTCToday(), Currency.USD);
+            try {
+                createInvoiceWithCreationEvent(rolledBackInvoice, failingChargedThroughDates);
+                Assert.fail("The invoice transaction should have been rolled back");
+            } catch (TransactionFailedException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+
+            // The invoice transaction is committed
+            final Invoice invoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), clock.getUTCToday(), Currency.USD);
+            createInvoiceWithCreationEvent(invoice, ImmutableMap.<UUID, DateTime>of());
+
+            // Events are dispatched in order: had the first event been posted, it would have been received first
+            await().atMost(10, SECONDS).until(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return listener.getInvoiceIds().size() >= 1;
+                }
+            });
+            Assert.assertEquals(listener.getInvoiceIds(), ImmutableList.<UUID>of(invoice.getId()));
+        } finally {
+            bus.unregister(listener);
+        }
+    }
+
+    private void createInvoiceWithCreationEvent(final Invoice invoice, final Map<UUID, DateTime> chargedThroughDates) {
+        final InvoiceItem invoiceItem = new ExternalChargeInvoiceItem(invoice.getId(), invoice.getAccountId(), null, "charge", clock.getUTCToday(), BigDecimal.TEN, Currency.USD);
+        final InvoiceInternalEvent creationEvent = new DefaultInvoiceCreationEvent(invoice.getId(), invoice.getAccountId(), BigDecimal.TEN, Currency.USD,
+                                                                                   context.getAccountRecordId(), context.getTenantRecordId(), context.getUserToken());
+        invoiceDao.createInvoice(new InvoiceModelDao(invoice), ImmutableList.<InvoiceItemModelDao>of(new InvoiceItemModelDao(invoiceItem)), ImmutableList.<InvoicePaymentModelDao>of(),
+                                 true, ImmutableMap.<UUID, DateTime>of(), chargedThroughDates, ImmutableList.<InvoiceInternalEvent>of(creationEvent), false, context);
+    }
+
+    public static final class InvoiceCreationEventsListener {
+
+        private final List<UUID> invoiceIds = new ArrayList<UUID>();
+
+        @Subscribe
+        public synchronized void handleInvoiceCreationEvent(final InvoiceCreationInternalEvent event) {
+            invoiceIds.add(event.getInvoiceId());
+        }
+
+        public synchronized List<UUID> getInvoiceIds() {
+            return ImmutableList.<UUID>copyOf(invoiceIds);
+        }
+    }
 }
@@ -29,6 +29,7 @@ import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
@@ -103,10 +104,35 @@ public class TestDefaultInvoiceGenerator extends InvoiceTestSuiteNoDB {
                 return false;
             }
 
+            @Override
+            public int getNotificationMaxAttempts() {
+                return 5;
+            }
+
+            @Override
+            public TimeSpan getNotificationRetryDelay() {
+                return new TimeSpan("5m");
+            }
+
             @Override
             public boolean isTriggerInvoiceOnBlockingEvent() {
                 return false;
             }
+
+            @Override
+            public TimeSpan getInvoiceRunCoalescingDelay() {
+                return new TimeSpan("0s");
+            }
+
+            @Override
+            public int getBillRunThreadNb() {
+                return 4;
+            }
+
+            @Override
+            public int getBillRunPartitionSize() {
+                return 500;
+            }
         };
         this.generator = new DefaultInvoiceGenerator(clock, invoiceConfig);
     }
@@ -24,6 +24,8 @@ import com.ning.billing.account.glue.DefaultAccountModule;
 import com.ning.billing.currency.api.CurrencyConversionApi;
 import com.ning.billing.invoice.InvoiceListener;
 import com.ning.billing.invoice.TestInvoiceNotificationQListener;
+import com.ning.billing.invoice.api.InvoiceNotifier;
+import com.ning.billing.invoice.notification.TestInvoiceNotifier;
 import com.ning.billing.util.glue.BusModule;
 import com.ning.billing.util.glue.MetricsModule;
 import com.ning.billing.util.glue.NonEntityDaoModule;
@@ -40,6 +42,12 @@ public class TestInvoiceModuleWithEmbeddedDb extends TestInvoiceModule {
         bind(TestInvoiceNotificationQListener.class).asEagerSingleton();
     }
 
+    @Override
+    protected void installInvoiceNotifier() {
+        bind(InvoiceNotifier.class).to(TestInvoiceNotifier.class).asEagerSingleton();
+        bind(TestInvoiceNotifier.class).asEagerSingleton();
+    }
+
     @Override
     public void configure() {
         super.configure();
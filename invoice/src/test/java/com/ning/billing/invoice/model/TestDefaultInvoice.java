@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import org.joda.time.LocalDate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.invoice.InvoiceTestSuiteNoDB;
+import com.ning.billing.invoice.api.InvoicePaymentType;
+
+public class TestDefaultInvoice extends InvoiceTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testAmountsAreRecomputedWhenItemsChange() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        final LocalDate today = clock.getUTCToday();
+        final DefaultInvoice invoice = new DefaultInvoice(accountId, today, today, Currency.USD);
+        Assert.assertEquals(invoice.getBalance().compareTo(BigDecimal.ZERO), 0);
+
+        invoice.addInvoiceItem(new ExternalChargeInvoiceItem(invoice.getId(), accountId, null, "charge", today, new BigDecimal("20"), Currency.USD));
+        Assert.assertEquals(invoice.getChargedAmount().compareTo(new BigDecimal("20")), 0);
+        Assert.assertEquals(invoice.getBalance().compareTo(new BigDecimal("20")), 0);
+
+        // Invoice level credit, on an invoice with charges: reduces the charged amount
+        invoice.addInvoiceItem(new CreditAdjInvoiceItem(invoice.getId(), accountId, today, new BigDecimal("-5"), Currency.USD));
+        Assert.assertEquals(invoice.getChargedAmount().compareTo(new BigDecimal("15")), 0);
+
+        invoice.addPayment(new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), invoice.getId(), clock.getUTCNow(), new BigDecimal("10"), Currency.USD, Currency.USD));
+        Assert.assertEquals(invoice.getPaidAmount().compareTo(new BigDecimal("10")), 0);
+        Assert.assertEquals(invoice.getBalance().compareTo(new BigDecimal("5")), 0);
+
+        // Modifications through the exposed lists are detected too
+        invoice.getPayments().add(new DefaultInvoicePayment(InvoicePaymentType.REFUND, UUID.randomUUID(), invoice.getId(), clock.getUTCNow(), new BigDecimal("-10"), Currency.USD, Currency.USD));
+        Assert.assertEquals(invoice.getRefundedAmount().compareTo(new BigDecimal("-10")), 0);
+        Assert.assertEquals(invoice.getBalance().compareTo(new BigDecimal("15")), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testCreditAdjustmentOnItsOwnInvoice() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        final LocalDate today = clock.getUTCToday();
+        final DefaultInvoice invoice = new DefaultInvoice(accountId, today, today, Currency.USD);
+
+        // Account level credit: the credit and its account credit cancel out
+        invoice.addInvoiceItem(new CreditAdjInvoiceItem(invoice.getId(), accountId, today, new BigDecimal("-12"), Currency.USD));
+        invoice.addInvoiceItem(new CreditBalanceAdjInvoiceItem(invoice.getId(), accountId, today, new BigDecimal("12"), Currency.USD));
+
+        Assert.assertEquals(invoice.getChargedAmount().compareTo(BigDecimal.ZERO), 0);
+        Assert.assertEquals(invoice.getCreditedAmount().compareTo(new BigDecimal("12")), 0);
+        Assert.assertEquals(invoice.getBalance().compareTo(BigDecimal.ZERO), 0);
+    }
+}
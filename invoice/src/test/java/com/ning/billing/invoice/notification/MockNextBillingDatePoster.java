@@ -16,6 +16,7 @@
 
 package com.ning.billing.invoice.notification;
 
+import java.util.Collection;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -26,11 +27,16 @@ import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 public class MockNextBillingDatePoster implements NextBillingDatePoster {
 
     @Override
-    public void insertNextBillingNotificationFromTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final UUID accountId,
-                                                             final UUID subscriptionId, final DateTime futureNotificationTime, final UUID userToken) {
+    public void insertNextBillingNotificationsForAccountFromTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final UUID accountId,
+                                                                        final Collection<DateTime> futureNotificationTimes, final UUID userToken) {
     }
 
     @Override
-    public void insertNextBillingNotification(final UUID accountId, final UUID subscriptionId, final DateTime futureNotificationTime, final UUID userToken) {
+    public void insertCoalescedNextBillingNotificationForAccount(final UUID accountId, final DateTime futureNotificationTime, final UUID userToken) {
+    }
+
+    @Override
+    public boolean isNextBillingNotificationForAccountScheduled(final Long accountRecordId, final DateTime fromTime, final DateTime toTime) {
+        return false;
     }
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.notification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.joda.time.DateTime;
+import org.mockito.Mockito;
+import org.skife.jdbi.v2.exceptions.TransactionFailedException;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.ning.billing.account.api.Account;
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.clock.ClockMock;
+import com.ning.billing.events.InvoiceInternalEvent;
+import com.ning.billing.invoice.InvoiceTestSuiteWithEmbeddedDB;
+import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.invoice.api.Invoice;
+import com.ning.billing.invoice.api.InvoiceItem;
+import com.ning.billing.invoice.dao.InvoiceItemModelDao;
+import com.ning.billing.invoice.dao.InvoiceModelDao;
+import com.ning.billing.invoice.dao.InvoicePaymentModelDao;
+import com.ning.billing.invoice.model.DefaultInvoice;
+import com.ning.billing.invoice.model.ExternalChargeInvoiceItem;
+import com.ning.billing.notificationq.api.NotificationEventWithMetadata;
+import com.ning.billing.notificationq.api.NotificationQueue;
+import com.ning.billing.util.config.InvoiceConfig;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class TestDefaultInvoiceNotificationSender extends InvoiceTestSuiteWithEmbeddedDB {
+
+    @Inject
+    private TestInvoiceNotifier invoiceNotifier;
+    @Inject
+    private InvoiceConfig invoiceConfig;
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Override
+    @BeforeClass(groups = "slow")
+    protected void beforeClass() throws Exception {
+        configSource.setProperty("killbill.invoice.emailNotificationsEnabled", "true");
+        super.beforeClass();
+    }
+
+    @Override
+    @BeforeMethod(groups = "slow")
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+        invoiceNotifier.reset();
+    }
+
+    @Test(groups = "slow")
+    public void testNotificationIsSentOnceAfterCommit() throws Exception {
+        final long sent = getMeterCount("sent");
+        final Account account = invoiceUtil.createAccount(callContext);
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(account.getId(), callContext);
+
+        // The invoice transaction fails after the notification has been queued
+        final Map<UUID, DateTime> failingChargedThroughDates = ImmutableMap.<UUID, DateTime>of(UUID.randomUUID(), clock.getUTCNow());
+        Mockito.doThrow(new IllegalStateException("Simulated invoice failure"))
+               .when(subscriptionApi).setChargedThroughDatesFromTransaction(Mockito.<Transmogrifier>any(), Mockito.eq(failingChargedThroughDates), Mockito.<InternalCallContext>any());
+        final Invoice rolledBackInvoice = createInvoice(account);
+        try {
+            createInvoiceInDao(rolledBackInvoice, failingChargedThroughDates, accountContext);
+            Assert.fail("The invoice transaction should have been rolled back");
+        } catch (TransactionFailedException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(getPendingNotifications(accountContext).size(), 0);
+
+        // The invoice transaction is committed
+        final Invoice invoice = createInvoice(account);
+        createInvoiceInDao(invoice, ImmutableMap.<UUID, DateTime>of(), accountContext);
+
+        waitForMeterCount("sent", sent + 1);
+        Assert.assertEquals(invoiceNotifier.getSentInvoiceIds(), ImmutableList.<UUID>of(invoice.getId()));
+        Assert.assertEquals(invoiceNotifier.getAttempts(), 1);
+        Assert.assertEquals(getPendingNotifications(accountContext).size(), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testNotificationIsRetriedWithBackoff() throws Exception {
+        final long sent = getMeterCount("sent");
+        final long retries = getMeterCount("retries");
+        final long failures = getMeterCount("failures");
+        final Account account = invoiceUtil.createAccount(callContext);
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(account.getId(), callContext);
+
+        invoiceNotifier.failNextAttempts(2);
+        final Invoice invoice = createInvoice(account);
+        createInvoiceInDao(invoice, ImmutableMap.<UUID, DateTime>of(), accountContext);
+
+        // Each failed attempt is re-queued, with a delay doubled each time
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            final DateTime beforeFailure = clock.getUTCNow().withMillisOfSecond(0);
+            waitForMeterCount("retries", retries + attempt);
+            final DateTime afterFailure = clock.getUTCNow();
+            final long delayMillis = invoiceConfig.getNotificationRetryDelay().getMillis() << (attempt - 1);
+
+            final List<NotificationEventWithMetadata<InvoiceNotificationKey>> pendingNotifications = getPendingNotifications(accountContext);
+            Assert.assertEquals(pendingNotifications.size(), 1);
+            Assert.assertEquals(pendingNotifications.get(0).getEvent().getUuidKey(), invoice.getId());
+            Assert.assertEquals(pendingNotifications.get(0).getEvent().getAttempt(), attempt);
+            Assert.assertFalse(pendingNotifications.get(0).getEffectiveDate().isBefore(beforeFailure.plus(delayMillis)));
+            Assert.assertFalse(pendingNotifications.get(0).getEffectiveDate().isAfter(afterFailure.plus(delayMillis)));
+            Assert.assertTrue(invoiceNotifier.getSentInvoiceIds().isEmpty());
+
+            ((ClockMock) clock).addDeltaFromReality(delayMillis);
+        }
+
+        waitForMeterCount("sent", sent + 1);
+        Assert.assertEquals(invoiceNotifier.getSentInvoiceIds(), ImmutableList.<UUID>of(invoice.getId()));
+        Assert.assertEquals(invoiceNotifier.getAttempts(), 3);
+        Assert.assertEquals(getMeterCount("retries"), retries + 2);
+        Assert.assertEquals(getMeterCount("failures"), failures);
+        Assert.assertEquals(getPendingNotifications(accountContext).size(), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testNotificationIsDroppedAfterMaxAttempts() throws Exception {
+        final long retries = getMeterCount("retries");
+        final long failures = getMeterCount("failures");
+        final Account account = invoiceUtil.createAccount(callContext);
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(account.getId(), callContext);
+
+        final int maxAttempts = invoiceConfig.getNotificationMaxAttempts();
+        invoiceNotifier.failNextAttempts(maxAttempts);
+        final Invoice invoice = createInvoice(account);
+        createInvoiceInDao(invoice, ImmutableMap.<UUID, DateTime>of(), accountContext);
+
+        for (int attempt = 1; attempt < maxAttempts; attempt++) {
+            waitForMeterCount("retries", retries + attempt);
+            ((ClockMock) clock).addDeltaFromReality(invoiceConfig.getNotificationRetryDelay().getMillis() << (attempt - 1));
+        }
+
+        waitForMeterCount("failures", failures + 1);
+        Assert.assertEquals(invoiceNotifier.getAttempts(), maxAttempts);
+        Assert.assertTrue(invoiceNotifier.getSentInvoiceIds().isEmpty());
+        Assert.assertEquals(getMeterCount("retries"), retries + maxAttempts - 1);
+        Assert.assertEquals(getPendingNotifications(accountContext).size(), 0);
+    }
+
+    private Invoice createInvoice(final Account account) {
+        final Invoice invoice = new DefaultInvoice(account.getId(), clock.getUTCToday(), clock.getUTCToday(), Currency.USD);
+        invoice.addInvoiceItem(new ExternalChargeInvoiceItem(invoice.getId(), account.getId(), null, "charge", clock.getUTCToday(), BigDecimal.TEN, Currency.USD));
+        return invoice;
+    }
+
+    private void createInvoiceInDao(final Invoice invoice, final Map<UUID, DateTime> chargedThroughDates, final InternalCallContext accountContext) {
+        final ImmutableList.Builder<InvoiceItemModelDao> invoiceItems = ImmutableList.<InvoiceItemModelDao>builder();
+        for (final InvoiceItem invoiceItem : invoice.getInvoiceItems()) {
+            invoiceItems.add(new InvoiceItemModelDao(invoiceItem));
+        }
+        invoiceDao.createInvoice(new InvoiceModelDao(invoice), invoiceItems.build(), ImmutableList.<InvoicePaymentModelDao>of(), true, ImmutableMap.<UUID, DateTime>of(),
+                                 chargedThroughDates, ImmutableList.<InvoiceInternalEvent>of(), true, accountContext);
+    }
+
+    private List<NotificationEventWithMetadata<InvoiceNotificationKey>> getPendingNotifications(final InternalCallContext accountContext) throws Exception {
+        final NotificationQueue invoiceNotificationQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
+                                                                                                         DefaultInvoiceNotificationSender.INVOICE_NOTIFICATION_QUEUE);
+        return invoiceNotificationQueue.getFutureNotificationForSearchKey1(InvoiceNotificationKey.class, accountContext.getAccountRecordId());
+    }
+
+    private long getMeterCount(final String name) {
+        return metricRegistry.meter(MetricRegistry.name(DefaultInvoiceNotificationSender.class, name)).getCount();
+    }
+
+    private void waitForMeterCount(final String name, final long expectedCount) {
+        await().atMost(10, SECONDS).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return getMeterCount(name) >= expectedCount;
+            }
+        });
+        Assert.assertEquals(getMeterCount(name), expectedCount);
+    }
+}
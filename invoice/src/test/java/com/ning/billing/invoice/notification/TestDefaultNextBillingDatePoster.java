@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.notification;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.account.api.Account;
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.invoice.InvoiceTestSuiteWithEmbeddedDB;
+import com.ning.billing.invoice.api.DefaultInvoiceService;
+import com.ning.billing.notificationq.api.NotificationEventWithMetadata;
+import com.ning.billing.notificationq.api.NotificationQueue;
+import com.ning.billing.util.entity.dao.EntitySqlDao;
+import com.ning.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
+import com.ning.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
+import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+
+public class TestDefaultNextBillingDatePoster extends InvoiceTestSuiteWithEmbeddedDB {
+
+    @Inject
+    private NextBillingDatePoster nextBillingDatePoster;
+
+    @Test(groups = "slow")
+    public void testNotificationsAreCoalescedPerAccountAndTime() throws Exception {
+        final Account account = invoiceUtil.createAccount(callContext);
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(account.getId(), callContext);
+        final DateTime firstBillingDate = clock.getUTCNow().plusMonths(1).withMillisOfSecond(0);
+        final DateTime secondBillingDate = firstBillingDate.plusDays(10);
+
+        // 3 subscriptions billed on the same day, 1 on another day
+        insertNotifications(account, ImmutableList.<DateTime>of(firstBillingDate, firstBillingDate, secondBillingDate, firstBillingDate));
+        Assert.assertEquals(getFutureNotifications(accountContext).size(), 2);
+
+        // A later invoice run doesn't queue the same notifications again
+        insertNotifications(account, ImmutableList.<DateTime>of(firstBillingDate, secondBillingDate));
+        final List<NotificationEventWithMetadata<NextBillingDateAccountNotificationKey>> notifications = getFutureNotifications(accountContext);
+        Assert.assertEquals(notifications.size(), 2);
+        for (final NotificationEventWithMetadata<NextBillingDateAccountNotificationKey> notification : notifications) {
+            Assert.assertEquals(notification.getEvent().getUuidKey(), account.getId());
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testCoalescedInvoiceRunIsScheduledOnce() throws Exception {
+        final Account account = invoiceUtil.createAccount(callContext);
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(account.getId(), callContext);
+        final DateTime invoiceRunDate = clock.getUTCNow().plusMinutes(1).withMillisOfSecond(0);
+
+        // Several events for the same account within the coalescing delay result in a single invoice run
+        nextBillingDatePoster.insertCoalescedNextBillingNotificationForAccount(account.getId(), invoiceRunDate, callContext.getUserToken());
+        nextBillingDatePoster.insertCoalescedNextBillingNotificationForAccount(account.getId(), invoiceRunDate.plusSeconds(5), callContext.getUserToken());
+        Assert.assertEquals(getFutureNotifications(accountContext).size(), 1);
+        Assert.assertEquals(getFutureNotifications(accountContext).get(0).getEffectiveDate().compareTo(invoiceRunDate), 0);
+        Assert.assertTrue(nextBillingDatePoster.isNextBillingNotificationForAccountScheduled(accountContext.getAccountRecordId(), invoiceRunDate.minusSeconds(5), invoiceRunDate));
+        Assert.assertFalse(nextBillingDatePoster.isNextBillingNotificationForAccountScheduled(accountContext.getAccountRecordId(), invoiceRunDate.plusSeconds(1), invoiceRunDate.plusSeconds(5)));
+
+        // An earlier invoice run is still scheduled
+        nextBillingDatePoster.insertCoalescedNextBillingNotificationForAccount(account.getId(), invoiceRunDate.minusSeconds(30), callContext.getUserToken());
+        Assert.assertEquals(getFutureNotifications(accountContext).size(), 2);
+    }
+
+    private void insertNotifications(final Account account, final List<DateTime> futureNotificationTimes) {
+        new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controllerDispatcher, nonEntityDao).execute(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                nextBillingDatePoster.insertNextBillingNotificationsForAccountFromTransaction(entitySqlDaoWrapperFactory, account.getId(), futureNotificationTimes, callContext.getUserToken());
+                return null;
+            }
+        });
+    }
+
+    private List<NotificationEventWithMetadata<NextBillingDateAccountNotificationKey>> getFutureNotifications(final InternalCallContext accountContext) throws Exception {
+        final NotificationQueue nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME, DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+        return nextBillingQueue.getFutureNotificationForSearchKey1(NextBillingDateAccountNotificationKey.class, accountContext.getAccountRecordId());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.invoice.notification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ning.billing.ErrorCode;
+import com.ning.billing.account.api.Account;
+import com.ning.billing.invoice.api.Invoice;
+import com.ning.billing.invoice.api.InvoiceApiException;
+import com.ning.billing.invoice.api.InvoiceNotifier;
+import com.ning.billing.util.callcontext.TenantContext;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Records the invoices sent, and fails the next attempts on demand
+ */
+public class TestInvoiceNotifier implements InvoiceNotifier {
+
+    private final List<UUID> sentInvoiceIds = Collections.synchronizedList(new ArrayList<UUID>());
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger failuresToSimulate = new AtomicInteger();
+
+    @Override
+    public void notify(final Account account, final Invoice invoice, final TenantContext context) throws InvoiceApiException {
+        attempts.incrementAndGet();
+        if (failuresToSimulate.getAndDecrement() > 0) {
+            throw new InvoiceApiException(new RuntimeException("Simulated failure"), ErrorCode.EMAIL_SENDING_FAILED);
+        }
+        failuresToSimulate.set(0);
+        sentInvoiceIds.add(invoice.getId());
+    }
+
+    public void failNextAttempts(final int nbFailures) {
+        failuresToSimulate.set(nbFailures);
+    }
+
+    public List<UUID> getSentInvoiceIds() {
+        synchronized (sentInvoiceIds) {
+            return ImmutableList.<UUID>copyOf(sentInvoiceIds);
+        }
+    }
+
+    public int getAttempts() {
+        return attempts.get();
+    }
+
+    public void reset() {
+        sentInvoiceIds.clear();
+        attempts.set(0);
+        failuresToSimulate.set(0);
+    }
+}
@@ -61,4 +61,27 @@ public class TestNextBillingDateNotifier extends InvoiceTestSuiteWithEmbeddedDB
         Assert.assertEquals(testInvoiceNotificationQListener.getEventCount(), 1);
         Assert.assertEquals(testInvoiceNotificationQListener.getLatestSubscriptionId(), subscriptionId);
     }
+
+    @Test(groups = "slow")
+    public void testInvoiceAccountNotifier() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        final DateTime now = clock.getUTCNow();
+
+        final NotificationQueue nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME, DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+
+        nextBillingQueue.recordFutureNotification(now, new NextBillingDateAccountNotificationKey(accountId), internalCallContext.getUserToken(), internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+
+        // Move time in the future after the notification effectiveDate
+        ((ClockMock) clock).setDeltaFromReality(3000);
+
+        await().atMost(1, MINUTES).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return testInvoiceNotificationQListener.getAccountEventCount() == 1;
+            }
+        });
+
+        Assert.assertEquals(testInvoiceNotificationQListener.getAccountEventCount(), 1);
+        Assert.assertEquals(testInvoiceNotificationQListener.getLatestAccountId(), accountId);
+    }
 }
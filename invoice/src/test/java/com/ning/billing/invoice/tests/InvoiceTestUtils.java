@@ -26,14 +26,17 @@ import org.mockito.Mockito;
 import org.testng.Assert;
 
 import com.ning.billing.catalog.api.Currency;
+import com.ning.billing.events.InvoiceInternalEvent;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
 import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.invoice.api.InvoicePayment;
 import com.ning.billing.invoice.api.InvoicePaymentType;
+import com.ning.billing.invoice.api.user.DefaultInvoiceCreationEvent;
 import com.ning.billing.invoice.dao.InvoiceDao;
 import com.ning.billing.invoice.dao.InvoiceItemModelDao;
 import com.ning.billing.invoice.dao.InvoiceModelDao;
+import com.ning.billing.invoice.dao.InvoiceModelDaoHelper;
 import com.ning.billing.invoice.dao.InvoicePaymentModelDao;
 import com.ning.billing.invoice.model.FixedPriceInvoiceItem;
 import com.ning.billing.callcontext.InternalCallContext;
@@ -87,7 +90,13 @@ public class InvoiceTestUtils {
         }
         Mockito.when(invoice.getInvoiceItems()).thenReturn(invoiceItems);
 
-        invoiceDao.createInvoice(new InvoiceModelDao(invoice), invoiceModelItems, ImmutableList.<InvoicePaymentModelDao>of(), true, ImmutableMap.<UUID, DateTime>of(), internalCallContext);
+        final InvoiceModelDao invoiceModelDao = new InvoiceModelDao(invoice);
+        invoiceModelDao.addInvoiceItems(invoiceModelItems);
+        final InvoiceInternalEvent creationEvent = new DefaultInvoiceCreationEvent(invoiceId, accountId, InvoiceModelDaoHelper.getBalance(invoiceModelDao), currency,
+                                                                                   internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId(),
+                                                                                   internalCallContext.getUserToken());
+        invoiceDao.createInvoice(invoiceModelDao, invoiceModelItems, ImmutableList.<InvoicePaymentModelDao>of(), true, ImmutableMap.<UUID, DateTime>of(), ImmutableMap.<UUID, DateTime>of(),
+                                 ImmutableList.<InvoiceInternalEvent>of(creationEvent), false, internalCallContext);
 
         return invoice;
     }
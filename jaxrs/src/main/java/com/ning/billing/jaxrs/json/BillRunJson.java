@@ -0,0 +1,184 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.jaxrs.json;
+
+import org.joda.time.DateTime;
+
+import com.ning.billing.invoice.api.BillRun;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BillRunJson {
+
+    private final String billRunId;
+    private final DateTime targetDate;
+    private final Boolean dryRun;
+    private final String state;
+    private final Long nbAccountsProcessed;
+    private final Long nbAccountsFailed;
+    private final Long nbInvoices;
+    private final Integer progress;
+    private final DateTime startDate;
+    private final DateTime updatedDate;
+
+    @JsonCreator
+    public BillRunJson(@JsonProperty("billRunId") final String billRunId,
+                       @JsonProperty("targetDate") final DateTime targetDate,
+                       @JsonProperty("dryRun") final Boolean dryRun,
+                       @JsonProperty("state") final String state,
+                       @JsonProperty("nbAccountsProcessed") final Long nbAccountsProcessed,
+                       @JsonProperty("nbAccountsFailed") final Long nbAccountsFailed,
+                       @JsonProperty("nbInvoices") final Long nbInvoices,
+                       @JsonProperty("progress") final Integer progress,
+                       @JsonProperty("startDate") final DateTime startDate,
+                       @JsonProperty("updatedDate") final DateTime updatedDate) {
+        this.billRunId = billRunId;
+        this.targetDate = targetDate;
+        this.dryRun = dryRun;
+        this.state = state;
+        this.nbAccountsProcessed = nbAccountsProcessed;
+        this.nbAccountsFailed = nbAccountsFailed;
+        this.nbInvoices = nbInvoices;
+        this.progress = progress;
+        this.startDate = startDate;
+        this.updatedDate = updatedDate;
+    }
+
+    public BillRunJson(final BillRun billRun) {
+        this(billRun.getId().toString(), billRun.getTargetDate(), billRun.isDryRun(), billRun.getState().toString(),
+             billRun.getNbAccountsProcessed(), billRun.getNbAccountsFailed(), billRun.getNbInvoices(), billRun.getProgress(),
+             billRun.getStartDate(), billRun.getUpdatedDate());
+    }
+
+    public String getBillRunId() {
+        return billRunId;
+    }
+
+    public DateTime getTargetDate() {
+        return targetDate;
+    }
+
+    public Boolean isDryRun() {
+        return dryRun;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public Long getNbAccountsProcessed() {
+        return nbAccountsProcessed;
+    }
+
+    public Long getNbAccountsFailed() {
+        return nbAccountsFailed;
+    }
+
+    public Long getNbInvoices() {
+        return nbInvoices;
+    }
+
+    public Integer getProgress() {
+        return progress;
+    }
+
+    public DateTime getStartDate() {
+        return startDate;
+    }
+
+    public DateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BillRunJson{");
+        sb.append("billRunId='").append(billRunId).append('\'');
+        sb.append(", targetDate=").append(targetDate);
+        sb.append(", dryRun=").append(dryRun);
+        sb.append(", state='").append(state).append('\'');
+        sb.append(", nbAccountsProcessed=").append(nbAccountsProcessed);
+        sb.append(", nbAccountsFailed=").append(nbAccountsFailed);
+        sb.append(", nbInvoices=").append(nbInvoices);
+        sb.append(", progress=").append(progress);
+        sb.append(", startDate=").append(startDate);
+        sb.append(", updatedDate=").append(updatedDate);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final BillRunJson that = (BillRunJson) o;
+
+        if (billRunId != null ? !billRunId.equals(that.billRunId) : that.billRunId != null) {
+            return false;
+        }
+        if (dryRun != null ? !dryRun.equals(that.dryRun) : that.dryRun != null) {
+            return false;
+        }
+        if (nbAccountsFailed != null ? !nbAccountsFailed.equals(that.nbAccountsFailed) : that.nbAccountsFailed != null) {
+            return false;
+        }
+        if (nbAccountsProcessed != null ? !nbAccountsProcessed.equals(that.nbAccountsProcessed) : that.nbAccountsProcessed != null) {
+            return false;
+        }
+        if (nbInvoices != null ? !nbInvoices.equals(that.nbInvoices) : that.nbInvoices != null) {
+            return false;
+        }
+        if (progress != null ? !progress.equals(that.progress) : that.progress != null) {
+            return false;
+        }
+        if (startDate != null ? startDate.compareTo(that.startDate) != 0 : that.startDate != null) {
+            return false;
+        }
+        if (state != null ? !state.equals(that.state) : that.state != null) {
+            return false;
+        }
+        if (targetDate != null ? targetDate.compareTo(that.targetDate) != 0 : that.targetDate != null) {
+            return false;
+        }
+        if (updatedDate != null ? updatedDate.compareTo(that.updatedDate) != 0 : that.updatedDate != null) {
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = billRunId != null ? billRunId.hashCode() : 0;
+        result = 31 * result + (targetDate != null ? targetDate.hashCode() : 0);
+        result = 31 * result + (dryRun != null ? dryRun.hashCode() : 0);
+        result = 31 * result + (state != null ? state.hashCode() : 0);
+        result = 31 * result + (nbAccountsProcessed != null ? nbAccountsProcessed.hashCode() : 0);
+        result = 31 * result + (nbAccountsFailed != null ? nbAccountsFailed.hashCode() : 0);
+        result = 31 * result + (nbInvoices != null ? nbInvoices.hashCode() : 0);
+        result = 31 * result + (progress != null ? progress.hashCode() : 0);
+        result = 31 * result + (startDate != null ? startDate.hashCode() : 0);
+        result = 31 * result + (updatedDate != null ? updatedDate.hashCode() : 0);
+        return result;
+    }
+}
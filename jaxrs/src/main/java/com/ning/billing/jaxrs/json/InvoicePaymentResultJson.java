@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.jaxrs.json;
+
+import javax.annotation.Nullable;
+
+import com.ning.billing.payment.api.InvoicePaymentResult;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Outcome of the payment of one invoice, when paying several invoices at once
+public class InvoicePaymentResultJson {
+
+    private final String invoiceId;
+    private final Boolean success;
+    private final PaymentJson payment;
+    private final BillingExceptionJson error;
+
+    @JsonCreator
+    public InvoicePaymentResultJson(@JsonProperty("invoiceId") final String invoiceId,
+                                    @JsonProperty("success") final Boolean success,
+                                    @JsonProperty("payment") @Nullable final PaymentJson payment,
+                                    @JsonProperty("error") @Nullable final BillingExceptionJson error) {
+        this.invoiceId = invoiceId;
+        this.success = success;
+        this.payment = payment;
+        this.error = error;
+    }
+
+    public InvoicePaymentResultJson(final InvoicePaymentResult result) {
+        this(result.getInvoiceId().toString(),
+             result.isSuccess(),
+             result.getPayment() == null ? null : new PaymentJson(result.getPayment(), null),
+             result.getError() == null ? null : new BillingExceptionJson(result.getError()));
+    }
+
+    public String getInvoiceId() {
+        return invoiceId;
+    }
+
+    public Boolean isSuccess() {
+        return success;
+    }
+
+    public PaymentJson getPayment() {
+        return payment;
+    }
+
+    public BillingExceptionJson getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InvoicePaymentResultJson{");
+        sb.append("invoiceId='").append(invoiceId).append('\'');
+        sb.append(", success=").append(success);
+        sb.append(", payment=").append(payment);
+        sb.append(", error=").append(error);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final InvoicePaymentResultJson that = (InvoicePaymentResultJson) o;
+
+        if (error != null ? !error.equals(that.error) : that.error != null) {
+            return false;
+        }
+        if (invoiceId != null ? !invoiceId.equals(that.invoiceId) : that.invoiceId != null) {
+            return false;
+        }
+        if (payment != null ? !payment.equals(that.payment) : that.payment != null) {
+            return false;
+        }
+        if (success != null ? !success.equals(that.success) : that.success != null) {
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = invoiceId != null ? invoiceId.hashCode() : 0;
+        result = 31 * result + (success != null ? success.hashCode() : 0);
+        result = 31 * result + (payment != null ? payment.hashCode() : 0);
+        result = 31 * result + (error != null ? error.hashCode() : 0);
+        return result;
+    }
+}
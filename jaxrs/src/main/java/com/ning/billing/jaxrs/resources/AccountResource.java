@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletRequest;
@@ -57,6 +58,7 @@ import com.ning.billing.clock.Clock;
 import com.ning.billing.entitlement.api.SubscriptionApi;
 import com.ning.billing.entitlement.api.SubscriptionApiException;
 import com.ning.billing.entitlement.api.SubscriptionBundle;
+import com.ning.billing.invoice.api.BulkInvoiceUserApi;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoicePayment;
 import com.ning.billing.invoice.api.InvoicePaymentApi;
@@ -69,6 +71,7 @@ import com.ning.billing.jaxrs.json.ChargebackJson;
 import com.ning.billing.jaxrs.json.CustomFieldJson;
 import com.ning.billing.jaxrs.json.InvoiceEmailJson;
 import com.ning.billing.jaxrs.json.InvoiceJson;
+import com.ning.billing.jaxrs.json.InvoicePaymentResultJson;
 import com.ning.billing.jaxrs.json.OverdueStateJson;
 import com.ning.billing.jaxrs.json.PaymentJson;
 import com.ning.billing.jaxrs.json.PaymentMethodJson;
@@ -79,6 +82,8 @@ import com.ning.billing.overdue.OverdueApiException;
 import com.ning.billing.overdue.OverdueState;
 import com.ning.billing.overdue.OverdueUserApi;
 import com.ning.billing.overdue.config.api.OverdueException;
+import com.ning.billing.payment.api.BulkPaymentApi;
+import com.ning.billing.payment.api.InvoicePaymentResult;
 import com.ning.billing.payment.api.Payment;
 import com.ning.billing.payment.api.PaymentApi;
 import com.ning.billing.payment.api.PaymentApiException;
@@ -104,6 +109,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Function;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
@@ -122,6 +128,8 @@ public class AccountResource extends JaxRsResourceBase {
     private final InvoicePaymentApi invoicePaymentApi;
     private final PaymentApi paymentApi;
     private final OverdueUserApi overdueApi;
+    private final BulkInvoiceUserApi bulkInvoiceApi;
+    private final BulkPaymentApi bulkPaymentApi;
 
     @Inject
     public AccountResource(final JaxrsUriBuilder uriBuilder,
@@ -134,6 +142,8 @@ public class AccountResource extends JaxRsResourceBase {
                            final CustomFieldUserApi customFieldUserApi,
                            final SubscriptionApi subscriptionApi,
                            final OverdueUserApi overdueApi,
+                           final BulkInvoiceUserApi bulkInvoiceApi,
+                           final BulkPaymentApi bulkPaymentApi,
                            final Clock clock,
                            final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountApi, clock, context);
@@ -142,6 +152,8 @@ public class AccountResource extends JaxRsResourceBase {
         this.invoicePaymentApi = invoicePaymentApi;
         this.paymentApi = paymentApi;
         this.overdueApi = overdueApi;
+        this.bulkInvoiceApi = bulkInvoiceApi;
+        this.bulkPaymentApi = bulkPaymentApi;
     }
 
     @GET
@@ -188,6 +200,24 @@ public class AccountResource extends JaxRsResourceBase {
 
     private Response buildStreamingAccountsResponse(final Pagination<Account> accounts, final Boolean accountWithBalance,
                                                     final Boolean accountWithBalanceAndCBA, final URI nextPageUri, final TenantContext tenantContext) {
+        // Retrieve the balances of the whole page at once, instead of loading all invoices for each account
+        final List<Account> accountsPage = ImmutableList.<Account>copyOf(accounts);
+        final Map<UUID, BigDecimal> accountBalances;
+        final Map<UUID, BigDecimal> accountCBAs;
+        if (accountWithBalance || accountWithBalanceAndCBA) {
+            final List<UUID> accountIds = ImmutableList.<UUID>copyOf(Collections2.transform(accountsPage, new Function<Account, UUID>() {
+                @Override
+                public UUID apply(final Account input) {
+                    return input.getId();
+                }
+            }));
+            accountBalances = bulkInvoiceApi.getAccountBalances(accountIds, tenantContext);
+            accountCBAs = accountWithBalanceAndCBA ? bulkInvoiceApi.getAccountCBAs(accountIds, tenantContext) : null;
+        } else {
+            accountBalances = null;
+            accountCBAs = null;
+        }
+
         final StreamingOutput json = new StreamingOutput() {
             @Override
             public void write(final OutputStream output) throws IOException, WebApplicationException {
@@ -195,8 +225,10 @@ public class AccountResource extends JaxRsResourceBase {
                 generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
 
                 generator.writeStartArray();
-                for (final Account account : accounts) {
-                    final AccountJson asJson = getAccount(account, accountWithBalance, accountWithBalanceAndCBA, tenantContext);
+                for (final Account account : accountsPage) {
+                    final BigDecimal accountBalance = accountBalances == null ? null : accountBalances.get(account.getId());
+                    final BigDecimal accountCBA = accountCBAs == null ? null : accountCBAs.get(account.getId());
+                    final AccountJson asJson = new AccountJson(account, accountBalance, accountCBA);
                     generator.writeObject(asJson);
                 }
                 generator.writeEndArray();
@@ -490,14 +522,23 @@ public class AccountResource extends JaxRsResourceBase {
 
         final Account account = accountUserApi.getAccountById(UUID.fromString(accountId), callContext);
         final Collection<Invoice> unpaidInvoices = invoiceApi.getUnpaidInvoicesByAccountId(account.getId(), clock.getUTCToday(), callContext);
-        for (final Invoice invoice : unpaidInvoices) {
-            if (externalPayment) {
-                paymentApi.createExternalPayment(account, invoice.getId(), invoice.getBalance(), callContext);
-            } else {
-                paymentApi.createPayment(account, invoice.getId(), invoice.getBalance(), callContext);
-            }
+        final List<InvoicePaymentResult> results = payInvoices(account, unpaidInvoices, externalPayment, callContext);
+
+        // One result per invoice attempted: a failure on one invoice doesn't hide the payments made for the others
+        final List<InvoicePaymentResultJson> result = new ArrayList<InvoicePaymentResultJson>(results.size());
+        for (final InvoicePaymentResult invoicePaymentResult : results) {
+            result.add(new InvoicePaymentResultJson(invoicePaymentResult));
         }
-        return Response.status(Status.OK).build();
+        return Response.status(Status.OK).entity(result).build();
+    }
+
+    private List<InvoicePaymentResult> payInvoices(final Account account, final Collection<Invoice> invoices, final boolean externalPayment, final CallContext callContext) throws PaymentApiException {
+        final List<UUID> invoiceIds = new ArrayList<UUID>(invoices.size());
+        for (final Invoice invoice : invoices) {
+            invoiceIds.add(invoice.getId());
+        }
+
+        return bulkPaymentApi.createPayments(account, invoiceIds, externalPayment, callContext);
     }
 
 
@@ -528,8 +569,11 @@ public class AccountResource extends JaxRsResourceBase {
 
         final UUID paymentMethodId = paymentApi.addPaymentMethod(data.getPluginName(), account, isDefault, data.getPluginDetail(), callContext);
         if (payAllUnpaidInvoices && unpaidInvoices.size() > 0) {
-            for (final Invoice invoice : unpaidInvoices) {
-                paymentApi.createPayment(account, invoice.getId(), invoice.getBalance(), callContext);
+            // Report the first failure (if any)
+            for (final InvoicePaymentResult result : payInvoices(account, unpaidInvoices, false, callContext)) {
+                if (!result.isSuccess()) {
+                    throw result.getError();
+                }
             }
         }
         return uriBuilder.buildResponse(PaymentMethodResource.class, "getPaymentMethod", paymentMethodId, uriInfo.getBaseUri().toString());
@@ -573,8 +617,11 @@ public class AccountResource extends JaxRsResourceBase {
 
         if (payAllUnpaidInvoices) {
             final Collection<Invoice> unpaidInvoices = invoiceApi.getUnpaidInvoicesByAccountId(account.getId(), clock.getUTCToday(), callContext);
-            for (final Invoice invoice : unpaidInvoices) {
-                paymentApi.createPayment(account, invoice.getId(), invoice.getBalance(), callContext);
+            // Report the first failure (if any)
+            for (final InvoicePaymentResult result : payInvoices(account, unpaidInvoices, false, callContext)) {
+                if (!result.isSuccess()) {
+                    throw result.getError();
+                }
             }
         }
         return Response.status(Status.OK).build();
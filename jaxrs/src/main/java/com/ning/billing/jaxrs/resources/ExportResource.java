@@ -18,16 +18,23 @@ package com.ning.billing.jaxrs.resources;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.StreamingOutput;
 
 import com.ning.billing.account.api.AccountUserApi;
@@ -35,23 +42,34 @@ import com.ning.billing.clock.Clock;
 import com.ning.billing.jaxrs.util.Context;
 import com.ning.billing.jaxrs.util.JaxrsUriBuilder;
 import com.ning.billing.util.api.AuditUserApi;
+import com.ning.billing.util.api.BulkExportUserApi;
 import com.ning.billing.util.api.CustomFieldUserApi;
+import com.ning.billing.util.api.DatabaseExportOutputStream;
 import com.ning.billing.util.api.ExportUserApi;
 import com.ning.billing.util.api.TagUserApi;
 import com.ning.billing.util.callcontext.CallContext;
+import com.ning.billing.util.export.dao.BinaryExportOutputStream;
+import com.ning.billing.util.export.dao.CSVExportOutputStream;
 
 import com.google.inject.Singleton;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 
 @Singleton
 @Path(JaxrsResource.EXPORT_PATH)
 public class ExportResource extends JaxRsResourceBase {
 
+    private static final String EXPORT_FORMAT_CSV = "csv";
+    private static final String EXPORT_FORMAT_BINARY = "binary";
+    private static final String EXPORT_COMPRESSION_GZIP = "gzip";
+
     private final ExportUserApi exportUserApi;
+    private final BulkExportUserApi bulkExportUserApi;
 
     @Inject
     public ExportResource(final ExportUserApi exportUserApi,
+                          final BulkExportUserApi bulkExportUserApi,
                           final JaxrsUriBuilder uriBuilder,
                           final TagUserApi tagUserApi,
                           final CustomFieldUserApi customFieldUserApi,
@@ -61,23 +79,91 @@ public class ExportResource extends JaxRsResourceBase {
                           final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, clock, context);
         this.exportUserApi = exportUserApi;
+        this.bulkExportUserApi = bulkExportUserApi;
     }
 
     @GET
     @Path("/{accountId:" + UUID_PATTERN + "}")
-    @Produces(TEXT_PLAIN)
-    public StreamingOutput exportDataForAccount(@PathParam("accountId") final String accountId,
-                                                @HeaderParam(HDR_CREATED_BY) final String createdBy,
-                                                @HeaderParam(HDR_REASON) final String reason,
-                                                @HeaderParam(HDR_COMMENT) final String comment,
-                                                @javax.ws.rs.core.Context final HttpServletRequest request) {
+    @Produces({TEXT_PLAIN, APPLICATION_OCTET_STREAM})
+    public Response exportDataForAccount(@PathParam("accountId") final String accountId,
+                                         @QueryParam(QUERY_EXPORT_FORMAT) @DefaultValue(EXPORT_FORMAT_CSV) final String format,
+                                         @QueryParam(QUERY_EXPORT_COMPRESSION) final String compression,
+                                         @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                         @HeaderParam(HDR_REASON) final String reason,
+                                         @HeaderParam(HDR_COMMENT) final String comment,
+                                         @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        return buildExportResponse(format, compression, new Exporter() {
+            @Override
+            public void export(final DatabaseExportOutputStream out) {
+                exportUserApi.exportDataForAccount(UUID.fromString(accountId), out, callContext);
+            }
+        });
+    }
+
+    @GET
+    @Produces({TEXT_PLAIN, APPLICATION_OCTET_STREAM})
+    public Response exportDataForAccounts(@QueryParam(QUERY_ACCOUNT_ID) final List<String> accountIds,
+                                          @QueryParam(QUERY_EXPORT_FORMAT) @DefaultValue(EXPORT_FORMAT_CSV) final String format,
+                                          @QueryParam(QUERY_EXPORT_COMPRESSION) final String compression,
+                                          @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                          @HeaderParam(HDR_REASON) final String reason,
+                                          @HeaderParam(HDR_COMMENT) final String comment,
+                                          @javax.ws.rs.core.Context final HttpServletRequest request) {
         final CallContext callContext = context.createContext(createdBy, reason, comment, request);
-        return new StreamingOutput() {
+        final List<UUID> accountUUIDs = new ArrayList<UUID>(accountIds.size());
+        for (final String accountId : accountIds) {
+            accountUUIDs.add(UUID.fromString(accountId));
+        }
+
+        return buildExportResponse(format, compression, new Exporter() {
+            @Override
+            public void export(final DatabaseExportOutputStream out) {
+                bulkExportUserApi.exportDataForAccounts(accountUUIDs, out, callContext);
+            }
+        });
+    }
+
+    private Response buildExportResponse(final String format, final String compression, final Exporter exporter) {
+        if (!EXPORT_FORMAT_CSV.equals(format) && !EXPORT_FORMAT_BINARY.equals(format)) {
+            return Response.status(Status.BAD_REQUEST)
+                           .entity(String.format("Unknown export format %s, expected %s or %s", format, EXPORT_FORMAT_CSV, EXPORT_FORMAT_BINARY))
+                           .type(TEXT_PLAIN)
+                           .build();
+        }
+
+        final boolean isBinary = EXPORT_FORMAT_BINARY.equals(format);
+        final boolean isGzip = EXPORT_COMPRESSION_GZIP.equals(compression);
+
+        final StreamingOutput stream = new StreamingOutput() {
             @Override
             public void write(final OutputStream output) throws IOException, WebApplicationException {
-                // CSV by default for now
-                exportUserApi.exportDataAsCSVForAccount(UUID.fromString(accountId), output, callContext);
+                final OutputStream out = isGzip ? new GZIPOutputStream(output) : output;
+                if (isBinary) {
+                    final BinaryExportOutputStream binaryOutputStream = new BinaryExportOutputStream(out);
+                    exporter.export(binaryOutputStream);
+                    binaryOutputStream.flush();
+                } else {
+                    exporter.export(new CSVExportOutputStream(out));
+                }
+
+                if (isGzip) {
+                    ((GZIPOutputStream) out).finish();
+                }
             }
         };
+
+        final Response.ResponseBuilder builder = Response.status(Status.OK)
+                                                         .entity(stream)
+                                                         .type(isBinary ? APPLICATION_OCTET_STREAM : TEXT_PLAIN);
+        if (isGzip) {
+            builder.header("Content-Encoding", EXPORT_COMPRESSION_GZIP);
+        }
+        return builder.build();
+    }
+
+    private interface Exporter {
+
+        public void export(DatabaseExportOutputStream out);
     }
 }
@@ -30,6 +30,7 @@ import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -50,11 +51,14 @@ import com.ning.billing.account.api.AccountApiException;
 import com.ning.billing.account.api.AccountUserApi;
 import com.ning.billing.catalog.api.Currency;
 import com.ning.billing.clock.Clock;
+import com.ning.billing.invoice.api.BillRun;
 import com.ning.billing.invoice.api.Invoice;
 import com.ning.billing.invoice.api.InvoiceApiException;
+import com.ning.billing.invoice.api.InvoiceBillRunApi;
 import com.ning.billing.invoice.api.InvoiceItem;
 import com.ning.billing.invoice.api.InvoiceNotifier;
 import com.ning.billing.invoice.api.InvoiceUserApi;
+import com.ning.billing.jaxrs.json.BillRunJson;
 import com.ning.billing.jaxrs.json.CustomFieldJson;
 import com.ning.billing.jaxrs.json.InvoiceItemJson;
 import com.ning.billing.jaxrs.json.InvoiceJson;
@@ -91,12 +95,14 @@ public class InvoiceResource extends JaxRsResourceBase {
     private final InvoiceUserApi invoiceApi;
     private final PaymentApi paymentApi;
     private final InvoiceNotifier invoiceNotifier;
+    private final InvoiceBillRunApi billRunApi;
 
     @Inject
     public InvoiceResource(final AccountUserApi accountUserApi,
                            final InvoiceUserApi invoiceApi,
                            final PaymentApi paymentApi,
                            final InvoiceNotifier invoiceNotifier,
+                           final InvoiceBillRunApi billRunApi,
                            final Clock clock,
                            final JaxrsUriBuilder uriBuilder,
                            final TagUserApi tagUserApi,
@@ -107,6 +113,7 @@ public class InvoiceResource extends JaxRsResourceBase {
         this.invoiceApi = invoiceApi;
         this.paymentApi = paymentApi;
         this.invoiceNotifier = invoiceNotifier;
+        this.billRunApi = billRunApi;
     }
 
 
@@ -192,6 +199,46 @@ public class InvoiceResource extends JaxRsResourceBase {
         }
     }
 
+    @POST
+    @Path("/" + BILL_RUNS)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public Response startBillRun(@QueryParam(QUERY_TARGET_DATE) final String targetDateTime,
+                                 @QueryParam(QUERY_DRY_RUN) @DefaultValue("false") final Boolean dryRun,
+                                 @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                 @HeaderParam(HDR_REASON) final String reason,
+                                 @HeaderParam(HDR_COMMENT) final String comment,
+                                 @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        final DateTime targetDate = targetDateTime != null ? DATE_TIME_FORMATTER.parseDateTime(targetDateTime) : clock.getUTCNow();
+
+        final BillRun billRun = billRunApi.startBillRun(targetDate, dryRun, callContext);
+        return uriBuilder.buildResponse(InvoiceResource.class, "getBillRun", billRun.getId());
+    }
+
+    @GET
+    @Path("/" + BILL_RUNS + "/{billRunId:" + UUID_PATTERN + "}/")
+    @Produces(APPLICATION_JSON)
+    public Response getBillRun(@PathParam("billRunId") final String billRunId,
+                               @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final BillRun billRun = billRunApi.getBillRun(UUID.fromString(billRunId), context.createContext(request));
+        return Response.status(Status.OK).entity(new BillRunJson(billRun)).build();
+    }
+
+    @PUT
+    @Path("/" + BILL_RUNS + "/{billRunId:" + UUID_PATTERN + "}/")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    public Response resumeBillRun(@PathParam("billRunId") final String billRunId,
+                                  @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                  @HeaderParam(HDR_REASON) final String reason,
+                                  @HeaderParam(HDR_COMMENT) final String comment,
+                                  @javax.ws.rs.core.Context final HttpServletRequest request) {
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+        final BillRun billRun = billRunApi.resumeBillRun(UUID.fromString(billRunId), callContext);
+        return Response.status(Status.OK).entity(new BillRunJson(billRun)).build();
+    }
+
     @DELETE
     @Path("/{invoiceId:" + UUID_PATTERN + "}" + "/{invoiceItemId:" + UUID_PATTERN + "}/cba")
     @Consumes(APPLICATION_JSON)
@@ -96,6 +96,9 @@ public interface JaxrsResource {
 
     public static final String QUERY_DELETE_DEFAULT_PM_WITH_AUTO_PAY_OFF = "deleteDefaultPmWithAutoPayOff";
 
+    public static final String QUERY_EXPORT_FORMAT = "format";
+    public static final String QUERY_EXPORT_COMPRESSION = "compression";
+
     public static final String QUERY_AUDIT = "audit";
 
     public static final String QUERY_NOTIFICATION_CALLBACK = "cb";
@@ -126,6 +129,8 @@ public interface JaxrsResource {
     public static final String INVOICES = "invoices";
     public static final String INVOICES_PATH = PREFIX + "/" + INVOICES;
 
+    public static final String BILL_RUNS = "billRuns";
+
     public static final String CHARGES = "charges";
     public static final String CHARGES_PATH = PREFIX + "/" + INVOICES + "/" + CHARGES;
 
@@ -360,12 +360,17 @@ public class SubscriptionResource extends JaxRsResourceBase {
                                             final boolean callCompletion,
                                             final CallContext callContext) throws SubscriptionApiException, AccountApiException, EntitlementApiException {
             final CompletionUserRequestEntitlement waiter = callCompletion ? new CompletionUserRequestEntitlement(callContext.getUserToken()) : null;
+            boolean isWaiterRegistered = false;
             try {
                 if (waiter != null) {
-                    killbillHandler.registerCompletionUserRequestWaiter(waiter);
+                    isWaiterRegistered = killbillHandler.registerCompletionUserRequestWaiter(waiter);
+                    if (!isWaiterRegistered) {
+                        // Fail fast, before doing the operation, rather than silently not waiting for its completion
+                        return Response.status(Status.SERVICE_UNAVAILABLE).build();
+                    }
                 }
                 final T operationValue = callback.doOperation(callContext);
-                if (waiter != null && callback.isImmOperation()) {
+                if (isWaiterRegistered && callback.isImmOperation()) {
                     waiter.waitForCompletion(timeoutSec * 1000);
                 }
                 return callback.doResponseOk(operationValue);
@@ -374,7 +379,7 @@ public class SubscriptionResource extends JaxRsResourceBase {
             } catch (TimeoutException e) {
                 return Response.status(Status.fromStatusCode(408)).build();
             } finally {
-                if (waiter != null) {
+                if (isWaiterRegistered) {
                     killbillHandler.unregisterCompletionUserRequestWaiter(waiter);
                 }
             }
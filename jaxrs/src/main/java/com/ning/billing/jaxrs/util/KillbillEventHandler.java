@@ -16,41 +16,81 @@
 
 package com.ning.billing.jaxrs.util;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.ning.billing.events.BusInternalEvent;
+import com.ning.billing.util.config.JaxrsConfig;
 import com.ning.billing.util.userrequest.CompletionUserRequest;
-import com.ning.billing.util.userrequest.CompletionUserRequestNotifier;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.eventbus.Subscribe;
+import com.google.inject.Inject;
 
 public class KillbillEventHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(KillbillEventHandler.class);
 
-    private final List<CompletionUserRequest> activeWaiters;
+    // Waiters indexed by user token, so that events are only dispatched to the interested requests
+    private final ConcurrentMap<UUID, List<CompletionUserRequest>> activeWaiters;
+    // Bound on the number of in-flight requests waiting for completion, so that synchronous calls (callCompletion=true)
+    // cannot exhaust the Jetty thread pool
+    private final Semaphore activeWaitersPermits;
+    private final Meter rejectedWaitersMeter;
 
-    public KillbillEventHandler() {
-        activeWaiters = new LinkedList<CompletionUserRequest>();
+    @Inject
+    public KillbillEventHandler(final JaxrsConfig config, final MetricRegistry metricRegistry) {
+        activeWaiters = new ConcurrentHashMap<UUID, List<CompletionUserRequest>>();
+        activeWaitersPermits = new Semaphore(config.getMaxCallCompletionWaiters());
+        rejectedWaitersMeter = metricRegistry.meter(MetricRegistry.name(KillbillEventHandler.class, "rejected-waiters"));
     }
 
-    public void registerCompletionUserRequestWaiter(final CompletionUserRequest waiter) {
-        if (waiter == null) {
-            return;
+    /**
+     * @return true if the waiter was registered (and will be notified), false if too many requests are already
+     *         waiting for completion: the caller should then reject the request
+     */
+    public boolean registerCompletionUserRequestWaiter(final CompletionUserRequest waiter) {
+        if (waiter == null || waiter.getUserToken() == null) {
+            return false;
+        }
+        if (!activeWaitersPermits.tryAcquire()) {
+            rejectedWaitersMeter.mark();
+            log.warn("Too many requests waiting for completion, rejecting userToken {}", waiter.getUserToken());
+            return false;
         }
         synchronized (activeWaiters) {
-            activeWaiters.add(waiter);
+            List<CompletionUserRequest> waitersForToken = activeWaiters.get(waiter.getUserToken());
+            if (waitersForToken == null) {
+                waitersForToken = new CopyOnWriteArrayList<CompletionUserRequest>();
+                activeWaiters.put(waiter.getUserToken(), waitersForToken);
+            }
+            waitersForToken.add(waiter);
         }
+        return true;
     }
 
     public void unregisterCompletionUserRequestWaiter(final CompletionUserRequest waiter) {
-        if (waiter == null) {
+        if (waiter == null || waiter.getUserToken() == null) {
             return;
         }
         synchronized (activeWaiters) {
-            activeWaiters.remove(waiter);
+            final List<CompletionUserRequest> waitersForToken = activeWaiters.get(waiter.getUserToken());
+            if (waitersForToken == null || !waitersForToken.remove(waiter)) {
+                return;
+            }
+            if (waitersForToken.isEmpty()) {
+                activeWaiters.remove(waiter.getUserToken());
+            }
         }
+        activeWaitersPermits.release();
     }
 
     /*
@@ -58,14 +98,14 @@ public class KillbillEventHandler {
      */
     @Subscribe
     public void handleSubscriptionevents(final BusInternalEvent event) {
-        final List<CompletionUserRequestNotifier> runningWaiters = new ArrayList<CompletionUserRequestNotifier>();
-        synchronized (activeWaiters) {
-            runningWaiters.addAll(activeWaiters);
+        if (event.getUserToken() == null) {
+            return;
         }
-        if (runningWaiters.size() == 0) {
+        final List<CompletionUserRequest> waitersForToken = activeWaiters.get(event.getUserToken());
+        if (waitersForToken == null) {
             return;
         }
-        for (final CompletionUserRequestNotifier cur : runningWaiters) {
+        for (final CompletionUserRequest cur : waitersForToken) {
             cur.onBusEvent(event);
         }
     }
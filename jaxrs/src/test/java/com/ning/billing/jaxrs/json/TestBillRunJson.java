@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.jaxrs.json;
+
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.jaxrs.JaxrsTestSuiteNoDB;
+
+public class TestBillRunJson extends JaxrsTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testJson() throws Exception {
+        final String billRunId = UUID.randomUUID().toString();
+        final DateTime targetDate = new DateTime(DateTimeZone.UTC);
+        final String state = "COMPLETED_WITH_FAILURES";
+        final DateTime startDate = new DateTime(DateTimeZone.UTC);
+        final DateTime updatedDate = new DateTime(DateTimeZone.UTC);
+        final BillRunJson billRunJson = new BillRunJson(billRunId, targetDate, false, state, 100L, 2L, 98L, 100, startDate, updatedDate);
+        Assert.assertEquals(billRunJson.getBillRunId(), billRunId);
+        Assert.assertEquals(billRunJson.getTargetDate(), targetDate);
+        Assert.assertFalse(billRunJson.isDryRun());
+        Assert.assertEquals(billRunJson.getState(), state);
+        Assert.assertEquals(billRunJson.getNbAccountsProcessed(), (Long) 100L);
+        Assert.assertEquals(billRunJson.getNbAccountsFailed(), (Long) 2L);
+        Assert.assertEquals(billRunJson.getNbInvoices(), (Long) 98L);
+        Assert.assertEquals(billRunJson.getProgress(), (Integer) 100);
+        Assert.assertEquals(billRunJson.getStartDate(), startDate);
+        Assert.assertEquals(billRunJson.getUpdatedDate(), updatedDate);
+
+        final String asJson = mapper.writeValueAsString(billRunJson);
+        final BillRunJson fromJson = mapper.readValue(asJson, BillRunJson.class);
+        Assert.assertEquals(fromJson, billRunJson);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.jaxrs.json;
+
+import java.util.UUID;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.ErrorCode;
+import com.ning.billing.jaxrs.JaxrsTestSuiteNoDB;
+import com.ning.billing.payment.api.InvoicePaymentResult;
+import com.ning.billing.payment.api.PaymentApiException;
+
+public class TestInvoicePaymentResultJson extends JaxrsTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testJson() throws Exception {
+        final UUID invoiceId = UUID.randomUUID();
+        final PaymentApiException error = new PaymentApiException(ErrorCode.PAYMENT_INTERNAL_ERROR, invoiceId);
+
+        final InvoicePaymentResultJson resultJson = new InvoicePaymentResultJson(new InvoicePaymentResult(invoiceId, null, error));
+        Assert.assertEquals(resultJson.getInvoiceId(), invoiceId.toString());
+        Assert.assertFalse(resultJson.isSuccess());
+        Assert.assertNull(resultJson.getPayment());
+        Assert.assertEquals(resultJson.getError().getCode(), (Integer) ErrorCode.PAYMENT_INTERNAL_ERROR.getCode());
+
+        final String asJson = mapper.writeValueAsString(resultJson);
+        final InvoicePaymentResultJson fromJson = mapper.readValue(asJson, InvoicePaymentResultJson.class);
+        Assert.assertEquals(fromJson, resultJson);
+    }
+}
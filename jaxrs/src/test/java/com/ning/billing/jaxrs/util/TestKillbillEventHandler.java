@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.jaxrs.util;
+
+import java.util.UUID;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.events.BusInternalEvent;
+import com.ning.billing.jaxrs.JaxrsTestSuiteNoDB;
+import com.ning.billing.util.config.JaxrsConfig;
+import com.ning.billing.util.userrequest.CompletionUserRequest;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestKillbillEventHandler extends JaxrsTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testWaitersAreRejectedPastTheLimit() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final KillbillEventHandler handler = new KillbillEventHandler(createConfig(1), metricRegistry);
+        final String rejectedMeterName = MetricRegistry.name(KillbillEventHandler.class, "rejected-waiters");
+
+        final CompletionUserRequest firstWaiter = createWaiter(UUID.randomUUID());
+        final CompletionUserRequest secondWaiter = createWaiter(UUID.randomUUID());
+
+        Assert.assertTrue(handler.registerCompletionUserRequestWaiter(firstWaiter));
+        Assert.assertFalse(handler.registerCompletionUserRequestWaiter(secondWaiter));
+        Assert.assertEquals(metricRegistry.meter(rejectedMeterName).getCount(), 1);
+
+        // Unregistering releases the slot
+        handler.unregisterCompletionUserRequestWaiter(firstWaiter);
+        Assert.assertTrue(handler.registerCompletionUserRequestWaiter(secondWaiter));
+        Assert.assertEquals(metricRegistry.meter(rejectedMeterName).getCount(), 1);
+
+        // Unregistering a waiter twice must not release an extra slot
+        handler.unregisterCompletionUserRequestWaiter(firstWaiter);
+        Assert.assertFalse(handler.registerCompletionUserRequestWaiter(firstWaiter));
+        Assert.assertEquals(metricRegistry.meter(rejectedMeterName).getCount(), 2);
+    }
+
+    @Test(groups = "fast")
+    public void testEventsAreOnlyDispatchedToTheMatchingToken() throws Exception {
+        final KillbillEventHandler handler = new KillbillEventHandler(createConfig(10), new MetricRegistry());
+
+        final UUID userToken = UUID.randomUUID();
+        final CompletionUserRequest matchingWaiter = createWaiter(userToken);
+        final CompletionUserRequest otherWaiter = createWaiter(UUID.randomUUID());
+        Assert.assertTrue(handler.registerCompletionUserRequestWaiter(matchingWaiter));
+        Assert.assertTrue(handler.registerCompletionUserRequestWaiter(otherWaiter));
+
+        final BusInternalEvent event = Mockito.mock(BusInternalEvent.class);
+        Mockito.when(event.getUserToken()).thenReturn(userToken);
+        handler.handleSubscriptionevents(event);
+
+        Mockito.verify(matchingWaiter, Mockito.times(1)).onBusEvent(event);
+        Mockito.verify(otherWaiter, Mockito.never()).onBusEvent(Mockito.<BusInternalEvent>any());
+
+        // No dispatch once unregistered
+        handler.unregisterCompletionUserRequestWaiter(matchingWaiter);
+        handler.handleSubscriptionevents(event);
+        Mockito.verify(matchingWaiter, Mockito.times(1)).onBusEvent(event);
+    }
+
+    private JaxrsConfig createConfig(final int maxWaiters) {
+        final JaxrsConfig config = Mockito.mock(JaxrsConfig.class);
+        Mockito.when(config.getMaxCallCompletionWaiters()).thenReturn(maxWaiters);
+        return config;
+    }
+
+    private CompletionUserRequest createWaiter(final UUID userToken) {
+        final CompletionUserRequest waiter = Mockito.mock(CompletionUserRequest.class);
+        Mockito.when(waiter.getUserToken()).thenReturn(userToken);
+        return waiter;
+    }
+}
@@ -39,7 +39,7 @@ import com.ning.billing.util.entity.Pagination;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 
-public class DefaultPaymentApi implements PaymentApi {
+public class DefaultPaymentApi implements PaymentApi, BulkPaymentApi {
 
     private final PaymentMethodProcessor methodProcessor;
     private final PaymentProcessor paymentProcessor;
@@ -73,6 +73,12 @@ public class DefaultPaymentApi implements PaymentApi {
                                               internalCallContextFactory.createInternalCallContext(account.getId(), context), true, true);
     }
 
+    @Override
+    public List<InvoicePaymentResult> createPayments(final Account account, final List<UUID> invoiceIds, final boolean isExternalPayment, final CallContext context) throws PaymentApiException {
+        return paymentProcessor.createPayments(account, invoiceIds,
+                                               internalCallContextFactory.createInternalCallContext(account.getId(), context), isExternalPayment);
+    }
+
     @Override
     public Payment retryPayment(final Account account, final UUID paymentId, final CallContext context) throws PaymentApiException {
         final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(account.getId(), context);
@@ -18,6 +18,7 @@ package com.ning.billing.payment.core;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.name.Named;
 import com.ning.billing.ErrorCode;
 import com.ning.billing.account.api.Account;
@@ -32,6 +33,7 @@ import com.ning.billing.payment.api.DefaultPayment;
 import com.ning.billing.payment.api.DefaultPaymentErrorEvent;
 import com.ning.billing.payment.api.DefaultPaymentInfoEvent;
 import com.ning.billing.payment.api.DefaultPaymentPluginErrorEvent;
+import com.ning.billing.payment.api.InvoicePaymentResult;
 import com.ning.billing.payment.api.Payment;
 import com.ning.billing.payment.api.PaymentApiException;
 import com.ning.billing.payment.api.PaymentStatus;
@@ -62,6 +64,7 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -70,6 +73,7 @@ import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.ning.billing.payment.glue.PaymentModule.PLUGIN_EXECUTOR_NAMED;
 
@@ -88,6 +92,8 @@ public class PaymentProcessor extends ProcessorBase {
 
     private final PluginDispatcher<Payment> paymentPluginDispatcher;
     private final PluginDispatcher<Void> voidPluginDispatcher;
+    private final long paymentPluginTimeoutSec;
+    private final long bulkPaymentTimeoutSec;
 
     private static final Logger log = LoggerFactory.getLogger(PaymentProcessor.class);
 
@@ -115,7 +121,8 @@ public class PaymentProcessor extends ProcessorBase {
         this.autoPayoffRetryService = autoPayoffRetryService;
         this.clock = clock;
         this.paymentConfig = paymentConfig;
-        final long paymentPluginTimeoutSec = TimeUnit.SECONDS.convert(paymentConfig.getPaymentPluginTimeout().getPeriod(), paymentConfig.getPaymentPluginTimeout().getUnit());
+        this.paymentPluginTimeoutSec = TimeUnit.SECONDS.convert(paymentConfig.getPaymentPluginTimeout().getPeriod(), paymentConfig.getPaymentPluginTimeout().getUnit());
+        this.bulkPaymentTimeoutSec = TimeUnit.SECONDS.convert(paymentConfig.getBulkPaymentTimeout().getPeriod(), paymentConfig.getBulkPaymentTimeout().getUnit());
         this.paymentPluginDispatcher = new PluginDispatcher<Payment>(paymentPluginTimeoutSec, executor);
         this.voidPluginDispatcher = new PluginDispatcher<Void>(paymentPluginTimeoutSec, executor);
     }
@@ -235,57 +242,7 @@ public class PaymentProcessor extends ProcessorBase {
 
                         @Override
                         public Payment doOperation() throws PaymentApiException {
-
-                            try {
-                                // First, rebalance CBA and retrieve the latest version of the invoice
-                                final Invoice invoice = rebalanceAndGetInvoice(account.getId(), invoiceId, context);
-                                if (invoice == null || invoice.isMigrationInvoice()) {
-                                    log.error("Received invoice for payment that is a migration invoice - don't know how to handle those yet: {}", invoice);
-                                    return null;
-                                }
-
-                                // Second, validate the payment amount. We want to bail as early as possible if e.g. the balance is zero
-                                final BigDecimal requestedAmount = getAndValidatePaymentAmount(invoice, inputAmount, isInstantPayment);
-
-                                // Third, retrieve the payment method and associated plugin
-                                final PaymentPluginApi plugin;
-                                final UUID paymentMethodId;
-                                try {
-                                    // Use the special external payment plugin to handle external payments
-                                    if (isExternalPayment) {
-                                        plugin = externalPaymentPlugin;
-                                        paymentMethodId = paymentMethodProcessor.getExternalPaymentMethod(account, context).getId();
-                                    } else {
-                                        plugin = getPaymentProviderPlugin(account, context);
-                                        paymentMethodId = account.getPaymentMethodId();
-                                    }
-                                } catch (PaymentApiException e) {
-
-                                    // Insert a payment entry with one attempt in a terminal state to keep a record of the failure
-                                    processNewPaymentForMissingDefaultPaymentMethodWithAccountLocked(account, invoice, requestedAmount, context);
-
-                                    // This event will be caught by overdue to refresh the overdue state, if needed.
-                                    // Note that at this point, we don't know the exact invoice balance (see getAndValidatePaymentAmount() below).
-                                    // This means that events will be posted for null and zero dollar invoices (e.g. trials).
-                                    final PaymentErrorInternalEvent event = new DefaultPaymentErrorEvent(account.getId(), invoiceId, null,
-                                            ErrorCode.PAYMENT_NO_DEFAULT_PAYMENT_METHOD.toString(),
-                                            context.getAccountRecordId(), context.getTenantRecordId(),
-                                            context.getUserToken());
-                                    postPaymentEvent(event, account.getId(), context);
-                                    throw e;
-                                }
-
-                                final boolean isAccountAutoPayOff = isAccountAutoPayOff(account.getId(), context);
-                                setUnsaneAccount_AUTO_PAY_OFFWithAccountLock(account.getId(), paymentMethodId, isAccountAutoPayOff, context, isInstantPayment);
-
-                                if (!isInstantPayment && isAccountAutoPayOff) {
-                                    return processNewPaymentForAutoPayOffWithAccountLocked(paymentMethodId, account, invoice, requestedAmount, context);
-                                } else {
-                                    return processNewPaymentWithAccountLocked(paymentMethodId, plugin, account, invoice, requestedAmount, isInstantPayment, context);
-                                }
-                            } catch (InvoiceApiException e) {
-                                throw new PaymentApiException(e);
-                            }
+                            return createPaymentWithAccountLocked(account, invoiceId, inputAmount, externalPaymentPlugin, context, isInstantPayment, isExternalPayment);
                         }
                     }));
         } catch (TimeoutException e) {
@@ -309,6 +266,136 @@ public class PaymentProcessor extends ProcessorBase {
         }
     }
 
+    /**
+     * Pay the balance of each invoice, taking the account lock once for all of them (instant payments).
+     * The whole request is bounded by the bulk payment timeout (and by the plugin timeout for each invoice).
+     * On timeout, the results of the invoices already paid are returned, along with a timeout for the invoice being paid.
+     */
+    public List<InvoicePaymentResult> createPayments(final Account account, final List<UUID> invoiceIds, final InternalCallContext context, final boolean isExternalPayment)
+            throws PaymentApiException {
+        if (invoiceIds.isEmpty()) {
+            return ImmutableList.<InvoicePaymentResult>of();
+        }
+
+        // See createPayment: the external payment method needs to be retrieved without the lock
+        final PaymentPluginApi externalPaymentPlugin;
+        if (isExternalPayment) {
+            externalPaymentPlugin = paymentMethodProcessor.getExternalPaymentProviderPlugin(account, context);
+        } else {
+            externalPaymentPlugin = null;
+        }
+
+        // Shared with the plugin thread, so that the results are not lost on timeout
+        final List<InvoicePaymentResult> results = new ArrayList<InvoicePaymentResult>(invoiceIds.size());
+        final AtomicBoolean isTimedOut = new AtomicBoolean(false);
+        final long timeoutSec = Math.min(paymentPluginTimeoutSec * invoiceIds.size(), bulkPaymentTimeoutSec);
+        try {
+            voidPluginDispatcher.dispatchWithAccountLockAndTimeout(new CallableWithAccountLock<Void>(locker,
+                    account.getExternalKey(),
+                    new WithAccountLockCallback<Void>() {
+
+                        @Override
+                        public Void doOperation() {
+                            for (final UUID invoiceId : invoiceIds) {
+                                final InvoicePaymentResult result = createPaymentForBulkWithAccountLocked(account, invoiceId, externalPaymentPlugin, context, isExternalPayment);
+                                synchronized (results) {
+                                    if (isTimedOut.get()) {
+                                        // The caller gave up, don't start the next invoices
+                                        return null;
+                                    }
+                                    results.add(result);
+                                }
+                            }
+                            return null;
+                        }
+                    }), timeoutSec, TimeUnit.SECONDS);
+            return results;
+        } catch (TimeoutException e) {
+            synchronized (results) {
+                isTimedOut.set(true);
+                if (results.size() == invoiceIds.size()) {
+                    return results;
+                }
+
+                // Invoices are paid in order: the first one without a result is the one which timed out
+                final UUID timedOutInvoiceId = invoiceIds.get(results.size());
+                log.warn(String.format("Payment from Account %s, Invoice %s timedout, %s invoice(s) not attempted",
+                                       account.getId(), timedOutInvoiceId, invoiceIds.size() - results.size() - 1));
+                final List<InvoicePaymentResult> partialResults = new ArrayList<InvoicePaymentResult>(results);
+                partialResults.add(new InvoicePaymentResult(timedOutInvoiceId, null, new PaymentApiException(ErrorCode.PAYMENT_PLUGIN_TIMEOUT, account.getId(), timedOutInvoiceId)));
+                return partialResults;
+            }
+        }
+    }
+
+    private InvoicePaymentResult createPaymentForBulkWithAccountLocked(final Account account, final UUID invoiceId, @Nullable final PaymentPluginApi externalPaymentPlugin,
+                                                                       final InternalCallContext context, final boolean isExternalPayment) {
+        try {
+            final Payment payment = createPaymentWithAccountLocked(account, invoiceId, null, externalPaymentPlugin, context, true, isExternalPayment);
+            return new InvoicePaymentResult(invoiceId, payment, null);
+        } catch (PaymentApiException e) {
+            return new InvoicePaymentResult(invoiceId, null, e);
+        } catch (RuntimeException e) {
+            log.error("Failure when processing payment for invoice " + invoiceId, e);
+            return new InvoicePaymentResult(invoiceId, null, new PaymentApiException(ErrorCode.PAYMENT_INTERNAL_ERROR, invoiceId));
+        }
+    }
+
+    private Payment createPaymentWithAccountLocked(final Account account, final UUID invoiceId, @Nullable final BigDecimal inputAmount,
+                                                   @Nullable final PaymentPluginApi externalPaymentPlugin, final InternalCallContext context,
+                                                   final boolean isInstantPayment, final boolean isExternalPayment) throws PaymentApiException {
+        try {
+            // First, rebalance CBA and retrieve the latest version of the invoice
+            final Invoice invoice = rebalanceAndGetInvoice(account.getId(), invoiceId, context);
+            if (invoice == null || invoice.isMigrationInvoice()) {
+                log.error("Received invoice for payment that is a migration invoice - don't know how to handle those yet: {}", invoice);
+                return null;
+            }
+
+            // Second, validate the payment amount. We want to bail as early as possible if e.g. the balance is zero
+            final BigDecimal requestedAmount = getAndValidatePaymentAmount(invoice, inputAmount, isInstantPayment);
+
+            // Third, retrieve the payment method and associated plugin
+            final PaymentPluginApi plugin;
+            final UUID paymentMethodId;
+            try {
+                // Use the special external payment plugin to handle external payments
+                if (isExternalPayment) {
+                    plugin = externalPaymentPlugin;
+                    paymentMethodId = paymentMethodProcessor.getExternalPaymentMethod(account, context).getId();
+                } else {
+                    plugin = getPaymentProviderPlugin(account, context);
+                    paymentMethodId = account.getPaymentMethodId();
+                }
+            } catch (PaymentApiException e) {
+
+                // Insert a payment entry with one attempt in a terminal state to keep a record of the failure
+                processNewPaymentForMissingDefaultPaymentMethodWithAccountLocked(account, invoice, requestedAmount, context);
+
+                // This event will be caught by overdue to refresh the overdue state, if needed.
+                // Note that at this point, we don't know the exact invoice balance (see getAndValidatePaymentAmount() below).
+                // This means that events will be posted for null and zero dollar invoices (e.g. trials).
+                final PaymentErrorInternalEvent event = new DefaultPaymentErrorEvent(account.getId(), invoiceId, null,
+                        ErrorCode.PAYMENT_NO_DEFAULT_PAYMENT_METHOD.toString(),
+                        context.getAccountRecordId(), context.getTenantRecordId(),
+                        context.getUserToken());
+                postPaymentEvent(event, account.getId(), context);
+                throw e;
+            }
+
+            final boolean isAccountAutoPayOff = isAccountAutoPayOff(account.getId(), context);
+            setUnsaneAccount_AUTO_PAY_OFFWithAccountLock(account.getId(), paymentMethodId, isAccountAutoPayOff, context, isInstantPayment);
+
+            if (!isInstantPayment && isAccountAutoPayOff) {
+                return processNewPaymentForAutoPayOffWithAccountLocked(paymentMethodId, account, invoice, requestedAmount, context);
+            } else {
+                return processNewPaymentWithAccountLocked(paymentMethodId, plugin, account, invoice, requestedAmount, isInstantPayment, context);
+            }
+        } catch (InvoiceApiException e) {
+            throw new PaymentApiException(e);
+        }
+    }
+
     private void setUnsaneAccount_AUTO_PAY_OFFWithAccountLock(final UUID accountId, final UUID paymentMethodId, final boolean isAccountAutoPayOff,
                                                               final InternalCallContext context, final boolean isInstantPayment)
             throws PaymentApiException {
@@ -24,6 +24,7 @@ import org.skife.config.ConfigSource;
 import org.skife.config.ConfigurationObjectFactory;
 
 import com.ning.billing.osgi.api.OSGIServiceRegistration;
+import com.ning.billing.payment.api.BulkPaymentApi;
 import com.ning.billing.payment.api.DefaultPaymentApi;
 import com.ning.billing.payment.api.PaymentApi;
 import com.ning.billing.payment.api.PaymentInternalApi;
@@ -43,6 +44,7 @@ import com.ning.billing.payment.retry.FailedPaymentRetryService;
 import com.ning.billing.payment.retry.FailedPaymentRetryService.FailedPaymentRetryServiceScheduler;
 import com.ning.billing.payment.retry.PluginFailureRetryService;
 import com.ning.billing.payment.retry.PluginFailureRetryService.PluginFailureRetryServiceScheduler;
+import com.ning.billing.payment.retry.RetryRateLimiter;
 import com.ning.billing.util.config.PaymentConfig;
 
 import com.google.inject.AbstractModule;
@@ -69,6 +71,7 @@ public class PaymentModule extends AbstractModule {
     }
 
     protected void installRetryEngines() {
+        bind(RetryRateLimiter.class).asEagerSingleton();
         bind(FailedPaymentRetryService.class).asEagerSingleton();
         bind(PluginFailureRetryService.class).asEagerSingleton();
         bind(AutoPayRetryService.class).asEagerSingleton();
@@ -102,7 +105,9 @@ public class PaymentModule extends AbstractModule {
         bind(new TypeLiteral<OSGIServiceRegistration<PaymentPluginApi>>() {}).toProvider(DefaultPaymentProviderPluginRegistryProvider.class).asEagerSingleton();
 
         bind(PaymentInternalApi.class).to(DefaultPaymentInternalApi.class).asEagerSingleton();
-        bind(PaymentApi.class).to(DefaultPaymentApi.class).asEagerSingleton();
+        bind(DefaultPaymentApi.class).asEagerSingleton();
+        bind(PaymentApi.class).to(DefaultPaymentApi.class);
+        bind(BulkPaymentApi.class).to(DefaultPaymentApi.class);
         bind(InvoiceHandler.class).asEagerSingleton();
         bind(PaymentTagHandler.class).asEagerSingleton();
         bind(PaymentService.class).to(DefaultPaymentService.class).asEagerSingleton();
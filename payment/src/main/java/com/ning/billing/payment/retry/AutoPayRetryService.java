@@ -19,13 +19,17 @@ package com.ning.billing.payment.retry;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.IDBI;
 
+import com.ning.billing.notificationq.api.NotificationQueueConfig;
 import com.ning.billing.notificationq.api.NotificationQueueService;
 import com.ning.billing.util.config.PaymentConfig;
 import com.ning.billing.payment.core.PaymentProcessor;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.util.callcontext.InternalCallContextFactory;
+import com.ning.billing.clock.Clock;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 
 public class AutoPayRetryService extends BaseRetryService implements RetryService {
@@ -38,8 +42,13 @@ public class AutoPayRetryService extends BaseRetryService implements RetryServic
     public AutoPayRetryService(final NotificationQueueService notificationQueueService,
                                final PaymentConfig config,
                                final PaymentProcessor paymentProcessor,
-                               final InternalCallContextFactory internalCallContextFactory) {
-        super(notificationQueueService, internalCallContextFactory);
+                               final InternalCallContextFactory internalCallContextFactory,
+                               final RetryRateLimiter retryRateLimiter,
+                               final Clock clock,
+                               final IDBI dbi,
+                               final NotificationQueueConfig notificationQueueConfig,
+                               final MetricRegistry metricRegistry) {
+        super(notificationQueueService, internalCallContextFactory, retryRateLimiter, clock, dbi, notificationQueueConfig, metricRegistry);
         this.paymentProcessor = paymentProcessor;
     }
 
@@ -57,8 +66,10 @@ public class AutoPayRetryService extends BaseRetryService implements RetryServic
 
         @Inject
         public AutoPayRetryServiceScheduler(final NotificationQueueService notificationQueueService,
-                                            final InternalCallContextFactory internalCallContextFactory) {
-            super(notificationQueueService, internalCallContextFactory);
+                                            final InternalCallContextFactory internalCallContextFactory,
+                                            final Clock clock,
+                                            final PaymentConfig config) {
+            super(notificationQueueService, internalCallContextFactory, clock, config);
         }
 
         @Override
@@ -17,15 +17,18 @@
 package com.ning.billing.payment.retry;
 
 import java.io.IOException;
+import java.util.Random;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ning.billing.ObjectType;
 import com.ning.billing.notificationq.api.NotificationEvent;
 import com.ning.billing.notificationq.api.NotificationQueue;
+import com.ning.billing.notificationq.api.NotificationQueueConfig;
 import com.ning.billing.notificationq.api.NotificationQueueService;
 import com.ning.billing.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
 import com.ning.billing.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
@@ -33,11 +36,16 @@ import com.ning.billing.notificationq.api.NotificationQueueService.NotificationQ
 import com.ning.billing.payment.glue.DefaultPaymentService;
 import com.ning.billing.util.callcontext.CallOrigin;
 import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.clock.Clock;
 import com.ning.billing.util.callcontext.InternalCallContextFactory;
 import com.ning.billing.util.callcontext.UserType;
+import com.ning.billing.util.config.PaymentConfig;
 import com.ning.billing.util.entity.dao.EntitySqlDao;
 import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 
 public abstract class BaseRetryService implements RetryService {
@@ -47,13 +55,37 @@ public abstract class BaseRetryService implements RetryService {
 
     private final NotificationQueueService notificationQueueService;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final RetryRateLimiter retryRateLimiter;
+    private final Clock clock;
 
-    private NotificationQueue retryQueue;
+    private volatile NotificationQueue retryQueue;
 
     public BaseRetryService(final NotificationQueueService notificationQueueService,
-                            final InternalCallContextFactory internalCallContextFactory) {
+                            final InternalCallContextFactory internalCallContextFactory,
+                            final RetryRateLimiter retryRateLimiter,
+                            final Clock clock,
+                            final IDBI dbi,
+                            final NotificationQueueConfig notificationQueueConfig,
+                            final MetricRegistry metricRegistry) {
         this.notificationQueueService = notificationQueueService;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.retryRateLimiter = retryRateLimiter;
+        this.clock = clock;
+
+        // Deferred retries waiting in the notification queue, across all nodes
+        final RetryNotificationSqlDao retryNotificationSqlDao = dbi.onDemand(RetryNotificationSqlDao.class);
+        metricRegistry.register(MetricRegistry.name(BaseRetryService.class, getQueueName(), "backlog"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                final NotificationQueue queue = retryQueue;
+                if (queue == null) {
+                    return 0;
+                }
+                return retryNotificationSqlDao.getCountAvailableNotifications(queue.getFullQName(),
+                                                                              DeferredPaymentRetryNotificationKey.class.getName(),
+                                                                              notificationQueueConfig.getTableName());
+            }
+        });
     }
 
     @Override
@@ -69,11 +101,30 @@ public abstract class BaseRetryService implements RetryService {
                                                                               }
                                                                               final PaymentRetryNotificationKey key = (PaymentRetryNotificationKey) notificationKey;
                                                                               final InternalCallContext callContext = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, PAYMENT_RETRY_SERVICE, CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+                                                                              // Deferred retries already hold a slot
+                                                                              if (!(key instanceof DeferredPaymentRetryNotificationKey)) {
+                                                                                  final long delayMillis = retryRateLimiter.reserve(key.getUuidKey(), callContext);
+                                                                                  if (delayMillis > 0 && deferRetry(key, delayMillis, userToken, accountRecordId, tenantRecordId)) {
+                                                                                      return;
+                                                                                  }
+                                                                              }
                                                                               retry(key.getUuidKey(), callContext);
                                                                           }
                                                                       });
     }
 
+    private boolean deferRetry(final PaymentRetryNotificationKey key, final long delayMillis, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        try {
+            // The deferral is recorded in the queue itself, so that any node can pick up the notification
+            retryQueue.recordFutureNotification(clock.getUTCNow().plus(delayMillis), new DeferredPaymentRetryNotificationKey(key.getUuidKey()), userToken, accountRecordId, tenantRecordId);
+            return true;
+        } catch (IOException e) {
+            // Better run it now than lose it
+            log.warn(String.format("Failed to defer retry for paymentId %s", key.getUuidKey()), e);
+            return false;
+        }
+    }
+
     @Override
     public void start() {
         retryQueue.startQueue();
@@ -94,12 +145,19 @@ public abstract class BaseRetryService implements RetryService {
 
         private final NotificationQueueService notificationQueueService;
         private final InternalCallContextFactory internalCallContextFactory;
+        private final Clock clock;
+        private final long maxJitterMillis;
+        private final Random random = new Random();
 
         @Inject
         public RetryServiceScheduler(final NotificationQueueService notificationQueueService,
-                                     final InternalCallContextFactory internalCallContextFactory) {
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final Clock clock,
+                                     final PaymentConfig config) {
             this.notificationQueueService = notificationQueueService;
             this.internalCallContextFactory = internalCallContextFactory;
+            this.clock = clock;
+            this.maxJitterMillis = config.getPaymentRetryJitter().getMillis();
         }
 
         public boolean scheduleRetryFromTransaction(final UUID paymentId, final DateTime timeOfRetry, final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) {
@@ -134,11 +192,12 @@ public abstract class BaseRetryService implements RetryService {
             try {
                 final NotificationQueue retryQueue = notificationQueueService.getNotificationQueue(DefaultPaymentService.SERVICE_NAME, getQueueName());
                 final NotificationEvent key = new PaymentRetryNotificationKey(paymentId);
+                final DateTime jitteredTimeOfRetry = addJitter(timeOfRetry);
                 if (retryQueue != null) {
                     if (transactionalDao == null) {
-                        retryQueue.recordFutureNotification(timeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+                        retryQueue.recordFutureNotification(jitteredTimeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
                     } else {
-                        retryQueue.recordFutureNotificationFromTransaction(transactionalDao.getSqlDao(), timeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+                        retryQueue.recordFutureNotificationFromTransaction(transactionalDao.getSqlDao(), jitteredTimeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
                     }
                 }
             } catch (NoSuchNotificationQueue e) {
@@ -151,6 +210,16 @@ public abstract class BaseRetryService implements RetryService {
             return true;
         }
 
+        // Spread retries scheduled at the same time (e.g. after a gateway outage), without more than doubling the retry interval
+        @VisibleForTesting
+        DateTime addJitter(final DateTime timeOfRetry) {
+            final long maxJitterForRetryMillis = Math.min(maxJitterMillis, (timeOfRetry.getMillis() - clock.getUTCNow().getMillis()) / 2);
+            if (maxJitterForRetryMillis <= 0) {
+                return timeOfRetry;
+            }
+            return timeOfRetry.plus((long) (random.nextDouble() * maxJitterForRetryMillis));
+        }
+
         protected InternalCallContext createCallContextFromPaymentId(final UUID paymentId) {
             return internalCallContextFactory.createInternalCallContext(paymentId, ObjectType.PAYMENT, PAYMENT_RETRY_SERVICE, CallOrigin.INTERNAL, UserType.SYSTEM, null);
         }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.payment.retry;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Retry deferred by the rate limiter: it already holds a slot, and runs as-is when it fires again.
+ */
+public class DeferredPaymentRetryNotificationKey extends PaymentRetryNotificationKey {
+
+    @JsonCreator
+    public DeferredPaymentRetryNotificationKey(@JsonProperty("uuidKey") UUID uuidKey) {
+        super(uuidKey);
+    }
+}
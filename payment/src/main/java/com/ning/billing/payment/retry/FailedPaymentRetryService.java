@@ -20,9 +20,11 @@ import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ning.billing.notificationq.api.NotificationQueueConfig;
 import com.ning.billing.notificationq.api.NotificationQueueService;
 import com.ning.billing.util.config.PaymentConfig;
 import com.ning.billing.payment.core.PaymentProcessor;
@@ -30,6 +32,7 @@ import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.util.callcontext.InternalCallContextFactory;
 import com.ning.billing.clock.Clock;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 
 public class FailedPaymentRetryService extends BaseRetryService implements RetryService {
@@ -44,8 +47,13 @@ public class FailedPaymentRetryService extends BaseRetryService implements Retry
     public FailedPaymentRetryService(final NotificationQueueService notificationQueueService,
                                      final PaymentConfig config,
                                      final PaymentProcessor paymentProcessor,
-                                     final InternalCallContextFactory internalCallContextFactory) {
-        super(notificationQueueService, internalCallContextFactory);
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final RetryRateLimiter retryRateLimiter,
+                                     final Clock clock,
+                                     final IDBI dbi,
+                                     final NotificationQueueConfig notificationQueueConfig,
+                                     final MetricRegistry metricRegistry) {
+        super(notificationQueueService, internalCallContextFactory, retryRateLimiter, clock, dbi, notificationQueueConfig, metricRegistry);
         this.paymentProcessor = paymentProcessor;
     }
 
@@ -64,7 +72,7 @@ public class FailedPaymentRetryService extends BaseRetryService implements Retry
                                                   final InternalCallContextFactory internalCallContextFactory,
                                                   final Clock clock,
                                                   final PaymentConfig config) {
-            super(notificationQueueService, internalCallContextFactory);
+            super(notificationQueueService, internalCallContextFactory, clock, config);
             this.config = config;
             this.clock = clock;
         }
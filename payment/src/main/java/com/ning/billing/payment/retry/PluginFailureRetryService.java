@@ -19,9 +19,11 @@ package com.ning.billing.payment.retry;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.IDBI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.ning.billing.notificationq.api.NotificationQueueConfig;
 import com.ning.billing.notificationq.api.NotificationQueueService;
 import com.ning.billing.payment.core.PaymentProcessor;
 import com.ning.billing.callcontext.InternalCallContext;
@@ -31,6 +33,7 @@ import com.ning.billing.util.config.PaymentConfig;
 import com.ning.billing.util.entity.dao.EntitySqlDao;
 import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 
 public class PluginFailureRetryService extends BaseRetryService implements RetryService {
@@ -44,8 +47,13 @@ public class PluginFailureRetryService extends BaseRetryService implements Retry
     @Inject
     public PluginFailureRetryService(final NotificationQueueService notificationQueueService,
                                      final PaymentProcessor paymentProcessor,
-                                     final InternalCallContextFactory internalCallContextFactory) {
-        super(notificationQueueService, internalCallContextFactory);
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final RetryRateLimiter retryRateLimiter,
+                                     final Clock clock,
+                                     final IDBI dbi,
+                                     final NotificationQueueConfig notificationQueueConfig,
+                                     final MetricRegistry metricRegistry) {
+        super(notificationQueueService, internalCallContextFactory, retryRateLimiter, clock, dbi, notificationQueueConfig, metricRegistry);
         this.paymentProcessor = paymentProcessor;
     }
 
@@ -64,7 +72,7 @@ public class PluginFailureRetryService extends BaseRetryService implements Retry
                                                   final InternalCallContextFactory internalCallContextFactory,
                                                   final Clock clock,
                                                   final PaymentConfig config) {
-            super(notificationQueueService, internalCallContextFactory);
+            super(notificationQueueService, internalCallContextFactory, clock, config);
             this.clock = clock;
             this.config = config;
         }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.payment.retry;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.clock.Clock;
+import com.ning.billing.payment.dao.PaymentDao;
+import com.ning.billing.payment.dao.PaymentMethodModelDao;
+import com.ning.billing.payment.dao.PaymentModelDao;
+import com.ning.billing.util.config.PaymentConfig;
+
+/**
+ * Per plugin token buckets for payment retries. Instead of rejecting a retry when the bucket is empty,
+ * a slot is reserved for it, so that a burst of retries (e.g. after a gateway outage) is spread at the
+ * configured rate instead of being run all at once.
+ */
+public class RetryRateLimiter {
+
+    private static final String UNKNOWN_PLUGIN = "__unknown__";
+
+    private final PaymentDao paymentDao;
+    private final Clock clock;
+    private final double permitsPerMillis;
+    private final double maxPermits;
+    private final Random random = new Random();
+
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+    @Inject
+    public RetryRateLimiter(final PaymentDao paymentDao, final Clock clock, final PaymentConfig config) {
+        this.paymentDao = paymentDao;
+        this.clock = clock;
+        this.permitsPerMillis = config.getPaymentRetryRate() / 1000.0;
+        this.maxPermits = Math.max(1, config.getPaymentRetryBurst());
+    }
+
+    /**
+     * Reserve a retry slot for the plugin of that payment.
+     *
+     * @return the delay in milliseconds before the retry can run (0 if it can run now)
+     */
+    public long reserve(final UUID paymentId, final InternalTenantContext context) {
+        if (permitsPerMillis <= 0) {
+            // Rate limiting disabled
+            return 0;
+        }
+
+        final String pluginName = getPluginName(paymentId, context);
+        TokenBucket bucket = buckets.get(pluginName);
+        if (bucket == null) {
+            final TokenBucket newBucket = new TokenBucket(clock.getUTCNow().getMillis());
+            bucket = buckets.putIfAbsent(pluginName, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+
+        final long delayMillis = bucket.reserve(clock.getUTCNow().getMillis());
+        if (delayMillis <= 0) {
+            return 0;
+        }
+
+        // Add jitter within one slot, so that deferred retries across nodes don't line up
+        final long slotMillis = Math.max(1, (long) (1 / permitsPerMillis));
+        return delayMillis + (long) (random.nextDouble() * slotMillis);
+    }
+
+    private String getPluginName(final UUID paymentId, final InternalTenantContext context) {
+        final PaymentModelDao payment = paymentDao.getPayment(paymentId, context);
+        if (payment == null) {
+            return UNKNOWN_PLUGIN;
+        }
+        final PaymentMethodModelDao paymentMethod = paymentDao.getPaymentMethodIncludedDeleted(payment.getPaymentMethodId(), context);
+        return paymentMethod == null ? UNKNOWN_PLUGIN : paymentMethod.getPluginName();
+    }
+
+    private final class TokenBucket {
+
+        private double storedPermits;
+        // Time at which the next permit is available, when no permit is stored
+        private long nextFreeMillis;
+
+        private TokenBucket(final long nowMillis) {
+            this.storedPermits = maxPermits;
+            this.nextFreeMillis = nowMillis;
+        }
+
+        private synchronized long reserve(final long nowMillis) {
+            if (nowMillis > nextFreeMillis) {
+                storedPermits = Math.min(maxPermits, storedPermits + (nowMillis - nextFreeMillis) * permitsPerMillis);
+                nextFreeMillis = nowMillis;
+            }
+
+            final long delayMillis = nextFreeMillis - nowMillis;
+            if (storedPermits >= 1) {
+                storedPermits -= 1;
+            } else {
+                nextFreeMillis += (long) Math.ceil((1 - storedPermits) / permitsPerMillis);
+                storedPermits = 0;
+            }
+            return delayMillis;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.testng.annotations.BeforeMethod;
 import com.ning.billing.GuicyKillbillTestSuiteNoDB;
 import com.ning.billing.bus.api.PersistentBus;
 import com.ning.billing.osgi.api.OSGIServiceRegistration;
+import com.ning.billing.payment.api.BulkPaymentApi;
 import com.ning.billing.payment.api.PaymentApi;
 import com.ning.billing.payment.core.PaymentMethodProcessor;
 import com.ning.billing.payment.core.PaymentProcessor;
@@ -63,6 +64,8 @@ public abstract class PaymentTestSuiteNoDB extends GuicyKillbillTestSuiteNoDB {
     @Inject
     protected PaymentApi paymentApi;
     @Inject
+    protected BulkPaymentApi bulkPaymentApi;
+    @Inject
     protected AccountInternalApi accountApi;
     @Inject
     protected TestPaymentHelper testHelper;
@@ -38,7 +38,10 @@ import com.ning.billing.payment.PaymentTestSuiteNoDB;
 import com.ning.billing.payment.provider.DefaultNoOpPaymentMethodPlugin;
 import com.ning.billing.payment.provider.MockPaymentProviderPlugin;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
@@ -141,6 +144,48 @@ public class TestPaymentApiNoDB extends PaymentTestSuiteNoDB {
         }
     }
 
+    @Test(groups = "fast")
+    public void testBulkPayment() throws Exception {
+        final Invoice firstInvoice = createTestInvoiceWithAmount(new BigDecimal("10.00"));
+        final Invoice emptyInvoice = testHelper.createTestInvoice(account, clock.getUTCToday(), Currency.USD, callContext);
+        final Invoice secondInvoice = createTestInvoiceWithAmount(new BigDecimal("25.50"));
+
+        final List<InvoicePaymentResult> results = bulkPaymentApi.createPayments(account,
+                                                                                 ImmutableList.<UUID>of(firstInvoice.getId(), emptyInvoice.getId(), secondInvoice.getId()),
+                                                                                 false,
+                                                                                 callContext);
+        assertEquals(results.size(), 3);
+
+        // The failure on the empty invoice doesn't prevent the next one from being paid
+        assertEquals(results.get(0).getInvoiceId(), firstInvoice.getId());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(results.get(0).getPayment().getAmount().compareTo(new BigDecimal("10.00")), 0);
+        assertEquals(results.get(0).getPayment().getPaymentStatus(), PaymentStatus.SUCCESS);
+
+        assertEquals(results.get(1).getInvoiceId(), emptyInvoice.getId());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(results.get(1).getError().getCode(), ErrorCode.PAYMENT_NULL_INVOICE.getCode());
+
+        assertEquals(results.get(2).getInvoiceId(), secondInvoice.getId());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(results.get(2).getPayment().getAmount().compareTo(new BigDecimal("25.50")), 0);
+    }
+
+    private Invoice createTestInvoiceWithAmount(final BigDecimal amount) throws Exception {
+        final LocalDate now = clock.getUTCToday();
+        final Invoice invoice = testHelper.createTestInvoice(account, now, Currency.USD, callContext);
+        invoice.addInvoiceItem(new MockRecurringInvoiceItem(invoice.getId(), account.getId(),
+                                                            UUID.randomUUID(),
+                                                            UUID.randomUUID(),
+                                                            "test plan", "test phase",
+                                                            now,
+                                                            now.plusMonths(1),
+                                                            amount,
+                                                            new BigDecimal("1.0"),
+                                                            Currency.USD));
+        return invoice;
+    }
+
     @Test(groups = "fast")
     public void testPaymentMethods() throws Exception {
         List<PaymentMethod> methods = paymentApi.getPaymentMethods(account, false, callContext);
@@ -35,6 +35,7 @@ import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.clock.Clock;
 import com.ning.billing.util.config.PaymentConfig;
 import com.ning.billing.util.glue.CacheModule;
+import com.ning.billing.util.glue.MetricsModule;
 import com.ning.billing.tag.TagInternalApi;
 import com.ning.billing.util.tag.Tag;
 
@@ -70,6 +71,7 @@ public class TestPaymentModule extends PaymentModule {
         install(new MockSubscriptionModule());
         install(new MockGlobalLockerModule());
         install(new CacheModule(configSource));
+        install(new MetricsModule());
         installExternalApis();
 
         bind(TestPaymentHelper.class).asEagerSingleton();
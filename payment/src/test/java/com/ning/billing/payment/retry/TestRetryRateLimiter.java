@@ -0,0 +1,55 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.payment.retry;
+
+import java.util.UUID;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.payment.PaymentTestSuiteNoDB;
+import com.ning.billing.payment.dao.PaymentDao;
+import com.ning.billing.util.config.PaymentConfig;
+
+public class TestRetryRateLimiter extends PaymentTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testRetriesAreSpreadAtTheConfiguredRate() throws Exception {
+        final PaymentConfig config = Mockito.mock(PaymentConfig.class);
+        Mockito.when(config.getPaymentRetryRate()).thenReturn(10);
+        Mockito.when(config.getPaymentRetryBurst()).thenReturn(2);
+        // No payment found: all retries share the same (unknown plugin) bucket
+        final PaymentDao paymentDao = Mockito.mock(PaymentDao.class);
+        final RetryRateLimiter retryRateLimiter = new RetryRateLimiter(paymentDao, clock, config);
+
+        // The burst runs right away (plus the first reservation, paid forward)
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(retryRateLimiter.reserve(UUID.randomUUID(), internalCallContext), 0);
+        }
+
+        // Next ones are deferred to consecutive slots, 100ms apart (plus up to one slot of jitter)
+        final long firstDelay = retryRateLimiter.reserve(UUID.randomUUID(), internalCallContext);
+        Assert.assertTrue(firstDelay >= 100 && firstDelay < 200, "Unexpected delay " + firstDelay);
+        final long secondDelay = retryRateLimiter.reserve(UUID.randomUUID(), internalCallContext);
+        Assert.assertTrue(secondDelay >= 200 && secondDelay < 300, "Unexpected delay " + secondDelay);
+
+        // Once time has passed, the bucket refills
+        clock.addDays(1);
+        Assert.assertEquals(retryRateLimiter.reserve(UUID.randomUUID(), internalCallContext), 0);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.payment.retry;
+
+import org.joda.time.DateTime;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.notificationq.api.NotificationQueueService;
+import com.ning.billing.payment.PaymentTestSuiteNoDB;
+import com.ning.billing.payment.retry.PluginFailureRetryService.PluginFailureRetryServiceScheduler;
+import com.ning.billing.util.callcontext.InternalCallContextFactory;
+import com.ning.billing.util.config.PaymentConfig;
+
+public class TestRetryServiceScheduler extends PaymentTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testJitterIsBoundedByTheConfiguredMaximum() throws Exception {
+        final BaseRetryService.RetryServiceScheduler scheduler = createScheduler("1h");
+
+        final DateTime timeOfRetry = clock.getUTCNow().plusDays(8);
+        boolean sawJitter = false;
+        for (int i = 0; i < 100; i++) {
+            final DateTime jitteredTimeOfRetry = scheduler.addJitter(timeOfRetry);
+            Assert.assertFalse(jitteredTimeOfRetry.isBefore(timeOfRetry));
+            Assert.assertTrue(jitteredTimeOfRetry.isBefore(timeOfRetry.plusHours(1)), "Unexpected jitter for " + jitteredTimeOfRetry);
+            sawJitter = sawJitter || jitteredTimeOfRetry.isAfter(timeOfRetry);
+        }
+        Assert.assertTrue(sawJitter);
+    }
+
+    @Test(groups = "fast")
+    public void testJitterIsBoundedByHalfTheRetryInterval() throws Exception {
+        final BaseRetryService.RetryServiceScheduler scheduler = createScheduler("1h");
+
+        // Retry in 20 minutes: at most 10 minutes of jitter
+        final DateTime timeOfRetry = clock.getUTCNow().plusMinutes(20);
+        for (int i = 0; i < 100; i++) {
+            final DateTime jitteredTimeOfRetry = scheduler.addJitter(timeOfRetry);
+            Assert.assertFalse(jitteredTimeOfRetry.isBefore(timeOfRetry));
+            Assert.assertTrue(jitteredTimeOfRetry.isBefore(timeOfRetry.plusMinutes(10)), "Unexpected jitter for " + jitteredTimeOfRetry);
+        }
+
+        // Retry due now, or in the past: no jitter
+        final DateTime now = clock.getUTCNow();
+        Assert.assertEquals(scheduler.addJitter(now), now);
+        Assert.assertEquals(scheduler.addJitter(now.minusHours(1)), now.minusHours(1));
+    }
+
+    @Test(groups = "fast")
+    public void testNoJitterWhenDisabled() throws Exception {
+        final BaseRetryService.RetryServiceScheduler scheduler = createScheduler("0s");
+
+        final DateTime timeOfRetry = clock.getUTCNow().plusDays(8);
+        Assert.assertEquals(scheduler.addJitter(timeOfRetry), timeOfRetry);
+    }
+
+    private BaseRetryService.RetryServiceScheduler createScheduler(final String maxJitter) {
+        final PaymentConfig config = Mockito.mock(PaymentConfig.class);
+        Mockito.when(config.getPaymentRetryJitter()).thenReturn(new TimeSpan(maxJitter));
+        return new PluginFailureRetryServiceScheduler(Mockito.mock(NotificationQueueService.class), Mockito.mock(InternalCallContextFactory.class), clock, config);
+    }
+}
@@ -19,6 +19,7 @@ package com.ning.billing.server.config;
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 import com.ning.billing.util.config.KillbillConfig;
 
@@ -29,6 +30,16 @@ public interface KillbillServerConfig extends KillbillConfig {
     @Description("Whether multi-tenancy is enabled")
     public boolean isMultiTenancyEnabled();
 
+    @Config("killbill.server.multitenant.authentication.maxConnections")
+    @Default("10")
+    @Description("Maximum number of connections of the main pool used concurrently to authenticate tenants")
+    public int getMaxAuthenticationConnections();
+
+    @Config("killbill.server.multitenant.authentication.connectionTimeout")
+    @Default("10s")
+    @Description("Maximum time to wait for one of the tenant authentication connections")
+    public TimeSpan getAuthenticationConnectionTimeout();
+
     @Config("killbill.server.test.mode")
     @Default("false")
     @Description("Whether to start in test mode")
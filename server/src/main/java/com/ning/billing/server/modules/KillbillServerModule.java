@@ -24,6 +24,7 @@ import com.ning.billing.clock.ClockMock;
 import com.ning.billing.currency.glue.CurrencyModule;
 import com.ning.billing.entitlement.glue.DefaultEntitlementModule;
 import org.skife.config.ConfigSource;
+import org.skife.config.ConfigurationObjectFactory;
 import org.skife.config.SimplePropertyConfigSource;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.IDBI;
@@ -56,6 +57,7 @@ import com.ning.billing.server.ServerService;
 import com.ning.billing.server.notifications.PushNotificationListener;
 import com.ning.billing.tenant.glue.TenantModule;
 import com.ning.billing.usage.glue.UsageModule;
+import com.ning.billing.util.config.JaxrsConfig;
 import com.ning.billing.util.email.EmailModule;
 import com.ning.billing.util.email.templates.TemplateModule;
 import com.ning.billing.util.glue.AuditModule;
@@ -79,10 +81,12 @@ import com.google.inject.AbstractModule;
 public class KillbillServerModule extends AbstractModule {
 
     protected final ServletContext servletContext;
+    protected final ConfigSource configSource;
     private final boolean isTestModeEnabled;
 
     public KillbillServerModule(final ServletContext servletContext, final boolean testModeEnabled) {
         this.servletContext = servletContext;
+        this.configSource = new SimplePropertyConfigSource(System.getProperties());
         this.isTestModeEnabled = testModeEnabled;
     }
 
@@ -125,6 +129,7 @@ public class KillbillServerModule extends AbstractModule {
         bind(ExportResource.class).asEagerSingleton();
         bind(PluginResource.class).asEagerSingleton();
         bind(TenantResource.class).asEagerSingleton();
+        bind(JaxrsConfig.class).toInstance(new ConfigurationObjectFactory(configSource).build(JaxrsConfig.class));
         bind(KillbillEventHandler.class).asEagerSingleton();
     }
 
@@ -138,11 +143,9 @@ public class KillbillServerModule extends AbstractModule {
     }
 
     protected void installKillbillModules() {
-        final ConfigSource configSource = new SimplePropertyConfigSource(System.getProperties());
-
         install(new EmailModule(configSource));
         install(new CacheModule(configSource));
-        install(new GlobalLockerModule());
+        install(new GlobalLockerModule(configSource));
         install(new CustomFieldModule());
         install(new AuditModule());
         install(new CatalogModule(configSource));
@@ -161,7 +164,7 @@ public class KillbillServerModule extends AbstractModule {
         install(new DefaultOverdueModule(configSource));
         install(new CurrencyModule(configSource));
         install(new TenantModule(configSource));
-        install(new ExportModule());
+        install(new ExportModule(configSource));
         install(new TagStoreModule());
         install(new NonEntityDaoModule());
         install(new DefaultOSGIModule(configSource));
@@ -16,6 +16,11 @@
 
 package com.ning.billing.server.security;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -23,13 +28,8 @@ import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.codec.Base64;
 import org.apache.shiro.realm.jdbc.JdbcRealm;
 import org.apache.shiro.util.ByteSource;
-import org.skife.config.ConfigurationObjectFactory;
 
 import com.ning.billing.tenant.security.KillbillCredentialsMatcher;
-import com.ning.jetty.jdbi.config.DaoConfig;
-
-import com.jolbox.bonecp.BoneCPConfig;
-import com.jolbox.bonecp.BoneCPDataSource;
 
 /**
  * @see {shiro.ini}
@@ -38,16 +38,23 @@ public class KillbillJdbcRealm extends JdbcRealm {
 
     private static final String KILLBILL_AUTHENTICATION_QUERY = "select api_secret, api_salt from tenants where api_key = ?";
 
-    public KillbillJdbcRealm() {
+    // Bound the number of connections of the shared pool used for authentication, so that a burst of
+    // API calls cannot starve the rest of the system (and vice versa, total connections stay predictable)
+    private final Semaphore connectionPermits;
+    private final long connectionTimeoutMillis;
+
+    public KillbillJdbcRealm(final DataSource dataSource, final int maxConnections, final long connectionTimeoutMillis) {
         super();
+        this.connectionPermits = new Semaphore(maxConnections, true);
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
         configureSecurity();
         configureQueries();
-        configureDataSource();
+        setDataSource(dataSource);
     }
 
     @Override
     protected AuthenticationInfo doGetAuthenticationInfo(final AuthenticationToken token) throws AuthenticationException {
-        final SimpleAuthenticationInfo authenticationInfo = (SimpleAuthenticationInfo) super.doGetAuthenticationInfo(token);
+        final SimpleAuthenticationInfo authenticationInfo = doGetAuthenticationInfoWithPermit(token);
 
         // We store the salt bytes in Base64 (because the JdbcRealm retrieves it as a String)
         final ByteSource base64Salt = authenticationInfo.getCredentialsSalt();
@@ -56,6 +63,23 @@ public class KillbillJdbcRealm extends JdbcRealm {
         return authenticationInfo;
     }
 
+    private SimpleAuthenticationInfo doGetAuthenticationInfoWithPermit(final AuthenticationToken token) throws AuthenticationException {
+        try {
+            if (!connectionPermits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new AuthenticationException("Timed out waiting for a database connection to authenticate the tenant");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Interrupted while waiting for a database connection to authenticate the tenant", e);
+        }
+
+        try {
+            return (SimpleAuthenticationInfo) super.doGetAuthenticationInfo(token);
+        } finally {
+            connectionPermits.release();
+        }
+    }
+
     private void configureSecurity() {
         setSaltStyle(SaltStyle.COLUMN);
         setCredentialsMatcher(KillbillCredentialsMatcher.getCredentialsMatcher());
@@ -64,25 +88,4 @@ public class KillbillJdbcRealm extends JdbcRealm {
     private void configureQueries() {
         setAuthenticationQuery(KILLBILL_AUTHENTICATION_QUERY);
     }
-
-    private void configureDataSource() {
-        // This class is initialized by Shiro, not Guice - we need to retrieve the config manually
-        final DaoConfig config = new ConfigurationObjectFactory(System.getProperties()).build(DaoConfig.class);
-
-        final BoneCPConfig dbConfig = new BoneCPConfig();
-        dbConfig.setJdbcUrl(config.getJdbcUrl());
-        dbConfig.setUsername(config.getUsername());
-        dbConfig.setPassword(config.getPassword());
-        dbConfig.setMinConnectionsPerPartition(config.getMinIdle());
-        dbConfig.setMaxConnectionsPerPartition(config.getMaxActive());
-        dbConfig.setConnectionTimeout(config.getConnectionTimeout().getPeriod(), config.getConnectionTimeout().getUnit());
-        dbConfig.setIdleMaxAge(config.getIdleMaxAge().getPeriod(), config.getIdleMaxAge().getUnit());
-        dbConfig.setMaxConnectionAge(config.getMaxConnectionAge().getPeriod(), config.getMaxConnectionAge().getUnit());
-        dbConfig.setIdleConnectionTestPeriod(config.getIdleConnectionTestPeriod().getPeriod(), config.getIdleConnectionTestPeriod().getUnit());
-        dbConfig.setPartitionCount(1);
-        dbConfig.setDefaultTransactionIsolation("READ_COMMITTED");
-        dbConfig.setDisableJMX(false);
-
-        setDataSource(new BoneCPDataSource(dbConfig));
-    }
 }
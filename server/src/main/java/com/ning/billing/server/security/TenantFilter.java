@@ -28,6 +28,7 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
 
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -38,6 +39,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.ning.billing.jaxrs.resources.JaxrsResource;
+import com.ning.billing.server.config.KillbillServerConfig;
 import com.ning.billing.tenant.api.Tenant;
 import com.ning.billing.tenant.api.TenantApiException;
 import com.ning.billing.tenant.api.TenantUserApi;
@@ -57,8 +59,12 @@ public class TenantFilter implements Filter {
 
     private final ModularRealmAuthenticator modularRealmAuthenticator;
 
-    public TenantFilter() {
-        final Realm killbillJdbcRealm = new KillbillJdbcRealm();
+    @Inject
+    public TenantFilter(final DataSource dataSource, final KillbillServerConfig config) {
+        // Share the main connection pool, the realm bounds how many of its connections it can use
+        final Realm killbillJdbcRealm = new KillbillJdbcRealm(dataSource,
+                                                              config.getMaxAuthenticationConnections(),
+                                                              config.getAuthenticationConnectionTimeout().getMillis());
 
         // We use Shiro to verify the api credentials - but the Shiro Subject is only used for RBAC
         modularRealmAuthenticator = new ModularRealmAuthenticator();
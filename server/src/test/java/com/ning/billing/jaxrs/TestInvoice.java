@@ -29,6 +29,7 @@ import com.ning.billing.jaxrs.json.AccountJson;
 import com.ning.billing.jaxrs.json.AuditLogJson;
 import com.ning.billing.jaxrs.json.InvoiceItemJson;
 import com.ning.billing.jaxrs.json.InvoiceJson;
+import com.ning.billing.jaxrs.json.InvoicePaymentResultJson;
 import com.ning.billing.jaxrs.json.PaymentJson;
 import com.ning.billing.jaxrs.json.PaymentMethodJson;
 import com.ning.billing.payment.provider.ExternalPaymentProviderPlugin;
@@ -37,6 +38,7 @@ import com.ning.billing.util.api.AuditLevel;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 public class TestInvoice extends TestJaxrsBase {
 
@@ -119,7 +121,10 @@ public class TestInvoice extends TestJaxrsBase {
         assertEquals(invoiceToPay.getBalance().compareTo(BigDecimal.ZERO), 1);
 
         // Pay all invoices
-        payAllInvoices(accountJson, true);
+        final List<InvoicePaymentResultJson> results = payAllInvoices(accountJson, true);
+        assertEquals(results.size(), 1);
+        assertEquals(results.get(0).getInvoiceId(), invoiceToPay.getInvoiceId());
+        assertTrue(results.get(0).isSuccess());
         for (final InvoiceJson invoice : getInvoicesForAccount(accountJson.getAccountId())) {
             assertEquals(invoice.getBalance().compareTo(BigDecimal.ZERO), 0);
         }
@@ -205,7 +205,7 @@ public class TestJaxrsBase extends KillbillClient {
             install(new EmailModule(configSource));
             install(new CacheModule(configSource));
             install(new NonEntityDaoModule());
-            install(new TestGlobalLockerModule(DBTestingHelper.get()));
+            install(new TestGlobalLockerModule(configSource, DBTestingHelper.get()));
             install(new CustomFieldModule());
             install(new TagStoreModule());
             install(new AuditModule());
@@ -225,7 +225,7 @@ public class TestJaxrsBase extends KillbillClient {
             install(new DefaultOverdueModule(configSource));
             install(new TenantModule(configSource));
             install(new CurrencyModule(configSource));
-            install(new ExportModule());
+            install(new ExportModule(configSource));
             install(new DefaultOSGIModule(configSource));
             install(new UsageModule(configSource));
             install(new RecordIdModule());
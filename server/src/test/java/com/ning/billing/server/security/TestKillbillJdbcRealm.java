@@ -60,9 +60,7 @@ public class TestKillbillJdbcRealm extends TestJaxrsBase {
         dbConfig.setUsername(helper.getUsername());
         dbConfig.setPassword(helper.getPassword());
 
-        final KillbillJdbcRealm jdbcRealm;
-        jdbcRealm = new KillbillJdbcRealm();
-        jdbcRealm.setDataSource(new BoneCPDataSource(dbConfig));
+        final KillbillJdbcRealm jdbcRealm = new KillbillJdbcRealm(new BoneCPDataSource(dbConfig), 1, 10000L);
 
         securityManager = new DefaultSecurityManager(jdbcRealm);
     }
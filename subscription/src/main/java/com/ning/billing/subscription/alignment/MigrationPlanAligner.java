@@ -16,6 +16,9 @@
 
 package com.ning.billing.subscription.alignment;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.joda.time.DateTime;
 
 import com.ning.billing.catalog.api.CatalogApiException;
@@ -44,15 +47,21 @@ public class MigrationPlanAligner extends BaseAligner {
 
     public TimedMigration[] getEventsMigration(final SubscriptionMigrationCase[] input, final DateTime now)
             throws SubscriptionBaseMigrationApiException {
+        return getEventsMigration(input, now, new HashMap<String, Plan>());
+    }
+
+    /**
+     * @param plans plans already looked up in the catalog (as of now), keyed by product, billing period and price list.
+     *              The map is shared across calls by the bulk migration, and filled as new plans are looked up.
+     */
+    public TimedMigration[] getEventsMigration(final SubscriptionMigrationCase[] input, final DateTime now, final Map<String, Plan> plans)
+            throws SubscriptionBaseMigrationApiException {
 
         try {
             TimedMigration[] events;
-            final Plan plan0 = catalogService.getFullCatalog().findPlan(input[0].getPlanPhaseSpecifier().getProductName(),
-                                                                        input[0].getPlanPhaseSpecifier().getBillingPeriod(), input[0].getPlanPhaseSpecifier().getPriceListName(), now);
+            final Plan plan0 = findPlan(input[0].getPlanPhaseSpecifier(), now, plans);
 
-            final Plan plan1 = (input.length > 1) ? catalogService.getFullCatalog().findPlan(input[1].getPlanPhaseSpecifier().getProductName(),
-                                                                                             input[1].getPlanPhaseSpecifier().getBillingPeriod(), input[1].getPlanPhaseSpecifier().getPriceListName(), now) :
-                               null;
+            final Plan plan1 = (input.length > 1) ? findPlan(input[1].getPlanPhaseSpecifier(), now, plans) : null;
 
             DateTime migrationStartDate = input[0].getEffectiveDate();
 
@@ -159,6 +168,16 @@ public class MigrationPlanAligner extends BaseAligner {
     }
 
 
+    private Plan findPlan(final PlanPhaseSpecifier spec, final DateTime now, final Map<String, Plan> plans) throws CatalogApiException {
+        final String key = spec.getProductName() + "-" + spec.getBillingPeriod() + "-" + spec.getPriceListName();
+        Plan plan = plans.get(key);
+        if (plan == null) {
+            plan = catalogService.getFullCatalog().findPlan(spec.getProductName(), spec.getBillingPeriod(), spec.getPriceListName(), now);
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
     // STEPH should be in catalog
     private PlanPhase getPlanPhase(final Plan plan, final PhaseType phaseType) throws SubscriptionBaseMigrationApiException {
         for (final PlanPhase cur : plan.getAllPhases()) {
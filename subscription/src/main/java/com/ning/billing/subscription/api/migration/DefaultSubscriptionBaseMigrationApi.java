@@ -19,13 +19,19 @@ package com.ning.billing.subscription.api.migration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.catalog.api.CatalogService;
+import com.ning.billing.catalog.api.Plan;
 import com.ning.billing.catalog.api.ProductCategory;
 import com.ning.billing.clock.Clock;
 import com.ning.billing.subscription.alignment.MigrationPlanAligner;
@@ -52,14 +58,21 @@ import com.ning.billing.subscription.events.user.ApiEventType;
 import com.ning.billing.subscription.exceptions.SubscriptionBaseError;
 import com.ning.billing.util.callcontext.CallContext;
 import com.ning.billing.util.callcontext.InternalCallContextFactory;
+import com.ning.billing.util.config.SubscriptionConfig;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase implements SubscriptionBaseMigrationApi {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultSubscriptionBaseMigrationApi.class);
+
     private final MigrationPlanAligner migrationAligner;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final SubscriptionConfig config;
+    private final Meter migratedAccountsMeter;
 
     @Inject
     public DefaultSubscriptionBaseMigrationApi(final MigrationPlanAligner migrationAligner,
@@ -67,23 +80,56 @@ public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase imp
                                                final CatalogService catalogService,
                                                final SubscriptionDao dao,
                                                final Clock clock,
-                                               final InternalCallContextFactory internalCallContextFactory) {
+                                               final InternalCallContextFactory internalCallContextFactory,
+                                               final SubscriptionConfig config,
+                                               final MetricRegistry metricRegistry) {
         super(dao, apiService, clock, catalogService);
         this.migrationAligner = migrationAligner;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.config = config;
+        this.migratedAccountsMeter = metricRegistry.meter(MetricRegistry.name(DefaultSubscriptionBaseMigrationApi.class, "migratedAccounts"));
     }
 
     @Override
     public void migrate(final AccountMigration toBeMigrated, final CallContext context)
             throws SubscriptionBaseMigrationApiException {
-        final AccountMigrationData accountMigrationData = createAccountMigrationData(toBeMigrated, context);
+        final AccountMigrationData accountMigrationData = createAccountMigrationData(toBeMigrated, clock.getUTCNow(), new HashMap<String, Plan>(), context);
         dao.migrate(toBeMigrated.getAccountKey(), accountMigrationData, internalCallContextFactory.createInternalCallContext(toBeMigrated.getAccountKey(), context));
+        migratedAccountsMeter.mark();
     }
 
-    private AccountMigrationData createAccountMigrationData(final AccountMigration toBeMigrated, final CallContext context)
+    @Override
+    public void migrate(final List<AccountMigration> toBeMigrated, final CallContext context)
             throws SubscriptionBaseMigrationApiException {
-        final UUID accountId = toBeMigrated.getAccountKey();
         final DateTime now = clock.getUTCNow();
+        // Plans are looked up in the catalog once for the whole run
+        final Map<String, Plan> plans = new HashMap<String, Plan>();
+        final int chunkSize = config.getMigrationChunkSize();
+
+        for (int fromIndex = 0; fromIndex < toBeMigrated.size(); fromIndex += chunkSize) {
+            final List<AccountMigration> chunk = toBeMigrated.subList(fromIndex, Math.min(fromIndex + chunkSize, toBeMigrated.size()));
+            try {
+                final List<AccountMigrationData> accountsMigrationData = new ArrayList<AccountMigrationData>(chunk.size());
+                final List<InternalCallContext> internalCallContexts = new ArrayList<InternalCallContext>(chunk.size());
+                for (final AccountMigration accountMigration : chunk) {
+                    accountsMigrationData.add(createAccountMigrationData(accountMigration, now, plans, context));
+                    internalCallContexts.add(internalCallContextFactory.createInternalCallContext(accountMigration.getAccountKey(), context));
+                }
+                dao.migrate(accountsMigrationData, internalCallContexts);
+            } catch (SubscriptionBaseMigrationApiException e) {
+                throw new SubscriptionBaseMigrationApiException(String.format("Failed to migrate accounts after checkpoint %d", fromIndex), e, fromIndex);
+            } catch (RuntimeException e) {
+                throw new SubscriptionBaseMigrationApiException(String.format("Failed to migrate accounts after checkpoint %d", fromIndex), e, fromIndex);
+            }
+
+            migratedAccountsMeter.mark(chunk.size());
+            log.info("Bulk migration checkpoint: {} accounts out of {} migrated", fromIndex + chunk.size(), toBeMigrated.size());
+        }
+    }
+
+    private AccountMigrationData createAccountMigrationData(final AccountMigration toBeMigrated, final DateTime now, final Map<String, Plan> plans, final CallContext context)
+            throws SubscriptionBaseMigrationApiException {
+        final UUID accountId = toBeMigrated.getAccountKey();
 
         final List<BundleMigrationData> accountBundleData = new LinkedList<BundleMigrationData>();
 
@@ -116,10 +162,10 @@ public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase imp
             for (final SubscriptionMigration curSub : sortedSubscriptions) {
                 SubscriptionMigrationData data = null;
                 if (bundleStartDate == null) {
-                    data = createInitialSubscription(bundleData.getId(), curSub.getCategory(), curSub.getSubscriptionCases(), now, curSub.getChargedThroughDate(), context);
+                    data = createInitialSubscription(bundleData.getId(), curSub.getCategory(), curSub.getSubscriptionCases(), now, plans, curSub.getChargedThroughDate(), context);
                     bundleStartDate = data.getInitialEvents().get(0).getEffectiveDate();
                 } else {
-                    data = createSubscriptionMigrationDataWithBundleDate(bundleData.getId(), curSub.getCategory(), curSub.getSubscriptionCases(), now,
+                    data = createSubscriptionMigrationDataWithBundleDate(bundleData.getId(), curSub.getCategory(), curSub.getSubscriptionCases(), now, plans,
                                                                          bundleStartDate, curSub.getChargedThroughDate(), context);
                 }
                 if (data != null) {
@@ -134,9 +180,9 @@ public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase imp
     }
 
     private SubscriptionMigrationData createInitialSubscription(final UUID bundleId, final ProductCategory productCategory,
-                                                                final SubscriptionMigrationCase[] input, final DateTime now, final DateTime ctd, final CallContext context)
+                                                                final SubscriptionMigrationCase[] input, final DateTime now, final Map<String, Plan> plans, final DateTime ctd, final CallContext context)
             throws SubscriptionBaseMigrationApiException {
-        final TimedMigration[] events = migrationAligner.getEventsMigration(input, now);
+        final TimedMigration[] events = migrationAligner.getEventsMigration(input, now, plans);
         final DateTime migrationStartDate = events[0].getEventTime();
         final List<SubscriptionBaseEvent> emptyEvents = Collections.emptyList();
         final DefaultSubscriptionBase defaultSubscriptionBase = createSubscriptionForApiUse(new SubscriptionBuilder()
@@ -150,9 +196,9 @@ public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase imp
     }
 
     private SubscriptionMigrationData createSubscriptionMigrationDataWithBundleDate(final UUID bundleId, final ProductCategory productCategory,
-                                                                                    final SubscriptionMigrationCase[] input, final DateTime now, final DateTime bundleStartDate, final DateTime ctd, final CallContext context)
+                                                                                    final SubscriptionMigrationCase[] input, final DateTime now, final Map<String, Plan> plans, final DateTime bundleStartDate, final DateTime ctd, final CallContext context)
             throws SubscriptionBaseMigrationApiException {
-        final TimedMigration[] events = migrationAligner.getEventsMigration(input, now);
+        final TimedMigration[] events = migrationAligner.getEventsMigration(input, now, plans);
         final DateTime migrationStartDate = events[0].getEventTime();
         final List<SubscriptionBaseEvent> emptyEvents = Collections.emptyList();
         final DefaultSubscriptionBase defaultSubscriptionBase = createSubscriptionForApiUse(new SubscriptionBuilder()
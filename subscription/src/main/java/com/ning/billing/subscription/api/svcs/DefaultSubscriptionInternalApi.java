@@ -20,11 +20,13 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -196,8 +198,20 @@ public class DefaultSubscriptionInternalApi extends SubscriptionApiBase implemen
     }
 
     public static SubscriptionBaseBundle getActiveBundleForKeyNotException(final List<SubscriptionBaseBundle> existingBundles, final SubscriptionDao dao, final Clock clock, final InternalTenantContext context)  {
+        final Map<UUID, List<SubscriptionBase>> subscriptionsPerBundle = new HashMap<UUID, List<SubscriptionBase>>();
+        for (final SubscriptionBaseBundle cur : existingBundles) {
+            subscriptionsPerBundle.put(cur.getId(), dao.getSubscriptions(cur.getId(), context));
+        }
+        return getActiveBundleForKeyNotException(existingBundles, subscriptionsPerBundle, clock);
+    }
+
+    // Same, on subscriptions already loaded (bundles without any subscription in subscriptionsPerBundle are not active)
+    public static SubscriptionBaseBundle getActiveBundleForKeyNotException(final List<SubscriptionBaseBundle> existingBundles, final Map<UUID, List<SubscriptionBase>> subscriptionsPerBundle, final Clock clock)  {
         for (SubscriptionBaseBundle cur : existingBundles) {
-            final List<SubscriptionBase> subscriptions = dao.getSubscriptions(cur.getId(), context);
+            final List<SubscriptionBase> subscriptions = subscriptionsPerBundle.get(cur.getId());
+            if (subscriptions == null) {
+                continue;
+            }
             for (SubscriptionBase s : subscriptions) {
                 if (s.getCategory() == ProductCategory.ADD_ON) {
                     continue;
@@ -273,6 +287,11 @@ public class DefaultSubscriptionInternalApi extends SubscriptionApiBase implemen
         dao.updateChargedThroughDate(new DefaultSubscriptionBase(builder), context);
     }
 
+    @Override
+    public void setChargedThroughDatesFromTransaction(final Transmogrifier transactional, final Map<UUID, DateTime> chargedThroughDates, final InternalCallContext context) {
+        dao.updateChargedThroughDatesFromTransaction(transactional, chargedThroughDates, context);
+    }
+
     @Override
     public List<EffectiveSubscriptionInternalEvent> getAllTransitions(final SubscriptionBase subscription, final InternalTenantContext context) {
         final List<SubscriptionBaseTransition> transitions = ((DefaultSubscriptionBase) subscription).getAllTransitions();
@@ -302,6 +321,16 @@ public class DefaultSubscriptionInternalApi extends SubscriptionApiBase implemen
         return result;
     }
 
+    @Override
+    public SortedMap<Long, UUID> getAccountIdsWithBundles(final long fromAccountRecordId, final long toAccountRecordId, final InternalTenantContext context) {
+        return dao.getAccountIdsWithBundles(fromAccountRecordId, toAccountRecordId, context);
+    }
+
+    @Override
+    public long getMaxAccountRecordIdWithBundles(final InternalTenantContext context) {
+        return dao.getMaxAccountRecordIdWithBundles(context);
+    }
+
     @Override
     public List<EntitlementAOStatusDryRun> getDryRunChangePlanStatus(final UUID subscriptionId, @Nullable final String baseProductName, final DateTime requestedDate, final InternalTenantContext context) throws SubscriptionBaseApiException {
         final SubscriptionBase subscription = dao.getSubscriptionFromId(subscriptionId, context);
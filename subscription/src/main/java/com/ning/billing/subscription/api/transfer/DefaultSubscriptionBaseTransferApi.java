@@ -16,8 +16,12 @@
 
 package com.ning.billing.subscription.api.transfer;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -31,11 +35,13 @@ import com.ning.billing.catalog.api.PlanPhaseSpecifier;
 import com.ning.billing.catalog.api.ProductCategory;
 import com.ning.billing.entitlement.api.Entitlement.EntitlementState;
 import com.ning.billing.subscription.api.SubscriptionApiBase;
+import com.ning.billing.subscription.api.SubscriptionBase;
 import com.ning.billing.subscription.api.SubscriptionBaseApiService;
 import com.ning.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
 import com.ning.billing.subscription.api.migration.AccountMigrationData.SubscriptionMigrationData;
 import com.ning.billing.subscription.api.svcs.DefaultSubscriptionInternalApi;
 import com.ning.billing.subscription.api.timeline.BundleBaseTimeline;
+import com.ning.billing.subscription.api.timeline.DefaultSubscriptionBaseTimeline;
 import com.ning.billing.subscription.api.timeline.SubscriptionBaseTimelineApi;
 import com.ning.billing.subscription.api.user.DefaultSubscriptionBase;
 import com.ning.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
@@ -59,7 +65,10 @@ import com.ning.billing.util.callcontext.InternalCallContextFactory;
 import com.ning.billing.clock.Clock;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
 import com.google.inject.Inject;
 
 public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase implements SubscriptionBaseTransferApi {
@@ -194,12 +203,7 @@ public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase impl
         final InternalCallContext toInternalCallContext = internalCallContextFactory.createInternalCallContext(destAccountId, context);
 
         try {
-            final DateTime effectiveTransferDate = transferDate == null ? clock.getUTCNow() : transferDate;
-            if (effectiveTransferDate.isAfter(clock.getUTCNow())) {
-                // The transfer event for the migrated bundle will be the first one, which cannot be in the future
-                // (subscription always expects the first event to be in the past)
-                throw new SubscriptionBaseTransferApiException(ErrorCode.SUB_TRANSFER_INVALID_EFF_DATE, effectiveTransferDate);
-            }
+            final DateTime effectiveTransferDate = getEffectiveTransferDate(transferDate);
 
             final List<SubscriptionBaseBundle> bundlesForAccountAndKey = dao.getSubscriptionBundlesForAccountAndKey(sourceAccountId, bundleKey, fromInternalCallContext);
             final SubscriptionBaseBundle bundle = DefaultSubscriptionInternalApi.getActiveBundleForKeyNotException(bundlesForAccountAndKey, dao, clock, fromInternalCallContext);
@@ -210,73 +214,156 @@ public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase impl
             // Get the bundle timeline for the old account
             final BundleBaseTimeline bundleBaseTimeline = timelineApi.getBundleTimeline(bundle, context);
 
-            final DefaultSubscriptionBaseBundle subscriptionBundleData = new DefaultSubscriptionBaseBundle(bundleKey, destAccountId, effectiveTransferDate,
-                                                                                                           bundle.getOriginalCreatedDate(), clock.getUTCNow(), clock.getUTCNow());
-            final List<SubscriptionMigrationData> subscriptionMigrationDataList = new LinkedList<SubscriptionMigrationData>();
+            final Map<UUID, DefaultSubscriptionBase> oldSubscriptions = new HashMap<UUID, DefaultSubscriptionBase>();
+            for (final SubscriptionBase oldSubscription : dao.getSubscriptions(bundle.getId(), fromInternalCallContext)) {
+                oldSubscriptions.put(oldSubscription.getId(), (DefaultSubscriptionBase) oldSubscription);
+            }
 
             final List<TransferCancelData> transferCancelDataList = new LinkedList<TransferCancelData>();
+            final BundleMigrationData bundleMigrationData = createBundleTransferData(bundle, bundleBaseTimeline.getSubscriptions(), oldSubscriptions, destAccountId, effectiveTransferDate,
+                                                                                     transferAddOn, cancelImmediately, transferCancelDataList, context);
 
-            DateTime bundleStartdate = null;
+            // Atomically cancelWithRequestedDate all subscription on old account and create new bundle, subscriptions, events for new account
+            dao.transfer(sourceAccountId, destAccountId, bundleMigrationData, transferCancelDataList, fromInternalCallContext, toInternalCallContext);
 
-            for (final SubscriptionBaseTimeline cur : bundleBaseTimeline.getSubscriptions()) {
-                final DefaultSubscriptionBase oldSubscription = (DefaultSubscriptionBase) dao.getSubscriptionFromId(cur.getId(), fromInternalCallContext);
-                // Skip already cancelled subscriptions
-                if (oldSubscription.getState() == EntitlementState.CANCELLED) {
-                    continue;
-                }
-                final List<ExistingEvent> existingEvents = cur.getExistingEvents();
-                final ProductCategory productCategory = existingEvents.get(0).getPlanPhaseSpecifier().getProductCategory();
-                if (productCategory == ProductCategory.ADD_ON) {
-                    if (!transferAddOn) {
-                        continue;
-                    }
-                } else {
-
-                    // If BP or STANDALONE subscription, create the cancelWithRequestedDate event on effectiveCancelDate
-                    final DateTime effectiveCancelDate = !cancelImmediately && oldSubscription.getChargedThroughDate() != null &&
-                                                         effectiveTransferDate.isBefore(oldSubscription.getChargedThroughDate()) ?
-                                                         oldSubscription.getChargedThroughDate() : effectiveTransferDate;
-
-                    final SubscriptionBaseEvent cancelEvent = new ApiEventCancel(new ApiEventBuilder()
-                                                                                    .setSubscriptionId(cur.getId())
-                                                                                    .setActiveVersion(cur.getActiveVersion())
-                                                                                    .setProcessedDate(clock.getUTCNow())
-                                                                                    .setEffectiveDate(effectiveCancelDate)
-                                                                                    .setRequestedDate(effectiveTransferDate)
-                                                                                    .setFromDisk(true));
-
-                    TransferCancelData cancelData = new TransferCancelData(oldSubscription, cancelEvent);
-                    transferCancelDataList.add(cancelData);
+            return bundleMigrationData.getData();
+        } catch (SubscriptionBaseRepairException e) {
+            throw new SubscriptionBaseTransferApiException(e);
+        }
+    }
+
+    @Override
+    public List<SubscriptionBaseBundle> transferBundles(final UUID sourceAccountId, final UUID destAccountId, final List<String> bundleKeys,
+                                                        final DateTime transferDate, final boolean transferAddOn, final boolean cancelImmediately,
+                                                        final CallContext context) throws SubscriptionBaseTransferApiException {
+        // Transferring the same bundle twice would cancel its subscriptions twice and create two copies on the new account
+        final Set<String> uniqueBundleKeys = new HashSet<String>();
+        for (final String bundleKey : bundleKeys) {
+            if (!uniqueBundleKeys.add(bundleKey)) {
+                throw new SubscriptionBaseTransferApiException(ErrorCode.SUB_GET_INVALID_BUNDLE_KEY, bundleKey);
+            }
+        }
+
+        final InternalCallContext fromInternalCallContext = internalCallContextFactory.createInternalCallContext(sourceAccountId, context);
+        final InternalCallContext toInternalCallContext = internalCallContextFactory.createInternalCallContext(destAccountId, context);
+
+        final DateTime effectiveTransferDate = getEffectiveTransferDate(transferDate);
+
+        // Load all bundles and subscriptions (with their events) of the old account at once, instead of once per bundle
+        final List<SubscriptionBaseBundle> bundlesForAccount = dao.getSubscriptionBundleForAccount(sourceAccountId, fromInternalCallContext);
+        final ListMultimap<String, SubscriptionBaseBundle> bundlesForAccountPerKey = Multimaps.index(bundlesForAccount, new Function<SubscriptionBaseBundle, String>() {
+            @Override
+            public String apply(final SubscriptionBaseBundle input) {
+                return input.getExternalKey();
+            }
+        });
+        final Map<UUID, List<SubscriptionBase>> subscriptionsForAccount = dao.getSubscriptionsForAccount(fromInternalCallContext);
+
+        try {
+            final Catalog catalog = catalogService.getFullCatalog();
+
+            final List<BundleMigrationData> bundleMigrationDataList = new LinkedList<BundleMigrationData>();
+            final List<TransferCancelData> transferCancelDataList = new LinkedList<TransferCancelData>();
+            for (final String bundleKey : bundleKeys) {
+                final SubscriptionBaseBundle bundle = DefaultSubscriptionInternalApi.getActiveBundleForKeyNotException(bundlesForAccountPerKey.get(bundleKey), subscriptionsForAccount, clock);
+                if (bundle == null) {
+                    throw new SubscriptionBaseTransferApiException(ErrorCode.SUB_CREATE_NO_BUNDLE, bundleKey);
                 }
 
-                // We Align with the original subscription
-                final DateTime subscriptionAlignStartDate = oldSubscription.getAlignStartDate();
-                if (bundleStartdate == null) {
-                    bundleStartdate = oldSubscription.getStartDate();
+                final List<SubscriptionBaseTimeline> timelines = new LinkedList<SubscriptionBaseTimeline>();
+                final Map<UUID, DefaultSubscriptionBase> oldSubscriptions = new HashMap<UUID, DefaultSubscriptionBase>();
+                for (final SubscriptionBase oldSubscription : subscriptionsForAccount.get(bundle.getId())) {
+                    timelines.add(new DefaultSubscriptionBaseTimeline((DefaultSubscriptionBase) oldSubscription, catalog));
+                    oldSubscriptions.put(oldSubscription.getId(), (DefaultSubscriptionBase) oldSubscription);
                 }
 
-                // Create the new subscription for the new bundle on the new account
-                final DefaultSubscriptionBase defaultSubscriptionBase = createSubscriptionForApiUse(new SubscriptionBuilder()
-                                                                                              .setId(UUID.randomUUID())
-                                                                                              .setBundleId(subscriptionBundleData.getId())
-                                                                                              .setCategory(productCategory)
-                                                                                              .setBundleStartDate(effectiveTransferDate)
-                                                                                              .setAlignStartDate(subscriptionAlignStartDate),
-                                                                                      ImmutableList.<SubscriptionBaseEvent>of());
-
-                final List<SubscriptionBaseEvent> events = toEvents(existingEvents, defaultSubscriptionBase, effectiveTransferDate, context);
-                final SubscriptionMigrationData curData = new SubscriptionMigrationData(defaultSubscriptionBase, events, null);
-                subscriptionMigrationDataList.add(curData);
+                bundleMigrationDataList.add(createBundleTransferData(bundle, timelines, oldSubscriptions, destAccountId, effectiveTransferDate,
+                                                                     transferAddOn, cancelImmediately, transferCancelDataList, context));
             }
-            BundleMigrationData bundleMigrationData = new BundleMigrationData(subscriptionBundleData, subscriptionMigrationDataList);
 
-            // Atomically cancelWithRequestedDate all subscription on old account and create new bundle, subscriptions, events for new account
-            dao.transfer(sourceAccountId, destAccountId, bundleMigrationData, transferCancelDataList, fromInternalCallContext, toInternalCallContext);
+            // Atomically cancel all subscriptions on old account and create new bundles, subscriptions, events for new account
+            dao.transfer(sourceAccountId, destAccountId, bundleMigrationDataList, transferCancelDataList, fromInternalCallContext, toInternalCallContext);
 
-            return bundleMigrationData.getData();
-        } catch (SubscriptionBaseRepairException e) {
+            final List<SubscriptionBaseBundle> result = new LinkedList<SubscriptionBaseBundle>();
+            for (final BundleMigrationData bundleMigrationData : bundleMigrationDataList) {
+                result.add(bundleMigrationData.getData());
+            }
+            return result;
+        } catch (CatalogApiException e) {
             throw new SubscriptionBaseTransferApiException(e);
         }
     }
 
+    private DateTime getEffectiveTransferDate(final DateTime transferDate) throws SubscriptionBaseTransferApiException {
+        final DateTime effectiveTransferDate = transferDate == null ? clock.getUTCNow() : transferDate;
+        if (effectiveTransferDate.isAfter(clock.getUTCNow())) {
+            // The transfer event for the migrated bundle will be the first one, which cannot be in the future
+            // (subscription always expects the first event to be in the past)
+            throw new SubscriptionBaseTransferApiException(ErrorCode.SUB_TRANSFER_INVALID_EFF_DATE, effectiveTransferDate);
+        }
+        return effectiveTransferDate;
+    }
+
+    private BundleMigrationData createBundleTransferData(final SubscriptionBaseBundle bundle, final List<SubscriptionBaseTimeline> timelines,
+                                                         final Map<UUID, DefaultSubscriptionBase> oldSubscriptions, final UUID destAccountId,
+                                                         final DateTime effectiveTransferDate, final boolean transferAddOn, final boolean cancelImmediately,
+                                                         final List<TransferCancelData> transferCancelDataList, final CallContext context) throws SubscriptionBaseTransferApiException {
+        final DefaultSubscriptionBaseBundle subscriptionBundleData = new DefaultSubscriptionBaseBundle(bundle.getExternalKey(), destAccountId, effectiveTransferDate,
+                                                                                                       bundle.getOriginalCreatedDate(), clock.getUTCNow(), clock.getUTCNow());
+        final List<SubscriptionMigrationData> subscriptionMigrationDataList = new LinkedList<SubscriptionMigrationData>();
+
+        DateTime bundleStartdate = null;
+
+        for (final SubscriptionBaseTimeline cur : timelines) {
+            final DefaultSubscriptionBase oldSubscription = oldSubscriptions.get(cur.getId());
+            // Skip already cancelled subscriptions
+            if (oldSubscription.getState() == EntitlementState.CANCELLED) {
+                continue;
+            }
+            final List<ExistingEvent> existingEvents = cur.getExistingEvents();
+            final ProductCategory productCategory = existingEvents.get(0).getPlanPhaseSpecifier().getProductCategory();
+            if (productCategory == ProductCategory.ADD_ON) {
+                if (!transferAddOn) {
+                    continue;
+                }
+            } else {
+
+                // If BP or STANDALONE subscription, create the cancelWithRequestedDate event on effectiveCancelDate
+                final DateTime effectiveCancelDate = !cancelImmediately && oldSubscription.getChargedThroughDate() != null &&
+                                                     effectiveTransferDate.isBefore(oldSubscription.getChargedThroughDate()) ?
+                                                     oldSubscription.getChargedThroughDate() : effectiveTransferDate;
+
+                final SubscriptionBaseEvent cancelEvent = new ApiEventCancel(new ApiEventBuilder()
+                                                                                .setSubscriptionId(cur.getId())
+                                                                                .setActiveVersion(cur.getActiveVersion())
+                                                                                .setProcessedDate(clock.getUTCNow())
+                                                                                .setEffectiveDate(effectiveCancelDate)
+                                                                                .setRequestedDate(effectiveTransferDate)
+                                                                                .setFromDisk(true));
+
+                TransferCancelData cancelData = new TransferCancelData(oldSubscription, cancelEvent);
+                transferCancelDataList.add(cancelData);
+            }
+
+            // We Align with the original subscription
+            final DateTime subscriptionAlignStartDate = oldSubscription.getAlignStartDate();
+            if (bundleStartdate == null) {
+                bundleStartdate = oldSubscription.getStartDate();
+            }
+
+            // Create the new subscription for the new bundle on the new account
+            final DefaultSubscriptionBase defaultSubscriptionBase = createSubscriptionForApiUse(new SubscriptionBuilder()
+                                                                                          .setId(UUID.randomUUID())
+                                                                                          .setBundleId(subscriptionBundleData.getId())
+                                                                                          .setCategory(productCategory)
+                                                                                          .setBundleStartDate(effectiveTransferDate)
+                                                                                          .setAlignStartDate(subscriptionAlignStartDate),
+                                                                                  ImmutableList.<SubscriptionBaseEvent>of());
+
+            final List<SubscriptionBaseEvent> events = toEvents(existingEvents, defaultSubscriptionBase, effectiveTransferDate, context);
+            final SubscriptionMigrationData curData = new SubscriptionMigrationData(defaultSubscriptionBase, events, null);
+            subscriptionMigrationDataList.add(curData);
+        }
+        return new BundleMigrationData(subscriptionBundleData, subscriptionMigrationDataList);
+    }
 }
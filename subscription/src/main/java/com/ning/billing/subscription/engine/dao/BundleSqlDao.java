@@ -23,12 +23,15 @@ import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
 
 import com.ning.billing.subscription.engine.dao.model.SubscriptionBundleModelDao;
 import com.ning.billing.subscription.api.user.SubscriptionBaseBundle;
 import com.ning.billing.util.audit.ChangeType;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.util.dao.RecordIdIdMappings;
+import com.ning.billing.util.dao.RecordIdIdMappingsMapper;
 import com.ning.billing.util.entity.dao.Audited;
 import com.ning.billing.util.entity.dao.EntitySqlDao;
 import com.ning.billing.util.entity.dao.EntitySqlDaoStringTemplate;
@@ -54,4 +57,13 @@ public interface BundleSqlDao extends EntitySqlDao<SubscriptionBundleModelDao, S
     @SqlQuery
     public List<SubscriptionBundleModelDao> getBundlesForKey(@Bind("externalKey") String externalKey,
                                                              @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @RegisterMapper(RecordIdIdMappingsMapper.class)
+    public List<RecordIdIdMappings> getAccountRecordIdIdMappingsWithBundles(@Bind("fromAccountRecordId") long fromAccountRecordId,
+                                                                            @Bind("toAccountRecordId") long toAccountRecordId,
+                                                                            @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public Long getMaxAccountRecordIdWithBundles(@BindBean final InternalTenantContext context);
 }
@@ -23,9 +23,13 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -33,6 +37,7 @@ import javax.inject.Inject;
 
 import org.joda.time.DateTime;
 import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -81,6 +86,7 @@ import com.ning.billing.util.cache.CacheControllerDispatcher;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.util.dao.NonEntityDao;
+import com.ning.billing.util.dao.RecordIdIdMappings;
 import com.ning.billing.entity.EntityPersistenceException;
 import com.ning.billing.util.entity.dao.EntitySqlDao;
 import com.ning.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
@@ -92,6 +98,7 @@ import com.ning.billing.events.RepairSubscriptionInternalEvent;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 
 
 public class DefaultSubscriptionDao implements SubscriptionDao {
@@ -177,6 +184,31 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
         });
     }
 
+    @Override
+    public SortedMap<Long, UUID> getAccountIdsWithBundles(final long fromAccountRecordId, final long toAccountRecordId, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<SortedMap<Long, UUID>>() {
+            @Override
+            public SortedMap<Long, UUID> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final List<RecordIdIdMappings> mappings = entitySqlDaoWrapperFactory.become(BundleSqlDao.class).getAccountRecordIdIdMappingsWithBundles(fromAccountRecordId, toAccountRecordId, context);
+                final SortedMap<Long, UUID> result = new TreeMap<Long, UUID>();
+                for (final RecordIdIdMappings mapping : mappings) {
+                    result.put(mapping.getRecordId(), UUID.fromString(mapping.getId()));
+                }
+                return result;
+            }
+        });
+    }
+
+    @Override
+    public long getMaxAccountRecordIdWithBundles(final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Long>() {
+            @Override
+            public Long inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(BundleSqlDao.class).getMaxAccountRecordIdWithBundles(context);
+            }
+        });
+    }
+
     @Override
     public SubscriptionBaseBundle createSubscriptionBundle(final DefaultSubscriptionBaseBundle bundle, final InternalCallContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<SubscriptionBaseBundle>() {
@@ -260,10 +292,34 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
     @Override
     public Map<UUID, List<SubscriptionBase>> getSubscriptionsForAccount(final InternalTenantContext context) {
         final Map<UUID, List<SubscriptionBase>> subscriptionsFromAccountId = getSubscriptionsFromAccountId(context);
+        // Load the events of all subscriptions at once, instead of once per subscription
+        final Map<UUID, List<SubscriptionBaseEvent>> eventsFromAccountId = getEventsFromAccountId(context);
 
         final Map<UUID, List<SubscriptionBase>> result = new HashMap<UUID, List<SubscriptionBase>>();
         for (final UUID bundleId : subscriptionsFromAccountId.keySet()) {
-            result.put(bundleId, buildBundleSubscriptions(bundleId, subscriptionsFromAccountId.get(bundleId), context));
+            result.put(bundleId, buildBundleSubscriptions(bundleId, subscriptionsFromAccountId.get(bundleId), eventsFromAccountId, context));
+        }
+        return result;
+    }
+
+    private Map<UUID, List<SubscriptionBaseEvent>> getEventsFromAccountId(final InternalTenantContext context) {
+        final List<SubscriptionEventModelDao> models = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<SubscriptionEventModelDao>>() {
+            @Override
+            public List<SubscriptionEventModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).getActiveEventsForAccount(context);
+            }
+        });
+
+        final Map<UUID, List<SubscriptionBaseEvent>> result = new HashMap<UUID, List<SubscriptionBaseEvent>>();
+        for (final SubscriptionEventModelDao model : models) {
+            // Remove UNCANCEL events early on as they are not representative of a state transition but are just markers
+            if (model.getUserType() == ApiEventType.UNCANCEL) {
+                continue;
+            }
+            if (result.get(model.getSubscriptionId()) == null) {
+                result.put(model.getSubscriptionId(), new LinkedList<SubscriptionBaseEvent>());
+            }
+            result.get(model.getSubscriptionId()).add(SubscriptionEventModelDao.toSubscriptionEvent(model));
         }
         return result;
     }
@@ -319,7 +375,7 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
                 final SubscriptionSqlDao transactionalDao = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
                 transactionalDao.updateChargedThroughDate(subscription.getId().toString(), ctd, context);
 
-                final BundleSqlDao bundleSqlDao = entitySqlDaoWrapperFactory.become(BundleSqlDao.class);
+                final BundleSqlDao bundleSqlDao = transactional.become(BundleSqlDao.class);
                 final String bundleId = subscription.getBundleId().toString();
                 bundleSqlDao.updateBundleLastSysTime(bundleId, clock.getUTCNow().toDate(), context);
                 return null;
@@ -327,6 +383,41 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
         });
     }
 
+    @Override
+    public void updateChargedThroughDatesFromTransaction(final Transmogrifier transactional, final Map<UUID, DateTime> chargedThroughDates, final InternalCallContext context) {
+        if (chargedThroughDates.isEmpty()) {
+            return;
+        }
+
+        // Join the caller's transaction: the audit and history rows are written by the caller's wrapper (see EntitySqlDaoWrapperFactory#asTransmogrifier)
+        final SubscriptionSqlDao subscriptionSqlDao = transactional.become(SubscriptionSqlDao.class);
+
+        // A single query for all subscriptions of the account (instead of a full subscription reload per subscription)
+        final List<SubscriptionModelDao> updatedSubscriptions = new ArrayList<SubscriptionModelDao>(chargedThroughDates.size());
+        final Set<UUID> bundleIds = new HashSet<UUID>();
+        for (final SubscriptionModelDao subscription : subscriptionSqlDao.getByAccountRecordId(context)) {
+            if (!chargedThroughDates.containsKey(subscription.getId())) {
+                continue;
+            }
+            // Same values as the updated row, as these are also used for the history rows
+            updatedSubscriptions.add(new SubscriptionModelDao(subscription.getId(), subscription.getBundleId(), subscription.getCategory(), subscription.getStartDate(),
+                                                              subscription.getBundleStartDate(), subscription.getActiveVersion(), chargedThroughDates.get(subscription.getId()),
+                                                              subscription.getPaidThroughDate(), subscription.getCreatedDate(), context.getCreatedDate()));
+            bundleIds.add(subscription.getBundleId());
+        }
+        if (updatedSubscriptions.isEmpty()) {
+            return;
+        }
+
+        subscriptionSqlDao.updateChargedThroughDates(updatedSubscriptions, context);
+
+        final BundleSqlDao bundleSqlDao = transactional.become(BundleSqlDao.class);
+        final Date now = clock.getUTCNow().toDate();
+        for (final UUID bundleId : bundleIds) {
+            bundleSqlDao.updateBundleLastSysTime(bundleId.toString(), now, context);
+        }
+    }
+
     @Override
     public void createNextPhaseEvent(final DefaultSubscriptionBase subscription, final SubscriptionBaseEvent nextPhase, final InternalCallContext context) {
         transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
@@ -757,6 +848,11 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
     }
 
     private List<SubscriptionBase> buildBundleSubscriptions(final UUID bundleId, final List<SubscriptionBase> input, final InternalTenantContext context) {
+        return buildBundleSubscriptions(bundleId, input, null, context);
+    }
+
+    private List<SubscriptionBase> buildBundleSubscriptions(final UUID bundleId, final List<SubscriptionBase> input,
+                                                            @Nullable final Map<UUID, List<SubscriptionBaseEvent>> eventsPerSubscription, final InternalTenantContext context) {
         if (input == null || input.size() == 0) {
             return Collections.emptyList();
         }
@@ -778,7 +874,14 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
         SubscriptionBaseEvent futureBaseEvent = null;
         final List<SubscriptionBase> result = new ArrayList<SubscriptionBase>(input.size());
         for (final SubscriptionBase cur : input) {
-            final List<SubscriptionBaseEvent> events = getEventsForSubscription(cur.getId(), context);
+            final List<SubscriptionBaseEvent> events;
+            if (eventsPerSubscription == null) {
+                events = getEventsForSubscription(cur.getId(), context);
+            } else if (eventsPerSubscription.get(cur.getId()) == null) {
+                events = new LinkedList<SubscriptionBaseEvent>();
+            } else {
+                events = eventsPerSubscription.get(cur.getId());
+            }
             SubscriptionBase reloaded = createSubscriptionForInternalUse(cur, events);
 
             switch (cur.getCategory()) {
@@ -833,14 +936,24 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
 
     @Override
     public void migrate(final UUID accountId, final AccountMigrationData accountData, final InternalCallContext context) {
+        migrate(ImmutableList.<AccountMigrationData>of(accountData), ImmutableList.<InternalCallContext>of(context));
+    }
+
+    @Override
+    public void migrate(final List<AccountMigrationData> accountsData, final List<InternalCallContext> contexts) {
         transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
-                final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
-
-                for (final BundleMigrationData curBundle : accountData.getData()) {
-                    migrateBundleDataFromTransaction(curBundle, transactional, entitySqlDaoWrapperFactory, context);
+                final List<BundleMigrationData> bundlesData = new LinkedList<BundleMigrationData>();
+                final List<InternalCallContext> bundleContexts = new LinkedList<InternalCallContext>();
+                for (int i = 0; i < accountsData.size(); i++) {
+                    for (final BundleMigrationData curBundle : accountsData.get(i).getData()) {
+                        bundlesData.add(curBundle);
+                        bundleContexts.add(contexts.get(i));
+                    }
                 }
+
+                migrateBundlesDataFromTransaction(bundlesData, bundleContexts, entitySqlDaoWrapperFactory);
                 return null;
             }
         });
@@ -887,18 +1000,34 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
     @Override
     public void transfer(final UUID srcAccountId, final UUID destAccountId, final BundleMigrationData bundleTransferData,
                          final List<TransferCancelData> transferCancelData, final InternalCallContext fromContext, final InternalCallContext toContext) {
+        transfer(srcAccountId, destAccountId, ImmutableList.<BundleMigrationData>of(bundleTransferData), transferCancelData, fromContext, toContext);
+    }
+
+    @Override
+    public void transfer(final UUID srcAccountId, final UUID destAccountId, final List<BundleMigrationData> bundlesTransferData,
+                         final List<TransferCancelData> transferCancelData, final InternalCallContext fromContext, final InternalCallContext toContext) {
 
         transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
-                final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
-
-                // Cancel the subscriptions for the old bundle
+                // Cancel the subscriptions for the old bundles: the cancel events are written in a single batch
+                final List<SubscriptionEventModelDao> cancelEventModels = new LinkedList<SubscriptionEventModelDao>();
                 for (final TransferCancelData cancel : transferCancelData) {
-                    cancelSubscriptionFromTransaction(cancel.getSubscription(), cancel.getCancelEvent(), entitySqlDaoWrapperFactory, fromContext, 0);
+                    cancelFutureEventsFromTransaction(cancel.getSubscription().getId(), entitySqlDaoWrapperFactory, fromContext);
+                    cancelEventModels.add(new SubscriptionEventModelDao(cancel.getCancelEvent()));
                 }
+                if (!cancelEventModels.isEmpty()) {
+                    entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).batchCreate(cancelEventModels, Collections.nCopies(cancelEventModels.size(), fromContext));
+                }
+                for (final TransferCancelData cancel : transferCancelData) {
+                    final boolean isBusEvent = cancel.getCancelEvent().getEffectiveDate().compareTo(clock.getUTCNow()) <= 0;
+                    recordBusOrFutureNotificationFromTransaction(cancel.getSubscription(), cancel.getCancelEvent(), entitySqlDaoWrapperFactory, isBusEvent, 0, fromContext);
 
-                migrateBundleDataFromTransaction(bundleTransferData, transactional, entitySqlDaoWrapperFactory, toContext);
+                    // Notify the Bus of the requested change
+                    notifyBusOfRequestedChange(entitySqlDaoWrapperFactory, cancel.getSubscription(), cancel.getCancelEvent(), fromContext);
+                }
+
+                migrateBundlesDataFromTransaction(bundlesTransferData, Collections.nCopies(bundlesTransferData.size(), toContext), entitySqlDaoWrapperFactory);
                 return null;
             }
         });
@@ -982,37 +1111,60 @@ public class DefaultSubscriptionDao implements SubscriptionDao {
         }
     }
 
-    private void migrateBundleDataFromTransaction(final BundleMigrationData bundleTransferData, final SubscriptionEventSqlDao transactional,
-                                                  final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException {
-
-        final SubscriptionSqlDao transSubDao = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
+    // Bundles, subscriptions and events are inserted table by table, in batches; contexts.get(i) is the context of bundlesData.get(i)
+    private void migrateBundlesDataFromTransaction(final List<BundleMigrationData> bundlesData, final List<InternalCallContext> contexts,
+                                                   final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) {
         final BundleSqlDao transBundleDao = entitySqlDaoWrapperFactory.become(BundleSqlDao.class);
 
-        final DefaultSubscriptionBaseBundle bundleData = bundleTransferData.getData();
+        final List<SubscriptionEventModelDao> eventModels = new LinkedList<SubscriptionEventModelDao>();
+        final List<InternalCallContext> eventContexts = new LinkedList<InternalCallContext>();
+        final List<SubscriptionModelDao> subscriptionModels = new LinkedList<SubscriptionModelDao>();
+        final List<InternalCallContext> subscriptionContexts = new LinkedList<InternalCallContext>();
+        final List<SubscriptionBundleModelDao> bundleModels = new LinkedList<SubscriptionBundleModelDao>();
+        final List<InternalCallContext> bundleContexts = new LinkedList<InternalCallContext>();
+
+        for (int i = 0; i < bundlesData.size(); i++) {
+            final InternalCallContext context = contexts.get(i);
+            final DefaultSubscriptionBaseBundle bundleData = bundlesData.get(i).getData();
+
+            // Bundles already created (e.g. by a previous migration run) are not migrated again
+            final List<SubscriptionBundleModelDao> existingBundleModels = transBundleDao.getBundlesFromAccountAndKey(bundleData.getAccountId().toString(), bundleData.getExternalKey(), context);
+            if (existingBundleModels.size() != 0) {
+                log.error(String.format("Attempted to create a bundle for account %s and key %s that already existed, skip...", bundleData.getAccountId().toString(), bundleData.getExternalKey()));
+                continue;
+            }
 
-        final List<SubscriptionBundleModelDao> existingBundleModels = transBundleDao.getBundlesFromAccountAndKey(bundleData.getAccountId().toString(), bundleData.getExternalKey(), context);
-        if (existingBundleModels.size() != 0) {
-            log.error(String.format("Attempted to create a bundle for account %s and key %s that already existed, skip...", bundleData.getAccountId().toString(), bundleData.getExternalKey()));
-            return;
-        }
+            for (final SubscriptionMigrationData curSubscription : bundlesData.get(i).getSubscriptions()) {
+                final DefaultSubscriptionBase subData = curSubscription.getData();
+                for (final SubscriptionBaseEvent curEvent : curSubscription.getInitialEvents()) {
+                    eventModels.add(new SubscriptionEventModelDao(curEvent));
+                    eventContexts.add(context);
+                    recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory,
+                                                            curEvent.getEffectiveDate(),
+                                                            new SubscriptionNotificationKey(curEvent.getId()),
+                                                            context);
+                }
+                subscriptionModels.add(new SubscriptionModelDao(subData));
+                subscriptionContexts.add(context);
 
-        for (final SubscriptionMigrationData curSubscription : bundleTransferData.getSubscriptions()) {
-            final DefaultSubscriptionBase subData = curSubscription.getData();
-            for (final SubscriptionBaseEvent curEvent : curSubscription.getInitialEvents()) {
-                transactional.create(new SubscriptionEventModelDao(curEvent), context);
-                recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory,
-                                                        curEvent.getEffectiveDate(),
-                                                        new SubscriptionNotificationKey(curEvent.getId()),
-                                                        context);
+                // Notify the Bus of the latest requested change
+                final SubscriptionBaseEvent finalEvent = curSubscription.getInitialEvents().get(curSubscription.getInitialEvents().size() - 1);
+                notifyBusOfRequestedChange(entitySqlDaoWrapperFactory, subData, finalEvent, context);
             }
-            transSubDao.create(new SubscriptionModelDao(subData), context);
 
-            // Notify the Bus of the latest requested change
-            final SubscriptionBaseEvent finalEvent = curSubscription.getInitialEvents().get(curSubscription.getInitialEvents().size() - 1);
-            notifyBusOfRequestedChange(entitySqlDaoWrapperFactory, subData, finalEvent, context);
+            bundleModels.add(new SubscriptionBundleModelDao(bundleData));
+            bundleContexts.add(context);
         }
 
-        transBundleDao.create(new SubscriptionBundleModelDao(bundleData), context);
+        if (!eventModels.isEmpty()) {
+            entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).batchCreate(eventModels, eventContexts);
+        }
+        if (!subscriptionModels.isEmpty()) {
+            entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class).batchCreate(subscriptionModels, subscriptionContexts);
+        }
+        if (!bundleModels.isEmpty()) {
+            transBundleDao.batchCreate(bundleModels, bundleContexts);
+        }
     }
 
     //
@@ -24,9 +24,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeSet;
 import java.util.UUID;
 
+import org.joda.time.DateTime;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
+
 import com.ning.billing.subscription.api.migration.AccountMigrationData;
 import com.ning.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
 import com.ning.billing.subscription.api.timeline.RepairSubscriptionLifecycleDao;
@@ -228,6 +232,16 @@ public class RepairSubscriptionDao implements SubscriptionDao, RepairSubscriptio
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    @Override
+    public SortedMap<Long, UUID> getAccountIdsWithBundles(final long fromAccountRecordId, final long toAccountRecordId, final InternalTenantContext context) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
+    @Override
+    public long getMaxAccountRecordIdWithBundles(final InternalTenantContext context) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
     @Override
     public SubscriptionBaseBundle createSubscriptionBundle(final DefaultSubscriptionBaseBundle bundle, final InternalCallContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
@@ -258,6 +272,11 @@ public class RepairSubscriptionDao implements SubscriptionDao, RepairSubscriptio
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    @Override
+    public void updateChargedThroughDatesFromTransaction(final Transmogrifier transactional, final Map<UUID, DateTime> chargedThroughDates, final InternalCallContext context) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
     @Override
     public void createNextPhaseEvent(final DefaultSubscriptionBase subscription, final SubscriptionBaseEvent nextPhase, final InternalCallContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
@@ -288,6 +307,11 @@ public class RepairSubscriptionDao implements SubscriptionDao, RepairSubscriptio
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    @Override
+    public void migrate(final List<AccountMigrationData> accountsData, final List<InternalCallContext> contexts) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
     @Override
     public void repair(final UUID accountId, final UUID bundleId, final List<SubscriptionDataRepair> inRepair, final InternalCallContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
@@ -300,6 +324,13 @@ public class RepairSubscriptionDao implements SubscriptionDao, RepairSubscriptio
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    @Override
+    public void transfer(final UUID srcAccountId, final UUID destAccountId, final List<BundleMigrationData> data,
+                         final List<TransferCancelData> transferCancelData, final InternalCallContext fromContext,
+                         final InternalCallContext toContext) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
     @Override
     public List<SubscriptionBaseBundle> getSubscriptionBundlesForKey(final String bundleKey, final InternalTenantContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
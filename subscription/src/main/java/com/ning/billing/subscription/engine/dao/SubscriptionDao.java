@@ -18,8 +18,12 @@ package com.ning.billing.subscription.engine.dao;
 
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.UUID;
 
+import org.joda.time.DateTime;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
+
 import com.ning.billing.subscription.api.migration.AccountMigrationData;
 import com.ning.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
 import com.ning.billing.subscription.api.timeline.SubscriptionDataRepair;
@@ -41,6 +45,10 @@ public interface SubscriptionDao {
 
     public List<SubscriptionBaseBundle> getSubscriptionBundlesForAccountAndKey(UUID accountId, String bundleKey, InternalTenantContext context);
 
+    public SortedMap<Long, UUID> getAccountIdsWithBundles(long fromAccountRecordId, long toAccountRecordId, InternalTenantContext context);
+
+    public long getMaxAccountRecordIdWithBundles(InternalTenantContext context);
+
     public SubscriptionBaseBundle getSubscriptionBundleFromId(UUID bundleId, InternalTenantContext context);
 
     public SubscriptionBaseBundle createSubscriptionBundle(DefaultSubscriptionBaseBundle bundle, InternalCallContext context);
@@ -60,6 +68,8 @@ public interface SubscriptionDao {
     // Update
     public void updateChargedThroughDate(DefaultSubscriptionBase subscription, InternalCallContext context);
 
+    public void updateChargedThroughDatesFromTransaction(Transmogrifier transactional, Map<UUID, DateTime> chargedThroughDates, InternalCallContext context);
+
     // Event apis
     public void createNextPhaseEvent(DefaultSubscriptionBase subscription, SubscriptionBaseEvent nextPhase, InternalCallContext context);
 
@@ -86,8 +96,13 @@ public interface SubscriptionDao {
 
     public void migrate(UUID accountId, AccountMigrationData data, InternalCallContext context);
 
+    // Bulk migration, in a single transaction: contexts.get(i) is the context of the account migrated by accountsData.get(i)
+    public void migrate(List<AccountMigrationData> accountsData, List<InternalCallContext> contexts);
+
     public void transfer(UUID srcAccountId, UUID destAccountId, BundleMigrationData data, List<TransferCancelData> transferCancelData, InternalCallContext fromContext, InternalCallContext toContext);
 
+    public void transfer(UUID srcAccountId, UUID destAccountId, List<BundleMigrationData> data, List<TransferCancelData> transferCancelData, InternalCallContext fromContext, InternalCallContext toContext);
+
     // Repair
     public void repair(UUID accountId, UUID bundleId, List<SubscriptionDataRepair> inRepair, InternalCallContext context);
 }
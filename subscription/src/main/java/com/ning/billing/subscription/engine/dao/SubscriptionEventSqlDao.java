@@ -60,4 +60,7 @@ public interface SubscriptionEventSqlDao extends EntitySqlDao<SubscriptionEventM
     @SqlQuery
     public List<SubscriptionEventModelDao> getEventsForSubscription(@Bind("subscriptionId") String subscriptionId,
                                                                    @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public List<SubscriptionEventModelDao> getActiveEventsForAccount(@BindBean final InternalTenantContext context);
 }
@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 
@@ -45,6 +46,11 @@ public interface SubscriptionSqlDao extends EntitySqlDao<SubscriptionModelDao, S
     public void updateChargedThroughDate(@Bind("id") String id, @Bind("chargedThroughDate") Date chargedThroughDate,
                                          @BindBean final InternalCallContext context);
 
+    @SqlBatch(transactional = false)
+    @Audited(ChangeType.UPDATE)
+    public void updateChargedThroughDates(@BindBean final List<SubscriptionModelDao> subscriptions,
+                                          @BindBean final InternalCallContext context);
+
     @SqlUpdate
     @Audited(ChangeType.UPDATE)
     void updateActiveVersion(@Bind("id") String id, @Bind("activeVersion") long activeVersion,
@@ -38,6 +38,8 @@ import com.ning.billing.subscription.events.user.ApiEventType;
 import com.ning.billing.subscription.api.SubscriptionBase;
 import com.ning.billing.entitlement.api.Entitlement.EntitlementState;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
@@ -330,4 +332,38 @@ public class TestMigration extends SubscriptionTestSuiteWithEmbeddedDB {
         }
 
     }
+
+    @Test(groups = "slow")
+    public void testBulkMigration() throws Exception {
+        final DateTime startDate = clock.getUTCNow().minusMonths(2);
+        final AccountMigration firstAccount = testUtil.createAccountForMigrationWithRegularBasePlan(startDate);
+        final AccountMigration secondAccount = testUtil.createAccountForMigrationWithRegularBasePlanAndAddons(startDate, clock.getUTCNow().minusMonths(1).plusDays(7));
+        final List<AccountMigration> toBeMigrated = ImmutableList.<AccountMigration>of(firstAccount, secondAccount);
+
+        testListener.pushExpectedEvents(NextEvent.MIGRATE_ENTITLEMENT, NextEvent.MIGRATE_ENTITLEMENT, NextEvent.MIGRATE_ENTITLEMENT);
+        migrationApi.migrate(toBeMigrated, callContext);
+        assertTrue(testListener.isCompleted(5000));
+        assertListenerStatus();
+
+        checkMigratedAccount(firstAccount, 1);
+        checkMigratedAccount(secondAccount, 2);
+
+        // Replaying the migration (e.g. to resume after a failure) should skip the bundles already migrated
+        migrationApi.migrate(toBeMigrated, callContext);
+        assertListenerStatus();
+
+        checkMigratedAccount(firstAccount, 1);
+        checkMigratedAccount(secondAccount, 2);
+    }
+
+    private void checkMigratedAccount(final AccountMigration migratedAccount, final int nbSubscriptions) {
+        final List<SubscriptionBaseBundle> bundles = subscriptionInternalApi.getBundlesForAccount(migratedAccount.getAccountKey(), internalCallContext);
+        assertEquals(bundles.size(), 1);
+
+        final List<SubscriptionBase> subscriptions = subscriptionInternalApi.getSubscriptionsForBundle(bundles.get(0).getId(), internalCallContext);
+        assertEquals(subscriptions.size(), nbSubscriptions);
+        for (final SubscriptionBase subscription : subscriptions) {
+            assertEquals(subscription.getState(), EntitlementState.ACTIVE);
+        }
+    }
 }
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.ning.billing.ErrorCode;
 import com.ning.billing.api.TestApiListener.NextEvent;
 import com.ning.billing.catalog.api.BillingPeriod;
 import com.ning.billing.catalog.api.PhaseType;
@@ -40,6 +41,8 @@ import com.ning.billing.subscription.api.user.SubscriptionBaseBundle;
 import com.ning.billing.subscription.api.SubscriptionBaseTransitionType;
 import com.ning.billing.subscription.api.SubscriptionBase;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
@@ -544,4 +547,71 @@ public class TestTransfer extends SubscriptionTestSuiteWithEmbeddedDB {
         final List<SubscriptionBase> subscriptions = subscriptionInternalApi.getSubscriptionsForBundle(newBundle.getId(), internalCallContext);
         assertEquals(subscriptions.size(), 1);
     }
+
+    @Test(groups = "slow")
+    public void testTransferBundles() throws Exception {
+
+        final UUID newAccountId = UUID.randomUUID();
+
+        final String baseProduct = "Shotgun";
+        final BillingPeriod baseTerm = BillingPeriod.MONTHLY;
+        final String basePriceList = PriceListSet.DEFAULT_PRICELIST_NAME;
+
+        // CREATE TWO BUNDLES WITH ONE BP EACH
+        final SubscriptionBaseBundle otherBundle = subscriptionInternalApi.createBundleForAccount(bundle.getAccountId(), "otherBundleKey", internalCallContext);
+        final SubscriptionBase baseSubscription = testUtil.createSubscription(bundle, baseProduct, baseTerm, basePriceList);
+        final SubscriptionBase otherBaseSubscription = testUtil.createSubscription(otherBundle, baseProduct, baseTerm, basePriceList);
+
+        // MOVE A LITTLE, STILL IN TRIAL
+        clock.addDays(20);
+
+        final DateTime transferRequestedDate = clock.getUTCNow();
+
+        testListener.pushExpectedEvent(NextEvent.TRANSFER);
+        testListener.pushExpectedEvent(NextEvent.TRANSFER);
+        testListener.pushExpectedEvent(NextEvent.CANCEL);
+        testListener.pushExpectedEvent(NextEvent.CANCEL);
+        final List<SubscriptionBaseBundle> newBundles = transferApi.transferBundles(bundle.getAccountId(), newAccountId, ImmutableList.<String>of(bundle.getExternalKey(), otherBundle.getExternalKey()),
+                                                                                    transferRequestedDate, false, false, callContext);
+        assertTrue(testListener.isCompleted(3000));
+        assertEquals(newBundles.size(), 2);
+
+        // CHECK BOTH OLD BASE ARE CANCELLED AT THE TRANSFER DATE
+        for (final SubscriptionBase cur : ImmutableList.<SubscriptionBase>of(baseSubscription, otherBaseSubscription)) {
+            final SubscriptionBase oldBaseSubscription = subscriptionInternalApi.getSubscriptionFromId(cur.getId(), internalCallContext);
+            assertNotNull(oldBaseSubscription.getEndDate());
+            assertTrue(oldBaseSubscription.getEndDate().compareTo(transferRequestedDate) == 0);
+        }
+
+        // CHECK BOTH NEW BUNDLES EXIST, WITH ONE SUBSCRIPTION EACH
+        for (final SubscriptionBaseBundle newBundle : newBundles) {
+            assertEquals(newBundle.getAccountId(), newAccountId);
+            final List<SubscriptionBase> subscriptions = subscriptionInternalApi.getSubscriptionsForBundle(newBundle.getId(), internalCallContext);
+            assertEquals(subscriptions.size(), 1);
+            assertEquals(subscriptions.get(0).getCurrentPlan().getProduct().getName(), baseProduct);
+            assertEquals(subscriptions.get(0).getCurrentPhase().getPhaseType(), PhaseType.TRIAL);
+        }
+    }
+
+    @Test(groups = "slow")
+    public void testTransferBundlesWithDuplicateKeys() throws Exception {
+
+        final UUID newAccountId = UUID.randomUUID();
+
+        final SubscriptionBase baseSubscription = testUtil.createSubscription(bundle, "Shotgun", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+
+        clock.addDays(20);
+
+        try {
+            transferApi.transferBundles(bundle.getAccountId(), newAccountId, ImmutableList.<String>of(bundle.getExternalKey(), bundle.getExternalKey()),
+                                        clock.getUTCNow(), false, false, callContext);
+            Assert.fail("Transfer with duplicate bundle keys should fail");
+        } catch (SubscriptionBaseTransferApiException e) {
+            assertEquals(e.getCode(), ErrorCode.SUB_GET_INVALID_BUNDLE_KEY.getCode());
+        }
+
+        // CHECK NOTHING WAS TRANSFERRED
+        assertNull(subscriptionInternalApi.getSubscriptionFromId(baseSubscription.getId(), internalCallContext).getEndDate());
+        assertTrue(subscriptionInternalApi.getBundlesForAccountAndKey(newAccountId, bundle.getExternalKey(), internalCallContext).isEmpty());
+    }
 }
@@ -24,9 +24,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.SortedMap;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -134,6 +136,16 @@ public class MockSubscriptionDaoMemory implements SubscriptionDao {
         return results;
     }
 
+    @Override
+    public SortedMap<Long, UUID> getAccountIdsWithBundles(final long fromAccountRecordId, final long toAccountRecordId, final InternalTenantContext context) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getMaxAccountRecordIdWithBundles(final InternalTenantContext context) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SubscriptionBaseBundle createSubscriptionBundle(final DefaultSubscriptionBaseBundle bundle, final InternalCallContext context) {
         bundles.add(bundle);
@@ -285,6 +297,20 @@ public class MockSubscriptionDaoMemory implements SubscriptionDao {
         }
     }
 
+    @Override
+    public void updateChargedThroughDatesFromTransaction(final Transmogrifier transactional, final Map<UUID, DateTime> chargedThroughDates, final InternalCallContext context) {
+        for (final UUID subscriptionId : chargedThroughDates.keySet()) {
+            final DefaultSubscriptionBase subscription = (DefaultSubscriptionBase) getSubscriptionFromId(subscriptionId, context);
+            if (subscription == null) {
+                continue;
+            }
+            final SubscriptionBuilder builder = new SubscriptionBuilder(subscription)
+                    .setChargedThroughDate(chargedThroughDates.get(subscriptionId))
+                    .setPaidThroughDate(subscription.getPaidThroughDate());
+            updateChargedThroughDate(new DefaultSubscriptionBase(builder), context);
+        }
+    }
+
     @Override
     public void cancelSubscription(final DefaultSubscriptionBase subscription, final SubscriptionBaseEvent cancelEvent,
                                    final InternalCallContext context, final int seqId) {
@@ -415,6 +441,13 @@ public class MockSubscriptionDaoMemory implements SubscriptionDao {
         }
     }
 
+    @Override
+    public void migrate(final List<AccountMigrationData> accountsData, final List<InternalCallContext> contexts) {
+        for (int i = 0; i < accountsData.size(); i++) {
+            migrate(null, accountsData.get(i), contexts.get(i));
+        }
+    }
+
     @Override
     public SubscriptionBaseEvent getEventById(final UUID eventId, final InternalTenantContext context) {
         synchronized (events) {
@@ -455,4 +488,10 @@ public class MockSubscriptionDaoMemory implements SubscriptionDao {
                          final List<TransferCancelData> transferCancelData, final InternalCallContext fromContext,
                          final InternalCallContext toContext) {
     }
+
+    @Override
+    public void transfer(final UUID srcAccountId, final UUID destAccountId, final List<BundleMigrationData> data,
+                         final List<TransferCancelData> transferCancelData, final InternalCallContext fromContext,
+                         final InternalCallContext toContext) {
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.subscription.engine.dao;
+
+import java.util.Map;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.joda.time.DateTime;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.exceptions.TransactionFailedException;
+import org.skife.jdbi.v2.tweak.HandleCallback;
+import org.skife.jdbi.v2.util.IntegerMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.catalog.api.BillingPeriod;
+import com.ning.billing.catalog.api.PriceListSet;
+import com.ning.billing.subscription.SubscriptionTestSuiteWithEmbeddedDB;
+import com.ning.billing.subscription.api.user.DefaultSubscriptionBase;
+import com.ning.billing.subscription.api.user.SubscriptionBaseBundle;
+import com.ning.billing.subscription.engine.dao.model.SubscriptionModelDao;
+import com.ning.billing.util.cache.CacheControllerDispatcher;
+import com.ning.billing.util.dao.NonEntityDao;
+import com.ning.billing.util.entity.dao.EntitySqlDao;
+import com.ning.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
+import com.ning.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
+import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+public class TestDefaultSubscriptionDao extends SubscriptionTestSuiteWithEmbeddedDB {
+
+    @Inject
+    private CacheControllerDispatcher cacheControllerDispatcher;
+    @Inject
+    private NonEntityDao nonEntityDao;
+
+    @Test(groups = "slow")
+    public void testChargedThroughDatesAreUpdatedInTheCallerTransaction() throws Exception {
+        final SubscriptionBaseBundle secondBundle = subscriptionInternalApi.createBundleForAccount(bundle.getAccountId(), "secondBundle", internalCallContext);
+        final SubscriptionBaseBundle thirdBundle = subscriptionInternalApi.createBundleForAccount(bundle.getAccountId(), "thirdBundle", internalCallContext);
+        final DefaultSubscriptionBase firstSubscription = testUtil.createSubscription(bundle, "Shotgun", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+        final DefaultSubscriptionBase secondSubscription = testUtil.createSubscription(secondBundle, "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME);
+        final DefaultSubscriptionBase untouchedSubscription = testUtil.createSubscription(thirdBundle, "Pistol", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+        Assert.assertNull(getChargedThroughDate(firstSubscription.getId()));
+
+        // The subscriptions table doesn't store milliseconds
+        final DateTime firstChargedThroughDate = clock.getUTCNow().plusMonths(1).withMillisOfSecond(0);
+        final DateTime secondChargedThroughDate = clock.getUTCNow().plusYears(1).withMillisOfSecond(0);
+        final Map<UUID, DateTime> chargedThroughDates = ImmutableMap.<UUID, DateTime>of(firstSubscription.getId(), firstChargedThroughDate,
+                                                                                        secondSubscription.getId(), secondChargedThroughDate);
+
+        // The invoice transaction fails after the update: the charged through dates are rolled back with it
+        try {
+            updateChargedThroughDatesInTransaction(chargedThroughDates, true);
+            Assert.fail("The transaction should have been rolled back");
+        } catch (TransactionFailedException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertNull(getChargedThroughDate(firstSubscription.getId()));
+        Assert.assertNull(getChargedThroughDate(secondSubscription.getId()));
+
+        // The invoice transaction is committed: all charged through dates are written
+        final int nbFirstSubscriptionUpdateAudits = getNbUpdateAudits(firstSubscription.getId());
+        final int nbSecondSubscriptionUpdateAudits = getNbUpdateAudits(secondSubscription.getId());
+        updateChargedThroughDatesInTransaction(chargedThroughDates, false);
+        Assert.assertEquals(getChargedThroughDate(firstSubscription.getId()).compareTo(firstChargedThroughDate), 0);
+        Assert.assertEquals(getChargedThroughDate(secondSubscription.getId()).compareTo(secondChargedThroughDate), 0);
+        Assert.assertNull(getChargedThroughDate(untouchedSubscription.getId()));
+
+        // One audit entry per updated subscription
+        Assert.assertEquals(getNbUpdateAudits(firstSubscription.getId()), nbFirstSubscriptionUpdateAudits + 1);
+        Assert.assertEquals(getNbUpdateAudits(secondSubscription.getId()), nbSecondSubscriptionUpdateAudits + 1);
+    }
+
+    private void updateChargedThroughDatesInTransaction(final Map<UUID, DateTime> chargedThroughDates, final boolean failTransaction) {
+        new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao).execute(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                subscriptionInternalApi.setChargedThroughDatesFromTransaction(entitySqlDaoWrapperFactory.asTransmogrifier(), chargedThroughDates, internalCallContext);
+
+                // Visible from within the transaction
+                for (final UUID subscriptionId : chargedThroughDates.keySet()) {
+                    final SubscriptionModelDao subscription = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class).getById(subscriptionId.toString(), internalCallContext);
+                    Assert.assertEquals(subscription.getChargedThroughDate().compareTo(chargedThroughDates.get(subscriptionId)), 0);
+                }
+
+                if (failTransaction) {
+                    throw new IllegalStateException("Simulated invoice failure");
+                }
+                return null;
+            }
+        });
+    }
+
+    private int getNbUpdateAudits(final UUID subscriptionId) {
+        return dbi.withHandle(new HandleCallback<Integer>() {
+            @Override
+            public Integer withHandle(final Handle handle) throws Exception {
+                return handle.createQuery("select count(1) from audit_log a join subscriptions s on a.target_record_id = s.record_id " +
+                                          "where a.table_name = 'SUBSCRIPTIONS' and a.change_type = 'UPDATE' and s.id = :id")
+                             .bind("id", subscriptionId.toString())
+                             .map(IntegerMapper.FIRST)
+                             .first();
+            }
+        });
+    }
+
+    private DateTime getChargedThroughDate(final UUID subscriptionId) throws Exception {
+        return subscriptionInternalApi.getSubscriptionFromId(subscriptionId, internalCallContext).getChargedThroughDate();
+    }
+}
@@ -32,6 +32,8 @@ import com.ning.billing.ErrorCode;
 import com.ning.billing.tenant.api.Tenant;
 import com.ning.billing.tenant.api.TenantApiException;
 import com.ning.billing.tenant.security.KillbillCredentialsMatcher;
+import com.ning.billing.util.cache.Cachable.CacheType;
+import com.ning.billing.util.cache.CacheController;
 import com.ning.billing.util.cache.CacheControllerDispatcher;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
@@ -44,18 +46,20 @@ import com.ning.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import com.ning.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
-import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, TenantApiException> implements TenantDao {
 
     private final RandomNumberGenerator rng = new SecureRandomNumberGenerator();
 
+    private final CacheControllerDispatcher cacheControllerDispatcher;
+    private final NonEntityDao nonEntityDao;
+
     @Inject
     public DefaultTenantDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao) {
         super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), TenantSqlDao.class);
+        this.cacheControllerDispatcher = cacheControllerDispatcher;
+        this.nonEntityDao = nonEntityDao;
     }
 
     @Override
@@ -110,18 +114,8 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
 
     @Override
     public List<String> getTenantValueForKey(final String key, final InternalTenantContext context) {
-        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<String>>() {
-            @Override
-            public List<String> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
-                final List<TenantKVModelDao> tenantKV = entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class).getTenantValueForKey(key, context);
-                return ImmutableList.copyOf(Collections2.transform(tenantKV, new Function<TenantKVModelDao, String>() {
-                    @Override
-                    public String apply(final TenantKVModelDao in) {
-                        return in.getTenantValue();
-                    }
-                }));
-            }
-        });
+        // Values change very rarely: go through the tenant-kv cache, which is invalidated below on each write
+        return nonEntityDao.retrieveTenantValuesForKey(key, context.getTenantRecordId(), cacheControllerDispatcher.getCacheController(CacheType.TENANT_KV));
     }
 
     @Override
@@ -134,6 +128,7 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
                 return null;
             }
         });
+        invalidateTenantValuesForKey(key, context);
     }
 
     @Override
@@ -150,5 +145,13 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
                 return null;
             }
         });
+        invalidateTenantValuesForKey(key, context);
+    }
+
+    private void invalidateTenantValuesForKey(final String key, final InternalTenantContext context) {
+        final CacheController<Object, Object> cacheController = cacheControllerDispatcher.getCacheController(CacheType.TENANT_KV);
+        if (cacheController != null) {
+            cacheController.remove(context.getTenantRecordId() + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + key);
+        }
     }
 }
@@ -23,6 +23,7 @@ import org.testng.annotations.BeforeMethod;
 import com.ning.billing.GuicyKillbillTestSuiteWithEmbeddedDB;
 import com.ning.billing.tenant.dao.DefaultTenantDao;
 import com.ning.billing.tenant.glue.TestTenantModuleWithEmbeddedDB;
+import com.ning.billing.util.cache.CacheControllerDispatcher;
 
 import com.google.inject.Guice;
 import com.google.inject.Inject;
@@ -32,6 +33,8 @@ public class TenantTestSuiteWithEmbeddedDb extends GuicyKillbillTestSuiteWithEmb
 
     @Inject
     protected DefaultTenantDao tenantDao;
+    @Inject
+    protected CacheControllerDispatcher controllerDispatcher;
 
     @BeforeClass(groups = "slow")
     protected void beforeClass() throws Exception {
@@ -29,6 +29,8 @@ import org.testng.annotations.Test;
 import com.ning.billing.tenant.TenantTestSuiteWithEmbeddedDb;
 import com.ning.billing.tenant.api.DefaultTenant;
 import com.ning.billing.tenant.security.KillbillCredentialsMatcher;
+import com.ning.billing.util.cache.Cachable.CacheType;
+import com.ning.billing.util.cache.CacheController;
 
 public class TestDefaultTenantDao extends TenantTestSuiteWithEmbeddedDb {
 
@@ -59,17 +61,24 @@ public class TestDefaultTenantDao extends TenantTestSuiteWithEmbeddedDb {
                                                        UUID.randomUUID().toString(), UUID.randomUUID().toString());
         tenantDao.create(new TenantModelDao(tenant), internalCallContext);
 
+        final CacheController<Object, Object> tenantKVCache = controllerDispatcher.getCacheController(CacheType.TENANT_KV);
+        tenantKVCache.removeAll();
+
         tenantDao.addTenantKeyValue("TheKey", "TheValue", internalCallContext);
 
         List<String> value = tenantDao.getTenantValueForKey("TheKey", internalCallContext);
         Assert.assertEquals(value.size(), 1);
         Assert.assertEquals(value.get(0), "TheValue");
+        Assert.assertEquals(tenantKVCache.size(), 1);
 
+        // Writes invalidate the cached values
         tenantDao.addTenantKeyValue("TheKey", "TheSecondValue", internalCallContext);
+        Assert.assertEquals(tenantKVCache.size(), 0);
         value = tenantDao.getTenantValueForKey("TheKey", internalCallContext);
         Assert.assertEquals(value.size(), 2);
 
         tenantDao.deleteTenantKey("TheKey", internalCallContext);
+        Assert.assertEquals(tenantKVCache.size(), 0);
         value = tenantDao.getTenantValueForKey("TheKey", internalCallContext);
         Assert.assertEquals(value.size(), 0);
     }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.usage;
+
+import javax.inject.Inject;
+
+import com.ning.billing.lifecycle.KillbillService;
+import com.ning.billing.lifecycle.LifecycleHandlerType;
+import com.ning.billing.lifecycle.LifecycleHandlerType.LifecycleLevel;
+import com.ning.billing.usage.dao.RolledUpUsageWriteBehindBuffer;
+import com.ning.billing.util.config.UsageConfig;
+
+public class DefaultUsageService implements KillbillService {
+
+    public static final String USAGE_SERVICE_NAME = "usage-service";
+
+    private final RolledUpUsageWriteBehindBuffer writeBehindBuffer;
+    private final UsageConfig config;
+
+    @Inject
+    public DefaultUsageService(final RolledUpUsageWriteBehindBuffer writeBehindBuffer, final UsageConfig config) {
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.config = config;
+    }
+
+    @Override
+    public String getName() {
+        return USAGE_SERVICE_NAME;
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
+    public void start() {
+        if (config.isWriteBehindEnabled()) {
+            writeBehindBuffer.start();
+        }
+    }
+
+    @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
+    public void stop() {
+        writeBehindBuffer.stop();
+    }
+}
@@ -17,6 +17,11 @@
 package com.ning.billing.usage.api.user;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -24,24 +29,33 @@ import javax.inject.Inject;
 import org.joda.time.DateTime;
 
 import com.ning.billing.ObjectType;
+import com.ning.billing.usage.api.BulkUsageUserApi;
 import com.ning.billing.usage.api.RolledUpUsage;
 import com.ning.billing.usage.api.UsageUserApi;
 import com.ning.billing.usage.dao.RolledUpUsageDao;
 import com.ning.billing.usage.dao.RolledUpUsageModelDao;
+import com.ning.billing.usage.dao.RolledUpUsageWriteBehindBuffer;
 import com.ning.billing.util.callcontext.CallContext;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.util.callcontext.InternalCallContextFactory;
 import com.ning.billing.util.callcontext.TenantContext;
+import com.ning.billing.util.config.UsageConfig;
 
-public class DefaultUsageUserApi implements UsageUserApi {
+public class DefaultUsageUserApi implements UsageUserApi, BulkUsageUserApi {
 
     private final RolledUpUsageDao rolledUpUsageDao;
+    private final RolledUpUsageWriteBehindBuffer writeBehindBuffer;
+    private final UsageConfig config;
     private final InternalCallContextFactory internalCallContextFactory;
 
     @Inject
     public DefaultUsageUserApi(final RolledUpUsageDao rolledUpUsageDao,
+                               final RolledUpUsageWriteBehindBuffer writeBehindBuffer,
+                               final UsageConfig config,
                                final InternalCallContextFactory internalCallContextFactory) {
         this.rolledUpUsageDao = rolledUpUsageDao;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.config = config;
         this.internalCallContextFactory = internalCallContextFactory;
     }
 
@@ -49,7 +63,41 @@ public class DefaultUsageUserApi implements UsageUserApi {
     public void recordRolledUpUsage(final UUID subscriptionId, final String unitType, final DateTime startTime, final DateTime endTime,
                                     final BigDecimal amount, final CallContext context) {
         final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(subscriptionId, ObjectType.SUBSCRIPTION, context);
-        rolledUpUsageDao.record(subscriptionId, unitType, startTime, endTime, amount, internalCallContext);
+        if (config.isWriteBehindEnabled()) {
+            writeBehindBuffer.record(new RolledUpUsageModelDao(subscriptionId, unitType, startTime, endTime, amount), internalCallContext);
+        } else {
+            rolledUpUsageDao.record(subscriptionId, unitType, startTime, endTime, amount, internalCallContext);
+        }
+    }
+
+    /**
+     * The internal context is resolved once per subscription and the records are inserted with one JDBC batch per account.
+     */
+    @Override
+    public void recordRolledUpUsages(final List<RolledUpUsage> rolledUpUsages, final CallContext context) {
+        final Map<UUID, InternalCallContext> contextPerSubscription = new HashMap<UUID, InternalCallContext>();
+        final Map<Long, InternalCallContext> contextPerAccount = new LinkedHashMap<Long, InternalCallContext>();
+        final Map<Long, List<RolledUpUsageModelDao>> usagesPerAccount = new HashMap<Long, List<RolledUpUsageModelDao>>();
+        for (final RolledUpUsage rolledUpUsage : rolledUpUsages) {
+            InternalCallContext internalCallContext = contextPerSubscription.get(rolledUpUsage.getSubscriptionId());
+            if (internalCallContext == null) {
+                internalCallContext = internalCallContextFactory.createInternalCallContext(rolledUpUsage.getSubscriptionId(), ObjectType.SUBSCRIPTION, context);
+                contextPerSubscription.put(rolledUpUsage.getSubscriptionId(), internalCallContext);
+            }
+
+            final Long accountRecordId = internalCallContext.getAccountRecordId();
+            if (usagesPerAccount.get(accountRecordId) == null) {
+                contextPerAccount.put(accountRecordId, internalCallContext);
+                usagesPerAccount.put(accountRecordId, new ArrayList<RolledUpUsageModelDao>());
+            }
+            usagesPerAccount.get(accountRecordId).add(new RolledUpUsageModelDao(rolledUpUsage.getSubscriptionId(), rolledUpUsage.getUnitType(),
+                                                                                rolledUpUsage.getStartTime(), rolledUpUsage.getEndTime(),
+                                                                                rolledUpUsage.getAmount()));
+        }
+
+        for (final Long accountRecordId : contextPerAccount.keySet()) {
+            rolledUpUsageDao.recordBatch(usagesPerAccount.get(accountRecordId), contextPerAccount.get(accountRecordId));
+        }
     }
 
     @Override
@@ -57,4 +105,28 @@ public class DefaultUsageUserApi implements UsageUserApi {
         final RolledUpUsageModelDao usageForSubscription = rolledUpUsageDao.getUsageForSubscription(subscriptionId, internalCallContextFactory.createInternalTenantContext(context));
         return new DefaultRolledUpUsage(usageForSubscription);
     }
+
+    @Override
+    public List<RolledUpUsage> getUsageForSubscription(final UUID subscriptionId, final String unitType, final DateTime startTime,
+                                                       final DateTime endTime, final TenantContext context) {
+        final List<RolledUpUsageModelDao> usages = rolledUpUsageDao.getUsageForSubscription(subscriptionId, unitType, startTime, endTime,
+                                                                                            internalCallContextFactory.createInternalTenantContext(context));
+        return toRolledUpUsages(usages);
+    }
+
+    @Override
+    public List<RolledUpUsage> getAggregatedUsageForSubscription(final UUID subscriptionId, final DateTime startTime,
+                                                                 final DateTime endTime, final TenantContext context) {
+        final List<RolledUpUsageModelDao> totals = rolledUpUsageDao.getAggregatedUsageForSubscription(subscriptionId, startTime, endTime,
+                                                                                                      internalCallContextFactory.createInternalTenantContext(context));
+        return toRolledUpUsages(totals);
+    }
+
+    private List<RolledUpUsage> toRolledUpUsages(final List<RolledUpUsageModelDao> usages) {
+        final List<RolledUpUsage> result = new ArrayList<RolledUpUsage>(usages.size());
+        for (final RolledUpUsageModelDao usage : usages) {
+            result.add(new DefaultRolledUpUsage(usage));
+        }
+        return result;
+    }
 }
@@ -17,15 +17,19 @@
 package com.ning.billing.usage.dao;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
 import org.joda.time.DateTime;
+import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.IDBI;
 
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
 
 public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
 
@@ -33,6 +37,9 @@ public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
 
     @Inject
     public DefaultRolledUpUsageDao(final IDBI dbi) {
+        if (dbi instanceof DBI) {
+            ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(RolledUpUsageModelDao.class));
+        }
         this.rolledUpUsageSqlDao = dbi.onDemand(RolledUpUsageSqlDao.class);
     }
 
@@ -45,8 +52,34 @@ public class DefaultRolledUpUsageDao implements RolledUpUsageDao {
         rolledUpUsageSqlDao.create(rolledUpUsageModelDao, context);
     }
 
+    @Override
+    public void recordBatch(final List<RolledUpUsageModelDao> rolledUpUsages, final InternalCallContext context) {
+        if (rolledUpUsages.isEmpty()) {
+            return;
+        }
+        rolledUpUsageSqlDao.batchCreate(rolledUpUsages, context);
+    }
+
     @Override
     public RolledUpUsageModelDao getUsageForSubscription(final UUID subscriptionId, final InternalTenantContext context) {
         return rolledUpUsageSqlDao.getUsageForSubscription(subscriptionId, context);
     }
+
+    @Override
+    public List<RolledUpUsageModelDao> getUsageForSubscription(final UUID subscriptionId, final String unitType, final DateTime startTime,
+                                                               final DateTime endTime, final InternalTenantContext context) {
+        return rolledUpUsageSqlDao.getUsageForSubscriptionAndUnitType(subscriptionId, unitType, startTime, endTime, context);
+    }
+
+    @Override
+    public List<RolledUpUsageModelDao> getAggregatedUsageForSubscription(final UUID subscriptionId, final DateTime startTime,
+                                                                         final DateTime endTime, final InternalTenantContext context) {
+        // The query only returns the unit type and the total amount
+        final List<RolledUpUsageModelDao> totals = rolledUpUsageSqlDao.getAggregatedUsageForSubscription(subscriptionId, startTime, endTime, context);
+        final List<RolledUpUsageModelDao> result = new ArrayList<RolledUpUsageModelDao>(totals.size());
+        for (final RolledUpUsageModelDao total : totals) {
+            result.add(new RolledUpUsageModelDao(subscriptionId, total.getUnitType(), startTime, endTime, total.getAmount()));
+        }
+        return result;
+    }
 }
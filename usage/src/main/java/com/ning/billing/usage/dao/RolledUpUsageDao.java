@@ -17,6 +17,7 @@
 package com.ning.billing.usage.dao;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -29,5 +30,15 @@ public interface RolledUpUsageDao {
     void record(UUID subscriptionId, String unitType, DateTime startTime,
                 DateTime endTime, BigDecimal amount, InternalCallContext context);
 
+    void recordBatch(List<RolledUpUsageModelDao> rolledUpUsages, InternalCallContext context);
+
     RolledUpUsageModelDao getUsageForSubscription(UUID subscriptionId, InternalTenantContext context);
+
+    // Usage records for that unit type, with a start time in [startTime, endTime)
+    List<RolledUpUsageModelDao> getUsageForSubscription(UUID subscriptionId, String unitType, DateTime startTime,
+                                                        DateTime endTime, InternalTenantContext context);
+
+    // Sum of the amounts for each unit type, over the records with a start time in [startTime, endTime)
+    List<RolledUpUsageModelDao> getAggregatedUsageForSubscription(UUID subscriptionId, DateTime startTime,
+                                                                  DateTime endTime, InternalTenantContext context);
 }
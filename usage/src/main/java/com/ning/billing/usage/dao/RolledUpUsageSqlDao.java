@@ -16,10 +16,13 @@
 
 package com.ning.billing.usage.dao;
 
+import java.util.List;
 import java.util.UUID;
 
+import org.joda.time.DateTime;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
@@ -35,7 +38,24 @@ public interface RolledUpUsageSqlDao {
     public void create(@BindBean RolledUpUsageModelDao rolledUpUsage,
                        @InternalTenantContextBinder final InternalCallContext context);
 
+    @SqlBatch
+    public void batchCreate(@BindBean Iterable<RolledUpUsageModelDao> rolledUpUsages,
+                            @InternalTenantContextBinder final InternalCallContext context);
+
     @SqlQuery
     public RolledUpUsageModelDao getUsageForSubscription(@Bind("subscriptionId") final UUID subscriptionId,
                                                          @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlQuery
+    public List<RolledUpUsageModelDao> getUsageForSubscriptionAndUnitType(@Bind("subscriptionId") final UUID subscriptionId,
+                                                                          @Bind("unitType") final String unitType,
+                                                                          @Bind("startTime") final DateTime startTime,
+                                                                          @Bind("endTime") final DateTime endTime,
+                                                                          @InternalTenantContextBinder final InternalTenantContext context);
+
+    @SqlQuery
+    public List<RolledUpUsageModelDao> getAggregatedUsageForSubscription(@Bind("subscriptionId") final UUID subscriptionId,
+                                                                         @Bind("startTime") final DateTime startTime,
+                                                                         @Bind("endTime") final DateTime endTime,
+                                                                         @InternalTenantContextBinder final InternalTenantContext context);
 }
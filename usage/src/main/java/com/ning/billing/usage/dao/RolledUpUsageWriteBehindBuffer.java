@@ -0,0 +1,233 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.usage.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.util.config.UsageConfig;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * In-memory write-behind buffer for usage records: records are queued and a single writer thread
+ * inserts them in batches (one JDBC batch, in a single transaction, per account and tenant).
+ * <p/>
+ * When the buffer is full, records are written synchronously by the caller thread (back pressure).
+ * Records of a failed batch are re-queued (up to killbill.usage.writeBehind.maxRetries times) and the writer
+ * backs off for one flush interval; records failing more often than that are dropped and counted.
+ * Records still in the buffer are written on stop, but would be lost if the JVM dies before then.
+ */
+public class RolledUpUsageWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(RolledUpUsageWriteBehindBuffer.class);
+
+    private static final String USAGE_WRITER_TH_NAME = "usage-writer-th";
+    private static final long STOP_TIMEOUT_SEC = 30;
+
+    private final RolledUpUsageDao rolledUpUsageDao;
+    private final UsageConfig config;
+    private final BlockingQueue<PendingRolledUpUsage> queue;
+    private final AtomicLong nbFailedWrites = new AtomicLong();
+    private final AtomicLong nbDroppedRecords = new AtomicLong();
+
+    private volatile boolean isStarted;
+    private ExecutorService executor;
+
+    @Inject
+    public RolledUpUsageWriteBehindBuffer(final RolledUpUsageDao rolledUpUsageDao, final UsageConfig config) {
+        this.rolledUpUsageDao = rolledUpUsageDao;
+        this.config = config;
+        this.queue = new LinkedBlockingQueue<PendingRolledUpUsage>(config.getWriteBehindCapacity());
+    }
+
+    public synchronized void start() {
+        if (isStarted) {
+            return;
+        }
+        isStarted = true;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(r, USAGE_WRITER_TH_NAME);
+            }
+        });
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        });
+    }
+
+    public synchronized void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                log.warn("Usage writer did not stop within {} seconds", STOP_TIMEOUT_SEC);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Write whatever is left (records still failing after all retries are dropped)
+        flush();
+    }
+
+    public void record(final RolledUpUsageModelDao rolledUpUsage, final InternalCallContext context) {
+        if (!isStarted || !queue.offer(new PendingRolledUpUsage(rolledUpUsage, context, 0))) {
+            rolledUpUsageDao.recordBatch(ImmutableList.<RolledUpUsageModelDao>of(rolledUpUsage), context);
+        } else if (!isStarted) {
+            // Stopped while enqueuing: don't leave the record behind
+            flush();
+        }
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    // Number of batches which failed to be written
+    public long getFailedWriteCount() {
+        return nbFailedWrites.get();
+    }
+
+    // Number of records dropped after exhausting their retries (or when the buffer was full on retry)
+    public long getDroppedRecordCount() {
+        return nbDroppedRecords.get();
+    }
+
+    // Write everything currently buffered, in batches
+    public void flush() {
+        final List<PendingRolledUpUsage> batch = new ArrayList<PendingRolledUpUsage>();
+        while (queue.drainTo(batch, config.getWriteBehindBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeLoop() {
+        final List<PendingRolledUpUsage> batch = new ArrayList<PendingRolledUpUsage>();
+        while (isStarted) {
+            try {
+                final PendingRolledUpUsage first = queue.poll(config.getWriteBehindFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getWriteBehindBatchSize() - 1);
+                if (!write(batch)) {
+                    // Back off before retrying the re-queued records
+                    Thread.sleep(config.getWriteBehindFlushIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Unexpected exception while writing usage records", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Returns false if some records failed to be written
+    private boolean write(final List<PendingRolledUpUsage> batch) {
+        // Group commit: one batch per account and tenant (the record ids are bound from the context)
+        final Map<String, List<PendingRolledUpUsage>> batchesPerContext = new LinkedHashMap<String, List<PendingRolledUpUsage>>();
+        for (final PendingRolledUpUsage pending : batch) {
+            final String key = pending.getContext().getTenantRecordId() + "-" + pending.getContext().getAccountRecordId() + "-" + pending.getContext().getCreatedBy();
+            List<PendingRolledUpUsage> batchForContext = batchesPerContext.get(key);
+            if (batchForContext == null) {
+                batchForContext = new ArrayList<PendingRolledUpUsage>();
+                batchesPerContext.put(key, batchForContext);
+            }
+            batchForContext.add(pending);
+        }
+
+        boolean success = true;
+        for (final List<PendingRolledUpUsage> batchForContext : batchesPerContext.values()) {
+            final List<RolledUpUsageModelDao> rolledUpUsages = new ArrayList<RolledUpUsageModelDao>(batchForContext.size());
+            for (final PendingRolledUpUsage pending : batchForContext) {
+                rolledUpUsages.add(pending.getRolledUpUsage());
+            }
+
+            try {
+                rolledUpUsageDao.recordBatch(rolledUpUsages, batchForContext.get(0).getContext());
+            } catch (RuntimeException e) {
+                nbFailedWrites.incrementAndGet();
+                log.warn(String.format("Failed to write %s usage records", rolledUpUsages.size()), e);
+                retry(batchForContext);
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    private void retry(final List<PendingRolledUpUsage> failedBatch) {
+        for (final PendingRolledUpUsage pending : failedBatch) {
+            if (pending.getNbRetries() >= config.getWriteBehindMaxRetries() ||
+                !queue.offer(new PendingRolledUpUsage(pending.getRolledUpUsage(), pending.getContext(), pending.getNbRetries() + 1))) {
+                nbDroppedRecords.incrementAndGet();
+                log.error("Dropping usage record {} after {} retries", pending.getRolledUpUsage(), pending.getNbRetries());
+            }
+        }
+    }
+
+    private static final class PendingRolledUpUsage {
+
+        private final RolledUpUsageModelDao rolledUpUsage;
+        private final InternalCallContext context;
+        private final int nbRetries;
+
+        private PendingRolledUpUsage(final RolledUpUsageModelDao rolledUpUsage, final InternalCallContext context, final int nbRetries) {
+            this.rolledUpUsage = rolledUpUsage;
+            this.context = context;
+            this.nbRetries = nbRetries;
+        }
+
+        public RolledUpUsageModelDao getRolledUpUsage() {
+            return rolledUpUsage;
+        }
+
+        public InternalCallContext getContext() {
+            return context;
+        }
+
+        public int getNbRetries() {
+            return nbRetries;
+        }
+    }
+}
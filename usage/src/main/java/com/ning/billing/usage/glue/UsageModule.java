@@ -17,11 +17,16 @@
 package com.ning.billing.usage.glue;
 
 import org.skife.config.ConfigSource;
+import org.skife.config.ConfigurationObjectFactory;
 
+import com.ning.billing.usage.DefaultUsageService;
+import com.ning.billing.usage.api.BulkUsageUserApi;
 import com.ning.billing.usage.api.UsageUserApi;
 import com.ning.billing.usage.api.user.DefaultUsageUserApi;
 import com.ning.billing.usage.dao.DefaultRolledUpUsageDao;
 import com.ning.billing.usage.dao.RolledUpUsageDao;
+import com.ning.billing.usage.dao.RolledUpUsageWriteBehindBuffer;
+import com.ning.billing.util.config.UsageConfig;
 
 import com.google.inject.AbstractModule;
 
@@ -33,17 +38,31 @@ public class UsageModule extends AbstractModule {
         this.configSource = configSource;
     }
 
+    protected void installConfig() {
+        final UsageConfig config = new ConfigurationObjectFactory(configSource).build(UsageConfig.class);
+        bind(UsageConfig.class).toInstance(config);
+    }
+
     protected void installRolledUpUsageDao() {
         bind(RolledUpUsageDao.class).to(DefaultRolledUpUsageDao.class).asEagerSingleton();
+        bind(RolledUpUsageWriteBehindBuffer.class).asEagerSingleton();
+    }
+
+    protected void installUsageService() {
+        bind(DefaultUsageService.class).asEagerSingleton();
     }
 
     protected void installUsageUserApi() {
-        bind(UsageUserApi.class).to(DefaultUsageUserApi.class).asEagerSingleton();
+        bind(DefaultUsageUserApi.class).asEagerSingleton();
+        bind(UsageUserApi.class).to(DefaultUsageUserApi.class);
+        bind(BulkUsageUserApi.class).to(DefaultUsageUserApi.class);
     }
 
     @Override
     protected void configure() {
+        installConfig();
         installRolledUpUsageDao();
         installUsageUserApi();
+        installUsageService();
     }
 }
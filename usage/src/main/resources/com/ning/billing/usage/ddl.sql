@@ -6,9 +6,9 @@ CREATE TABLE rolled_up_usage (
     id char(36) NOT NULL,
     subscription_id char(36),
     unit_type varchar(50),
-    start_date date NOT NULL,
-    end_date date,
-    amount numeric(10,10) NOT NULL,
+    start_date datetime NOT NULL,
+    end_date datetime,
+    amount numeric(15,9) NOT NULL,
     created_by varchar(50) NOT NULL,
     created_date datetime NOT NULL,
     account_record_id int(11) unsigned default null,
@@ -16,5 +16,5 @@ CREATE TABLE rolled_up_usage (
     PRIMARY KEY(record_id)
 ) CHARACTER SET utf8 COLLATE utf8_bin;
 CREATE UNIQUE INDEX rolled_up_usage_id ON rolled_up_usage(id);
-CREATE INDEX rolled_up_usage_subscription_id ON rolled_up_usage(subscription_id ASC);
+CREATE INDEX rolled_up_usage_subscription_id_unit_type_start_date ON rolled_up_usage(subscription_id, unit_type, start_date);
 CREATE INDEX rolled_up_usage_tenant_account_record_id ON rolled_up_usage(tenant_record_id, account_record_id);
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.usage.dao;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.usage.UsageTestSuiteWithEmbeddedDB;
+import com.ning.billing.util.dao.QueryPlanValidator;
+
+import com.google.common.collect.ImmutableMap;
+
+public class TestRolledUpUsageQueryPlans extends UsageTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testRolledUpUsageQueriesUseIndexes() throws Exception {
+        final QueryPlanValidator validator = new QueryPlanValidator(dbi);
+
+        final List<String> fullScans = validator.validate("/com/ning/billing/usage/dao/RolledUpUsageSqlDao.sql.stg",
+                                                          ImmutableMap.<String, Object>of());
+        Assert.assertTrue(fullScans.isEmpty(), fullScans.toString());
+    }
+}
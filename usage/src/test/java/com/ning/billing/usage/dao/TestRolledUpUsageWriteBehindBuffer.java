@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.usage.dao;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.callcontext.InternalCallContext;
+import com.ning.billing.usage.UsageTestSuiteNoDB;
+import com.ning.billing.util.config.UsageConfig;
+
+public class TestRolledUpUsageWriteBehindBuffer extends UsageTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testRecordsAreWrittenInBatches() throws Exception {
+        final AtomicInteger nbBatches = new AtomicInteger();
+        final AtomicInteger nbRecords = new AtomicInteger();
+        final RolledUpUsageDao rolledUpUsageDao = Mockito.mock(RolledUpUsageDao.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                nbBatches.incrementAndGet();
+                nbRecords.addAndGet(((List<?>) invocation.getArguments()[0]).size());
+                return null;
+            }
+        }).when(rolledUpUsageDao).recordBatch(Mockito.<List<RolledUpUsageModelDao>>any(), Mockito.<InternalCallContext>any());
+
+        final UsageConfig config = Mockito.mock(UsageConfig.class);
+        Mockito.when(config.getWriteBehindCapacity()).thenReturn(1000);
+        Mockito.when(config.getWriteBehindBatchSize()).thenReturn(100);
+        Mockito.when(config.getWriteBehindFlushIntervalMs()).thenReturn(10L);
+
+        final RolledUpUsageWriteBehindBuffer buffer = new RolledUpUsageWriteBehindBuffer(rolledUpUsageDao, config);
+        buffer.start();
+
+        final UUID subscriptionId = UUID.randomUUID();
+        final DateTime startTime = clock.getUTCNow();
+        for (int i = 0; i < 500; i++) {
+            buffer.record(new RolledUpUsageModelDao(subscriptionId, "bandwidth", startTime.plusSeconds(i), startTime.plusSeconds(i + 1), BigDecimal.ONE), internalCallContext);
+        }
+        buffer.stop();
+
+        Assert.assertEquals(buffer.getPendingCount(), 0);
+        Assert.assertEquals(nbRecords.get(), 500);
+        Assert.assertTrue(nbBatches.get() >= 5);
+        Assert.assertTrue(nbBatches.get() < 500);
+    }
+
+    @Test(groups = "fast")
+    public void testRecordsAreWrittenSynchronouslyWhenNotStarted() throws Exception {
+        final RolledUpUsageDao rolledUpUsageDao = Mockito.mock(RolledUpUsageDao.class);
+        final UsageConfig config = Mockito.mock(UsageConfig.class);
+        Mockito.when(config.getWriteBehindCapacity()).thenReturn(10);
+
+        final RolledUpUsageWriteBehindBuffer buffer = new RolledUpUsageWriteBehindBuffer(rolledUpUsageDao, config);
+        buffer.record(new RolledUpUsageModelDao(UUID.randomUUID(), "bandwidth", clock.getUTCNow(), clock.getUTCNow(), BigDecimal.TEN), internalCallContext);
+
+        Mockito.verify(rolledUpUsageDao, Mockito.times(1)).recordBatch(Mockito.<List<RolledUpUsageModelDao>>any(), Mockito.<InternalCallContext>any());
+        Assert.assertEquals(buffer.getPendingCount(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testFailedBatchesAreRetried() throws Exception {
+        final AtomicInteger nbRecords = new AtomicInteger();
+        final RolledUpUsageDao rolledUpUsageDao = Mockito.mock(RolledUpUsageDao.class);
+        Mockito.doThrow(new RuntimeException("Simulated failure"))
+               .doAnswer(new Answer<Void>() {
+                   @Override
+                   public Void answer(final InvocationOnMock invocation) throws Throwable {
+                       nbRecords.addAndGet(((List<?>) invocation.getArguments()[0]).size());
+                       return null;
+                   }
+               }).when(rolledUpUsageDao).recordBatch(Mockito.<List<RolledUpUsageModelDao>>any(), Mockito.<InternalCallContext>any());
+
+        final RolledUpUsageWriteBehindBuffer buffer = new RolledUpUsageWriteBehindBuffer(rolledUpUsageDao, createConfig(3));
+        buffer.start();
+        final UUID subscriptionId = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            buffer.record(new RolledUpUsageModelDao(subscriptionId, "bandwidth", clock.getUTCNow(), clock.getUTCNow(), BigDecimal.ONE), internalCallContext);
+        }
+        buffer.stop();
+
+        Assert.assertEquals(buffer.getPendingCount(), 0);
+        Assert.assertEquals(buffer.getFailedWriteCount(), 1L);
+        Assert.assertEquals(buffer.getDroppedRecordCount(), 0L);
+        Assert.assertEquals(nbRecords.get(), 10);
+    }
+
+    @Test(groups = "fast")
+    public void testRecordsAreDroppedAfterMaxRetries() throws Exception {
+        final RolledUpUsageDao rolledUpUsageDao = Mockito.mock(RolledUpUsageDao.class);
+        Mockito.doThrow(new RuntimeException("Simulated failure"))
+               .when(rolledUpUsageDao).recordBatch(Mockito.<List<RolledUpUsageModelDao>>any(), Mockito.<InternalCallContext>any());
+
+        final RolledUpUsageWriteBehindBuffer buffer = new RolledUpUsageWriteBehindBuffer(rolledUpUsageDao, createConfig(2));
+        buffer.start();
+        final UUID subscriptionId = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            buffer.record(new RolledUpUsageModelDao(subscriptionId, "bandwidth", clock.getUTCNow(), clock.getUTCNow(), BigDecimal.ONE), internalCallContext);
+        }
+        // Stop drains the buffer, even though the writes keep failing
+        buffer.stop();
+
+        Assert.assertEquals(buffer.getPendingCount(), 0);
+        Assert.assertEquals(buffer.getDroppedRecordCount(), 10L);
+        // Each record is attempted once, then retried twice
+        Assert.assertTrue(buffer.getFailedWriteCount() >= 3L);
+    }
+
+    private UsageConfig createConfig(final int maxRetries) {
+        final UsageConfig config = Mockito.mock(UsageConfig.class);
+        Mockito.when(config.getWriteBehindCapacity()).thenReturn(1000);
+        Mockito.when(config.getWriteBehindBatchSize()).thenReturn(100);
+        Mockito.when(config.getWriteBehindFlushIntervalMs()).thenReturn(10L);
+        Mockito.when(config.getWriteBehindMaxRetries()).thenReturn(maxRetries);
+        return config;
+    }
+}
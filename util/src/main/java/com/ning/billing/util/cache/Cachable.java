@@ -30,6 +30,7 @@ public @interface Cachable {
     public final String TENANT_RECORD_ID_CACHE_NAME = "tenant-record-id";
     public final String AUDIT_LOG_CACHE_NAME = "audit-log";
     public final String AUDIT_LOG_VIA_HISTORY_CACHE_NAME = "audit-log-via-history";
+    public final String TENANT_KV_CACHE_NAME = "tenant-kv";
 
     public CacheType value();
 
@@ -47,7 +48,10 @@ public @interface Cachable {
         AUDIT_LOG(AUDIT_LOG_CACHE_NAME),
 
         /* Mapping from object 'tableName::historyTableName::targetRecordId' -> matching objects 'Iterable<AuditLog>' */
-        AUDIT_LOG_VIA_HISTORY(AUDIT_LOG_VIA_HISTORY_CACHE_NAME);
+        AUDIT_LOG_VIA_HISTORY(AUDIT_LOG_VIA_HISTORY_CACHE_NAME),
+
+        /* Mapping from 'tenantRecordId::tenantKey' -> matching tenant values 'List<String>' */
+        TENANT_KV(TENANT_KV_CACHE_NAME);
 
         private final String cacheName;
 
@@ -24,6 +24,7 @@ import javax.inject.Inject;
 import javax.inject.Provider;
 
 import com.ning.billing.util.cache.Cachable.CacheType;
+import com.ning.billing.util.config.CacheConfig;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
@@ -35,10 +36,22 @@ import net.sf.ehcache.loader.CacheLoader;
 public class CacheControllerDispatcherProvider implements Provider<CacheControllerDispatcher> {
 
     private final CacheManager cacheManager;
+    private final CacheConfig cacheConfig;
+    private final RecordIdCacheLoader recordIdCacheLoader;
+    private final AccountRecordIdCacheLoader accountRecordIdCacheLoader;
+    private final TenantRecordIdCacheLoader tenantRecordIdCacheLoader;
 
     @Inject
-    public CacheControllerDispatcherProvider(final CacheManager cacheManager) {
+    public CacheControllerDispatcherProvider(final CacheManager cacheManager,
+                                             final CacheConfig cacheConfig,
+                                             final RecordIdCacheLoader recordIdCacheLoader,
+                                             final AccountRecordIdCacheLoader accountRecordIdCacheLoader,
+                                             final TenantRecordIdCacheLoader tenantRecordIdCacheLoader) {
         this.cacheManager = cacheManager;
+        this.cacheConfig = cacheConfig;
+        this.recordIdCacheLoader = recordIdCacheLoader;
+        this.accountRecordIdCacheLoader = accountRecordIdCacheLoader;
+        this.tenantRecordIdCacheLoader = tenantRecordIdCacheLoader;
     }
 
     @Override
@@ -55,6 +68,12 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
             }
         }
 
+        // Record id caches are hit on (almost) every DAO call: use typed caches instead of EhCache
+        for (final BaseCacheLoader cacheLoader : new BaseCacheLoader[]{recordIdCacheLoader, accountRecordIdCacheLoader, tenantRecordIdCacheLoader}) {
+            cacheLoader.init();
+            cacheControllers.put(cacheLoader.getCacheType(), new RecordIdCacheController(cacheLoader.getCacheType(), cacheLoader, cacheConfig.getRecordIdCacheMaxSize()));
+        }
+
         return new CacheControllerDispatcher(cacheControllers);
     }
 
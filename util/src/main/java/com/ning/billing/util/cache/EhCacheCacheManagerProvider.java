@@ -29,7 +29,7 @@ import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.loader.CacheLoader;
 
-// EhCache specific provider
+// EhCache specific provider (the record id caches don't use EhCache, see CacheControllerDispatcherProvider)
 public class EhCacheCacheManagerProvider implements Provider<CacheManager> {
 
     private final CacheConfig cacheConfig;
@@ -37,17 +37,13 @@ public class EhCacheCacheManagerProvider implements Provider<CacheManager> {
 
     @Inject
     public EhCacheCacheManagerProvider(final CacheConfig cacheConfig,
-                                       final RecordIdCacheLoader recordIdCacheLoader,
-                                       final AccountRecordIdCacheLoader accountRecordIdCacheLoader,
-                                       final TenantRecordIdCacheLoader tenantRecordIdCacheLoader,
                                        final AuditLogCacheLoader auditLogCacheLoader,
-                                       final AuditLogViaHistoryCacheLoader auditLogViaHistoryCacheLoader) {
+                                       final AuditLogViaHistoryCacheLoader auditLogViaHistoryCacheLoader,
+                                       final TenantKVCacheLoader tenantKVCacheLoader) {
         this.cacheConfig = cacheConfig;
-        cacheLoaders.add(recordIdCacheLoader);
-        cacheLoaders.add(accountRecordIdCacheLoader);
-        cacheLoaders.add(tenantRecordIdCacheLoader);
         cacheLoaders.add(auditLogCacheLoader);
         cacheLoaders.add(auditLogViaHistoryCacheLoader);
+        cacheLoaders.add(tenantKVCacheLoader);
     }
 
     @Override
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.cache;
+
+import java.util.UUID;
+
+import com.ning.billing.ObjectType;
+import com.ning.billing.util.cache.Cachable.CacheType;
+
+/**
+ * Bounded cache mapping (object id, object type) to a record id, used for the record-id, account-record-id
+ * and tenant-record-id caches.
+ * <p/>
+ * Keys and values are kept in primitive arrays. A lookup allocates neither a key nor a value wrapper, which
+ * matters because these caches are hit on almost every DAO call. The cache is direct mapped: each key has a
+ * single slot, and a new entry evicts the entry in the same slot.
+ */
+public class RecordIdCacheController implements CacheController<Object, Object> {
+
+    public static final long NO_RECORD_ID = -1L;
+
+    private static final int NB_STRIPES = 64;
+    // Marks empty slots in objectTypes (ObjectType ordinals are stored + 1)
+    private static final int EMPTY_SLOT = 0;
+
+    private final CacheType cacheType;
+    private final BaseCacheLoader cacheLoader;
+
+    private final int mask;
+    private final long[] mostSigBits;
+    private final long[] leastSigBits;
+    private final int[] objectTypes;
+    private final long[] recordIds;
+
+    // Per stripe state, guarded by the stripe lock
+    private final Object[] locks;
+    private final long[] sizes;
+    private final long[] hits;
+    private final long[] misses;
+    private final long[] evictions;
+
+    public RecordIdCacheController(final CacheType cacheType, final BaseCacheLoader cacheLoader, final int maxSize) {
+        this.cacheType = cacheType;
+        this.cacheLoader = cacheLoader;
+
+        int capacity = NB_STRIPES;
+        while (capacity < maxSize) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.mostSigBits = new long[capacity];
+        this.leastSigBits = new long[capacity];
+        this.objectTypes = new int[capacity];
+        this.recordIds = new long[capacity];
+
+        this.locks = new Object[NB_STRIPES];
+        for (int i = 0; i < NB_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.sizes = new long[NB_STRIPES];
+        this.hits = new long[NB_STRIPES];
+        this.misses = new long[NB_STRIPES];
+        this.evictions = new long[NB_STRIPES];
+    }
+
+    /**
+     * @return the record id for that object, loading it on a cache miss, or NO_RECORD_ID if it doesn't exist
+     */
+    public long getRecordId(final UUID objectId, final ObjectType objectType) {
+        final long msb = objectId.getMostSignificantBits();
+        final long lsb = objectId.getLeastSignificantBits();
+        final int slot = slot(msb, lsb);
+        final int stripe = slot & (NB_STRIPES - 1);
+
+        synchronized (locks[stripe]) {
+            if (matches(slot, msb, lsb, objectType)) {
+                hits[stripe]++;
+                return recordIds[slot];
+            }
+            misses[stripe]++;
+        }
+
+        final Long recordId = (Long) cacheLoader.load(objectId.toString(), new CacheLoaderArgument(objectType));
+        if (recordId == null) {
+            // Don't cache missing values, the object may be created later on
+            return NO_RECORD_ID;
+        }
+
+        synchronized (locks[stripe]) {
+            if (objectTypes[slot] == EMPTY_SLOT) {
+                sizes[stripe]++;
+            } else if (!matches(slot, msb, lsb, objectType)) {
+                evictions[stripe]++;
+            }
+            mostSigBits[slot] = msb;
+            leastSigBits[slot] = lsb;
+            objectTypes[slot] = objectType.ordinal() + 1;
+            recordIds[slot] = recordId;
+        }
+        return recordId;
+    }
+
+    // Generic CacheController API, keys are String object ids (case insensitive)
+    @Override
+    public Object get(final Object key, final CacheLoaderArgument cacheLoaderArgument) {
+        final long recordId = getRecordId(UUID.fromString(String.valueOf(key)), cacheLoaderArgument.getObjectType());
+        return recordId == NO_RECORD_ID ? null : recordId;
+    }
+
+    @Override
+    public boolean remove(final Object key) {
+        final UUID objectId = UUID.fromString(String.valueOf(key));
+        final long msb = objectId.getMostSignificantBits();
+        final long lsb = objectId.getLeastSignificantBits();
+        final int slot = slot(msb, lsb);
+        final int stripe = slot & (NB_STRIPES - 1);
+
+        synchronized (locks[stripe]) {
+            if (objectTypes[slot] == EMPTY_SLOT || mostSigBits[slot] != msb || leastSigBits[slot] != lsb) {
+                return false;
+            }
+            objectTypes[slot] = EMPTY_SLOT;
+            sizes[stripe]--;
+            return true;
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (int stripe = 0; stripe < NB_STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                size += sizes[stripe];
+            }
+        }
+        return (int) size;
+    }
+
+    @Override
+    public void removeAll() {
+        for (int stripe = 0; stripe < NB_STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int slot = stripe; slot <= mask; slot += NB_STRIPES) {
+                    objectTypes[slot] = EMPTY_SLOT;
+                }
+                sizes[stripe] = 0;
+            }
+        }
+    }
+
+    public CacheType getCacheType() {
+        return cacheType;
+    }
+
+    public int getMaxSize() {
+        return mask + 1;
+    }
+
+    public long getHitCount() {
+        return sum(hits);
+    }
+
+    public long getMissCount() {
+        return sum(misses);
+    }
+
+    public long getEvictionCount() {
+        return sum(evictions);
+    }
+
+    private long sum(final long[] perStripeCounters) {
+        long total = 0;
+        for (int stripe = 0; stripe < NB_STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                total += perStripeCounters[stripe];
+            }
+        }
+        return total;
+    }
+
+    private boolean matches(final int slot, final long msb, final long lsb, final ObjectType objectType) {
+        return objectTypes[slot] == objectType.ordinal() + 1 &&
+               mostSigBits[slot] == msb &&
+               leastSigBits[slot] == lsb;
+    }
+
+    private int slot(final long msb, final long lsb) {
+        final long hash = msb ^ lsb;
+        int h = (int) (hash ^ (hash >>> 32));
+        // Spread the bits, as in java.util.HashMap
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return h & mask;
+    }
+}
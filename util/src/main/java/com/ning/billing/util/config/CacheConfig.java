@@ -27,4 +27,9 @@ public interface CacheConfig extends KillbillConfig {
     @Description("Path to Ehcache XML configuration")
     public String getCacheConfigLocation();
 
+    @Config("killbill.cache.recordId.maxSize")
+    @Default("131072")
+    @Description("Maximum number of entries in each of the record id caches (rounded up to a power of two)")
+    public int getRecordIdCacheMaxSize();
+
 }
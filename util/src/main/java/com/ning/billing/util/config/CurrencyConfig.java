@@ -19,6 +19,7 @@ package com.ning.billing.util.config;
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface CurrencyConfig extends KillbillConfig {
 
@@ -26,4 +27,14 @@ public interface CurrencyConfig extends KillbillConfig {
     @Default("killbill-currency-plugin")
     @Description("Default currency provider to use")
     public String getDefaultCurrencyProvider();
+
+    @Config("killbill.currency.cache.maxSize")
+    @Default("1000")
+    @Description("Maximum number of conversions cached, for current and historical rates respectively")
+    public int getConversionCacheMaxSize();
+
+    @Config("killbill.currency.cache.current.ttl")
+    @Default("5m")
+    @Description("Time during which the current rates are cached (historical rates are immutable)")
+    public TimeSpan getCurrentConversionCacheTTL();
 }
@@ -19,6 +19,7 @@ package com.ning.billing.util.config;
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface InvoiceConfig extends KillbillConfig {
 
@@ -32,9 +33,33 @@ public interface InvoiceConfig extends KillbillConfig {
     @Description("Whether to send email notifications on invoice creation (for configured accounts)")
     public boolean isEmailNotificationsEnabled();
 
+    @Config("killbill.invoice.notification.retry.maxAttempts")
+    @Default("5")
+    @Description("Maximum number of attempts to send an invoice notification")
+    public int getNotificationMaxAttempts();
+
+    @Config("killbill.invoice.notification.retry.delay")
+    @Default("5m")
+    @Description("Delay before retrying to send an invoice notification (doubled after each failed attempt)")
+    public TimeSpan getNotificationRetryDelay();
 
     @Config("killbill.invoice.triggerInvoiceOnBlockingEvent")
     @Default("false")
     @Description("Whether the invoice code regenerate a new invoice when a blocking event is received")
     public boolean isTriggerInvoiceOnBlockingEvent();
+
+    @Config("killbill.invoice.coalescing.delay")
+    @Default("0s")
+    @Description("Delay during which the invoice triggering events of an account are coalesced into a single invoice run (0s to invoice on each event)")
+    public TimeSpan getInvoiceRunCoalescingDelay();
+
+    @Config("killbill.invoice.billRun.threads.nb")
+    @Default("4")
+    @Description("Number of worker threads used to process accounts during a bill run")
+    public int getBillRunThreadNb();
+
+    @Config("killbill.invoice.billRun.partition.size")
+    @Default("500")
+    @Description("Size of the account_record_id ranges processed (and checkpointed) as a unit during a bill run")
+    public int getBillRunPartitionSize();
 }
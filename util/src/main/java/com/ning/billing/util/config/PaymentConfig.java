@@ -49,11 +49,31 @@ public interface PaymentConfig extends KillbillConfig {
     @Description("Maximum number of retries for failed payments")
     public int getPluginFailureRetryMaxAttempts();
 
+    @Config("killbill.payment.retry.jitter")
+    @Default("5m")
+    @Description("Maximum random delay added to each scheduled payment retry (bounded by half the retry interval)")
+    public TimeSpan getPaymentRetryJitter();
+
+    @Config("killbill.payment.retry.rate")
+    @Default("10")
+    @Description("Maximum number of payment retries per second, for each payment plugin")
+    public int getPaymentRetryRate();
+
+    @Config("killbill.payment.retry.burst")
+    @Default("100")
+    @Description("Number of payment retries which can be run at once for each payment plugin, before the retry rate applies")
+    public int getPaymentRetryBurst();
+
     @Config("killbill.payment.plugin.timeout")
     @Default("90s")
     @Description("Timeout for each payment attempt")
     public TimeSpan getPaymentPluginTimeout();
 
+    @Config("killbill.payment.bulk.timeout")
+    @Default("5m")
+    @Description("Maximum total time for paying several invoices at once (each payment attempt is also bounded by the plugin timeout)")
+    public TimeSpan getBulkPaymentTimeout();
+
     @Config("killbill.payment.plugin.threads.nb")
     @Default("10")
     @Description("Number of threads for plugin executor dispatcher")
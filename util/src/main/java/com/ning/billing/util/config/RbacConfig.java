@@ -27,4 +27,9 @@ public interface RbacConfig extends KillbillConfig {
     @Default("1h")
     @Description("System-wide default time that any session may remain idle before expiring")
     public TimeSpan getGlobalSessionTimeout();
+
+    @Config("killbill.rbac.session.lastAccessUpdateInterval")
+    @Default("1m")
+    @Description("Minimum interval between two database updates of a session last access time (touches in between are written behind)")
+    public TimeSpan getSessionLastAccessUpdateInterval();
 }
@@ -16,5 +16,14 @@
 
 package com.ning.billing.util.config;
 
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
 public interface SubscriptionConfig extends KillbillConfig {
+
+    @Config("killbill.subscription.migration.chunkSize")
+    @Default("100")
+    @Description("Number of accounts committed in a single transaction by the bulk migration")
+    public int getMigrationChunkSize();
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface UsageConfig extends KillbillConfig {
+
+    @Config("killbill.usage.writeBehind.enabled")
+    @Default("false")
+    @Description("Whether single usage records are buffered in memory and written to the database in batches")
+    public boolean isWriteBehindEnabled();
+
+    @Config("killbill.usage.writeBehind.capacity")
+    @Default("100000")
+    @Description("Maximum number of usage records buffered in memory (records are written synchronously when full)")
+    public int getWriteBehindCapacity();
+
+    @Config("killbill.usage.writeBehind.batch.size")
+    @Default("1000")
+    @Description("Maximum number of usage records written in a single batch")
+    public int getWriteBehindBatchSize();
+
+    @Config("killbill.usage.writeBehind.flush.interval.ms")
+    @Default("100")
+    @Description("Maximum time (in milliseconds) a usage record stays in the buffer")
+    public long getWriteBehindFlushIntervalMs();
+
+    @Config("killbill.usage.writeBehind.maxRetries")
+    @Default("3")
+    @Description("Maximum number of times a buffered usage record is re-queued after a failed write, before being dropped")
+    public int getWriteBehindMaxRetries();
+}
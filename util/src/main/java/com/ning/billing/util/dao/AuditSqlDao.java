@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
@@ -50,6 +51,10 @@ public interface AuditSqlDao {
     public void insertAuditFromTransaction(@BindBean final EntityAudit audit,
                                            @BindBean final InternalCallContext context);
 
+    @SqlBatch(value = "insertAuditFromTransaction", transactional = false)
+    public void insertAuditsFromTransaction(@BindBean final List<EntityAudit> audits,
+                                            @BindBean final List<InternalCallContext> contexts);
+
     @SqlQuery
     @Cachable(CacheType.AUDIT_LOG)
     public List<AuditLog> getAuditLogsForTargetRecordId(@CachableKey(1) @Bind("tableName") final String tableName,
@@ -16,6 +16,7 @@
 
 package com.ning.billing.util.dao;
 
+import java.util.List;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -25,7 +26,11 @@ import org.skife.jdbi.v2.IDBI;
 
 import com.ning.billing.ObjectType;
 import com.ning.billing.util.cache.CacheController;
+import com.ning.billing.util.cache.CacheControllerDispatcher;
 import com.ning.billing.util.cache.CacheLoaderArgument;
+import com.ning.billing.util.cache.RecordIdCacheController;
+
+import com.google.common.collect.ImmutableList;
 
 public class DefaultNonEntityDao implements NonEntityDao {
 
@@ -92,6 +97,16 @@ public class DefaultNonEntityDao implements NonEntityDao {
         }, objectId, objectType, cache);
     }
 
+    @Override
+    public List<String> retrieveTenantValuesForKey(final String tenantKey, final Long tenantRecordId, @Nullable final CacheController<Object, Object> cache) {
+        if (cache != null) {
+            final String cacheKey = tenantRecordId + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + tenantKey;
+            return (List<String>) cache.get(cacheKey, new CacheLoaderArgument(ObjectType.TENANT_KVS, new Object[]{tenantKey, tenantRecordId}, null));
+        }
+        // The list may be shared via the cache, make sure it cannot be modified
+        return ImmutableList.<String>copyOf(nonEntitySqlDao.getTenantValuesForKey(tenantKey, tenantRecordId));
+    }
+
     @Override
     public Long retrieveLastHistoryRecordIdFromTransaction(@Nullable final Long targetRecordId, final TableName tableName, final NonEntitySqlDao transactional) {
         // There is no caching here because the value returned changes as we add more history records, and so we would need some cache invalidation
@@ -121,7 +136,11 @@ public class DefaultNonEntityDao implements NonEntityDao {
                 return null;
             }
 
-            if (cache != null) {
+            if (cache instanceof RecordIdCacheController) {
+                // Fast path, without building a String key
+                final long recordId = ((RecordIdCacheController) cache).getRecordId(objectId, objectType);
+                return recordId == RecordIdCacheController.NO_RECORD_ID ? null : recordId;
+            } else if (cache != null) {
                 return (Long) cache.get(objectId.toString(), new CacheLoaderArgument(objectType));
             }
             return op.doRetrieve(objectId, objectType);
@@ -16,8 +16,12 @@
 
 package com.ning.billing.util.dao;
 
+import java.util.List;
+
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.sqlobject.GetGeneratedKeys;
 
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.util.entity.Entity;
@@ -26,6 +30,11 @@ import com.ning.billing.util.entity.dao.EntityModelDao;
 public interface HistorySqlDao<M extends EntityModelDao<E>, E extends Entity> {
 
     @SqlUpdate
-    public void addHistoryFromTransaction(@EntityHistoryBinder EntityHistoryModelDao<M, E> history,
-                                          @BindBean InternalCallContext context);
+    @GetGeneratedKeys
+    public Long addHistoryFromTransaction(@EntityHistoryBinder EntityHistoryModelDao<M, E> history,
+                                   @BindBean InternalCallContext context);
+
+    @SqlBatch(value = "addHistoryFromTransaction", transactional = false)
+    public void addHistoriesFromTransaction(@EntityHistoryBinder List<EntityHistoryModelDao<M, E>> histories,
+                                            @BindBean List<InternalCallContext> contexts);
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.dao;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Collection;
+
+import org.skife.jdbi.v2.SQLStatement;
+import org.skife.jdbi.v2.sqlobject.Binder;
+import org.skife.jdbi.v2.sqlobject.BinderFactory;
+import org.skife.jdbi.v2.sqlobject.BindingAnnotation;
+
+/**
+ * Binds a collection of ids for an in clause: the collection is available to the template as the ids attribute
+ * (see {@code NonEntitySqlDao.sql.stg}), and each id is bound as id_0, id_1, ...
+ */
+@BindingAnnotation(IdCollectionBinder.IdCollectionBinderFactory.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.PARAMETER})
+public @interface IdCollectionBinder {
+
+    public static class IdCollectionBinderFactory implements BinderFactory {
+
+        @Override
+        public Binder build(final Annotation annotation) {
+            return new Binder<IdCollectionBinder, Collection<String>>() {
+
+                @Override
+                public void bind(final SQLStatement<?> query, final IdCollectionBinder bind, final Collection<String> ids) {
+                    query.define("ids", ids);
+
+                    int idx = 0;
+                    for (final String id : ids) {
+                        query.bind("id_" + idx, id);
+                        idx++;
+                    }
+                }
+            };
+        }
+    }
+}
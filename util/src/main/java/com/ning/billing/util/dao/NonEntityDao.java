@@ -16,6 +16,7 @@
 
 package com.ning.billing.util.dao;
 
+import java.util.List;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -36,6 +37,9 @@ public interface NonEntityDao {
 
     public Long retrieveTenantRecordIdFromObject(final UUID objectId, final ObjectType objectType, @Nullable final CacheController<Object, Object> cache);
 
+    // Active values for a given key in the tenant_kvs table
+    public List<String> retrieveTenantValuesForKey(final String tenantKey, final Long tenantRecordId, @Nullable final CacheController<Object, Object> cache);
+
     // This retrieves from the history table the latest record for which targetId matches the one we are passing
     public Long retrieveLastHistoryRecordIdFromTransaction(final Long targetRecordId, final TableName tableName, final NonEntitySqlDao transactional);
 
@@ -16,11 +16,14 @@
 
 package com.ning.billing.util.dao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.sqlobject.customizers.RegisterMapper;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
 import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
@@ -49,9 +52,22 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     @SqlQuery
     public Long getTenantRecordIdFromObjectOtherThanTenant(@Bind("id") String id, @Define("tableName") final String tableName);
 
+    @SqlQuery
+    public List<String> getTenantValuesForKey(@Bind("tenantKey") final String tenantKey, @Bind("tenantRecordId") final Long tenantRecordId);
+
     @SqlQuery
     public Long getLastHistoryRecordId(@Bind("targetRecordId") Long targetRecordId, @Define("tableName") final String tableName);
 
     @SqlQuery
     public Long getHistoryTargetRecordId(@Bind("recordId") Long recordId, @Define("tableName") final String tableName);
+
+    @SqlQuery
+    @RegisterMapper(RecordIdIdMappingsMapper.class)
+    public List<RecordIdIdMappings> getRecordIdIdMappingsFromObjects(@IdCollectionBinder final Collection<String> ids, @Define("tableName") final String tableName);
+
+    @SqlQuery
+    @RegisterMapper(RecordIdIdMappingsMapper.class)
+    public List<RecordIdIdMappings> getHistoryRecordIdIdMappingsFromObjects(@IdCollectionBinder final Collection<String> ids,
+                                                                            @Define("tableName") final String tableName,
+                                                                            @Define("historyTableName") final String historyTableName);
 }
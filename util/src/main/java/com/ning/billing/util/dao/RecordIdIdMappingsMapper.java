@@ -0,0 +1,33 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+public class RecordIdIdMappingsMapper implements ResultSetMapper<RecordIdIdMappings> {
+
+    @Override
+    public RecordIdIdMappings map(final int index, final ResultSet resultSet, final StatementContext statementContext) throws SQLException {
+        final Long recordId = resultSet.getLong("record_id");
+        final String id = resultSet.getString("id");
+        return new RecordIdIdMappings(recordId, id);
+    }
+}
@@ -16,9 +16,12 @@
 
 package com.ning.billing.util.entity.dao;
 
+import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import com.ning.billing.BillingExceptionBase;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
@@ -29,6 +32,9 @@ import com.ning.billing.util.entity.Pagination;
 
 public abstract class EntityDaoBase<M extends EntityModelDao<E>, E extends Entity, U extends BillingExceptionBase> implements EntityDao<M, E, U> {
 
+    private static final String DUPLICATE_KEY_SQL_STATE = "23505";
+    private static final int MYSQL_DUPLICATE_ENTRY_ERROR_CODE = 1062;
+
     protected final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
 
     private final Class<? extends EntitySqlDao<M, E>> realSqlDao;
@@ -52,21 +58,51 @@ public abstract class EntityDaoBase<M extends EntityModelDao<E>, E extends Entit
                 if (checkEntityAlreadyExists(transactional, entity, context)) {
                     throw generateAlreadyExistsException(entity, context);
                 }
-                transactional.create(entity, context);
 
-                final M refreshedEntity = transactional.getById(entity.getId().toString(), context);
+                final Long recordId;
+                try {
+                    recordId = transactional.create(entity, context);
+                } catch (final RuntimeException e) {
+                    if (isDuplicateKeyException(e)) {
+                        throw generateAlreadyExistsException(entity, context);
+                    }
+                    throw e;
+                }
 
-                postBusEventFromTransaction(entity, refreshedEntity, ChangeType.INSERT, entitySqlDaoWrapperFactory, context);
+                // The row is exactly what we just inserted, no need to read it back
+                postBusEventFromTransaction(entity, entity, ChangeType.INSERT, recordId, entitySqlDaoWrapperFactory, context);
                 return null;
             }
         };
     }
 
+    /**
+     * Extra check before the insert, for duplicates not covered by a unique index. By default, we rely
+     * on the unique index on the id column instead of looking the entity up first.
+     */
     protected boolean checkEntityAlreadyExists(final EntitySqlDao<M, E> transactional, final M entity, final InternalCallContext context) {
-        return transactional.getById(entity.getId().toString(), context) != null;
+        return false;
+    }
+
+    private boolean isDuplicateKeyException(final Throwable t) {
+        Throwable cur = t;
+        while (cur != null) {
+            if (cur instanceof SQLException) {
+                final SQLException sqlException = (SQLException) cur;
+                // Standard SQL state (H2, PostgreSQL) or MySQL ER_DUP_ENTRY
+                if (DUPLICATE_KEY_SQL_STATE.equals(sqlException.getSQLState()) || sqlException.getErrorCode() == MYSQL_DUPLICATE_ENTRY_ERROR_CODE) {
+                    return true;
+                }
+            }
+            cur = cur.getCause();
+        }
+        return false;
     }
 
-    protected void postBusEventFromTransaction(final M entity, final M savedEntity, final ChangeType changeType,
+    /**
+     * @param recordId the record id of the entity, as generated by the insert (null when unknown, e.g. for deletions)
+     */
+    protected void postBusEventFromTransaction(final M entity, final M savedEntity, final ChangeType changeType, @Nullable final Long recordId,
                                                final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory,
                                                final InternalCallContext context) throws BillingExceptionBase {
     }
@@ -21,9 +21,11 @@ import java.util.List;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.FetchSize;
+import org.skife.jdbi.v2.sqlobject.GetGeneratedKeys;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
 import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
@@ -45,11 +47,23 @@ import com.ning.billing.util.entity.Entity;
 @EntitySqlDaoStringTemplate
 public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> extends AuditSqlDao, HistorySqlDao<M, E>, Transmogrifier, Transactional<EntitySqlDao<M, E>>, CloseMe {
 
+    /**
+     * @return the record id of the new row
+     */
     @SqlUpdate
+    @GetGeneratedKeys
     @Audited(ChangeType.INSERT)
-    public void create(@BindBean final M entity,
+    public Long create(@BindBean final M entity,
                        @BindBean final InternalCallContext context) throws EntityPersistenceException;
 
+    /**
+     * Batch version of create: entities and contexts are bound pairwise, so the rows can belong to different accounts
+     */
+    @SqlBatch(transactional = false)
+    @Audited(ChangeType.INSERT)
+    public void batchCreate(@BindBean final List<M> entities,
+                            @BindBean final List<InternalCallContext> contexts);
+
     @SqlQuery
     public M getById(@Bind("id") final String id,
                      @BindBean final InternalTenantContext context);
@@ -18,6 +18,8 @@ package com.ning.billing.util.entity.dao;
 
 import java.lang.reflect.Proxy;
 
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
+
 import com.ning.billing.util.cache.CacheControllerDispatcher;
 import com.ning.billing.clock.Clock;
 import com.ning.billing.util.dao.NonEntityDao;
@@ -67,6 +69,25 @@ public class EntitySqlDaoWrapperFactory<InitialSqlDao extends EntitySqlDao> {
         return sqlDao;
     }
 
+    /**
+     * View of this factory for callers which only know about Transmogrifier (e.g. internal APIs): EntitySqlDao
+     * classes are wrapped (audit, history and caching) as with #become, other classes are returned as is.
+     *
+     * @return a Transmogrifier sharing the database session of this factory
+     */
+    public Transmogrifier asTransmogrifier() {
+        return new Transmogrifier() {
+            @Override
+            public <T> T become(final Class<T> typeToBecome) {
+                if (EntitySqlDao.class.isAssignableFrom(typeToBecome)) {
+                    return typeToBecome.cast(EntitySqlDaoWrapperFactory.this.become((Class) typeToBecome));
+                } else {
+                    return transmogrify(typeToBecome);
+                }
+            }
+        };
+    }
+
     private <NewSqlDao extends EntitySqlDao<NewEntityModelDao, NewEntity>,
             NewEntityModelDao extends EntityModelDao<NewEntity>,
             NewEntity extends Entity> NewSqlDao create(final Class<NewSqlDao> newSqlDaoClass, final NewSqlDao newSqlDao) {
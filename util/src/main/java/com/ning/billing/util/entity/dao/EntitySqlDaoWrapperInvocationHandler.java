@@ -23,12 +23,16 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import org.joda.time.DateTime;
 import org.skife.jdbi.v2.Binding;
 import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.exceptions.DBIException;
@@ -45,6 +49,7 @@ import com.ning.billing.util.cache.CachableKey;
 import com.ning.billing.util.cache.CacheController;
 import com.ning.billing.util.cache.CacheControllerDispatcher;
 import com.ning.billing.util.cache.CacheLoaderArgument;
+import com.ning.billing.util.cache.RecordIdCacheController;
 import com.ning.billing.callcontext.InternalCallContext;
 import com.ning.billing.callcontext.InternalTenantContext;
 import com.ning.billing.clock.Clock;
@@ -52,6 +57,7 @@ import com.ning.billing.util.dao.EntityAudit;
 import com.ning.billing.util.dao.EntityHistoryModelDao;
 import com.ning.billing.util.dao.NonEntityDao;
 import com.ning.billing.util.dao.NonEntitySqlDao;
+import com.ning.billing.util.dao.RecordIdIdMappings;
 import com.ning.billing.util.dao.TableName;
 import com.ning.billing.util.entity.Entity;
 
@@ -71,7 +77,7 @@ import com.google.common.collect.Iterables;
  */
 public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>, M extends EntityModelDao<E>, E extends Entity> implements InvocationHandler {
 
-    public static final String CACHE_KEY_SEPARATOR = "::";
+    public static final String CACHE_KEY_SEPARATOR = CacheControllerDispatcher.CACHE_KEY_SEPARATOR;
 
     private final Logger logger = LoggerFactory.getLogger(EntitySqlDaoWrapperInvocationHandler.class);
 
@@ -180,7 +186,11 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         final CacheType cacheType = cachableAnnotation.value();
         final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(cacheType);
         Object result = null;
-        if (cache != null) {
+        if (cache instanceof RecordIdCacheController) {
+            // Fast path for record ids (EntitySqlDao#getRecordId): no need to build a normalized String key
+            final long recordId = ((RecordIdCacheController) cache).getRecordId(UUID.fromString((String) args[0]), objectType);
+            result = recordId == RecordIdCacheController.NO_RECORD_ID ? null : recordId;
+        } else if (cache != null) {
             // Find all arguments marked with @CachableKey
             final Map<Integer, Object> keyPieces = new LinkedHashMap<Integer, Object>();
             final Annotation[][] annotations = method.getParameterAnnotations();
@@ -264,15 +274,30 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
 
 
     private Object invokeWithAuditAndHistory(final Audited auditedAnnotation, final Method method, final Object[] args) throws IllegalAccessException, InvocationTargetException {
-        InternalCallContext context = null;
-        List<String> entityIds = null;
+        final ChangeType changeType = auditedAnnotation.value();
+        final List<InternalCallContext> contexts = retrieveContextsFromArguments(args);
+        if (changeType == ChangeType.INSERT && contexts != null) {
+            // Batch create call: write the history and audit rows in batches as well
+            final Object obj = method.invoke(sqlDao, args);
+            insertHistoryAndAudits(retrieveEntitiesFromArguments(args), contexts, changeType);
+            return obj;
+        }
+
+        final InternalCallContext context = retrieveContextFromArguments(args);
+        final List<M> updatedEntities = changeType == ChangeType.UPDATE ? retrieveEntitiesFromArguments(args) : ImmutableList.<M>of();
+        if (!updatedEntities.isEmpty()) {
+            // Batch update call: the callers pass the updated entities, so there is nothing to re-hydrate
+            final Object obj = method.invoke(sqlDao, args);
+            insertHistoryAndAudits(updatedEntities, contexts != null ? contexts : Collections.nCopies(updatedEntities.size(), context), changeType);
+            return obj;
+        }
+
+        final List<String> entityIds = retrieveEntityIdsFromArguments(method, args);
         final Map<String, M> entities = new HashMap<String, M>();
         final Map<String, Long> entityRecordIds = new HashMap<String, Long>();
-        if (auditedAnnotation != null) {
-            // There will be some work required after the statement is executed,
-            // get the id before in case the change is a delete
-            context = retrieveContextFromArguments(args);
-            entityIds = retrieveEntityIdsFromArguments(method, args);
+        // There will be some work required after the statement is executed,
+        // get the id before in case the change is a delete (there is nothing to look up yet for inserts)
+        if (changeType != ChangeType.INSERT) {
             for (final String entityId : entityIds) {
                 entities.put(entityId, sqlDao.getById(entityId, context));
                 entityRecordIds.put(entityId, sqlDao.getRecordId(entityId, context));
@@ -282,10 +307,14 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         // Real jdbc call
         final Object obj = method.invoke(sqlDao, args);
 
-        final ChangeType changeType = auditedAnnotation.value();
-
-        for (final String entityId : entityIds) {
-            updateHistoryAndAudit(entityId, entities, entityRecordIds, changeType, context);
+        final M createdEntity = changeType == ChangeType.INSERT && entityIds.size() == 1 ? retrieveEntityFromArguments(args) : null;
+        if (createdEntity != null && obj instanceof Long) {
+            // Single create call: we already have the entity and its generated record id, no need to re-hydrate it
+            updateHistoryAndAudit(createdEntity, (Long) obj, changeType, context);
+        } else {
+            for (final String entityId : entityIds) {
+                updateHistoryAndAudit(entityId, entities, entityRecordIds, changeType, context);
+            }
         }
         return obj;
     }
@@ -297,6 +326,10 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         final Long reHydratedEntityRecordId = sqlDao.getRecordId(entityId, context);
         final M entity = Objects.firstNonNull(reHydratedEntity, entities.get(entityId));
         final Long entityRecordId = Objects.firstNonNull(reHydratedEntityRecordId, entityRecordIds.get(entityId));
+        updateHistoryAndAudit(entity, entityRecordId, changeType, context);
+    }
+
+    private void updateHistoryAndAudit(final M entity, final Long entityRecordId, final ChangeType changeType, final InternalCallContext context) {
         final TableName tableName = entity.getTableName();
 
         // Note: audit entries point to the history record id
@@ -310,6 +343,57 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         insertAudits(tableName, entityRecordId, historyRecordId, changeType, context);
     }
 
+    private void insertHistoryAndAudits(final List<M> entities, final List<InternalCallContext> contexts, final ChangeType changeType) {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        final TableName tableName = entities.get(0).getTableName();
+        final List<String> entityIds = new ArrayList<String>(entities.size());
+        for (final M entity : entities) {
+            entityIds.add(entity.getId().toString());
+        }
+
+        // Look up all generated record ids at once, instead of re-hydrating each entity
+        final NonEntitySqlDao transactional = sqlDao.become(NonEntitySqlDao.class);
+        final Map<String, Long> entityRecordIds = toRecordIdsMap(transactional.getRecordIdIdMappingsFromObjects(entityIds, tableName.getTableName()));
+
+        final DateTime now = clock.getUTCNow();
+
+        // Note: audit entries point to the history record id
+        final Map<String, Long> historyRecordIds;
+        if (tableName.getHistoryTableName() != null) {
+            final List<EntityHistoryModelDao<M, E>> histories = new ArrayList<EntityHistoryModelDao<M, E>>(entities.size());
+            for (final M entity : entities) {
+                histories.add(new EntityHistoryModelDao<M, E>(entity, entityRecordIds.get(entity.getId().toString()), changeType, now));
+            }
+            sqlDao.addHistoriesFromTransaction(histories, contexts);
+
+            historyRecordIds = toRecordIdsMap(transactional.getHistoryRecordIdIdMappingsFromObjects(entityIds, tableName.getTableName(), tableName.getHistoryTableName().getTableName()));
+        } else {
+            historyRecordIds = entityRecordIds;
+        }
+
+        final TableName destinationTableName = Objects.firstNonNull(tableName.getHistoryTableName(), tableName);
+        final List<EntityAudit> audits = new ArrayList<EntityAudit>(entities.size());
+        for (final String entityId : entityIds) {
+            audits.add(new EntityAudit(destinationTableName, historyRecordIds.get(entityId), changeType, now));
+        }
+        sqlDao.insertAuditsFromTransaction(audits, contexts);
+
+        for (final String entityId : entityIds) {
+            invalidateAuditCaches(tableName, entityRecordIds.get(entityId));
+        }
+    }
+
+    private Map<String, Long> toRecordIdsMap(final List<RecordIdIdMappings> mappings) {
+        final Map<String, Long> recordIds = new HashMap<String, Long>();
+        for (final RecordIdIdMappings mapping : mappings) {
+            recordIds.put(mapping.getId(), mapping.getRecordId());
+        }
+        return recordIds;
+    }
+
     private List<String> retrieveEntityIdsFromArguments(final Method method, final Object[] args) {
         final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
         int i = -1;
@@ -363,6 +447,34 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     }
 
 
+    private M retrieveEntityFromArguments(final Object[] args) {
+        for (final Object arg : args) {
+            if (arg instanceof EntityModelDao) {
+                return (M) arg;
+            }
+        }
+        return null;
+    }
+
+    private List<M> retrieveEntitiesFromArguments(final Object[] args) {
+        for (final Object arg : args) {
+            if (arg instanceof List && !((List) arg).isEmpty() && ((List) arg).get(0) instanceof EntityModelDao) {
+                return (List<M>) arg;
+            }
+        }
+        return ImmutableList.<M>of();
+    }
+
+    // For batch calls binding one context per row
+    private List<InternalCallContext> retrieveContextsFromArguments(final Object[] args) {
+        for (final Object arg : args) {
+            if (arg instanceof List && !((List) arg).isEmpty() && ((List) arg).get(0) instanceof InternalCallContext) {
+                return (List<InternalCallContext>) arg;
+            }
+        }
+        return null;
+    }
+
     private InternalCallContext retrieveContextFromArguments(final Object[] args) {
         for (final Object arg : args) {
             if (!(arg instanceof InternalCallContext)) {
@@ -376,11 +488,13 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
     private Long insertHistory(final Long entityRecordId, final M entityModelDao, final ChangeType changeType, final InternalCallContext context) {
         final EntityHistoryModelDao<M, E> history = new EntityHistoryModelDao<M, E>(entityModelDao, entityRecordId, changeType, clock.getUTCNow());
 
-        sqlDao.addHistoryFromTransaction(history, context);
+        final Long historyRecordId = sqlDao.addHistoryFromTransaction(history, context);
+        if (historyRecordId != null) {
+            return historyRecordId;
+        }
 
+        // The driver didn't hand us the generated key
         final NonEntitySqlDao transactional = sqlDao.become(NonEntitySqlDao.class);
-
-        /* return transactional.getLastHistoryRecordId(entityRecordId, entityModelDao.getHistoryTableName().getTableName()); */
         return nonEntityDao.retrieveLastHistoryRecordIdFromTransaction(entityRecordId, entityModelDao.getHistoryTableName(), transactional);
     }
 
@@ -389,6 +503,10 @@ public class EntitySqlDaoWrapperInvocationHandler<S extends EntitySqlDao<M, E>,
         final EntityAudit audit = new EntityAudit(destinationTableName, historyRecordId, changeType, clock.getUTCNow());
         sqlDao.insertAuditFromTransaction(audit, context);
 
+        invalidateAuditCaches(tableName, entityRecordId);
+    }
+
+    private void invalidateAuditCaches(final TableName tableName, final Long entityRecordId) {
         // We need to invalidate the caches. There is a small window of doom here where caches will be stale.
         // TODO Knowledge on how the key is constructed is also in AuditSqlDao
         if (tableName.getHistoryTableName() != null) {
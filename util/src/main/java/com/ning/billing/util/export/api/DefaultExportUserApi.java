@@ -17,10 +17,13 @@
 package com.ning.billing.util.export.api;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
+import com.ning.billing.util.api.BulkExportUserApi;
 import com.ning.billing.util.api.DatabaseExportOutputStream;
 import com.ning.billing.util.api.ExportUserApi;
 import com.ning.billing.util.callcontext.CallContext;
@@ -29,7 +32,7 @@ import com.ning.billing.util.callcontext.InternalCallContextFactory;
 import com.ning.billing.util.export.dao.CSVExportOutputStream;
 import com.ning.billing.util.export.dao.DatabaseExportDao;
 
-public class DefaultExportUserApi implements ExportUserApi {
+public class DefaultExportUserApi implements ExportUserApi, BulkExportUserApi {
 
     private final DatabaseExportDao exportDao;
     private final InternalCallContextFactory internalCallContextFactory;
@@ -51,4 +54,19 @@ public class DefaultExportUserApi implements ExportUserApi {
     public void exportDataAsCSVForAccount(final UUID accountId, final OutputStream out, final CallContext context) {
         exportDataForAccount(accountId, new CSVExportOutputStream(out), context);
     }
+
+    @Override
+    public void exportDataForAccounts(final List<UUID> accountIds, final DatabaseExportOutputStream out, final CallContext context) {
+        if (accountIds.isEmpty()) {
+            return;
+        }
+
+        InternalCallContext internalContext = null;
+        final List<Long> accountRecordIds = new ArrayList<Long>(accountIds.size());
+        for (final UUID accountId : accountIds) {
+            internalContext = internalCallContextFactory.createInternalCallContext(accountId, context);
+            accountRecordIds.add(internalContext.getAccountRecordId());
+        }
+        exportDao.exportDataForAccounts(out, accountRecordIds, internalContext);
+    }
 }
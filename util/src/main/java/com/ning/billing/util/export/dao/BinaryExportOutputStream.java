@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.export.dao;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.ning.billing.util.api.ColumnInfo;
+import com.ning.billing.util.api.DatabaseExportOutputStream;
+
+/**
+ * Compact, length-prefixed binary export format (cheaper to produce and parse than CSV).
+ * <p/>
+ * For each table with data: TABLE_MARKER, table name (modified UTF-8), number of columns, then for each column
+ * its name and data type (modified UTF-8). Each row is then ROW_MARKER followed, for each column, by the length
+ * of the UTF-8 encoded value (NULL_LENGTH for NULL) and the value itself. Binary columns are written as is,
+ * dates as ISO 8601 UTC timestamps.
+ */
+public class BinaryExportOutputStream extends OutputStream implements DatabaseExportOutputStream {
+
+    public static final byte TABLE_MARKER = 'T';
+    public static final byte ROW_MARKER = 'R';
+    public static final int NULL_LENGTH = -1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final OutputStream delegate;
+    private final DataOutputStream dataOutputStream;
+
+    private String currentTableName;
+    private List<ColumnInfo> currentColumns;
+    private boolean shouldWriteHeader = false;
+
+    public BinaryExportOutputStream(final OutputStream delegate) {
+        this.delegate = delegate;
+        this.dataOutputStream = new DataOutputStream(delegate);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        delegate.write(b);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        dataOutputStream.flush();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    @Override
+    public void newTable(final String tableName, final List<ColumnInfo> columnsForTable) {
+        currentTableName = tableName;
+        currentColumns = columnsForTable;
+        shouldWriteHeader = true;
+    }
+
+    @Override
+    public void write(final Map<String, Object> row) throws IOException {
+        if (shouldWriteHeader) {
+            // Only tables with data are written, as for the CSV format
+            dataOutputStream.writeByte(TABLE_MARKER);
+            dataOutputStream.writeUTF(currentTableName);
+            dataOutputStream.writeInt(currentColumns.size());
+            for (final ColumnInfo columnInfo : currentColumns) {
+                dataOutputStream.writeUTF(columnInfo.getColumnName());
+                dataOutputStream.writeUTF(columnInfo.getDataType() == null ? "" : columnInfo.getDataType());
+            }
+            shouldWriteHeader = false;
+        }
+
+        dataOutputStream.writeByte(ROW_MARKER);
+        for (final ColumnInfo columnInfo : currentColumns) {
+            final byte[] value = toBytes(row.get(columnInfo.getColumnName()));
+            if (value == null) {
+                dataOutputStream.writeInt(NULL_LENGTH);
+            } else {
+                dataOutputStream.writeInt(value.length);
+                dataOutputStream.write(value);
+            }
+        }
+    }
+
+    private byte[] toBytes(final Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof byte[]) {
+            return (byte[]) value;
+        } else if (value instanceof Date) {
+            return new DateTime(value, DateTimeZone.UTC).toString().getBytes(UTF_8);
+        } else {
+            return value.toString().getBytes(UTF_8);
+        }
+    }
+}
@@ -16,9 +16,16 @@
 
 package com.ning.billing.util.export.dao;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -31,21 +38,52 @@ import org.skife.jdbi.v2.tweak.HandleCallback;
 import com.ning.billing.util.api.ColumnInfo;
 import com.ning.billing.util.api.DatabaseExportOutputStream;
 import com.ning.billing.callcontext.InternalTenantContext;
+import com.ning.billing.util.config.ExportConfig;
 import com.ning.billing.util.dao.TableName;
 import com.ning.billing.util.validation.DefaultColumnInfo;
 import com.ning.billing.util.validation.dao.DatabaseSchemaDao;
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 @Singleton
 public class DatabaseExportDao {
 
+    // Rows read ahead for each table, while the output is busy with a previous table
+    private static final int ROWS_BUFFER_SIZE = 1000;
+
+    private static final String EXPORT_TH_NAME = "export-th";
+    private static final Map<String, Object> END_OF_TABLE = ImmutableMap.<String, Object>of();
+
     private final DatabaseSchemaDao databaseSchemaDao;
     private final IDBI dbi;
+    private final ExportConfig exportConfig;
+    // Shared by all exports (one connection per thread), so that the number of connections used for exports is bounded
+    private final ExecutorService executor;
 
     @Inject
     public DatabaseExportDao(final DatabaseSchemaDao databaseSchemaDao,
-                             final IDBI dbi) {
+                             final IDBI dbi,
+                             final ExportConfig exportConfig) {
         this.databaseSchemaDao = databaseSchemaDao;
         this.dbi = dbi;
+        this.exportConfig = exportConfig;
+        this.executor = Executors.newFixedThreadPool(exportConfig.getNbExportThreads(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread th = new Thread(r);
+                th.setName(EXPORT_TH_NAME + "-" + th.getId());
+                // Don't prevent the JVM from exiting
+                th.setDaemon(true);
+                return th;
+            }
+        });
+    }
+
+    public void stop() {
+        // Pending exports are interrupted: their table reads fail and the request is aborted
+        executor.shutdownNow();
     }
 
     public void exportDataForAccount(final DatabaseExportOutputStream out, final InternalTenantContext context) {
@@ -53,26 +91,68 @@ public class DatabaseExportDao {
             return;
         }
 
+        exportDataForAccounts(out, ImmutableList.<Long>of(context.getAccountRecordId()), context);
+    }
+
+    /**
+     * Export the data for several accounts of the same tenant in a single pass: one query per table, with the
+     * rows of each table ordered by account_record_id.
+     * <p/>
+     * Tables are read concurrently (on the shared export threads) but are written in order (table name), one after the other.
+     */
+    public void exportDataForAccounts(final DatabaseExportOutputStream out, final List<Long> accountRecordIds, final InternalTenantContext context) {
+        if (accountRecordIds.isEmpty() || context.getTenantRecordId() == null) {
+            return;
+        }
+
         final List<DefaultColumnInfo> columns = databaseSchemaDao.getColumnInfoList();
         if (columns.size() == 0) {
             return;
         }
 
-        final List<ColumnInfo> columnsForTable = new ArrayList<ColumnInfo>();
+        final List<TableExport> tableExports = new ArrayList<TableExport>();
+        List<ColumnInfo> columnsForTable = new ArrayList<ColumnInfo>();
         // The list of columns is ordered by table name first
         String lastSeenTableName = columns.get(0).getTableName();
         for (final ColumnInfo column : columns) {
             if (!column.getTableName().equals(lastSeenTableName)) {
-                exportDataForAccountAndTable(out, columnsForTable, context);
+                addTableExport(tableExports, columnsForTable, accountRecordIds, context);
                 lastSeenTableName = column.getTableName();
-                columnsForTable.clear();
+                columnsForTable = new ArrayList<ColumnInfo>();
             }
             columnsForTable.add(column);
         }
-        exportDataForAccountAndTable(out, columnsForTable, context);
+        addTableExport(tableExports, columnsForTable, accountRecordIds, context);
+
+        if (tableExports.isEmpty()) {
+            return;
+        }
+
+        // Tables are submitted in table order, at most getNbExportThreadsPerExport() ahead of the table being written:
+        // the table being written is never queued behind a later table, and a slow client can't hold all the shared threads
+        final int nbTablesAhead = Math.max(1, exportConfig.getNbExportThreadsPerExport());
+        final List<Future<?>> futures = new ArrayList<Future<?>>(tableExports.size());
+        try {
+            for (int i = 0; i < Math.min(nbTablesAhead, tableExports.size()); i++) {
+                futures.add(executor.submit(tableExports.get(i)));
+            }
+
+            for (int i = 0; i < tableExports.size(); i++) {
+                tableExports.get(i).writeTo(out);
+                if (i + nbTablesAhead < tableExports.size()) {
+                    futures.add(executor.submit(tableExports.get(i + nbTablesAhead)));
+                }
+            }
+        } finally {
+            // Unblock readers if we bailed out early (e.g. the client went away)
+            for (final Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
     }
 
-    private void exportDataForAccountAndTable(final DatabaseExportOutputStream out, final List<ColumnInfo> columnsForTable, final InternalTenantContext context) {
+    private void addTableExport(final List<TableExport> tableExports, final List<ColumnInfo> columnsForTable,
+                                final List<Long> accountRecordIds, final InternalTenantContext context) {
         boolean hasAccountRecordIdColumn = false;
         boolean firstColumn = true;
         final StringBuilder queryBuilder = new StringBuilder("select ");
@@ -98,35 +178,91 @@ public class DatabaseExportDao {
         }
 
         // Build the query - make sure to filter by account and tenant!
+        final String accountRecordIdColumn = isAccountTable ? "record_id" : "account_record_id";
         queryBuilder.append(" from ")
                     .append(tableName);
-        if (isAccountTable) {
-            queryBuilder.append(" where record_id = :accountRecordId and tenant_record_id = :tenantRecordId");
+        if (accountRecordIds.size() == 1) {
+            queryBuilder.append(" where ").append(accountRecordIdColumn).append(" = ").append(accountRecordIds.get(0));
         } else {
-            queryBuilder.append(" where account_record_id = :accountRecordId and tenant_record_id = :tenantRecordId");
+            // Record ids are numbers, so can safely be inlined
+            queryBuilder.append(" where ").append(accountRecordIdColumn).append(" in (").append(Joiner.on(", ").join(accountRecordIds)).append(")");
+        }
+        queryBuilder.append(" and tenant_record_id = :tenantRecordId");
+        if (accountRecordIds.size() > 1) {
+            queryBuilder.append(" order by ").append(accountRecordIdColumn);
         }
 
-        // Notify the stream that we're about to write data for a different table
-        out.newTable(tableName, columnsForTable);
+        tableExports.add(new TableExport(tableName, columnsForTable, queryBuilder.toString(), context.getTenantRecordId()));
+    }
 
-        dbi.withHandle(new HandleCallback<Void>() {
-            @Override
-            public Void withHandle(final Handle handle) throws Exception {
-                final ResultIterator<Map<String, Object>> iterator = handle.createQuery(queryBuilder.toString())
-                                                                           .bind("accountRecordId", context.getAccountRecordId())
-                                                                           .bind("tenantRecordId", context.getTenantRecordId())
-                                                                           .iterator();
-                try {
-                    while (iterator.hasNext()) {
-                        final Map<String, Object> row = iterator.next();
-                        out.write(row);
+    private final class TableExport implements Runnable {
+
+        private final String tableName;
+        private final List<ColumnInfo> columnsForTable;
+        private final String query;
+        private final Long tenantRecordId;
+        private final BlockingQueue<Map<String, Object>> rows = new ArrayBlockingQueue<Map<String, Object>>(ROWS_BUFFER_SIZE);
+
+        private volatile RuntimeException failure;
+
+        private TableExport(final String tableName, final List<ColumnInfo> columnsForTable, final String query, final Long tenantRecordId) {
+            this.tableName = tableName;
+            this.columnsForTable = columnsForTable;
+            this.query = query;
+            this.tenantRecordId = tenantRecordId;
+        }
+
+        @Override
+        public void run() {
+            try {
+                dbi.withHandle(new HandleCallback<Void>() {
+                    @Override
+                    public Void withHandle(final Handle handle) throws Exception {
+                        final ResultIterator<Map<String, Object>> iterator = handle.createQuery(query)
+                                                                                   .bind("tenantRecordId", tenantRecordId)
+                                                                                   .iterator();
+                        try {
+                            while (iterator.hasNext()) {
+                                rows.put(iterator.next());
+                            }
+                        } finally {
+                            iterator.close();
+                        }
+
+                        return null;
                     }
-                } finally {
-                    iterator.close();
+                });
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                try {
+                    rows.put(END_OF_TABLE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        public void writeTo(final DatabaseExportOutputStream out) {
+            // Notify the stream that we're about to write data for a different table
+            out.newTable(tableName, columnsForTable);
+
+            try {
+                Map<String, Object> row = rows.take();
+                while (row != END_OF_TABLE) {
+                    out.write(row);
+                    row = rows.take();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while exporting table " + tableName, e);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to export table " + tableName, e);
+            }
 
-                return null;
+            if (failure != null) {
+                throw failure;
             }
-        });
+        }
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.globallocker;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.skife.config.TimeSpan;
+
+import com.ning.billing.commons.locker.GlobalLock;
+import com.ning.billing.commons.locker.GlobalLocker;
+import com.ning.billing.commons.locker.LockFailedException;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.MapMaker;
+
+/**
+ * GlobalLocker which first serializes contenders from the same JVM on a per-key reentrant lock, so that only
+ * the local winner goes to the (database backed) delegate. Threads racing for the same account (bus handlers,
+ * notification queue threads, API calls) then wait in memory instead of each holding a connection and retrying GET_LOCK.
+ * <p/>
+ * The local locks are weakly referenced: a lock is discarded once no thread holds or waits for it.
+ * <p/>
+ * Wait time (local and global acquisition), hold time and failures are reported for each lock service (LockerType).
+ */
+public class TwoTierGlobalLocker implements GlobalLocker {
+
+    private final GlobalLocker delegate;
+    // Maximum time spent waiting for the local lock, per try
+    private final long localLockTimeoutPerTryMillis;
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentMap<String, ReentrantLock> localLocks;
+
+    public TwoTierGlobalLocker(final GlobalLocker delegate, final TimeSpan localLockTimeoutPerTry, final MetricRegistry metricRegistry) {
+        this.delegate = delegate;
+        this.localLockTimeoutPerTryMillis = localLockTimeoutPerTry.getMillis();
+        this.metricRegistry = metricRegistry;
+        this.localLocks = new MapMaker().weakValues().makeMap();
+    }
+
+    @Override
+    public GlobalLock lockWithNumberOfTries(final String service, final String lockKey, final int retry) throws LockFailedException {
+        final long startNanos = System.nanoTime();
+
+        final ReentrantLock localLock = getLocalLock(getLockName(service, lockKey));
+        if (!tryLocalLock(localLock, retry)) {
+            getFailuresMeter(service).mark();
+            throw new LockFailedException();
+        }
+
+        final GlobalLock globalLock;
+        try {
+            globalLock = delegate.lockWithNumberOfTries(service, lockKey, retry);
+        } catch (LockFailedException e) {
+            localLock.unlock();
+            getFailuresMeter(service).mark();
+            throw e;
+        } catch (RuntimeException e) {
+            localLock.unlock();
+            throw e;
+        }
+
+        getWaitTimer(service).update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return new TwoTierGlobalLock(globalLock, localLock, getHoldTimer(service));
+    }
+
+    @Override
+    public boolean isFree(final String service, final String lockKey) {
+        return delegate.isFree(service, lockKey);
+    }
+
+    private ReentrantLock getLocalLock(final String lockName) {
+        final ReentrantLock localLock = localLocks.get(lockName);
+        if (localLock != null) {
+            return localLock;
+        }
+
+        final ReentrantLock newLocalLock = new ReentrantLock();
+        final ReentrantLock existingLocalLock = localLocks.putIfAbsent(lockName, newLocalLock);
+        return existingLocalLock != null ? existingLocalLock : newLocalLock;
+    }
+
+    private boolean tryLocalLock(final ReentrantLock localLock, final int retry) {
+        try {
+            return localLock.tryLock(localLockTimeoutPerTryMillis * Math.max(retry, 1), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Timer getWaitTimer(final String service) {
+        return metricRegistry.timer(MetricRegistry.name(TwoTierGlobalLocker.class, service, "wait"));
+    }
+
+    private Timer getHoldTimer(final String service) {
+        return metricRegistry.timer(MetricRegistry.name(TwoTierGlobalLocker.class, service, "hold"));
+    }
+
+    private Meter getFailuresMeter(final String service) {
+        return metricRegistry.meter(MetricRegistry.name(TwoTierGlobalLocker.class, service, "failures"));
+    }
+
+    private static String getLockName(final String service, final String lockKey) {
+        return service + "-" + lockKey;
+    }
+
+    private static final class TwoTierGlobalLock implements GlobalLock {
+
+        private final GlobalLock globalLock;
+        // Keeps the (weakly referenced) local lock alive while it is held
+        private final ReentrantLock localLock;
+        private final Timer holdTimer;
+        private final long acquiredNanos;
+
+        private TwoTierGlobalLock(final GlobalLock globalLock, final ReentrantLock localLock, final Timer holdTimer) {
+            this.globalLock = globalLock;
+            this.localLock = localLock;
+            this.holdTimer = holdTimer;
+            this.acquiredNanos = System.nanoTime();
+        }
+
+        // Must be called by the thread which acquired the lock
+        @Override
+        public void release() {
+            try {
+                globalLock.release();
+            } finally {
+                localLock.unlock();
+                holdTimer.update(System.nanoTime() - acquiredNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
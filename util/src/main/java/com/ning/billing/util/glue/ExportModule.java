@@ -16,19 +16,51 @@
 
 package com.ning.billing.util.glue;
 
+import org.skife.config.ConfigSource;
+import org.skife.config.ConfigurationObjectFactory;
+
+import com.ning.billing.util.api.BulkExportUserApi;
 import com.ning.billing.util.api.ExportUserApi;
+import com.ning.billing.util.config.ExportConfig;
+import com.ning.billing.util.export.api.DefaultExportService;
 import com.ning.billing.util.export.api.DefaultExportUserApi;
+import com.ning.billing.util.export.api.ExportService;
+import com.ning.billing.util.export.dao.DatabaseExportDao;
 
 import com.google.inject.AbstractModule;
 
 public class ExportModule extends AbstractModule {
 
+    private final ConfigSource configSource;
+
+    public ExportModule(final ConfigSource configSource) {
+        this.configSource = configSource;
+    }
+
+    protected void installConfig() {
+        final ExportConfig config = new ConfigurationObjectFactory(configSource).build(ExportConfig.class);
+        bind(ExportConfig.class).toInstance(config);
+    }
+
+    protected void installDao() {
+        bind(DatabaseExportDao.class).asEagerSingleton();
+    }
+
     protected void installUserApi() {
-        bind(ExportUserApi.class).to(DefaultExportUserApi.class).asEagerSingleton();
+        bind(DefaultExportUserApi.class).asEagerSingleton();
+        bind(ExportUserApi.class).to(DefaultExportUserApi.class);
+        bind(BulkExportUserApi.class).to(DefaultExportUserApi.class);
+    }
+
+    protected void installExportService() {
+        bind(ExportService.class).to(DefaultExportService.class).asEagerSingleton();
     }
 
     @Override
     protected void configure() {
+        installConfig();
+        installDao();
         installUserApi();
+        installExportService();
     }
 }
@@ -16,14 +16,27 @@
 
 package com.ning.billing.util.glue;
 
+import org.skife.config.ConfigSource;
+import org.skife.config.ConfigurationObjectFactory;
+
 import com.ning.billing.commons.locker.GlobalLocker;
+import com.ning.billing.util.config.GlobalLockerConfig;
 
 import com.google.inject.AbstractModule;
 
 public class GlobalLockerModule extends AbstractModule {
 
+    private final ConfigSource configSource;
+
+    public GlobalLockerModule(final ConfigSource configSource) {
+        this.configSource = configSource;
+    }
+
     @Override
     protected void configure() {
+        final GlobalLockerConfig config = new ConfigurationObjectFactory(configSource).build(GlobalLockerConfig.class);
+        bind(GlobalLockerConfig.class).toInstance(config);
+
         bind(GlobalLocker.class).toProvider(MySqlGlobalLockerProvider.class).asEagerSingleton();
     }
 }
@@ -22,18 +22,27 @@ import javax.sql.DataSource;
 
 import com.ning.billing.commons.locker.GlobalLocker;
 import com.ning.billing.commons.locker.mysql.MySqlGlobalLocker;
+import com.ning.billing.util.config.GlobalLockerConfig;
+import com.ning.billing.util.globallocker.TwoTierGlobalLocker;
+
+import com.codahale.metrics.MetricRegistry;
 
 public class MySqlGlobalLockerProvider implements Provider<GlobalLocker> {
 
     private final DataSource dataSource;
+    private final GlobalLockerConfig globalLockerConfig;
+    private final MetricRegistry metricRegistry;
 
     @Inject
-    public MySqlGlobalLockerProvider(final DataSource dataSource) {
+    public MySqlGlobalLockerProvider(final DataSource dataSource, final GlobalLockerConfig globalLockerConfig, final MetricRegistry metricRegistry) {
         this.dataSource = dataSource;
+        this.globalLockerConfig = globalLockerConfig;
+        this.metricRegistry = metricRegistry;
     }
 
     @Override
     public GlobalLocker get() {
-        return new MySqlGlobalLocker(dataSource);
+        // Local contenders are serialized in memory, only the local winner hits MySQL
+        return new TwoTierGlobalLocker(new MySqlGlobalLocker(dataSource), globalLockerConfig.getLocalLockTimeoutPerTry(), metricRegistry);
     }
 }
@@ -20,6 +20,10 @@ import javax.inject.Inject;
 
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.mgt.SessionsSecurityManager;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
+import org.apache.shiro.session.mgt.SessionManager;
+import org.apache.shiro.util.LifecycleUtils;
 
 import com.ning.billing.lifecycle.LifecycleHandlerType;
 import com.ning.billing.lifecycle.LifecycleHandlerType.LifecycleLevel;
@@ -47,6 +51,13 @@ public class DefaultSecurityService implements SecurityService {
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void stop() {
+        // Flush the pending session writes (e.g. last access times): nothing else destroys the session DAO
+        if (securityManager instanceof SessionsSecurityManager) {
+            final SessionManager sessionManager = ((SessionsSecurityManager) securityManager).getSessionManager();
+            if (sessionManager instanceof DefaultSessionManager) {
+                LifecycleUtils.destroy(((DefaultSessionManager) sessionManager).getSessionDAO());
+            }
+        }
         SecurityUtils.setSecurityManager(null);
     }
 }
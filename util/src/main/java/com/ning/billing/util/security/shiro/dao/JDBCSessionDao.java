@@ -18,11 +18,21 @@ package com.ning.billing.util.security.shiro.dao;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
 import org.apache.shiro.session.Session;
 import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.apache.shiro.util.Destroyable;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.Transaction;
@@ -32,28 +42,84 @@ import org.slf4j.LoggerFactory;
 
 import com.ning.billing.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
 
-public class JDBCSessionDao extends CachingSessionDAO {
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+
+public class JDBCSessionDao extends CachingSessionDAO implements Destroyable {
 
     private static final Logger log = LoggerFactory.getLogger(JDBCSessionDao.class);
 
-    private JDBCSessionSqlDao jdbcSessionSqlDao;
+    private static final String FLUSHER_TH_NAME = "session-last-access-flusher";
+
+    private final JDBCSessionSqlDao jdbcSessionSqlDao;
+    private final long lastAccessUpdateIntervalMillis;
+
+    // Session state as last written to (or read from) the database, to detect updates which only touch the last access time.
+    // Entries idle for longer than the update interval are useless (the next update is written anyway), so they expire.
+    private final ConcurrentMap<Serializable, SessionModelDao> persistedSessions;
+    // Last access time updates not written yet (write-behind)
+    private final ConcurrentMap<Serializable, SessionModelDao> pendingLastAccessUpdates = new ConcurrentHashMap<Serializable, SessionModelDao>();
+    private final ScheduledExecutorService lastAccessUpdatesFlusher;
 
     @Inject
     public JDBCSessionDao(final IDBI dbi) {
+        // Write-through
+        this(dbi, 0);
+    }
+
+    public JDBCSessionDao(final IDBI dbi, final long lastAccessUpdateIntervalMillis) {
         if (dbi instanceof DBI) {
             // TODO PIERRE Move to DBIProvider, once it's in util
             ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(SessionModelDao.class));
         }
         this.jdbcSessionSqlDao = dbi.onDemand(JDBCSessionSqlDao.class);
+        this.lastAccessUpdateIntervalMillis = lastAccessUpdateIntervalMillis;
+        this.persistedSessions = CacheBuilder.newBuilder()
+                                             .expireAfterAccess(Math.max(lastAccessUpdateIntervalMillis, 0), TimeUnit.MILLISECONDS)
+                                             .<Serializable, SessionModelDao>build()
+                                             .asMap();
+
+        // Keep recently used sessions locally, unless the security manager configures a different cache manager
+        setCacheManager(new MemoryConstrainedCacheManager());
+
+        if (lastAccessUpdateIntervalMillis > 0) {
+            lastAccessUpdatesFlusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread th = new Thread(r);
+                    th.setName(FLUSHER_TH_NAME);
+                    th.setDaemon(true);
+                    return th;
+                }
+            });
+            lastAccessUpdatesFlusher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    flushLastAccessUpdates();
+                }
+            }, lastAccessUpdateIntervalMillis, lastAccessUpdateIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            lastAccessUpdatesFlusher = null;
+        }
     }
 
     @Override
     protected void doUpdate(final Session session) {
-        jdbcSessionSqlDao.update(new SessionModelDao(session));
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        if (isRecentLastAccessTouch(sessionModelDao)) {
+            pendingLastAccessUpdates.put(session.getId(), sessionModelDao);
+            return;
+        }
+
+        pendingLastAccessUpdates.remove(session.getId());
+        jdbcSessionSqlDao.update(sessionModelDao);
+        persistedSessions.put(session.getId(), sessionModelDao);
     }
 
     @Override
     protected void doDelete(final Session session) {
+        pendingLastAccessUpdates.remove(session.getId());
+        persistedSessions.remove(session.getId());
         jdbcSessionSqlDao.delete(new SessionModelDao(session));
     }
 
@@ -67,16 +133,23 @@ public class JDBCSessionDao extends CachingSessionDAO {
             }
         });
         assignSessionId(session, sessionId);
+        persistedSessions.put(sessionId, new SessionModelDao(session));
         return sessionId;
     }
 
     @Override
     protected Session doReadSession(final Serializable sessionId) {
-        final SessionModelDao sessionModelDao = jdbcSessionSqlDao.read(sessionId);
+        // A pending update is more recent than the database row
+        final SessionModelDao pendingUpdate = pendingLastAccessUpdates.get(sessionId);
+        final SessionModelDao sessionModelDao = pendingUpdate != null ? pendingUpdate : jdbcSessionSqlDao.read(sessionId);
         if (sessionModelDao == null) {
             return null;
         }
 
+        if (pendingUpdate == null) {
+            persistedSessions.put(sessionId, sessionModelDao);
+        }
+
         try {
             return sessionModelDao.toSimpleSession();
         } catch (IOException e) {
@@ -84,4 +157,46 @@ public class JDBCSessionDao extends CachingSessionDAO {
             return null;
         }
     }
+
+    @Override
+    public void destroy() throws Exception {
+        if (lastAccessUpdatesFlusher != null) {
+            lastAccessUpdatesFlusher.shutdown();
+            lastAccessUpdatesFlusher.awaitTermination(lastAccessUpdateIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        flushLastAccessUpdates();
+    }
+
+    void flushLastAccessUpdates() {
+        for (final Map.Entry<Serializable, SessionModelDao> entry : pendingLastAccessUpdates.entrySet()) {
+            try {
+                // Only moves the last access time forward, so it cannot overwrite a concurrent full update
+                jdbcSessionSqlDao.updateLastAccessTime(entry.getValue());
+                persistedSessions.replace(entry.getKey(), entry.getValue());
+                // Keep the entry if the session was touched again in the meantime
+                pendingLastAccessUpdates.remove(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Unable to update last access time for session " + entry.getKey(), e);
+            }
+        }
+    }
+
+    // Whether the update only moves the last access time, by less than the configured interval since the last write
+    private boolean isRecentLastAccessTouch(final SessionModelDao sessionModelDao) {
+        if (lastAccessUpdateIntervalMillis <= 0 || lastAccessUpdatesFlusher.isShutdown()) {
+            // Write-through, or stopped: nothing would flush the update
+            return false;
+        }
+
+        final SessionModelDao persistedSession = persistedSessions.get(sessionModelDao.getRecordId());
+        if (persistedSession == null ||
+            persistedSession.getTimeout() != sessionModelDao.getTimeout() ||
+            !Objects.equal(persistedSession.getHost(), sessionModelDao.getHost()) ||
+            !Objects.equal(persistedSession.getStartTimestamp(), sessionModelDao.getStartTimestamp()) ||
+            !Arrays.equals(persistedSession.getSessionData(), sessionModelDao.getSessionData())) {
+            return false;
+        }
+
+        return sessionModelDao.getLastAccessTime().getMillis() - persistedSession.getLastAccessTime().getMillis() < lastAccessUpdateIntervalMillis;
+    }
 }
@@ -46,10 +46,6 @@ import com.ning.billing.util.tag.ControlTagType;
 import com.ning.billing.util.tag.Tag;
 import com.ning.billing.util.tag.api.user.TagEventBuilder;
 
-import com.google.common.base.Predicate;
-import com.google.common.collect.Collections2;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
 public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiException> implements TagDao {
@@ -79,14 +75,12 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     @Override
     public List<TagModelDao> getTagsForAccountType(final UUID accountId, final ObjectType objectType, final InternalTenantContext internalTenantContext) {
-
-        final List<TagModelDao> allTags = getTagsForAccount(accountId, internalTenantContext);
-        return ImmutableList.<TagModelDao>copyOf(Collections2.filter(allTags, new Predicate<TagModelDao>() {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<TagModelDao>>() {
             @Override
-            public boolean apply(@Nullable final TagModelDao input) {
-                return input.getObjectType() == objectType;
+            public List<TagModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(TagSqlDao.class).getTagsForAccountType(objectType, internalTenantContext);
             }
-        }));
+        });
     }
 
     @Override
@@ -102,7 +96,7 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
 
     @Override
-    protected void postBusEventFromTransaction(final TagModelDao tag, final TagModelDao savedTag, final ChangeType changeType,
+    protected void postBusEventFromTransaction(final TagModelDao tag, final TagModelDao savedTag, final ChangeType changeType, @Nullable final Long recordId,
                                                final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final InternalCallContext context)
             throws BillingExceptionBase {
 
@@ -137,14 +131,11 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     @Override
     protected boolean checkEntityAlreadyExists(final EntitySqlDao<TagModelDao, Tag> transactional, final TagModelDao entity, final InternalCallContext context) {
-        return Iterables.find(transactional.getByAccountRecordId(context),
-                              new Predicate<TagModelDao>() {
-                                  @Override
-                                  public boolean apply(final TagModelDao existingTag) {
-                                      return entity.equals(existingTag) || entity.isSame(existingTag);
-                                  }
-                              },
-                              null) != null;
+        // Only look at the active tag (if any) for that object and definition, using the tags_by_object index,
+        // instead of loading all the tags of the account
+        final TagModelDao existingTag = ((TagSqlDao) transactional).getActiveTagForObjectAndDefinition(entity.getObjectId(), entity.getObjectType(),
+                                                                                                        entity.getTagDefinitionId(), context);
+        return existingTag != null && (entity.equals(existingTag) || entity.isSame(existingTag));
     }
 
     @Override
@@ -188,21 +179,14 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
                 final TagDefinitionModelDao tagDefinition = getTagDefinitionFromTransaction(tagDefinitionId, entitySqlDaoWrapperFactory, context);
                 final TagSqlDao transactional = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
-                final List<TagModelDao> tags = transactional.getTagsForObject(objectId, objectType, context);
-                TagModelDao tag = null;
-                for (final TagModelDao cur : tags) {
-                    if (cur.getTagDefinitionId().equals(tagDefinitionId)) {
-                        tag = cur;
-                        break;
-                    }
-                }
+                final TagModelDao tag = transactional.getActiveTagForObjectAndDefinition(objectId, objectType, tagDefinitionId, context);
                 if (tag == null) {
                     throw new TagApiException(ErrorCode.TAG_DOES_NOT_EXIST, tagDefinition.getName());
                 }
                 // Delete the tag
                 transactional.markTagAsDeleted(tag.getId().toString(), context);
 
-                postBusEventFromTransaction(tag, tag, ChangeType.DELETE, entitySqlDaoWrapperFactory, context);
+                postBusEventFromTransaction(tag, tag, ChangeType.DELETE, null, entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
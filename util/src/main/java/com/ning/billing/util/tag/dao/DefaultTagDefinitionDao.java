@@ -22,6 +22,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.exceptions.TransactionFailedException;
 import org.slf4j.Logger;
@@ -219,7 +221,7 @@ public class DefaultTagDefinitionDao extends EntityDaoBase<TagDefinitionModelDao
                     // Delete it
                     tagDefinitionSqlDao.markTagDefinitionAsDeleted(definitionId.toString(), context);
 
-                    postBusEventFromTransaction(tagDefinition, tagDefinition, ChangeType.DELETE, entitySqlDaoWrapperFactory, context);
+                    postBusEventFromTransaction(tagDefinition, tagDefinition, ChangeType.DELETE, null, entitySqlDaoWrapperFactory, context);
                     return null;
                 }
             });
@@ -233,7 +235,8 @@ public class DefaultTagDefinitionDao extends EntityDaoBase<TagDefinitionModelDao
     }
 
     protected void postBusEventFromTransaction(final TagDefinitionModelDao tagDefinition, final TagDefinitionModelDao savedTagDefinition,
-                                               final ChangeType changeType, final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final InternalCallContext context)
+                                               final ChangeType changeType, @Nullable final Long recordId, final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory,
+                                               final InternalCallContext context)
             throws BillingExceptionBase {
 
         final TagDefinitionInternalEvent tagDefinitionEvent;
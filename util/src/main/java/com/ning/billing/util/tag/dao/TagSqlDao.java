@@ -45,4 +45,14 @@ public interface TagSqlDao extends EntitySqlDao<TagModelDao, Tag> {
     List<TagModelDao> getTagsForObject(@Bind("objectId") UUID objectId,
                                        @Bind("objectType") ObjectType objectType,
                                        @BindBean InternalTenantContext internalTenantContext);
+
+    @SqlQuery
+    TagModelDao getActiveTagForObjectAndDefinition(@Bind("objectId") UUID objectId,
+                                                   @Bind("objectType") ObjectType objectType,
+                                                   @Bind("tagDefinitionId") UUID tagDefinitionId,
+                                                   @BindBean InternalTenantContext internalTenantContext);
+
+    @SqlQuery
+    List<TagModelDao> getTagsForAccountType(@Bind("objectType") ObjectType objectType,
+                                            @BindBean InternalTenantContext internalTenantContext);
 }
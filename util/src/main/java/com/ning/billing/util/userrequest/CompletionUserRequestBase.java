@@ -16,9 +16,12 @@
 
 package com.ning.billing.util.userrequest;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import com.ning.billing.events.AccountChangeInternalEvent;
@@ -30,61 +33,40 @@ import com.ning.billing.events.NullInvoiceInternalEvent;
 import com.ning.billing.events.PaymentErrorInternalEvent;
 import com.ning.billing.events.PaymentInfoInternalEvent;
 
-public class CompletionUserRequestBase implements CompletionUserRequest {
+import com.google.common.util.concurrent.SettableFuture;
 
-    private static final long NANO_TO_MILLI_SEC = (1000L * 1000L);
+public class CompletionUserRequestBase implements CompletionUserRequest {
 
+    // Events are received on the bus threads
     private final List<BusInternalEvent> events;
+    private final SettableFuture<List<BusInternalEvent>> completionFuture;
 
     private final UUID userToken;
-    private long timeoutMilliSec;
-
-    private boolean isCompleted;
-    private long initialTimeMilliSec;
-
 
     public CompletionUserRequestBase(final UUID userToken) {
-        this.events = new LinkedList<BusInternalEvent>();
+        this.events = Collections.synchronizedList(new LinkedList<BusInternalEvent>());
+        this.completionFuture = SettableFuture.create();
         this.userToken = userToken;
-        this.isCompleted = false;
     }
 
     @Override
-    public List<BusInternalEvent> waitForCompletion(final long timeoutMilliSec) throws InterruptedException, TimeoutException {
-
-        this.timeoutMilliSec = timeoutMilliSec;
-        initialTimeMilliSec = currentTimeMillis();
-        synchronized (this) {
-            long remainingTimeMillisSec = getRemainingTimeMillis();
-            while (!isCompleted && remainingTimeMillisSec > 0) {
-                wait(remainingTimeMillisSec);
-                if (isCompleted) {
-                    break;
-                }
-                remainingTimeMillisSec = getRemainingTimeMillis();
-            }
-            if (!isCompleted) {
-                throw new TimeoutException();
-            }
-        }
-        return events;
+    public UUID getUserToken() {
+        return userToken;
     }
 
     @Override
-    public void notifyForCompletion() {
-        synchronized (this) {
-            isCompleted = true;
-            notify();
+    public List<BusInternalEvent> waitForCompletion(final long timeoutMilliSec) throws InterruptedException, TimeoutException {
+        try {
+            return completionFuture.get(timeoutMilliSec, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The future is only ever set with a value
+            throw new IllegalStateException(e.getCause());
         }
     }
 
-
-    private long currentTimeMillis() {
-        return System.nanoTime() / NANO_TO_MILLI_SEC;
-    }
-
-    private long getRemainingTimeMillis() {
-        return timeoutMilliSec - (currentTimeMillis() - initialTimeMilliSec);
+    @Override
+    public void notifyForCompletion() {
+        completionFuture.set(events);
     }
 
     @Override
@@ -16,12 +16,16 @@
 
 package com.ning.billing.util.userrequest;
 
+import java.util.UUID;
 
 import com.ning.billing.events.BusInternalEvent;
 
 
 public interface CompletionUserRequestNotifier {
 
+    // Only events with that user token are dispatched to this notifier
+    public UUID getUserToken();
+
     public void notifyForCompletion();
 
     public void onBusEvent(final BusInternalEvent event);
@@ -452,6 +452,26 @@ from (
   select
     class_name
   , count(1) count
+  from (
+    select
+      substr(event_json, 13, 36) id
+    , search_key1 account_record_id
+    , class_name
+    from notifications
+    where 1 = 1
+    and class_name = 'com.ning.billing.invoice.notification.NextBillingDateAccountNotificationKey'
+  ) n
+  left outer join accounts a using (id)
+  where 1 = 1
+  and (
+       n.account_record_id is null
+    or n.account_record_id != a.record_id
+  )
+  group by class_name
+  union all
+  select
+    class_name
+  , count(1) count
   from (
     select
       substr(event_json, 13, 36) id
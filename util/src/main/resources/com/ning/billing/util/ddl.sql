@@ -40,7 +40,7 @@ CREATE TABLE custom_field_history (
     PRIMARY KEY(record_id)
 ) CHARACTER SET utf8 COLLATE utf8_bin;
 CREATE INDEX custom_field_history_target_record_id ON custom_field_history(target_record_id);
-CREATE INDEX custom_field_history_object_id_object_type ON custom_fields(object_id, object_type);
+CREATE INDEX custom_field_history_object_id_object_type ON custom_field_history(object_id, object_type);
 CREATE INDEX custom_field_history_tenant_account_record_id ON custom_field_history(tenant_record_id, account_record_id);
 
 DROP TABLE IF EXISTS tag_definitions;
@@ -99,7 +99,7 @@ CREATE TABLE tags (
     PRIMARY KEY(record_id)
 ) CHARACTER SET utf8 COLLATE utf8_bin;
 CREATE UNIQUE INDEX tags_id ON tags(id);
-CREATE INDEX tags_by_object ON tags(object_id);
+CREATE INDEX tags_by_object ON tags(object_id, object_type, tag_definition_id);
 CREATE INDEX tags_tenant_account_record_id ON tags(tenant_record_id, account_record_id);
 
 DROP TABLE IF EXISTS tag_history;
@@ -121,7 +121,7 @@ CREATE TABLE tag_history (
     PRIMARY KEY(record_id)
 ) CHARACTER SET utf8 COLLATE utf8_bin;
 CREATE INDEX tag_history_target_record_id ON tag_history(target_record_id);
-CREATE INDEX tag_history_by_object ON tags(object_id);
+CREATE INDEX tag_history_by_object ON tag_history(object_id, object_type);
 CREATE INDEX tag_history_tenant_account_record_id ON tag_history(tenant_record_id, account_record_id);
 
 DROP TABLE IF EXISTS audit_log;
@@ -16,6 +16,7 @@
 
 package com.ning.billing.dao;
 
+import java.util.List;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -43,6 +44,11 @@ public class MockNonEntityDao implements NonEntityDao {
         return null;
     }
 
+    @Override
+    public List<String> retrieveTenantValuesForKey(final String tenantKey, final Long tenantRecordId, @Nullable final CacheController<Object, Object> cache) {
+        return null;
+    }
+
     @Override
     public Long retrieveLastHistoryRecordIdFromTransaction(final Long targetRecordId, final TableName tableName, final NonEntitySqlDao transactional) {
         return null;
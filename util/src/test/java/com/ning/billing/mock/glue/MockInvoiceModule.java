@@ -19,6 +19,7 @@ package com.ning.billing.mock.glue;
 import org.mockito.Mockito;
 
 import com.ning.billing.glue.InvoiceModule;
+import com.ning.billing.invoice.api.BulkInvoiceUserApi;
 import com.ning.billing.invoice.api.InvoiceMigrationApi;
 import com.ning.billing.invoice.api.InvoicePaymentApi;
 import com.ning.billing.invoice.api.InvoiceUserApi;
@@ -31,6 +32,7 @@ public class MockInvoiceModule extends AbstractModule implements InvoiceModule {
     @Override
     public void installInvoiceUserApi() {
         bind(InvoiceUserApi.class).toInstance(Mockito.mock(InvoiceUserApi.class));
+        bind(BulkInvoiceUserApi.class).toInstance(Mockito.mock(BulkInvoiceUserApi.class));
     }
 
     @Override
@@ -18,6 +18,7 @@ package com.ning.billing.mock.glue;
 
 import org.mockito.Mockito;
 
+import com.ning.billing.payment.api.BulkPaymentApi;
 import com.ning.billing.payment.api.PaymentApi;
 import com.ning.billing.payment.api.PaymentInternalApi;
 
@@ -28,6 +29,7 @@ public class MockPaymentModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(PaymentApi.class).toInstance(Mockito.mock(PaymentApi.class));
+        bind(BulkPaymentApi.class).toInstance(Mockito.mock(BulkPaymentApi.class));
         bind(PaymentInternalApi.class).toInstance(Mockito.mock(PaymentInternalApi.class));
     }
 }
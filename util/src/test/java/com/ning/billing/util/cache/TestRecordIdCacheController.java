@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.ObjectType;
+import com.ning.billing.util.UtilTestSuiteNoDB;
+import com.ning.billing.util.cache.Cachable.CacheType;
+
+public class TestRecordIdCacheController extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testHitsAndMisses() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+        final UUID unknownId = UUID.randomUUID();
+
+        final CountingCacheLoader cacheLoader = new CountingCacheLoader();
+        cacheLoader.recordIds.put(accountId, 12L);
+        cacheLoader.init();
+        final RecordIdCacheController cache = new RecordIdCacheController(CacheType.RECORD_ID, cacheLoader, 1000);
+        Assert.assertEquals(cache.getMaxSize(), 1024);
+
+        Assert.assertEquals(cache.getRecordId(accountId, ObjectType.ACCOUNT), 12L);
+        Assert.assertEquals(cache.getRecordId(accountId, ObjectType.ACCOUNT), 12L);
+        // Generic API, with upper cased keys
+        Assert.assertEquals(cache.get(accountId.toString().toUpperCase(), new CacheLoaderArgument(ObjectType.ACCOUNT)), (Object) 12L);
+        Assert.assertEquals(cacheLoader.nbLoads, 1);
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getHitCount(), 2);
+        Assert.assertEquals(cache.getMissCount(), 1);
+
+        // Missing objects are not cached
+        Assert.assertEquals(cache.getRecordId(unknownId, ObjectType.ACCOUNT), RecordIdCacheController.NO_RECORD_ID);
+        Assert.assertNull(cache.get(unknownId.toString(), new CacheLoaderArgument(ObjectType.ACCOUNT)));
+        Assert.assertEquals(cacheLoader.nbLoads, 3);
+        Assert.assertEquals(cache.size(), 1);
+
+        // The object type is part of the key
+        Assert.assertEquals(cache.getRecordId(accountId, ObjectType.BUNDLE), 12L);
+        Assert.assertEquals(cacheLoader.nbLoads, 4);
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+
+        Assert.assertTrue(cache.remove(accountId.toString()));
+        Assert.assertFalse(cache.remove(accountId.toString()));
+        Assert.assertEquals(cache.size(), 0);
+
+        Assert.assertEquals(cache.getRecordId(accountId, ObjectType.ACCOUNT), 12L);
+        Assert.assertEquals(cache.size(), 1);
+        cache.removeAll();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.getRecordId(accountId, ObjectType.ACCOUNT), 12L);
+        Assert.assertEquals(cacheLoader.nbLoads, 6);
+    }
+
+    private static final class CountingCacheLoader extends BaseCacheLoader {
+
+        private final Map<UUID, Long> recordIds = new HashMap<UUID, Long>();
+        private int nbLoads = 0;
+
+        private CountingCacheLoader() {
+            super(null, null);
+        }
+
+        @Override
+        public CacheType getCacheType() {
+            return CacheType.RECORD_ID;
+        }
+
+        @Override
+        public Object load(final Object key, final Object argument) {
+            checkCacheLoaderStatus();
+            nbLoads++;
+            return recordIds.get(UUID.fromString((String) key));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.antlr.stringtemplate.StringTemplate;
+import org.antlr.stringtemplate.StringTemplateGroup;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.Query;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Checks that the queries of a StringTemplate group are served by an index.
+ * <p/>
+ * Each select template of the group (and of its super group) is rendered, bound to representative parameters
+ * and run through EXPLAIN against the test database: plans scanning a whole table (tableScan on H2, type ALL
+ * without any usable key on MySQL) are reported.
+ * <p/>
+ * Templates which don't apply to the table of the group are skipped: statements which don't read any table,
+ * history templates when there is no history table, getByAccountRecordId when there is no account_record_id column
+ * and audit log lookups for soft deleted entities (the audit_log table has no is_active column). Other exceptions
+ * are checked in, with their reason, in QueryPlanExclusions.properties.
+ */
+public class QueryPlanValidator {
+
+    private static final String ENTITY_SQL_DAO_GROUP = "/com/ning/billing/util/entity/dao/EntitySqlDao.sql.stg";
+    private static final String EXCLUSIONS_RESOURCE = "/com/ning/billing/util/dao/QueryPlanExclusions.properties";
+
+    // Queries which list a whole tenant by design
+    private static final Set<String> TENANT_WIDE_TEMPLATES = ImmutableSet.<String>of("getAll", "get", "getCount", "test");
+
+    private static final Set<String> HISTORY_TEMPLATES = ImmutableSet.<String>of("getHistoryTargetRecordId", "getHistoryRecordId", "getHistoryRecordIdsForTable", "getAuditLogsViaHistoryForTargetRecordId");
+    private static final Set<String> AUDIT_LOG_TEMPLATES = ImmutableSet.<String>of("getAuditLogsForTargetRecordId", "getAuditLogsViaHistoryForTargetRecordId");
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<![:\\w]):(\\w+)");
+    private static final Pattern FROM_CLAUSE = Pattern.compile("\\bfrom\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("(\\w+)\\.tableScan");
+
+    private static final Timestamp REPRESENTATIVE_TIMESTAMP = new Timestamp(1356998400000L);
+
+    private final IDBI dbi;
+    private final Properties exclusions = new Properties();
+
+    public QueryPlanValidator(final IDBI dbi) throws IOException {
+        this.dbi = dbi;
+
+        final InputStream stream = QueryPlanValidator.class.getResourceAsStream(EXCLUSIONS_RESOURCE);
+        try {
+            exclusions.load(stream);
+        } finally {
+            stream.close();
+        }
+
+        // There is no mechanism for automatically loading a super group file, see TestStringTemplateInheritance
+        loadGroup(ENTITY_SQL_DAO_GROUP);
+    }
+
+    /**
+     * @param groupResource classpath location of the .sql.stg group
+     * @return whether the whole group is listed in QueryPlanExclusions.properties
+     */
+    public boolean isExcluded(final String groupResource) {
+        return exclusions.containsKey(groupResource);
+    }
+
+    /**
+     * @param groupResource classpath location of the .sql.stg group
+     * @param attributes    template attributes (e.g. lists for in clauses), on top of tableName and historyTableName
+     * @return the full scans found, one per query and table
+     */
+    public List<String> validate(final String groupResource, final Map<String, Object> attributes) throws IOException {
+        final StringTemplateGroup group = loadGroup(groupResource);
+
+        final Map<String, Object> allAttributes = new HashMap<String, Object>();
+        for (final String tableTemplate : new String[]{"tableName", "historyTableName"}) {
+            if (isDefined(group, tableTemplate)) {
+                allAttributes.put(tableTemplate, group.getInstanceOf(tableTemplate).toString());
+            }
+        }
+        allAttributes.putAll(attributes);
+
+        final Set<String> excludedTemplates = new HashSet<String>(TENANT_WIDE_TEMPLATES);
+        for (final String key : exclusions.stringPropertyNames()) {
+            if (key.startsWith(groupResource + "#")) {
+                excludedTemplates.add(key.substring(groupResource.length() + 1));
+            }
+        }
+        if (Strings.isNullOrEmpty((String) allAttributes.get("historyTableName"))) {
+            excludedTemplates.addAll(HISTORY_TEMPLATES);
+        }
+        if (isDefined(group, "accountRecordIdFieldWithComma") && group.getInstanceOf("accountRecordIdFieldWithComma").toString().trim().isEmpty()) {
+            excludedTemplates.add("getByAccountRecordId");
+        }
+        if (isDefined(group, "andCheckSoftDeletionWithComma") && !group.getInstanceOf("andCheckSoftDeletionWithComma").toString().trim().isEmpty()) {
+            excludedTemplates.addAll(AUDIT_LOG_TEMPLATES);
+        }
+
+        final Set<String> templateNames = new LinkedHashSet<String>();
+        if (group.getSuperGroup() != null) {
+            templateNames.addAll(group.getSuperGroup().getTemplateNames());
+        }
+        templateNames.addAll(group.getTemplateNames());
+
+        final List<String> fullScans = new ArrayList<String>();
+        for (final String templateName : templateNames) {
+            if (excludedTemplates.contains(templateName)) {
+                continue;
+            }
+
+            final String sql = render(group.getInstanceOf(templateName), allAttributes);
+            if (!sql.toLowerCase().startsWith("select") || !FROM_CLAUSE.matcher(sql).find()) {
+                // Template fragment (table name, fields, ...), statement which isn't a query or which doesn't read any table
+                continue;
+            }
+
+            for (final String fullScan : explain(sql)) {
+                fullScans.add(String.format("%s#%s scans %s", groupResource, templateName, fullScan));
+            }
+        }
+        return fullScans;
+    }
+
+    private List<String> explain(final String sql) {
+        final Handle handle = dbi.open();
+        try {
+            final Query<Map<String, Object>> query = handle.createQuery("explain " + sql);
+            final Matcher parameters = NAMED_PARAMETER.matcher(sql);
+            while (parameters.find()) {
+                query.bind(parameters.group(1), representativeValue(parameters.group(1)));
+            }
+
+            final List<String> fullScans = new ArrayList<String>();
+            for (final Map<String, Object> row : query.list()) {
+                final Object plan = getColumn(row, "plan");
+                if (plan != null) {
+                    // H2
+                    final Matcher tableScans = H2_TABLE_SCAN.matcher(plan.toString());
+                    while (tableScans.find()) {
+                        fullScans.add(tableScans.group(1).toLowerCase());
+                    }
+                } else if ("ALL".equals(getColumn(row, "type")) && getColumn(row, "possible_keys") == null) {
+                    // MySQL (the table column is the table alias). Derived tables are the already filtered results of a subquery
+                    final String table = String.valueOf(getColumn(row, "table"));
+                    if (!table.startsWith("<derived")) {
+                        fullScans.add(table);
+                    }
+                }
+            }
+            return fullScans;
+        } finally {
+            handle.close();
+        }
+    }
+
+    private String render(final StringTemplate template, final Map<String, Object> attributes) {
+        for (final String attribute : attributes.keySet()) {
+            if (template.getFormalArgument(attribute) != null) {
+                template.setAttribute(attribute, attributes.get(attribute));
+            }
+        }
+        return template.toString().trim();
+    }
+
+    private Object representativeValue(final String parameterName) {
+        final String name = parameterName.toLowerCase();
+        if (name.endsWith("recordid") || "offset".equals(name) || "rowcount".equals(name)) {
+            return 1L;
+        } else if (name.endsWith("date") || name.endsWith("time") || "now".equals(name)) {
+            return REPRESENTATIVE_TIMESTAMP;
+        } else {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private Object getColumn(final Map<String, Object> row, final String columnName) {
+        for (final String key : row.keySet()) {
+            if (columnName.equalsIgnoreCase(key)) {
+                return row.get(key);
+            }
+        }
+        return null;
+    }
+
+    private boolean isDefined(final StringTemplateGroup group, final String templateName) {
+        return group.isDefined(templateName) || (group.getSuperGroup() != null && group.getSuperGroup().isDefined(templateName));
+    }
+
+    private StringTemplateGroup loadGroup(final String groupResource) throws IOException {
+        final InputStream stream = QueryPlanValidator.class.getResourceAsStream(groupResource);
+        if (stream == null) {
+            throw new IllegalArgumentException("Unable to find StringTemplate group " + groupResource);
+        }
+        try {
+            return new StringTemplateGroup(new InputStreamReader(stream));
+        } finally {
+            stream.close();
+        }
+    }
+}
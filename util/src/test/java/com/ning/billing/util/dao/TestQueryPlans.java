@@ -0,0 +1,58 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.dao;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.util.UtilTestSuiteWithEmbeddedDB;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class TestQueryPlans extends UtilTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testTagQueriesUseIndexes() throws Exception {
+        final QueryPlanValidator validator = new QueryPlanValidator(dbi);
+
+        final List<String> fullScans = validator.validate("/com/ning/billing/util/tag/dao/TagSqlDao.sql.stg",
+                                                          ImmutableMap.<String, Object>of());
+        Assert.assertTrue(fullScans.isEmpty(), fullScans.toString());
+    }
+
+    @Test(groups = "slow")
+    public void testTagDefinitionQueriesUseIndexes() throws Exception {
+        final QueryPlanValidator validator = new QueryPlanValidator(dbi);
+
+        final List<String> fullScans = validator.validate("/com/ning/billing/util/tag/dao/TagDefinitionSqlDao.sql.stg",
+                                                          ImmutableMap.<String, Object>of("tag_definition_ids", ImmutableList.<String>of(UUID.randomUUID().toString())));
+        Assert.assertTrue(fullScans.isEmpty(), fullScans.toString());
+    }
+
+    @Test(groups = "slow")
+    public void testCustomFieldQueriesUseIndexes() throws Exception {
+        final QueryPlanValidator validator = new QueryPlanValidator(dbi);
+
+        final List<String> fullScans = validator.validate("/com/ning/billing/util/customfield/dao/CustomFieldSqlDao.sql.stg",
+                                                          ImmutableMap.<String, Object>of());
+        Assert.assertTrue(fullScans.isEmpty(), fullScans.toString());
+    }
+}
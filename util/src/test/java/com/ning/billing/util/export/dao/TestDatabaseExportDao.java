@@ -30,6 +30,8 @@ import com.ning.billing.util.UtilTestSuiteWithEmbeddedDB;
 import com.ning.billing.util.api.DatabaseExportOutputStream;
 import com.ning.billing.util.validation.dao.DatabaseSchemaDao;
 
+import com.google.common.collect.ImmutableList;
+
 public class TestDatabaseExportDao extends UtilTestSuiteWithEmbeddedDB {
 
     @Test(groups = "slow")
@@ -90,6 +92,48 @@ public class TestDatabaseExportDao extends UtilTestSuiteWithEmbeddedDB {
                                      "1,b," + internalCallContext.getAccountRecordId() + "," + internalCallContext.getTenantRecordId() + "\n");
     }
 
+    @Test(groups = "slow")
+    public void testExportDataForMultipleAccounts() throws Exception {
+        final String tableName = "test_database_export_dao_multi";
+        final long otherAccountRecordId = internalCallContext.getAccountRecordId() + 1;
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("drop table if exists " + tableName);
+                handle.execute("create table " + tableName + "(record_id int(11) unsigned not null auto_increment," +
+                               "account_record_id int(11) unsigned not null," +
+                               "tenant_record_id int(11) unsigned default 0," +
+                               "primary key(record_id));");
+                // Insert out of order
+                handle.execute("insert into " + tableName + " (account_record_id, tenant_record_id) values (?, ?)",
+                               otherAccountRecordId, internalCallContext.getTenantRecordId());
+                handle.execute("insert into " + tableName + " (account_record_id, tenant_record_id) values (?, ?)",
+                               internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+                // Different tenant
+                handle.execute("insert into " + tableName + " (account_record_id, tenant_record_id) values (?, ?)",
+                               internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId() + 1);
+                return null;
+            }
+        });
+
+        try {
+            final DatabaseExportOutputStream out = new CSVExportOutputStream(new ByteArrayOutputStream());
+            dao.exportDataForAccounts(out, ImmutableList.<Long>of(otherAccountRecordId, internalCallContext.getAccountRecordId()), internalCallContext);
+            Assert.assertEquals(out.toString(), "-- " + tableName + " record_id,account_record_id,tenant_record_id\n" +
+                                                "2," + internalCallContext.getAccountRecordId() + "," + internalCallContext.getTenantRecordId() + "\n" +
+                                                "1," + otherAccountRecordId + "," + internalCallContext.getTenantRecordId() + "\n");
+        } finally {
+            // Don't leak data in the other tests of this class, which start from an empty database
+            dbi.withHandle(new HandleCallback<Void>() {
+                @Override
+                public Void withHandle(final Handle handle) throws Exception {
+                    handle.execute("drop table if exists " + tableName);
+                    return null;
+                }
+            });
+        }
+    }
+
     private String getDump() {
         final DatabaseExportOutputStream out = new CSVExportOutputStream(new ByteArrayOutputStream());
         dao.exportDataForAccount(out, internalCallContext);
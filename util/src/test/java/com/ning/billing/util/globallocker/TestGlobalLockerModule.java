@@ -16,6 +16,8 @@
 
 package com.ning.billing.util.globallocker;
 
+import org.skife.config.ConfigSource;
+
 import com.ning.billing.commons.embeddeddb.EmbeddedDB;
 import com.ning.billing.mock.glue.MockGlobalLockerModule;
 import com.ning.billing.util.glue.GlobalLockerModule;
@@ -24,16 +26,18 @@ import com.google.inject.AbstractModule;
 
 public class TestGlobalLockerModule extends AbstractModule {
 
+    private final ConfigSource configSource;
     private final EmbeddedDB helper;
 
-    public TestGlobalLockerModule(final EmbeddedDB helper) {
+    public TestGlobalLockerModule(final ConfigSource configSource, final EmbeddedDB helper) {
+        this.configSource = configSource;
         this.helper = helper;
     }
 
     @Override
     protected void configure() {
         if (EmbeddedDB.DBEngine.MYSQL.equals(helper.getDBEngine())) {
-            install(new GlobalLockerModule());
+            install(new GlobalLockerModule(configSource));
         } else {
             install(new MockGlobalLockerModule());
         }
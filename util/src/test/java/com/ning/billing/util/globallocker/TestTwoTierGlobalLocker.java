@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2013 Ning, Inc.
+ *
+ * Ning licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.ning.billing.util.globallocker;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.ning.billing.commons.locker.GlobalLock;
+import com.ning.billing.commons.locker.LockFailedException;
+import com.ning.billing.commons.locker.memory.MemoryGlobalLocker;
+import com.ning.billing.util.UtilTestSuiteNoDB;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestTwoTierGlobalLocker extends UtilTestSuiteNoDB {
+
+    private static final String SERVICE = LockerType.ACCOUNT_FOR_INVOICE_PAYMENTS.toString();
+
+    @Test(groups = "fast")
+    public void testLocalContenderWaitsForRelease() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final TwoTierGlobalLocker locker = new TwoTierGlobalLocker(new MemoryGlobalLocker(), new TimeSpan("1s"), metricRegistry);
+        final String lockKey = UUID.randomUUID().toString();
+
+        final GlobalLock lock = locker.lockWithNumberOfTries(SERVICE, lockKey, 1);
+        Assert.assertFalse(locker.isFree(SERVICE, lockKey));
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Another thread gives up on the local lock, without reaching the delegate
+            final Boolean acquired = executor.submit(new TryLock(locker, lockKey)).get();
+            Assert.assertFalse(acquired);
+            Assert.assertEquals(metricRegistry.meter(MetricRegistry.name(TwoTierGlobalLocker.class, SERVICE, "failures")).getCount(), 1);
+
+            lock.release();
+            Assert.assertTrue(locker.isFree(SERVICE, lockKey));
+            Assert.assertEquals(metricRegistry.timer(MetricRegistry.name(TwoTierGlobalLocker.class, SERVICE, "hold")).getCount(), 1);
+
+            Assert.assertTrue(executor.submit(new TryLock(locker, lockKey)).get());
+            Assert.assertEquals(metricRegistry.timer(MetricRegistry.name(TwoTierGlobalLocker.class, SERVICE, "wait")).getCount(), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testDifferentKeysDoNotConflict() throws Exception {
+        final TwoTierGlobalLocker locker = new TwoTierGlobalLocker(new MemoryGlobalLocker(), new TimeSpan("1s"), new MetricRegistry());
+
+        final GlobalLock lock = locker.lockWithNumberOfTries(SERVICE, UUID.randomUUID().toString(), 1);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Another thread doesn't contend on the local lock of an unrelated key
+            for (int i = 0; i < 100; i++) {
+                Assert.assertTrue(executor.submit(new TryLock(locker, UUID.randomUUID().toString())).get());
+            }
+        } finally {
+            executor.shutdownNow();
+            lock.release();
+        }
+    }
+
+    private static final class TryLock implements Callable<Boolean> {
+
+        private final TwoTierGlobalLocker locker;
+        private final String lockKey;
+
+        private TryLock(final TwoTierGlobalLocker locker, final String lockKey) {
+            this.locker = locker;
+            this.lockKey = lockKey;
+        }
+
+        @Override
+        public Boolean call() {
+            try {
+                locker.lockWithNumberOfTries(SERVICE, lockKey, 1).release();
+                return true;
+            } catch (LockFailedException e) {
+                return false;
+            }
+        }
+    }
+}
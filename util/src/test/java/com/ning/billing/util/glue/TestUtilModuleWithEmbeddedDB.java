@@ -38,6 +38,7 @@ public class TestUtilModuleWithEmbeddedDB extends TestUtilModule {
         install(new BusModule(configSource));
         install(new NotificationQueueModule(configSource));
         install(new NonEntityDaoModule());
-        install(new GlobalLockerModule());
+        install(new GlobalLockerModule(configSource));
+        install(new ExportModule(configSource));
     }
 }
@@ -20,13 +20,16 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.UUID;
 
+import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
 import org.apache.shiro.session.mgt.SimpleSession;
 import org.skife.jdbi.v2.DBI;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.ning.billing.util.UtilTestSuiteWithEmbeddedDB;
+import com.ning.billing.util.security.api.DefaultSecurityService;
 
 public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
 
@@ -56,6 +59,68 @@ public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertNull(jdbcSessionDao.doReadSession(session.getId()));
     }
 
+    @Test(groups = "slow")
+    public void testLastAccessWriteBehind() throws Exception {
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao((DBI) dbi, 3600 * 1000L);
+        // Write-through instance, to look at the database state
+        final JDBCSessionDao readerDao = new JDBCSessionDao((DBI) dbi);
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+        final Date initialLastAccessTime = readerDao.doReadSession(sessionId).getLastAccessTime();
+
+        // Touch only: the update is deferred
+        session.setLastAccessTime(new Date(initialLastAccessTime.getTime() + 1000));
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), initialLastAccessTime);
+        Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+
+        // Attribute change: written immediately
+        final String newHost = UUID.randomUUID().toString();
+        session.setHost(newHost);
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(readerDao.doReadSession(sessionId).getHost(), newHost);
+        Assert.assertEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+
+        // Deferred touch, written by the flush
+        session.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + 1000));
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertNotEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+        jdbcSessionDao.flushLastAccessUpdates();
+        Assert.assertEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+
+        jdbcSessionDao.destroy();
+    }
+
+    @Test(groups = "slow")
+    public void testPendingLastAccessUpdatesAreFlushedOnStop() throws Exception {
+        final JDBCSessionDao jdbcSessionDao = new JDBCSessionDao((DBI) dbi, 3600 * 1000L);
+        final JDBCSessionDao readerDao = new JDBCSessionDao((DBI) dbi);
+
+        final DefaultSessionManager sessionManager = new DefaultSessionManager();
+        sessionManager.setSessionDAO(jdbcSessionDao);
+        final DefaultSecurityManager securityManager = new DefaultSecurityManager();
+        securityManager.setSessionManager(sessionManager);
+        final DefaultSecurityService securityService = new DefaultSecurityService(securityManager);
+        securityService.initialize();
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+
+        session.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + 1000));
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertNotEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+
+        // The lifecycle stop hook flushes the pending update
+        securityService.stop();
+        Assert.assertEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+
+        // Once stopped, nothing would flush: updates are written through
+        session.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + 1000));
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(readerDao.doReadSession(sessionId).getLastAccessTime(), session.getLastAccessTime());
+    }
+
     private SimpleSession createSession() {
         final SimpleSession simpleSession = new SimpleSession();
         simpleSession.setStartTimestamp(new Date(System.currentTimeMillis() - 5000));
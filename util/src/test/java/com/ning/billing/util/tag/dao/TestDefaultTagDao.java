@@ -25,10 +25,12 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.ning.billing.ErrorCode;
 import com.ning.billing.ObjectType;
 import com.ning.billing.api.TestApiListener;
 import com.ning.billing.api.TestApiListener.NextEvent;
 import com.ning.billing.util.UtilTestSuiteWithEmbeddedDB;
+import com.ning.billing.util.api.TagApiException;
 import com.ning.billing.util.api.TagDefinitionApiException;
 import com.ning.billing.util.tag.ControlTagType;
 import com.ning.billing.util.tag.DescriptiveTag;
@@ -173,4 +175,48 @@ public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertEquals(tagSecondEventReceived.getUserToken(), internalCallContext.getUserToken());
         */
     }
+
+    @Test(groups = "slow")
+    public void testDuplicateTagAndAccountTypeFilter() throws Exception {
+        final String definitionName = UUID.randomUUID().toString().substring(0, 5);
+        final String description = UUID.randomUUID().toString().substring(0, 5);
+        final UUID objectId = UUID.randomUUID();
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
+        final TagDefinitionModelDao createdTagDefinition = tagDefinitionDao.create(definitionName, description, internalCallContext);
+        Assert.assertTrue(eventsListener.isCompleted(2000));
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(createdTagDefinition.getId(), ObjectType.INVOICE, objectId, internalCallContext.getCreatedDate())), internalCallContext);
+        Assert.assertTrue(eventsListener.isCompleted(2000));
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(createdTagDefinition.getId(), ObjectType.BUNDLE, objectId, internalCallContext.getCreatedDate())), internalCallContext);
+        Assert.assertTrue(eventsListener.isCompleted(2000));
+
+        // The same definition on the same object cannot be added twice
+        try {
+            tagDao.create(new TagModelDao(new DescriptiveTag(createdTagDefinition.getId(), ObjectType.INVOICE, objectId, internalCallContext.getCreatedDate())), internalCallContext);
+            Assert.fail("Duplicate tag should have been rejected");
+        } catch (TagApiException e) {
+            Assert.assertEquals(e.getCode(), ErrorCode.TAG_ALREADY_EXISTS.getCode());
+        }
+
+        final List<TagModelDao> invoiceTags = tagDao.getTagsForAccountType(UUID.randomUUID(), ObjectType.INVOICE, internalCallContext);
+        Assert.assertEquals(invoiceTags.size(), 1);
+        Assert.assertEquals(invoiceTags.get(0).getObjectType(), ObjectType.INVOICE);
+        Assert.assertEquals(tagDao.getTagsForAccountType(UUID.randomUUID(), ObjectType.BUNDLE, internalCallContext).size(), 1);
+        Assert.assertEquals(tagDao.getTagsForAccount(UUID.randomUUID(), internalCallContext).size(), 2);
+
+        // Once deleted, the tag can be added again
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.deleteTag(objectId, ObjectType.INVOICE, createdTagDefinition.getId(), internalCallContext);
+        Assert.assertTrue(eventsListener.isCompleted(2000));
+        Assert.assertEquals(tagDao.getTagsForAccountType(UUID.randomUUID(), ObjectType.INVOICE, internalCallContext).size(), 0);
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(createdTagDefinition.getId(), ObjectType.INVOICE, objectId, internalCallContext.getCreatedDate())), internalCallContext);
+        Assert.assertTrue(eventsListener.isCompleted(2000));
+        Assert.assertEquals(tagDao.getTagsForAccountType(UUID.randomUUID(), ObjectType.INVOICE, internalCallContext).size(), 1);
+    }
 }